@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.greenplum.pxf.api;
+
+import java.util.List;
+
+/**
+ * Interface of write accessor which can write a batch of rows at once.
+ * <p>
+ * When the accessor implements it, the rows of a pipelined write request are
+ * passed to {@link #writeNextBatch(List)} a batch at a time instead of one by
+ * one to {@link WriteAccessor#writeNextObject(OneRow)}.
+ */
+public interface BatchWriteAccessor extends WriteAccessor {
+
+    /**
+     * Writes a batch of rows, in order. The rows and the list are reused by
+     * the caller once this method returns, so they must not be kept.
+     *
+     * @param rows the rows to be written
+     * @return true if all the rows were written
+     * @throws Exception writing to the resource failed
+     */
+    boolean writeNextBatch(List<OneRow> rows) throws Exception;
+}
@@ -0,0 +1,106 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of rows held by columns: one {@link ColumnVector} per column of the
+ * request, in the order of the columns of the table.
+ * <p>
+ * A {@link ColumnBatchResolver} fills the batch, and the bridge serializes
+ * the rows straight from the vectors. The batch and its vectors are reused
+ * from one batch of the accessor to the next.
+ */
+public class ColumnBatch {
+
+    private final ColumnVector[] columns;
+    private int size;
+
+    /**
+     * Constructs an empty ColumnBatch.
+     *
+     * @param columnCount number of columns of the batch
+     */
+    public ColumnBatch(int columnCount) {
+        columns = new ColumnVector[columnCount];
+    }
+
+    /**
+     * @return number of columns of the batch
+     */
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @param index column index
+     * @return the vector of the column, null if it was not set
+     */
+    public ColumnVector getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Sets the vector of a column.
+     *
+     * @param index column index
+     * @param column the vector of the column
+     */
+    public void setColumn(int index, ColumnVector column) {
+        columns[index] = column;
+    }
+
+    /**
+     * @return number of rows of the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the number of rows of the batch.
+     *
+     * @param size number of rows
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Returns the rows of the batch as lists of fields, for the code working
+     * row by row. Every value is boxed, so this defeats the purpose of the
+     * batch and should be avoided on the read path.
+     *
+     * @return one list of fields per row
+     */
+    public List<List<OneField>> toFields() {
+        List<List<OneField>> rows = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            List<OneField> fields = new ArrayList<>(columns.length);
+            for (ColumnVector column : columns) {
+                fields.add(new OneField(column.type, column.getObject(row)));
+            }
+            rows.add(fields);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.greenplum.pxf.api;
+
+/**
+ * Interface of vectorized read resolver which resolves a batch of records
+ * into a {@link ColumnBatch}, without creating a {@link OneField} per value.
+ * <p>
+ * When a {@link ReadVectorizedResolver} also implements it, the bridge
+ * serializes the rows straight from the column vectors. Its
+ * {@link ReadVectorizedResolver#getFieldsForBatch(OneRow)} is still used when
+ * the records have to be processed row by row.
+ */
+public interface ColumnBatchResolver {
+
+    /**
+     * Resolves a batch of records. The resolver sets the size of the batch,
+     * and a vector for every column: the vectors of the columns without
+     * values are made all null.
+     *
+     * @param batch unresolved batch
+     * @param columns the batch to fill, with one column per column of the
+     *            table
+     * @throws Exception if the batch could not be resolved
+     */
+    void getColumnsForBatch(OneRow batch, ColumnBatch columns) throws Exception;
+}
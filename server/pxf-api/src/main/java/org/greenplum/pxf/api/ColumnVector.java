@@ -0,0 +1,243 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.greenplum.pxf.api.io.DataType;
+
+/**
+ * The values of one column for all the rows of a {@link ColumnBatch}.
+ * <p>
+ * Values are kept in primitive arrays, in the subclass matching the type of
+ * the column, so that a resolver can fill a column without creating an object
+ * per value. Like the vectors of the Hive vectorized reader, the fields are
+ * public and the arrays may be shared with the reader of the format:
+ * <ul>
+ * <li>{@link #isNull} holds the null mask of the rows, it is only valid when
+ * {@link #noNulls} is false;</li>
+ * <li>when {@link #isRepeating} is true, all the rows have the value (and the
+ * nullness) of row 0.</li>
+ * </ul>
+ */
+public abstract class ColumnVector {
+
+    /** OID value recognized by GPDBWritable. */
+    public final int type;
+
+    /** Null mask of the rows, only valid when noNulls is false. */
+    public boolean[] isNull;
+
+    /** Whether no row of the column is null. */
+    public boolean noNulls = true;
+
+    /** Whether all the rows have the value of row 0. */
+    public boolean isRepeating;
+
+    /**
+     * Constructs a ColumnVector.
+     *
+     * @param type the OID value recognized by GPDBWritable
+     */
+    protected ColumnVector(int type) {
+        this.type = type;
+    }
+
+    /**
+     * Sets the nullness of the column, sharing the given mask.
+     *
+     * @param isNull null mask of the rows
+     * @param noNulls whether no row is null, the mask is ignored if true
+     * @param isRepeating whether all the rows have the value of row 0
+     */
+    public void setNulls(boolean[] isNull, boolean noNulls, boolean isRepeating) {
+        this.isNull = isNull;
+        this.noNulls = noNulls;
+        this.isRepeating = isRepeating;
+    }
+
+    /**
+     * Makes all the rows of the column null.
+     */
+    public void setAllNull() {
+        if (isNull == null || isNull.length == 0) {
+            isNull = new boolean[1];
+        }
+        isNull[0] = true;
+        noNulls = false;
+        isRepeating = true;
+    }
+
+    /**
+     * @param row row index
+     * @return index of the value of the row in the arrays of the vector
+     */
+    public int index(int row) {
+        return isRepeating ? 0 : row;
+    }
+
+    /**
+     * @param row row index
+     * @return true if the value of the row is null
+     */
+    public boolean isNull(int row) {
+        return !noNulls && isNull[index(row)];
+    }
+
+    /**
+     * Returns the value of the row as the object a resolver would put in a
+     * {@link OneField} of the column type.
+     *
+     * @param row row index
+     * @return the value of the row, null if the row is null
+     */
+    public Object getObject(int row) {
+        return isNull(row) ? null : getValue(index(row));
+    }
+
+    /**
+     * @param index index in the arrays of the vector of a non-null value
+     * @return the value as an object
+     */
+    protected abstract Object getValue(int index);
+
+    /**
+     * Column of BOOLEAN (0 or 1), SMALLINT, INTEGER or BIGINT values.
+     */
+    public static class LongVector extends ColumnVector {
+        /** The values of the rows. */
+        public long[] vector;
+
+        /**
+         * Constructs an empty LongVector.
+         *
+         * @param type the OID value recognized by GPDBWritable
+         */
+        public LongVector(int type) {
+            super(type);
+        }
+
+        @Override
+        protected Object getValue(int index) {
+            long value = vector[index];
+            switch (DataType.get(type)) {
+                case BOOLEAN:
+                    return value != 0;
+                case SMALLINT:
+                    return (short) value;
+                case INTEGER:
+                    return (int) value;
+                default:
+                    return value;
+            }
+        }
+    }
+
+    /**
+     * Column of REAL or FLOAT8 values.
+     */
+    public static class DoubleVector extends ColumnVector {
+        /** The values of the rows. */
+        public double[] vector;
+
+        /**
+         * Constructs an empty DoubleVector.
+         *
+         * @param type the OID value recognized by GPDBWritable
+         */
+        public DoubleVector(int type) {
+            super(type);
+        }
+
+        @Override
+        protected Object getValue(int index) {
+            double value = vector[index];
+            return (DataType.get(type) == DataType.REAL) ? (Object) (float) value : (Object) value;
+        }
+    }
+
+    /**
+     * Column of BYTEA values, or of strings encoded in UTF-8. Each value is a
+     * slice of a byte array, so the values of many rows can share the same
+     * array.
+     */
+    public static class BytesVector extends ColumnVector {
+        /** The arrays holding the values of the rows. */
+        public byte[][] vector;
+        /** The offsets of the values in their arrays. */
+        public int[] start;
+        /** The lengths of the values. */
+        public int[] length;
+
+        /**
+         * Constructs an empty BytesVector.
+         *
+         * @param type the OID value recognized by GPDBWritable
+         */
+        public BytesVector(int type) {
+            super(type);
+        }
+
+        /**
+         * Sets the values of the column, sharing the given arrays.
+         *
+         * @param vector the arrays holding the values
+         * @param start the offsets of the values in their arrays
+         * @param length the lengths of the values
+         */
+        public void setValues(byte[][] vector, int[] start, int[] length) {
+            this.vector = vector;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        protected Object getValue(int index) {
+            if (DataType.get(type) == DataType.BYTEA) {
+                return Arrays.copyOfRange(vector[index], start[index], start[index] + length[index]);
+            }
+            return new String(vector[index], start[index], length[index], StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Column of values of any other type, such as NUMERIC, DATE or TIMESTAMP,
+     * serialized by their string representation.
+     */
+    public static class ObjectVector extends ColumnVector {
+        /** The values of the rows, null for null rows. */
+        public Object[] vector;
+
+        /**
+         * Constructs an empty ObjectVector.
+         *
+         * @param type the OID value recognized by GPDBWritable
+         */
+        public ObjectVector(int type) {
+            super(type);
+        }
+
+        @Override
+        protected Object getValue(int index) {
+            return vector[index];
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.greenplum.pxf.api;
+
+/**
+ * Interface of read resolver which can skip the columns not projected by the
+ * query.
+ * <p>
+ * When the resolver implements it, the bridge gives it the columns to decode:
+ * the fields of the other columns are returned with a null value, without
+ * decoding anything. The list of fields still holds one field per column of
+ * the table.
+ */
+public interface ProjectionResolver extends ReadResolver {
+
+    /**
+     * Sets the columns to decode. All the columns are decoded until this
+     * method is called.
+     *
+     * @param projection for each column of the table, whether its value is
+     *            needed
+     */
+    void setProjection(boolean[] projection);
+}
@@ -0,0 +1,131 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Read-only view of a record sent by GPDB for a write request, with typed
+ * accessors reading the column values directly from the received packet.
+ * <p>
+ * The column types are the OIDs of the types GPDB serializes natively
+ * (BIGINT, BOOLEAN, FLOAT8, INTEGER, REAL, SMALLINT and BYTEA); every other
+ * column is received as TEXT. The values of BYTEA and TEXT columns can be read
+ * without copy from {@link #getBuffer()}, at {@link #getValueOffset(int)} for
+ * {@link #getValueLength(int)} bytes, which for a TEXT column are its UTF-8
+ * encoding.
+ * <p>
+ * A view is reused for the following records, so it is only valid until the
+ * next record is read: the values kept after that must be copied.
+ */
+public interface RecordView {
+
+    /**
+     * @return number of columns of the record
+     */
+    int getColumnCount();
+
+    /**
+     * @param col column index
+     * @return the type OID of the column
+     */
+    int getColumnType(int col);
+
+    /**
+     * @param col column index
+     * @return true if the value of the column is null
+     */
+    boolean isNull(int col);
+
+    /**
+     * @param col index of a BIGINT column
+     * @return the value of the column
+     */
+    long getLong(int col);
+
+    /**
+     * @param col index of an INTEGER column
+     * @return the value of the column
+     */
+    int getInt(int col);
+
+    /**
+     * @param col index of a SMALLINT column
+     * @return the value of the column
+     */
+    short getShort(int col);
+
+    /**
+     * @param col index of a FLOAT8 column
+     * @return the value of the column
+     */
+    double getDouble(int col);
+
+    /**
+     * @param col index of a REAL column
+     * @return the value of the column
+     */
+    float getFloat(int col);
+
+    /**
+     * @param col index of a BOOLEAN column
+     * @return the value of the column
+     */
+    boolean getBoolean(int col);
+
+    /**
+     * @param col index of a TEXT column
+     * @return the value of the column decoded from UTF-8
+     */
+    String getString(int col);
+
+    /**
+     * @param col index of a BYTEA or TEXT column
+     * @return a copy of the bytes of the value
+     */
+    byte[] getBytes(int col);
+
+    /**
+     * @return the buffer holding the record, valid until the next record is
+     *         read
+     */
+    byte[] getBuffer();
+
+    /**
+     * @param col index of a non null column
+     * @return offset of the value of the column in {@link #getBuffer()}
+     */
+    int getValueOffset(int col);
+
+    /**
+     * @param col index of a non null column
+     * @return length in bytes of the value of the column, without the
+     *         terminating zero of TEXT values
+     */
+    int getValueLength(int col);
+
+    /**
+     * Returns the value of the column as an object: Long, Boolean, Double,
+     * Integer, Float, Short, byte[] or String according to the column type,
+     * as it would be in a {@link OneField}.
+     *
+     * @param col column index
+     * @return the value of the column, null if it is null
+     */
+    Object getValue(int col);
+}
@@ -0,0 +1,42 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Interface of write resolver which can convert a record directly from a
+ * {@link RecordView}, without the list of {@link OneField} built for
+ * {@link WriteResolver#setFields(java.util.List)}.
+ * <p>
+ * It is used for the records sent in GPDBWritable format. The list based
+ * method is still used for the TEXT format.
+ */
+public interface RecordViewWriteResolver extends WriteResolver {
+
+    /**
+     * Constructs and sets the fields of a {@link OneRow} from the record.
+     * The view is reused for the next record, so the row must not refer to
+     * its buffer.
+     *
+     * @param record the record sent by GPDB
+     * @return the constructed {@link OneRow}
+     * @throws Exception if constructing a row from the record failed
+     */
+    OneRow setFields(RecordView record) throws Exception;
+}
@@ -0,0 +1,287 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.InputData;
+
+/**
+ * A reusable row holding its values by type, so that a
+ * {@link RowBufferResolver} can resolve a record without creating a
+ * {@link OneField} and a boxed value per column.
+ * <p>
+ * The values are kept in a {@link ColumnBatch} of one row, which the bridge
+ * serializes like the batches of a {@link ColumnBatchResolver}. Each column
+ * keeps its vector from one row to the next, as long as it is set with the
+ * same type. Values set from byte arrays are not copied: the arrays must not
+ * be modified until the row is serialized.
+ */
+public class RowBuffer {
+
+    private final int[] columnTypes;
+    private final ColumnBatch columns;
+
+    /**
+     * Constructs an empty RowBuffer with the columns of the request.
+     *
+     * @param inputData the request
+     */
+    public RowBuffer(InputData inputData) {
+        columnTypes = new int[inputData.getColumns()];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnTypes[i] = inputData.getColumn(i).columnTypeCode();
+        }
+        columns = new ColumnBatch(columnTypes.length);
+        columns.setSize(1);
+    }
+
+    /**
+     * @return number of columns of the row
+     */
+    public int getColumnCount() {
+        return columnTypes.length;
+    }
+
+    /**
+     * @return the row as a column batch of one row
+     */
+    public ColumnBatch getColumnBatch() {
+        return columns;
+    }
+
+    /**
+     * Makes all the columns of the row null. The vectors of the columns are
+     * kept for the next row.
+     */
+    public void clear() {
+        for (int i = 0; i < columnTypes.length; i++) {
+            ColumnVector vector = columns.getColumn(i);
+            if (vector != null) {
+                vector.isNull[0] = true;
+            }
+        }
+    }
+
+    /**
+     * Makes the value of a column null.
+     *
+     * @param index column index
+     */
+    public void setNull(int index) {
+        ColumnVector vector = columns.getColumn(index);
+        if (vector != null) {
+            vector.isNull[0] = true;
+        }
+    }
+
+    /**
+     * @param index column index
+     * @return true if the value of the column is null
+     */
+    public boolean isNull(int index) {
+        ColumnVector vector = columns.getColumn(index);
+        return vector == null || vector.isNull[0];
+    }
+
+    /**
+     * Sets a BOOLEAN value.
+     *
+     * @param index column index
+     * @param value the value
+     */
+    public void setBoolean(int index, boolean value) {
+        longVector(index, DataType.BOOLEAN).vector[0] = value ? 1 : 0;
+    }
+
+    /**
+     * Sets a SMALLINT value.
+     *
+     * @param index column index
+     * @param value the value
+     */
+    public void setShort(int index, short value) {
+        longVector(index, DataType.SMALLINT).vector[0] = value;
+    }
+
+    /**
+     * Sets an INTEGER value.
+     *
+     * @param index column index
+     * @param value the value
+     */
+    public void setInt(int index, int value) {
+        longVector(index, DataType.INTEGER).vector[0] = value;
+    }
+
+    /**
+     * Sets a BIGINT value.
+     *
+     * @param index column index
+     * @param value the value
+     */
+    public void setLong(int index, long value) {
+        longVector(index, DataType.BIGINT).vector[0] = value;
+    }
+
+    /**
+     * Sets a REAL value.
+     *
+     * @param index column index
+     * @param value the value
+     */
+    public void setFloat(int index, float value) {
+        doubleVector(index, DataType.REAL).vector[0] = value;
+    }
+
+    /**
+     * Sets a FLOAT8 value.
+     *
+     * @param index column index
+     * @param value the value
+     */
+    public void setDouble(int index, double value) {
+        doubleVector(index, DataType.FLOAT8).vector[0] = value;
+    }
+
+    /**
+     * Sets a BYTEA value, sharing the given array.
+     *
+     * @param index column index
+     * @param value array holding the value, null for a null value
+     * @param start offset of the value in the array
+     * @param length length of the value
+     */
+    public void setBytes(int index, byte[] value, int start, int length) {
+        setBytes(index, DataType.BYTEA, value, start, length);
+    }
+
+    /**
+     * Sets a TEXT value encoded in UTF-8, sharing the given array.
+     *
+     * @param index column index
+     * @param value array holding the encoded value, null for a null value
+     * @param start offset of the value in the array
+     * @param length length of the value
+     */
+    public void setString(int index, byte[] value, int start, int length) {
+        setBytes(index, DataType.TEXT, value, start, length);
+    }
+
+    /**
+     * Sets a TEXT value.
+     *
+     * @param index column index
+     * @param value the value, may be null
+     */
+    public void setString(int index, String value) {
+        setObject(index, DataType.TEXT.getOID(), value);
+    }
+
+    /**
+     * Sets a value of any other type, such as NUMERIC, DATE or TIMESTAMP,
+     * serialized by its string representation.
+     *
+     * @param index column index
+     * @param type the OID value recognized by GPDBWritable
+     * @param value the value, may be null
+     */
+    public void setObject(int index, int type, Object value) {
+        if (value == null) {
+            setNull(index);
+            return;
+        }
+        ColumnVector vector = columns.getColumn(index);
+        if (!(vector instanceof ColumnVector.ObjectVector) || vector.type != type) {
+            ColumnVector.ObjectVector objects = new ColumnVector.ObjectVector(type);
+            objects.vector = new Object[1];
+            vector = newVector(index, objects);
+        }
+        ((ColumnVector.ObjectVector) vector).vector[0] = value;
+        vector.isNull[0] = false;
+    }
+
+    /**
+     * Returns the row as a list of fields, for the code working with
+     * {@link OneField}. The columns which were never set are null fields of
+     * the type of the column in the request.
+     *
+     * @return the fields of the row
+     */
+    public List<OneField> toFields() {
+        List<OneField> fields = new ArrayList<>(columnTypes.length);
+        for (int i = 0; i < columnTypes.length; i++) {
+            ColumnVector vector = columns.getColumn(i);
+            fields.add((vector == null)
+                    ? new OneField(columnTypes[i], null)
+                    : new OneField(vector.type, vector.getObject(0)));
+        }
+        return fields;
+    }
+
+    private void setBytes(int index, DataType type, byte[] value, int start, int length) {
+        if (value == null) {
+            setNull(index);
+            return;
+        }
+        ColumnVector vector = columns.getColumn(index);
+        if (!(vector instanceof ColumnVector.BytesVector) || vector.type != type.getOID()) {
+            ColumnVector.BytesVector bytes = new ColumnVector.BytesVector(type.getOID());
+            bytes.setValues(new byte[1][], new int[1], new int[1]);
+            vector = newVector(index, bytes);
+        }
+        ColumnVector.BytesVector bytes = (ColumnVector.BytesVector) vector;
+        bytes.vector[0] = value;
+        bytes.start[0] = start;
+        bytes.length[0] = length;
+        bytes.isNull[0] = false;
+    }
+
+    private ColumnVector.LongVector longVector(int index, DataType type) {
+        ColumnVector vector = columns.getColumn(index);
+        if (!(vector instanceof ColumnVector.LongVector) || vector.type != type.getOID()) {
+            ColumnVector.LongVector longs = new ColumnVector.LongVector(type.getOID());
+            longs.vector = new long[1];
+            vector = newVector(index, longs);
+        }
+        vector.isNull[0] = false;
+        return (ColumnVector.LongVector) vector;
+    }
+
+    private ColumnVector.DoubleVector doubleVector(int index, DataType type) {
+        ColumnVector vector = columns.getColumn(index);
+        if (!(vector instanceof ColumnVector.DoubleVector) || vector.type != type.getOID()) {
+            ColumnVector.DoubleVector doubles = new ColumnVector.DoubleVector(type.getOID());
+            doubles.vector = new double[1];
+            vector = newVector(index, doubles);
+        }
+        vector.isNull[0] = false;
+        return (ColumnVector.DoubleVector) vector;
+    }
+
+    /* the nullness of the row is always read from the mask */
+    private ColumnVector newVector(int index, ColumnVector vector) {
+        vector.setNulls(new boolean[1], false, false);
+        columns.setColumn(index, vector);
+        return vector;
+    }
+}
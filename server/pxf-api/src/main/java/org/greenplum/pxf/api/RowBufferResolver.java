@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.greenplum.pxf.api;
+
+/**
+ * Interface of read resolver which resolves a record into a reusable
+ * {@link RowBuffer}, without creating a {@link OneField} per value.
+ * <p>
+ * When a {@link ReadResolver} also implements it, the bridge serializes the
+ * rows straight from the buffer. Its {@link ReadResolver#getFields(OneRow)}
+ * is still used when the records have to be processed as fields (text
+ * output, evaluated filter), and can be implemented with
+ * {@link RowBuffer#toFields()}.
+ */
+public interface RowBufferResolver {
+
+    /**
+     * Resolves a record into the buffer. The buffer is cleared before each
+     * record, so the columns without values can be left unset.
+     *
+     * @param row unresolved record
+     * @param buffer the buffer to fill, with one column per column of the
+     *            table
+     * @throws Exception if the record could not be resolved
+     */
+    void fillRow(OneRow row, RowBuffer buffer) throws Exception;
+}
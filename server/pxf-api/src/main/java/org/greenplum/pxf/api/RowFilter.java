@@ -0,0 +1,473 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.InputData;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Row predicate compiled from the filter string of the request, for the
+ * formats that have no filter pushdown of their own. It is evaluated on the
+ * fields returned by the resolver, one field per column of the table, so that
+ * the records that do not match the filter are dropped before being
+ * serialized and sent to GPDB.
+ * <p>
+ * GPDB applies the filter again to the records it receives, so the predicate
+ * only has to be conservative: a record is dropped only when it is known not
+ * to match. Comparisons the predicate cannot evaluate exactly like GPDB
+ * (ordering of strings, which depends on the collation, floating point values
+ * close to the constant, values of unexpected types, ...) are unknown and keep
+ * the record, as do comparisons with NULL. Supported are the comparison operators, LIKE, IN, IS NULL and IS
+ * NOT NULL, combined with AND, OR and NOT.
+ */
+public abstract class RowFilter {
+
+    /** Three-valued result of the evaluation of a predicate. */
+    enum Result {
+        TRUE, FALSE, UNKNOWN;
+
+        static Result valueOf(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        Result not() {
+            return this == UNKNOWN ? UNKNOWN : valueOf(this == FALSE);
+        }
+    }
+
+    /**
+     * Compiles the filter string of the request.
+     *
+     * @param inputData input data of the request, with the filter string and
+     *            the columns of the table
+     * @return the row filter, null if the request has no filter
+     * @throws Exception if parsing the filter string failed
+     */
+    public static RowFilter compile(InputData inputData) throws Exception {
+        if (!inputData.hasFilter()) {
+            return null;
+        }
+        Object result = new FilterParser(new Builder(inputData))
+                .parse(inputData.getFilterString().getBytes(FilterParser.DEFAULT_CHARSET));
+        if (!(result instanceof RowFilter)) {
+            throw new Exception("String " + inputData.getFilterString()
+                    + " resolved to no filter");
+        }
+        return (RowFilter) result;
+    }
+
+    /**
+     * Returns true unless the record is known not to match the filter.
+     *
+     * @param fields the fields of the record, one per column of the table
+     * @return false if the record can be dropped
+     */
+    public boolean accept(List<OneField> fields) {
+        return evaluate(fields) != Result.FALSE;
+    }
+
+    /**
+     * Returns the columns whose values are needed to evaluate the filter.
+     *
+     * @return the indexes of the columns
+     */
+    public BitSet getColumns() {
+        BitSet columns = new BitSet();
+        addColumns(columns);
+        return columns;
+    }
+
+    abstract Result evaluate(List<OneField> fields);
+
+    void addColumns(BitSet columns) {
+    }
+
+    /**
+     * Builds the row filters of the nodes of the parsed filter.
+     */
+    static class Builder implements FilterParser.FilterBuilder {
+        private final InputData inputData;
+
+        Builder(InputData inputData) {
+            this.inputData = inputData;
+        }
+
+        @Override
+        public Object build(FilterParser.Operation operation, Object left, Object right) {
+            if (!(left instanceof FilterParser.ColumnIndex) || !(right instanceof FilterParser.Constant)) {
+                return UNKNOWN_FILTER;
+            }
+            int index = ((FilterParser.ColumnIndex) left).index();
+            if (index < 0) {
+                return UNKNOWN_FILTER;
+            }
+            Object constant = ((FilterParser.Constant) right).constant();
+            boolean fixedChar = isFixedChar(index);
+            switch (operation) {
+                case HDOP_IN:
+                    return (constant instanceof List)
+                            ? new In(index, (List<?>) constant, fixedChar)
+                            : UNKNOWN_FILTER;
+                case HDOP_LIKE:
+                    return (constant instanceof String && !fixedChar)
+                            ? new Like(index, (String) constant)
+                            : UNKNOWN_FILTER;
+                default:
+                    return new Comparison(operation, index, constant, fixedChar);
+            }
+        }
+
+        @Override
+        public Object build(FilterParser.Operation operation, Object operand) {
+            if (!(operand instanceof FilterParser.ColumnIndex)) {
+                return UNKNOWN_FILTER;
+            }
+            int index = ((FilterParser.ColumnIndex) operand).index();
+            if (index < 0) {
+                return UNKNOWN_FILTER;
+            }
+            switch (operation) {
+                case HDOP_IS_NULL:
+                    return new IsNull(index, true);
+                case HDOP_IS_NOT_NULL:
+                    return new IsNull(index, false);
+                default:
+                    return UNKNOWN_FILTER;
+            }
+        }
+
+        @Override
+        public Object build(FilterParser.LogicalOperation operation, Object left, Object right) {
+            return new Logical(operation, toFilter(left), toFilter(right));
+        }
+
+        @Override
+        public Object build(FilterParser.LogicalOperation operation, Object filter) {
+            return new Logical(operation, toFilter(filter), null);
+        }
+
+        private RowFilter toFilter(Object operand) {
+            return (operand instanceof RowFilter) ? (RowFilter) operand : UNKNOWN_FILTER;
+        }
+
+        /*
+         * Trailing spaces are not significant in bpchar values, so their
+         * comparisons are left to GPDB.
+         */
+        private boolean isFixedChar(int index) {
+            if (index < 0 || index >= inputData.getColumns()) {
+                return true;
+            }
+            ColumnDescriptor column = inputData.getColumn(index);
+            return DataType.get(column.columnTypeCode()) == DataType.BPCHAR;
+        }
+    }
+
+    /** Relative difference under which floating point values are not compared. */
+    private static final double FLOAT_TOLERANCE = 1e-6;
+
+    /** Filter of the nodes that cannot be evaluated. */
+    static final RowFilter UNKNOWN_FILTER = new RowFilter() {
+        @Override
+        Result evaluate(List<OneField> fields) {
+            return Result.UNKNOWN;
+        }
+    };
+
+    /**
+     * Returns the value of the column, or null when the column is NULL or not
+     * in the record.
+     */
+    static Object getValue(List<OneField> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        OneField field = fields.get(index);
+        return (field == null) ? null : field.val;
+    }
+
+    /**
+     * Compares a value with a constant. Returns null when they cannot be
+     * compared the way GPDB compares them.
+     */
+    static Integer compare(Object value, Object constant, boolean equality) {
+        if (value == null || constant == null) {
+            return null;
+        }
+        if (value instanceof Number && constant instanceof Number) {
+            return compareNumbers((Number) value, (Number) constant);
+        }
+        if (value instanceof String && constant instanceof String) {
+            // the order of strings depends on the collation of the database
+            return equality ? (value.equals(constant) ? 0 : 1) : null;
+        }
+        if (value instanceof Boolean && constant instanceof Boolean) {
+            return ((Boolean) value).compareTo((Boolean) constant);
+        }
+        if (value.getClass() == constant.getClass()
+                && (value instanceof java.util.Date)) {
+            return ((java.util.Date) value).compareTo((java.util.Date) constant);
+        }
+        return null;
+    }
+
+    private static Integer compareNumbers(Number value, Number constant) {
+        if (isIntegral(value) && isIntegral(constant)) {
+            long left = value.longValue();
+            long right = constant.longValue();
+            return (left < right) ? -1 : ((left == right) ? 0 : 1);
+        }
+        double left = value.doubleValue();
+        double right = constant.doubleValue();
+        if (Double.isNaN(left) || Double.isNaN(right)
+                || Double.isInfinite(left) || Double.isInfinite(right)) {
+            return null;
+        }
+        /*
+         * The constants of the filter string were printed by GPDB and may
+         * have lost some precision, so close values are not compared.
+         */
+        if (Math.abs(left - right) <= FLOAT_TOLERANCE * Math.max(Math.abs(left), Math.abs(right))) {
+            return null;
+        }
+        return (left < right) ? -1 : 1;
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer
+                || number instanceof Short || number instanceof Byte;
+    }
+
+    /** Comparison of a column with a constant. */
+    static class Comparison extends RowFilter {
+        private final FilterParser.Operation operation;
+        private final int index;
+        private final Object constant;
+        private final boolean fixedChar;
+
+        Comparison(FilterParser.Operation operation, int index, Object constant, boolean fixedChar) {
+            this.operation = operation;
+            this.index = index;
+            this.constant = constant;
+            this.fixedChar = fixedChar;
+        }
+
+        @Override
+        void addColumns(BitSet columns) {
+            columns.set(index);
+        }
+
+        @Override
+        Result evaluate(List<OneField> fields) {
+            Object value = getValue(fields, index);
+            boolean equality = operation == FilterParser.Operation.HDOP_EQ
+                    || operation == FilterParser.Operation.HDOP_NE;
+            if (fixedChar && value instanceof String) {
+                return Result.UNKNOWN;
+            }
+            Integer cmp = compare(value, constant, equality);
+            if (cmp == null) {
+                return Result.UNKNOWN;
+            }
+            switch (operation) {
+                case HDOP_LT:
+                    return Result.valueOf(cmp < 0);
+                case HDOP_GT:
+                    return Result.valueOf(cmp > 0);
+                case HDOP_LE:
+                    return Result.valueOf(cmp <= 0);
+                case HDOP_GE:
+                    return Result.valueOf(cmp >= 0);
+                case HDOP_EQ:
+                    return Result.valueOf(cmp == 0);
+                case HDOP_NE:
+                    return Result.valueOf(cmp != 0);
+                default:
+                    return Result.UNKNOWN;
+            }
+        }
+    }
+
+    /** IN list of constants. */
+    static class In extends RowFilter {
+        private final int index;
+        private final List<?> constants;
+        private final boolean fixedChar;
+
+        In(int index, List<?> constants, boolean fixedChar) {
+            this.index = index;
+            this.constants = constants;
+            this.fixedChar = fixedChar;
+        }
+
+        @Override
+        void addColumns(BitSet columns) {
+            columns.set(index);
+        }
+
+        @Override
+        Result evaluate(List<OneField> fields) {
+            Object value = getValue(fields, index);
+            if (fixedChar && value instanceof String) {
+                return Result.UNKNOWN;
+            }
+            Result result = Result.FALSE;
+            for (Object constant : constants) {
+                Integer cmp = compare(value, constant, true);
+                if (cmp == null) {
+                    result = Result.UNKNOWN;
+                } else if (cmp == 0) {
+                    return Result.TRUE;
+                }
+            }
+            return result;
+        }
+    }
+
+    /** LIKE pattern, with the default escape character. */
+    static class Like extends RowFilter {
+        private final int index;
+        private final Pattern pattern;
+
+        Like(int index, String likePattern) {
+            this.index = index;
+            this.pattern = toRegex(likePattern);
+        }
+
+        @Override
+        void addColumns(BitSet columns) {
+            columns.set(index);
+        }
+
+        @Override
+        Result evaluate(List<OneField> fields) {
+            Object value = getValue(fields, index);
+            if (pattern == null || !(value instanceof String)) {
+                return Result.UNKNOWN;
+            }
+            return Result.valueOf(pattern.matcher((String) value).matches());
+        }
+
+        /*
+         * % matches any sequence of characters, _ any single character, and
+         * the backslash escapes the character following it. Returns null for
+         * a pattern ending with the escape character, which GPDB rejects.
+         */
+        static Pattern toRegex(String likePattern) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < likePattern.length(); i++) {
+                char c = likePattern.charAt(i);
+                if (c == '\\') {
+                    if (++i == likePattern.length()) {
+                        return null;
+                    }
+                    literal.append(likePattern.charAt(i));
+                } else if (c == '%' || c == '_') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '%' ? ".*" : ".");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+    }
+
+    /** IS NULL and IS NOT NULL. */
+    static class IsNull extends RowFilter {
+        private final int index;
+        private final boolean isNull;
+
+        IsNull(int index, boolean isNull) {
+            this.index = index;
+            this.isNull = isNull;
+        }
+
+        @Override
+        void addColumns(BitSet columns) {
+            columns.set(index);
+        }
+
+        @Override
+        Result evaluate(List<OneField> fields) {
+            if (index < 0 || index >= fields.size()) {
+                return Result.UNKNOWN;
+            }
+            return Result.valueOf((getValue(fields, index) == null) == isNull);
+        }
+    }
+
+    /** AND, OR and NOT. */
+    static class Logical extends RowFilter {
+        private final FilterParser.LogicalOperation operation;
+        private final RowFilter left;
+        private final RowFilter right;
+
+        Logical(FilterParser.LogicalOperation operation, RowFilter left, RowFilter right) {
+            this.operation = operation;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void addColumns(BitSet columns) {
+            left.addColumns(columns);
+            if (right != null) {
+                right.addColumns(columns);
+            }
+        }
+
+        @Override
+        Result evaluate(List<OneField> fields) {
+            Result result = left.evaluate(fields);
+            switch (operation) {
+                case HDOP_NOT:
+                    return result.not();
+                case HDOP_AND:
+                    if (result == Result.FALSE) {
+                        return result;
+                    }
+                    Result rightResult = right.evaluate(fields);
+                    return (rightResult == Result.TRUE) ? result : rightResult;
+                case HDOP_OR:
+                    if (result == Result.TRUE) {
+                        return result;
+                    }
+                    rightResult = right.evaluate(fields);
+                    return (rightResult == Result.FALSE) ? result : rightResult;
+                default:
+                    return Result.UNKNOWN;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.greenplum.pxf.api;
+
+/**
+ * Interface of read accessor which can skip records without reading them as
+ * objects.
+ * <p>
+ * When the accessor implements it, the records discarded by the sampling of
+ * an ANALYZE request are skipped by the accessor, and only the sampled records
+ * are read, resolved and sent.
+ */
+public interface SamplingAccessor extends ReadAccessor {
+
+    /**
+     * Skips the given number of records, then reads the record following
+     * them. The returned object always holds a single record, even when
+     * {@link ReadAccessor#readNextObject()} returns objects holding several
+     * records (e.g. chunks of lines).
+     *
+     * @param skip the number of records to skip
+     * @return the record following the skipped ones, null when there is no
+     *         more data
+     * @throws Exception if reading from the resource failed
+     */
+    OneRow readNextSample(long skip) throws Exception;
+
+    /**
+     * Tells whether {@link #readNextSample(long)} can be used. Subclasses of
+     * a sampling accessor which read objects that are not made of records
+     * (e.g. vectorized batches) return false, and their records are sampled
+     * from the objects returned by {@link ReadAccessor#readNextObject()}.
+     *
+     * @return true if the accessor can skip the records discarded by sampling
+     */
+    default boolean supportsSampling() {
+        return true;
+    }
+}
@@ -21,7 +21,10 @@ package org.greenplum.pxf.api;
 
 /**
  * Interface of accessor which can leverage statistic information for aggregate queries
- *
+ * <p>
+ * The rows emitted for an aggregate are aggregated again by GPDB: COUNT(*)
+ * emits as many rows as the split has, MIN, MAX and SUM emit one row per split
+ * holding the aggregate of each projected column.
  */
 public interface StatsAccessor extends ReadAccessor {
 
@@ -32,7 +35,22 @@ public interface StatsAccessor extends ReadAccessor {
     public void retrieveStats() throws Exception;
 
     /**
-     * Returns next tuple based on statistics information without actual reading of data
+     * Returns whether the statistics retrieved by {@link #retrieveStats()}
+     * answer the aggregate of the request. When they do not, for example when
+     * the data source has no statistics for a projected column, the accessor
+     * reads the data with {@link #readNextObject()} and GPDB computes the
+     * aggregate.
+     *
+     * @return true if the rows are emitted by {@link #emitAggObject()}
+     */
+    public boolean isUsingStats();
+
+    /**
+     * Returns next tuple based on statistics information without actual reading of data.
+     * The data of the row is either an object resolved by the resolver, or the
+     * already resolved fields of the row, as a {@code List<OneField>} with one
+     * field per column. Rows with equal keys must have equal data.
+     *
      * @return next row without reading it from disk
      */
     public OneRow emitAggObject();
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.greenplum.pxf.api;
+
+/**
+ * Interface of fragmenter whose fragments can be cached by the PXF server.
+ * The fragments of a data source are reused, until they expire, for as long
+ * as the data source version stays the same.
+ */
+public interface VersionedFragmenter {
+
+    /**
+     * Returns a token identifying the current version of the data source, for
+     * example its modification time. The token must change whenever the
+     * fragments of the data source would change. Computing it is expected to
+     * be much cheaper than {@link Fragmenter#getFragments()}.
+     *
+     * @return the version of the data source, or null if the fragments must
+     *         not be cached
+     * @throws Exception when unable to retrieve the version
+     */
+    public String getFragmentsVersion() throws Exception;
+
+}
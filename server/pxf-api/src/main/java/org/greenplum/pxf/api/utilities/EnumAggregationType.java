@@ -19,9 +19,17 @@
 
 package org.greenplum.pxf.api.utilities;
 
+/**
+ * Aggregate operations which can be answered from the statistics of the data
+ * source. COUNT applies to the rows (COUNT(*)), the other operations apply to
+ * each projected column.
+ */
 public enum EnumAggregationType {
 
-    COUNT("count", true);
+    COUNT("count", true),
+    MIN("min", true),
+    MAX("max", true),
+    SUM("sum", true);
 
     private String aggOperationCode;
     private boolean optimizationSupported;
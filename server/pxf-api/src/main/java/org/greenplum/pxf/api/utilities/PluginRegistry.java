@@ -0,0 +1,161 @@
+package org.greenplum.pxf.api.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.greenplum.pxf.api.ReadVectorizedResolver;
+import org.greenplum.pxf.api.StatsAccessor;
+
+/**
+ * Registry of the plugin classes used by PXF (accessors, resolvers,
+ * fragmenters, ...). Each class name is resolved once: its constructors are
+ * kept as method handles ready to be invoked, together with the capabilities
+ * of the class, so that creating a plugin for a request involves no class
+ * loading and no reflection.
+ */
+public class PluginRegistry {
+
+    private static final ConcurrentMap<String, PluginClass> PLUGINS = new ConcurrentHashMap<>();
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType DEFAULT_CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    /**
+     * Returns the plugin class of the given name, loading it on first use.
+     *
+     * @param className fully qualified class name
+     * @return the plugin class
+     * @throws ClassNotFoundException if the class is not in the classpath
+     */
+    public static PluginClass getPluginClass(String className) throws ClassNotFoundException {
+        PluginClass plugin = PLUGINS.get(className);
+        if (plugin == null) {
+            PluginClass newPlugin = new PluginClass(Class.forName(className));
+            plugin = PLUGINS.putIfAbsent(className, newPlugin);
+            if (plugin == null) {
+                plugin = newPlugin;
+            }
+        }
+        return plugin;
+    }
+
+    /**
+     * A resolved plugin class.
+     */
+    public static class PluginClass {
+        private final Class<?> cls;
+        private final boolean statsAccessor;
+        private final boolean vectorizedResolver;
+        private final ConcurrentMap<Class<?>, MethodHandle> constructors = new ConcurrentHashMap<>();
+        private volatile MethodHandle defaultConstructor;
+
+        PluginClass(Class<?> cls) {
+            this.cls = cls;
+            /* Only interfaces declared by the class itself are considered */
+            Class<?>[] interfaces = cls.getInterfaces();
+            statsAccessor = ArrayUtils.contains(interfaces, StatsAccessor.class);
+            vectorizedResolver = ArrayUtils.contains(interfaces, ReadVectorizedResolver.class);
+        }
+
+        /**
+         * @return the plugin class
+         */
+        public Class<?> getPluginClass() {
+            return cls;
+        }
+
+        /**
+         * @return true if the class declares it implements {@link StatsAccessor}
+         */
+        public boolean isStatsAccessor() {
+            return statsAccessor;
+        }
+
+        /**
+         * @return true if the class declares it implements
+         *         {@link ReadVectorizedResolver}
+         */
+        public boolean isVectorizedResolver() {
+            return vectorizedResolver;
+        }
+
+        /**
+         * Creates an instance with the constructor taking one argument of the
+         * given class.
+         *
+         * @param confClass the class of the constructor argument
+         * @param arg the constructor argument
+         * @return the new instance
+         * @throws Exception if the class has no such public constructor, or if
+         *             the constructor failed
+         */
+        public Object newInstance(Class<?> confClass, Object arg) throws Exception {
+            MethodHandle constructor = constructors.get(confClass);
+            if (constructor == null) {
+                constructor = MethodHandles.publicLookup()
+                        .unreflectConstructor(cls.getConstructor(confClass))
+                        .asType(CONSTRUCTOR_TYPE);
+                constructors.putIfAbsent(confClass, constructor);
+            }
+            try {
+                return (Object) constructor.invokeExact(arg);
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        /**
+         * Creates an instance with the default constructor.
+         *
+         * @return the new instance
+         * @throws Exception if the class has no public default constructor, or
+         *             if the constructor failed
+         */
+        public Object newInstance() throws Exception {
+            MethodHandle constructor = defaultConstructor;
+            if (constructor == null) {
+                constructor = MethodHandles.publicLookup()
+                        .unreflectConstructor(cls.getConstructor())
+                        .asType(DEFAULT_CONSTRUCTOR_TYPE);
+                defaultConstructor = constructor;
+            }
+            try {
+                return (Object) constructor.invokeExact();
+            } catch (Throwable e) {
+                throw wrap(e);
+            }
+        }
+
+        /*
+         * The exception thrown by the plugin constructor is wrapped, so that
+         * its text is displayed in psql, like when the plugin was created by
+         * reflection and the exception unwrapped from the
+         * InvocationTargetException.
+         */
+        private static Exception wrap(Throwable e) {
+            return new Exception(e);
+        }
+    }
+}
@@ -27,18 +27,22 @@ import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.OutputFormat;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Common configuration of all MetaData classes. Provides read-only access to
  * common parameters supplied using system properties.
  */
-public class ProtocolData extends InputData {
+public class ProtocolData extends InputData implements Cloneable {
 
     private static final String TRUE_LCASE = "true";
     private static final String FALSE_LCASE = "false";
     private static final String PROP_PREFIX = "X-GP-";
+    private static final String ATTR_PREFIX = PROP_PREFIX + "ATTR";
     public static final int INVALID_SPLIT_IDX = -1;
 
     private static final Log LOG = LogFactory.getLog(ProtocolData.class);
@@ -48,9 +52,20 @@ public class ProtocolData extends InputData {
     protected String host;
     protected String token;
     protected String user;
+    protected String alignment;
     // statistics parameters
     protected int statsMaxFragments;
     protected float statsSampleRatio;
+    // pipelined streaming parameters
+    protected boolean pipelined;
+    protected int pipelineDepth;
+    public static final int DEFAULT_PIPELINE_DEPTH = 4;
+    // multi-fragment request parameters
+    protected int fragmentCount;
+    protected int fragmentReaders;
+    public static final int DEFAULT_FRAGMENT_READERS = 4;
+    // evaluation of the filter by PXF
+    protected boolean filterEvaluated;
 
     /**
      * Constructs a ProtocolData.
@@ -106,6 +121,9 @@ public class ProtocolData extends InputData {
         parseFragmentMetadata();
         parseUserData();
         parseThreadSafe();
+        parsePipelineParameters();
+        parseFragmentsParameters();
+        parseFilterEvaluation();
         parseRemoteCredentials();
 
         dataFragment = INVALID_SPLIT_IDX;
@@ -115,8 +133,7 @@ public class ProtocolData extends InputData {
         statsSampleRatio = 0;
         parseStatsParameters();
 
-        // Store alignment for global use as a system property
-        System.setProperty("greenplum.alignment", getProperty("ALIGNMENT"));
+        alignment = getProperty("ALIGNMENT");
 
         //Get aggregation operation
         String aggTypeOperationName = getOptionalProperty("AGG-TYPE");
@@ -301,6 +318,17 @@ public class ProtocolData extends InputData {
         return token;
     }
 
+    /**
+     * Returns the alignment of eight bytes types used by the GPDB segment, as
+     * sent by the segment. It is interpreted by the GPDBWritable serialization
+     * of the request.
+     *
+     * @return alignment
+     */
+    public String getAlignment() {
+        return alignment;
+    }
+
     /**
      * Statistics parameter. Returns the max number of fragments to return for
      * ANALYZE sampling. The value is set in GPDB side using the GUC
@@ -324,6 +352,100 @@ public class ProtocolData extends InputData {
         return statsSampleRatio;
     }
 
+    /**
+     * Returns whether reading from the bridge and writing to the client should
+     * run in separate threads, or for a write request, decoding the records
+     * from GPDB and writing them with the bridge. Set by the PIPELINE option,
+     * default false.
+     *
+     * @return whether the request is pipelined
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    /**
+     * Returns the number of record batches that the reading thread of a
+     * pipelined request can fill ahead of the client, or that the decoding
+     * thread of a pipelined write request can fill ahead of the bridge. Set
+     * by the PIPELINE-DEPTH option.
+     *
+     * @return pipeline depth
+     */
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * Returns whether the filter of the request is evaluated on the records
+     * read, so that the records not matching it are not sent to GPDB. Set by
+     * the FILTER-EVALUATION option, usually in the profiles of the formats
+     * without filter pushdown, default false.
+     *
+     * @return whether the filter is evaluated by PXF
+     */
+    public boolean isFilterEvaluated() {
+        return filterEvaluated;
+    }
+
+    /**
+     * Returns the number of fragments of a multi-fragment request, sent in the
+     * X-GP-FRAGMENT-COUNT parameter, or 0 if the request is for the single
+     * fragment given by X-GP-DATA-FRAGMENT.
+     *
+     * @return number of fragments of the request
+     */
+    public int getFragmentCount() {
+        return fragmentCount;
+    }
+
+    /**
+     * Returns the number of fragments of a multi-fragment request that can be
+     * read concurrently. Set by the FRAGMENT-READERS option.
+     *
+     * @return number of fragment readers
+     */
+    public int getFragmentReaders() {
+        return fragmentReaders;
+    }
+
+    /**
+     * Returns the request data of one fragment of a multi-fragment request:
+     * a copy of this request data with the data source, fragment, metadata,
+     * user data and index of the fragment, sent in the X-GP-DATA-DIR&lt;i&gt;,
+     * X-GP-DATA-FRAGMENT&lt;i&gt;, X-GP-FRAGMENT-METADATA&lt;i&gt;,
+     * X-GP-FRAGMENT-USER-DATA&lt;i&gt; and X-GP-FRAGMENT-INDEX&lt;i&gt;
+     * parameters.
+     *
+     * @param i index of the fragment in the request
+     * @return the request data of the fragment
+     * @throws IllegalArgumentException if the parameters of the fragment are
+     *             missing or invalid
+     */
+    public ProtocolData getFragment(int i) {
+        if (i < 0 || i >= fragmentCount) {
+            throw new IndexOutOfBoundsException("Fragment " + i + " of a request of "
+                    + fragmentCount + " fragments");
+        }
+
+        ProtocolData fragment;
+        try {
+            fragment = (ProtocolData) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        fragment.fragmentCount = 0;
+        fragment.dataSource = getProperty("DATA-DIR" + i);
+        fragment.dataFragment = INVALID_SPLIT_IDX;
+        fragment.parseDataFragment(getOptionalProperty("DATA-FRAGMENT" + i));
+        fragment.fragmentMetadata = parseBase64("FRAGMENT-METADATA" + i,
+                "Fragment metadata information");
+        fragment.userData = parseBase64("FRAGMENT-USER-DATA" + i, "Fragment user data");
+        String fragmentIndexStr = getOptionalProperty("FRAGMENT-INDEX" + i);
+        fragment.setFragmentIndex((fragmentIndexStr == null) ? 0 : Integer.parseInt(fragmentIndexStr));
+        return fragment;
+    }
+
     private void parseSecurityProperties() {
         // obtain identity of the end-user
         this.user = getProperty("USER");
@@ -341,6 +463,79 @@ public class ProtocolData extends InputData {
         }
     }
 
+    /**
+     * Sets the pipelined streaming parameters. By default the request is not
+     * pipelined.
+     */
+    private void parsePipelineParameters() {
+
+        pipelined = false;
+        String pipelineStr = getUserProperty("PIPELINE");
+        if (pipelineStr != null) {
+            pipelined = parseBooleanValue(pipelineStr);
+        }
+
+        pipelineDepth = DEFAULT_PIPELINE_DEPTH;
+        String depthStr = getUserProperty("PIPELINE-DEPTH");
+        if (depthStr != null) {
+            try {
+                pipelineDepth = Integer.parseInt(depthStr);
+            } catch (NumberFormatException e) {
+                pipelineDepth = 0;
+            }
+            if (pipelineDepth <= 0) {
+                throw new IllegalArgumentException("Wrong value '" + depthStr
+                        + "'. PIPELINE-DEPTH must be a positive integer");
+            }
+        }
+    }
+
+    /**
+     * Sets the multi-fragment request parameters. By default the request is
+     * for a single fragment.
+     */
+    private void parseFragmentsParameters() {
+
+        fragmentCount = 0;
+        String countStr = getOptionalProperty("FRAGMENT-COUNT");
+        if (countStr != null) {
+            fragmentCount = parsePositiveInt(countStr, "X-GP-FRAGMENT-COUNT");
+        }
+
+        fragmentReaders = DEFAULT_FRAGMENT_READERS;
+        String readersStr = getUserProperty("FRAGMENT-READERS");
+        if (readersStr != null) {
+            fragmentReaders = parsePositiveInt(readersStr, "FRAGMENT-READERS");
+        }
+    }
+
+    /**
+     * Sets the filter evaluation parameter. By default the filter is not
+     * evaluated.
+     */
+    private void parseFilterEvaluation() {
+
+        filterEvaluated = false;
+        String filterEvaluationStr = getUserProperty("FILTER-EVALUATION");
+        if (filterEvaluationStr != null) {
+            filterEvaluated = parseBooleanValue(filterEvaluationStr);
+        }
+    }
+
+    private int parsePositiveInt(String str, String name) {
+        int value;
+        try {
+            value = Integer.parseInt(str);
+        } catch (NumberFormatException e) {
+            value = 0;
+        }
+        if (value <= 0) {
+            throw new IllegalArgumentException("Wrong value '" + str
+                    + "'. " + name + " must be a positive integer");
+        }
+        return value;
+    }
+
     private boolean parseBooleanValue(String threadSafeStr) {
 
         if (threadSafeStr.equalsIgnoreCase(TRUE_LCASE)) {
@@ -356,37 +551,109 @@ public class ProtocolData extends InputData {
     /*
      * Sets the tuple description for the record
      * Attribute Projection information is optional
+     *
+     * All the attribute headers are collected in a single pass over the
+     * request parameters, instead of looking up each header of each column.
      */
     void parseTupleDescription() {
 
+        String columnsStr = null;
+        String columnProjStr = null;
+        String columnProjIndexStr = null;
+        Map<Integer, ColumnHeaders> columnHeaders = new HashMap<Integer, ColumnHeaders>();
+
+        for (Map.Entry<String, String> entry : requestParametersMap.entrySet()) {
+            String key = entry.getKey();
+            if (!key.regionMatches(true, 0, ATTR_PREFIX, 0, ATTR_PREFIX.length())) {
+                continue;
+            }
+            String name = key.substring(PROP_PREFIX.length()).toUpperCase();
+            String value = entry.getValue();
+            if (name.equals("ATTRS")) {
+                columnsStr = value;
+            } else if (name.equals("ATTRS-PROJ")) {
+                columnProjStr = value;
+            } else if (name.equals("ATTRS-PROJ-IDX")) {
+                columnProjIndexStr = value;
+            } else if (name.startsWith("ATTR-NAME")) {
+                ColumnHeaders headers = getColumnHeaders(columnHeaders, name, "ATTR-NAME".length(), name.length());
+                if (headers != null) {
+                    headers.name = value;
+                }
+            } else if (name.startsWith("ATTR-TYPECODE")) {
+                ColumnHeaders headers = getColumnHeaders(columnHeaders, name, "ATTR-TYPECODE".length(), name.length());
+                if (headers != null) {
+                    headers.typeCode = value;
+                }
+            } else if (name.startsWith("ATTR-TYPENAME")) {
+                ColumnHeaders headers = getColumnHeaders(columnHeaders, name, "ATTR-TYPENAME".length(), name.length());
+                if (headers != null) {
+                    headers.typeName = value;
+                }
+            } else if (name.startsWith("ATTR-TYPEMOD")) {
+                /* ATTR-TYPEMOD<column>-COUNT or ATTR-TYPEMOD<column>-<index> */
+                int separator = name.indexOf('-', "ATTR-TYPEMOD".length());
+                if (separator < 0) {
+                    continue;
+                }
+                ColumnHeaders headers = getColumnHeaders(columnHeaders, name, "ATTR-TYPEMOD".length(), separator);
+                if (headers == null) {
+                    continue;
+                }
+                String suffix = name.substring(separator + 1);
+                if (suffix.equals("COUNT")) {
+                    headers.typeModCount = value;
+                } else {
+                    int typeModIndex = parseIndex(suffix, 0, suffix.length());
+                    if (typeModIndex >= 0) {
+                        headers.typeMods.put(typeModIndex, value);
+                    }
+                }
+            }
+        }
+
         /* Process column projection info */
-        String columnProjStr = getOptionalProperty("ATTRS-PROJ");
-        List<Integer> columnProjList = new ArrayList<Integer>();
+        Set<Integer> columnProjSet = new HashSet<Integer>();
         if(columnProjStr != null) {
             int columnProj = Integer.parseInt(columnProjStr);
             numAttrsProjected = columnProj;
             if(columnProj > 0) {
-                String columnProjIndexStr = getProperty("ATTRS-PROJ-IDX");
+                if (columnProjIndexStr == null) {
+                    protocolViolation("ATTRS-PROJ-IDX");
+                }
                 String columnProjIdx[] = columnProjIndexStr.split(",");
                 for(int i = 0; i < columnProj; i++) {
-                    columnProjList.add(Integer.valueOf(columnProjIdx[i]));
+                    columnProjSet.add(Integer.valueOf(columnProjIdx[i]));
                 }
             } else {
                 /* This is a special case to handle aggregate queries not related to any specific column
                  * eg: count(*) queries. */
-                columnProjList.add(0);
+                columnProjSet.add(0);
             }
         }
 
-        int columns = getIntProperty("ATTRS");
+        if (columnsStr == null) {
+            protocolViolation("ATTRS");
+        }
+        int columns = Integer.parseInt(columnsStr);
         for (int i = 0; i < columns; ++i) {
-            String columnName = getProperty("ATTR-NAME" + i);
-            int columnTypeCode = getIntProperty("ATTR-TYPECODE" + i);
-            String columnTypeName = getProperty("ATTR-TYPENAME" + i);
-            Integer[] columnTypeMods = parseTypeMods(i);
+            ColumnHeaders headers = columnHeaders.get(i);
+            if (headers == null || headers.name == null) {
+                protocolViolation("ATTR-NAME" + i);
+            }
+            if (headers.typeCode == null) {
+                protocolViolation("ATTR-TYPECODE" + i);
+            }
+            if (headers.typeName == null) {
+                protocolViolation("ATTR-TYPENAME" + i);
+            }
+            String columnName = headers.name;
+            int columnTypeCode = Integer.parseInt(headers.typeCode);
+            String columnTypeName = headers.typeName;
+            Integer[] columnTypeMods = parseTypeMods(i, headers);
             ColumnDescriptor column;
             if(columnProjStr != null) {
-                column = new ColumnDescriptor(columnName, columnTypeCode, i, columnTypeName, columnTypeMods, columnProjList.contains(Integer.valueOf(i)));
+                column = new ColumnDescriptor(columnName, columnTypeCode, i, columnTypeName, columnTypeMods, columnProjSet.contains(Integer.valueOf(i)));
             } else {
                 /* For data formats that don't support column projection */
                 column = new ColumnDescriptor(columnName, columnTypeCode, i, columnTypeName, columnTypeMods);
@@ -399,8 +666,57 @@ public class ProtocolData extends InputData {
         }
     }
 
-    private Integer[] parseTypeMods(int columnIndex) {
-        String typeModeCountStr = getOptionalProperty("ATTR-TYPEMOD" + columnIndex + "-COUNT");
+    /*
+     * The attribute headers of a column, as collected from the request
+     * parameters
+     */
+    private static class ColumnHeaders {
+        String name;
+        String typeCode;
+        String typeName;
+        String typeModCount;
+        Map<Integer, String> typeMods = new HashMap<Integer, String>();
+    }
+
+    /*
+     * Returns the headers of the column whose index is found in the given
+     * range of the header name, or null if the range is not an index
+     */
+    private static ColumnHeaders getColumnHeaders(Map<Integer, ColumnHeaders> columnHeaders,
+                                                  String name, int start, int end) {
+        int columnIndex = parseIndex(name, start, end);
+        if (columnIndex < 0) {
+            return null;
+        }
+        ColumnHeaders headers = columnHeaders.get(columnIndex);
+        if (headers == null) {
+            headers = new ColumnHeaders();
+            columnHeaders.put(columnIndex, headers);
+        }
+        return headers;
+    }
+
+    /*
+     * Parses the digits in the given range of the string, returns -1 if the
+     * range is empty or not only made of digits
+     */
+    private static int parseIndex(String str, int start, int end) {
+        if (start >= end || end - start > 9) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    private Integer[] parseTypeMods(int columnIndex, ColumnHeaders headers) {
+        String typeModeCountStr = headers.typeModCount;
         Integer[] result = null;
         Integer typeModeCount = null;
         if (typeModeCountStr != null) {
@@ -413,8 +729,12 @@ public class ProtocolData extends InputData {
                 throw new IllegalArgumentException("ATTR-TYPEMOD" + columnIndex + "-COUNT must be a positive integer");
             }
             for (int i = 0; i < typeModeCount; i++) {
+                String typeModStr = headers.typeMods.get(i);
+                if (typeModStr == null) {
+                    protocolViolation("ATTR-TYPEMOD" + columnIndex + "-" + i);
+                }
                 try {
-                    result[i] = Integer.parseInt(getProperty("ATTR-TYPEMOD" + columnIndex + "-" + i));
+                    result[i] = Integer.parseInt(typeModStr);
                     if (result[i] < 0)
                         throw new NumberFormatException();
                 } catch (NumberFormatException e) {
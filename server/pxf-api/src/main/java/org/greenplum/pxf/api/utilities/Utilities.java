@@ -24,13 +24,10 @@ import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.ReadAccessor;
-import org.greenplum.pxf.api.ReadVectorizedResolver;
 import org.greenplum.pxf.api.StatsAccessor;
 
 import java.io.ByteArrayInputStream;
 import java.io.ObjectInputStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 
 /**
  * Utilities class exposes helper method for PXF classes
@@ -57,9 +54,9 @@ public class Utilities {
                                            String className, InputData metaData)
             throws Exception {
 
-        Class<?> cls = null;
+        PluginRegistry.PluginClass plugin;
         try {
-            cls = Class.forName(className);
+            plugin = PluginRegistry.getPluginClass(className);
         } catch (ClassNotFoundException e) {
             /* In case the class name uses the older and unsupported  "com.pivotal.pxf"
              * package name, recommend using the new package "org.greenplum.pxf"
@@ -76,9 +73,7 @@ public class Utilities {
             }
         }
 
-        Constructor<?> con = cls.getConstructor(confClass);
-
-        return instantiate(con, metaData);
+        return plugin.newInstance(confClass, metaData);
     }
 
     /**
@@ -92,30 +87,7 @@ public class Utilities {
      *             instantiated
      */
     public static Object createAnyInstance(String className) throws Exception {
-        Class<?> cls = Class.forName(className);
-        Constructor<?> con = cls.getConstructor();
-        return instantiate(con);
-    }
-
-    private static Object instantiate(Constructor<?> con, Object... args)
-            throws Exception {
-        try {
-            return con.newInstance(args);
-        } catch (InvocationTargetException e) {
-            /*
-             * We are creating resolvers, accessors, fragmenters, etc. using the
-             * reflection framework. If for example, a resolver, during its
-             * instantiation - in the c'tor, will throw an exception, the
-             * Resolver's exception will reach the Reflection layer and there it
-             * will be wrapped inside an InvocationTargetException. Here we are
-             * above the Reflection layer and we need to unwrap the Resolver's
-             * initial exception and throw it instead of the wrapper
-             * InvocationTargetException so that our initial Exception text will
-             * be displayed in psql instead of the message:
-             * "Internal Server Error"
-             */
-            throw (e.getCause() != null) ? new Exception(e.getCause()) : e;
-        }
+        return PluginRegistry.getPluginClass(className).newInstance();
     }
 
     /**
@@ -209,7 +181,7 @@ public class Utilities {
             if (inputData == null || inputData.getAccessor() == null) {
                 throw new IllegalArgumentException("Missing accessor information");
             }
-            isStatsAccessor = ArrayUtils.contains(Class.forName(inputData.getAccessor()).getInterfaces(), StatsAccessor.class);
+            isStatsAccessor = PluginRegistry.getPluginClass(inputData.getAccessor()).isStatsAccessor();
         } catch (ClassNotFoundException e) {
             LOG.error("Unable to load accessor class: " + e.getMessage());
             return false;
@@ -218,10 +190,21 @@ public class Utilities {
         return (inputData != null) && !inputData.hasFilter()
                 && (inputData.getAggType() != null)
                 && inputData.getAggType().isOptimizationSupported()
-                && inputData.getNumAttrsProjected() == 0
+                && isAggProjectionSupported(inputData)
                 && isStatsAccessor;
     }
 
+    /*
+     * COUNT(*) has no projected column, the other aggregates apply to the
+     * projected columns.
+     */
+    private static boolean isAggProjectionSupported(InputData inputData) {
+        if (inputData.getAggType() == EnumAggregationType.COUNT) {
+            return inputData.getNumAttrsProjected() == 0;
+        }
+        return inputData.getNumAttrsProjected() > 0;
+    }
+
     /**
      * Determines whether accessor should use statistics to optimize reading results
      *
@@ -245,7 +228,7 @@ public class Utilities {
     public static boolean useVectorization(InputData inputData) {
         boolean isVectorizedResolver = false;
         try {
-            isVectorizedResolver = ArrayUtils.contains(Class.forName(inputData.getResolver()).getInterfaces(), ReadVectorizedResolver.class);
+            isVectorizedResolver = PluginRegistry.getPluginClass(inputData.getResolver()).isVectorizedResolver();
         } catch (ClassNotFoundException e) {
             LOG.error("Unable to load resolver class: " + e.getMessage());
         }
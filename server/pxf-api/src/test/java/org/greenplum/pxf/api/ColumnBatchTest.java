@@ -0,0 +1,93 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.greenplum.pxf.api.io.DataType;
+import org.junit.Test;
+
+public class ColumnBatchTest {
+
+    @Test
+    public void toFields() {
+        ColumnBatch batch = new ColumnBatch(4);
+        ColumnVector.LongVector shorts = new ColumnVector.LongVector(DataType.SMALLINT.getOID());
+        shorts.vector = new long[] { 1, 2 };
+        shorts.setNulls(new boolean[] { false, true }, false, false);
+        batch.setColumn(0, shorts);
+        ColumnVector.DoubleVector reals = new ColumnVector.DoubleVector(DataType.REAL.getOID());
+        reals.vector = new double[] { 0.5 };
+        reals.setNulls(null, true, true);
+        batch.setColumn(1, reals);
+        ColumnVector.BytesVector strings = new ColumnVector.BytesVector(DataType.VARCHAR.getOID());
+        byte[] bytes = "abcd".getBytes();
+        strings.setValues(new byte[][] { bytes, bytes }, new int[] { 0, 1 }, new int[] { 1, 3 });
+        batch.setColumn(2, strings);
+        ColumnVector.ObjectVector missing = new ColumnVector.ObjectVector(DataType.DATE.getOID());
+        missing.setAllNull();
+        batch.setColumn(3, missing);
+        batch.setSize(2);
+
+        List<List<OneField>> rows = batch.toFields();
+
+        assertEquals(2, rows.size());
+        assertEquals(Short.valueOf((short) 1), rows.get(0).get(0).val);
+        assertNull(rows.get(1).get(0).val);
+        assertEquals(DataType.SMALLINT.getOID(), rows.get(1).get(0).type);
+        assertEquals(Float.valueOf(0.5f), rows.get(0).get(1).val);
+        assertEquals(Float.valueOf(0.5f), rows.get(1).get(1).val);
+        assertEquals("a", rows.get(0).get(2).val);
+        assertEquals("bcd", rows.get(1).get(2).val);
+        assertNull(rows.get(0).get(3).val);
+        assertNull(rows.get(1).get(3).val);
+        assertEquals(DataType.DATE.getOID(), rows.get(1).get(3).type);
+    }
+
+    @Test
+    public void binaryValuesAreCopied() {
+        ColumnVector.BytesVector binaries = new ColumnVector.BytesVector(DataType.BYTEA.getOID());
+        byte[] bytes = { 1, 2, 3 };
+        binaries.setValues(new byte[][] { bytes }, new int[] { 1 }, new int[] { 2 });
+
+        byte[] value = (byte[]) binaries.getObject(0);
+        assertArrayEquals(new byte[] { 2, 3 }, value);
+        value[0] = 0;
+        assertEquals(2, bytes[1]);
+    }
+
+    @Test
+    public void integersAndBooleans() {
+        ColumnVector.LongVector booleans = new ColumnVector.LongVector(DataType.BOOLEAN.getOID());
+        booleans.vector = new long[] { 0, 1 };
+        assertEquals(Boolean.FALSE, booleans.getObject(0));
+        assertEquals(Boolean.TRUE, booleans.getObject(1));
+
+        ColumnVector.LongVector ints = new ColumnVector.LongVector(DataType.INTEGER.getOID());
+        ints.vector = new long[] { -5 };
+        assertEquals(Integer.valueOf(-5), ints.getObject(0));
+
+        ColumnVector.LongVector longs = new ColumnVector.LongVector(DataType.BIGINT.getOID());
+        longs.vector = new long[] { Long.MAX_VALUE };
+        assertEquals(Long.valueOf(Long.MAX_VALUE), longs.getObject(0));
+    }
+}
@@ -0,0 +1,119 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.InputData;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RowBufferTest {
+
+    private RowBuffer buffer;
+
+    @Before
+    public void setUp() {
+        InputData inputData = mock(InputData.class);
+        DataType[] types = {DataType.INTEGER, DataType.TEXT, DataType.FLOAT8, DataType.BYTEA, DataType.NUMERIC};
+        when(inputData.getColumns()).thenReturn(types.length);
+        for (int i = 0; i < types.length; i++) {
+            when(inputData.getColumn(i)).thenReturn(
+                    new ColumnDescriptor("col" + i, types[i].getOID(), i, types[i].name(), null));
+        }
+        buffer = new RowBuffer(inputData);
+    }
+
+    @Test
+    public void toFields() throws Exception {
+        byte[] bytes = "abcd".getBytes("UTF-8");
+        buffer.setInt(0, 42);
+        buffer.setString(1, bytes, 1, 2);
+        buffer.setDouble(2, 0.5);
+        buffer.setBytes(3, bytes, 2, 2);
+        buffer.setObject(4, DataType.NUMERIC.getOID(), new BigDecimal("1.5"));
+
+        List<OneField> fields = buffer.toFields();
+
+        assertEquals(5, fields.size());
+        assertEquals(DataType.INTEGER.getOID(), fields.get(0).type);
+        assertEquals(Integer.valueOf(42), fields.get(0).val);
+        assertEquals(DataType.TEXT.getOID(), fields.get(1).type);
+        assertEquals("bc", fields.get(1).val);
+        assertEquals(Double.valueOf(0.5), fields.get(2).val);
+        assertArrayEquals(new byte[] { 'c', 'd' }, (byte[]) fields.get(3).val);
+        assertEquals(new BigDecimal("1.5"), fields.get(4).val);
+    }
+
+    @Test
+    public void unsetColumnsAreNull() {
+        buffer.setInt(0, 1);
+
+        List<OneField> fields = buffer.toFields();
+
+        assertFalse(buffer.isNull(0));
+        assertTrue(buffer.isNull(1));
+        assertNull(fields.get(1).val);
+        assertEquals(DataType.TEXT.getOID(), fields.get(1).type);
+        assertNull(fields.get(4).val);
+        assertEquals(DataType.NUMERIC.getOID(), fields.get(4).type);
+    }
+
+    @Test
+    public void vectorsAreReused() {
+        buffer.setInt(0, 1);
+        buffer.setString(1, "a");
+        ColumnVector ints = buffer.getColumnBatch().getColumn(0);
+
+        buffer.clear();
+        assertTrue(buffer.isNull(0));
+        assertTrue(buffer.isNull(1));
+        assertNull(buffer.toFields().get(0).val);
+
+        buffer.setInt(0, 2);
+        buffer.setString(1, null);
+        assertSame(ints, buffer.getColumnBatch().getColumn(0));
+        assertEquals(Integer.valueOf(2), buffer.toFields().get(0).val);
+        assertTrue(buffer.isNull(1));
+
+        // a value of another type replaces the vector
+        buffer.setLong(0, 3L);
+        assertNotSame(ints, buffer.getColumnBatch().getColumn(0));
+        assertEquals(Long.valueOf(3), buffer.toFields().get(0).val);
+    }
+
+    @Test
+    public void setNull() {
+        buffer.setDouble(2, 1.5);
+        buffer.setNull(2);
+
+        OneField field = buffer.toFields().get(2);
+        assertNull(field.val);
+        assertEquals(DataType.FLOAT8.getOID(), field.type);
+        assertEquals(1, buffer.getColumnBatch().size());
+    }
+}
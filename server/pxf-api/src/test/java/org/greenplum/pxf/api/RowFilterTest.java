@@ -0,0 +1,180 @@
+package org.greenplum.pxf.api;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.InputData;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RowFilterTest {
+
+    private InputData inputData;
+
+    @Before
+    public void setUp() {
+        inputData = mock(InputData.class);
+        DataType[] types = {DataType.INTEGER, DataType.TEXT, DataType.FLOAT8, DataType.BPCHAR};
+        when(inputData.getColumns()).thenReturn(types.length);
+        for (int i = 0; i < types.length; i++) {
+            when(inputData.getColumn(i)).thenReturn(
+                    new ColumnDescriptor("col" + i, types[i].getOID(), i, types[i].name(), null));
+        }
+    }
+
+    @Test
+    public void noFilter() throws Exception {
+        assertNull(RowFilter.compile(inputData));
+    }
+
+    @Test
+    public void comparison() throws Exception {
+        // col0 > 5
+        RowFilter filter = compile("a0c23s1d5o2");
+        assertTrue(filter.accept(row(6, "a", 1.0, "b")));
+        assertFalse(filter.accept(row(5, "a", 1.0, "b")));
+        // long values are compared with int constants
+        assertFalse(filter.accept(row(3L, "a", 1.0, "b")));
+        // the constant is on the left: 5 > col0
+        filter = compile("c23s1d5a0o2");
+        assertTrue(filter.accept(row(3, "a", 1.0, "b")));
+        assertFalse(filter.accept(row(6, "a", 1.0, "b")));
+    }
+
+    @Test
+    public void nullAndUnexpectedValuesAreKept() throws Exception {
+        // col0 = 5
+        RowFilter filter = compile("a0c23s1d5o5");
+        assertTrue(filter.accept(row(null, "a", 1.0, "b")));
+        assertTrue(filter.accept(row("6", "a", 1.0, "b")));
+        // col1 = 'a', on a record without the column
+        filter = compile("a1c25s1dao5");
+        assertTrue(filter.accept(Arrays.asList(new OneField(DataType.INTEGER.getOID(), 6))));
+    }
+
+    @Test
+    public void strings() throws Exception {
+        // col1 = 'abc'
+        RowFilter filter = compile("a1c25s3dabco5");
+        assertTrue(filter.accept(row(1, "abc", 1.0, "b")));
+        assertFalse(filter.accept(row(1, "abd", 1.0, "b")));
+        // the order of strings depends on the collation
+        filter = compile("a1c25s3dabco1");
+        assertTrue(filter.accept(row(1, "abd", 1.0, "b")));
+        // trailing spaces of bpchar values are not significant
+        filter = compile("a3c1042s1dbo5");
+        assertTrue(filter.accept(row(1, "abc", 1.0, "b  ")));
+    }
+
+    @Test
+    public void floatingPointValues() throws Exception {
+        // col2 < 1.5
+        RowFilter filter = compile("a2c701s3d1.5o1");
+        assertTrue(filter.accept(row(1, "a", 1.0, "b")));
+        assertFalse(filter.accept(row(1, "a", 2.0, "b")));
+        // too close to the constant to be compared
+        assertTrue(filter.accept(row(1, "a", 1.5000000001, "b")));
+        assertTrue(filter.accept(row(1, "a", Double.NaN, "b")));
+    }
+
+    @Test
+    public void like() throws Exception {
+        // col1 LIKE 'a%c_'
+        RowFilter filter = compile("a1c25s4da%c_o7");
+        assertTrue(filter.accept(row(1, "abcd", 1.0, "b")));
+        assertTrue(filter.accept(row(1, "ac.", 1.0, "b")));
+        assertFalse(filter.accept(row(1, "abc", 1.0, "b")));
+        assertFalse(filter.accept(row(1, "xbcd", 1.0, "b")));
+        // escaped wildcard, and regular expression characters
+        filter = compile("a1c25s5d.\\%*%o7");
+        assertTrue(filter.accept(row(1, ".%*x", 1.0, "b")));
+        assertFalse(filter.accept(row(1, ".x*x", 1.0, "b")));
+    }
+
+    @Test
+    public void isNull() throws Exception {
+        RowFilter filter = compile("a1o8");
+        assertTrue(filter.accept(row(1, null, 1.0, "b")));
+        assertFalse(filter.accept(row(1, "a", 1.0, "b")));
+        filter = compile("a1o9");
+        assertFalse(filter.accept(row(1, null, 1.0, "b")));
+        assertTrue(filter.accept(row(1, "a", 1.0, "b")));
+    }
+
+    @Test
+    public void in() throws Exception {
+        // col0 IN (1, 2, 3)
+        RowFilter filter = compile("a0m1007s1d1s1d2s1d3o10");
+        assertTrue(filter.accept(row(2, "a", 1.0, "b")));
+        assertFalse(filter.accept(row(4, "a", 1.0, "b")));
+        assertTrue(filter.accept(row(null, "a", 1.0, "b")));
+    }
+
+    @Test
+    public void logicalOperators() throws Exception {
+        // col0 = 1 AND col1 = 'a'
+        RowFilter filter = compile("a0c23s1d1o5a1c25s1dao5l0");
+        assertTrue(filter.accept(row(1, "a", 1.0, "b")));
+        assertFalse(filter.accept(row(1, "b", 1.0, "b")));
+        assertFalse(filter.accept(row(2, "a", 1.0, "b")));
+        // unknown AND false is false
+        assertFalse(filter.accept(row(null, "b", 1.0, "b")));
+
+        // col0 = 1 OR col1 = 'a'
+        filter = compile("a0c23s1d1o5a1c25s1dao5l1");
+        assertTrue(filter.accept(row(2, "a", 1.0, "b")));
+        assertFalse(filter.accept(row(2, "b", 1.0, "b")));
+        // unknown OR false is unknown
+        assertTrue(filter.accept(row(null, "b", 1.0, "b")));
+
+        // NOT col0 = 1
+        filter = compile("a0c23s1d1o5l2");
+        assertTrue(filter.accept(row(2, "a", 1.0, "b")));
+        assertFalse(filter.accept(row(1, "a", 1.0, "b")));
+        // NOT unknown is unknown
+        assertTrue(filter.accept(row(null, "a", 1.0, "b")));
+    }
+
+    private RowFilter compile(String filterString) throws Exception {
+        when(inputData.hasFilter()).thenReturn(true);
+        when(inputData.getFilterString()).thenReturn(filterString);
+        return RowFilter.compile(inputData);
+    }
+
+    private List<OneField> row(Object... values) {
+        List<OneField> fields = new ArrayList<>();
+        for (Object value : values) {
+            fields.add(new OneField(DataType.UNSUPPORTED_TYPE.getOID(), value));
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,87 @@
+package org.greenplum.pxf.api.utilities;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import org.greenplum.pxf.api.examples.DemoAccessor;
+import org.greenplum.pxf.api.examples.DemoResolver;
+import org.junit.Test;
+
+public class PluginRegistryTest {
+
+    public static class FailingPlugin extends Plugin {
+        public FailingPlugin(InputData input) {
+            super(input);
+            throw new IllegalStateException("plugin failed");
+        }
+    }
+
+    @Test
+    public void classIsResolvedOnce() throws Exception {
+        PluginRegistry.PluginClass plugin = PluginRegistry.getPluginClass(DemoAccessor.class.getName());
+        assertSame(plugin, PluginRegistry.getPluginClass(DemoAccessor.class.getName()));
+        assertEquals(DemoAccessor.class, plugin.getPluginClass());
+    }
+
+    @Test
+    public void newInstance() throws Exception {
+        InputData inputData = new InputData();
+        PluginRegistry.PluginClass plugin = PluginRegistry.getPluginClass(DemoResolver.class.getName());
+
+        Object first = plugin.newInstance(InputData.class, inputData);
+        Object second = plugin.newInstance(InputData.class, inputData);
+
+        assertTrue(first instanceof DemoResolver);
+        assertNotSame(first, second);
+        assertTrue(PluginRegistry.getPluginClass(StringBuilder.class.getName()).newInstance()
+                instanceof StringBuilder);
+    }
+
+    @Test
+    public void capabilities() throws Exception {
+        PluginRegistry.PluginClass plugin = PluginRegistry.getPluginClass(DemoAccessor.class.getName());
+        assertFalse(plugin.isStatsAccessor());
+        assertFalse(plugin.isVectorizedResolver());
+    }
+
+    @Test
+    public void constructorExceptionIsWrapped() throws Exception {
+        PluginRegistry.PluginClass plugin = PluginRegistry.getPluginClass(FailingPlugin.class.getName());
+        try {
+            plugin.newInstance(InputData.class, new InputData());
+            fail("the plugin constructor should fail");
+        } catch (Exception e) {
+            assertEquals(Exception.class, e.getClass());
+            assertEquals(IllegalStateException.class, e.getCause().getClass());
+            assertEquals("plugin failed", e.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void missingConstructor() throws Exception {
+        PluginRegistry.getPluginClass(DemoAccessor.class.getName()).newInstance();
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void missingClass() throws Exception {
+        PluginRegistry.getPluginClass("org.greenplum.pxf.NoSuchPlugin");
+    }
+}
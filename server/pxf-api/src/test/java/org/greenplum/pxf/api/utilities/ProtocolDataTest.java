@@ -28,7 +28,6 @@ import static org.greenplum.pxf.api.utilities.ProfileConfException.MessageFormat
 import org.greenplum.pxf.api.utilities.ProfilesConf;
 
 import org.junit.Before;
-import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.api.mockito.PowerMockito;
@@ -51,7 +50,8 @@ public class ProtocolDataTest {
     public void protocolDataCreated() throws Exception {
         ProtocolData protocolData = new ProtocolData(parameters);
 
-        assertEquals(System.getProperty("greenplum.alignment"), "all");
+        assertEquals(protocolData.getAlignment(), "all");
+        assertNull(System.getProperty("greenplum.alignment"));
         assertEquals(protocolData.getTotalSegments(), 2);
         assertEquals(protocolData.getSegmentId(), -44);
         assertEquals(protocolData.outputFormat(), OutputFormat.TEXT);
@@ -162,6 +162,16 @@ public class ProtocolDataTest {
         assertEquals(protocolData.isThreadSafe(), true);
     }
 
+    @Test
+    public void filterEvaluation() throws Exception {
+        ProtocolData protocolData = new ProtocolData(parameters);
+        assertFalse(protocolData.isFilterEvaluated());
+
+        parameters.put("X-GP-OPTIONS-FILTER-EVALUATION", "true");
+        protocolData = new ProtocolData(parameters);
+        assertTrue(protocolData.isFilterEvaluated());
+    }
+
     @Test
     public void getFragmentMetadata() throws Exception {
         ProtocolData protocolData = new ProtocolData(parameters);
@@ -345,6 +355,51 @@ public class ProtocolDataTest {
         assertArrayEquals(protocolData.getColumn(1).columnTypeModifiers(), new Integer[]{10, 2});
     }
 
+    @Test
+    public void columnsWithProjection() {
+
+        parameters = new HashMap<String, String>(parameters);
+        parameters.put("X-GP-ATTRS", "2");
+        parameters.put("x-gp-attr-name1", "recordkey");
+        parameters.put("X-GP-ATTR-TYPECODE1", "25");
+        parameters.put("X-GP-ATTR-TYPENAME1", "text");
+        parameters.put("X-GP-ATTR-NAME0", "id");
+        parameters.put("X-GP-ATTR-TYPECODE0", "23");
+        parameters.put("X-GP-ATTR-TYPENAME0", "int4");
+        parameters.put("X-GP-ATTRS-PROJ", "1");
+        parameters.put("X-GP-ATTRS-PROJ-IDX", "1");
+
+        ProtocolData protocolData = new ProtocolData(parameters);
+
+        assertEquals(2, protocolData.getColumns());
+        assertEquals("id", protocolData.getColumn(0).columnName());
+        assertEquals(23, protocolData.getColumn(0).columnTypeCode());
+        assertFalse(protocolData.getColumn(0).isProjected());
+        assertEquals("text", protocolData.getColumn(1).columnTypeName());
+        assertTrue(protocolData.getColumn(1).isProjected());
+        assertSame(protocolData.getColumn(1), protocolData.getRecordkeyColumn());
+    }
+
+    @Test
+    public void missingColumnHeader() {
+
+        parameters.put("X-GP-ATTRS", "2");
+        parameters.put("X-GP-ATTR-NAME0", "id");
+        parameters.put("X-GP-ATTR-TYPECODE0", "23");
+        parameters.put("X-GP-ATTR-TYPENAME0", "int4");
+        parameters.put("X-GP-ATTR-NAME1", "name");
+        parameters.put("X-GP-ATTR-TYPECODE1", "25");
+
+        try {
+            new ProtocolData(parameters);
+            fail("should throw IllegalArgumentException when X-GP-ATTR-TYPENAME1 is missing");
+        } catch (IllegalArgumentException iae) {
+            assertEquals(
+                    "Internal server error. Property \"ATTR-TYPENAME1\" has no value in current request",
+                    iae.getMessage());
+        }
+    }
+
     @Test
     public void typeModsNegative() {
 
@@ -400,6 +455,75 @@ public class ProtocolDataTest {
         }
     }
 
+    @Test
+    public void singleFragment() {
+        ProtocolData protocolData = new ProtocolData(parameters);
+        assertEquals(0, protocolData.getFragmentCount());
+        assertEquals(ProtocolData.DEFAULT_FRAGMENT_READERS, protocolData.getFragmentReaders());
+    }
+
+    @Test
+    public void multipleFragments() {
+        parameters.put("X-GP-FRAGMENT-COUNT", "2");
+        parameters.put("X-GP-OPTIONS-FRAGMENT-READERS", "8");
+        parameters.put("X-GP-DATA-DIR0", "dir/file0");
+        parameters.put("X-GP-DATA-FRAGMENT0", "3");
+        parameters.put("X-GP-FRAGMENT-METADATA0", "U29tZXRoaW5nIGluIHRoZSB3YXk=");
+        parameters.put("X-GP-DATA-DIR1", "dir/file1");
+        parameters.put("X-GP-DATA-FRAGMENT1", "7");
+        parameters.put("X-GP-FRAGMENT-USER-DATA1", "dXNlciBkYXRh");
+        parameters.put("X-GP-FRAGMENT-INDEX1", "2");
+        ProtocolData protocolData = new ProtocolData(parameters);
+
+        assertEquals(2, protocolData.getFragmentCount());
+        assertEquals(8, protocolData.getFragmentReaders());
+
+        ProtocolData fragment = protocolData.getFragment(0);
+        assertEquals("dir/file0", fragment.getDataSource());
+        assertEquals(3, fragment.getDataFragment());
+        assertEquals("Something in the way", new String(fragment.getFragmentMetadata()));
+        assertNull(fragment.getFragmentUserData());
+        assertEquals(0, fragment.getFragmentCount());
+        assertEquals("are", fragment.getAccessor());
+
+        fragment = protocolData.getFragment(1);
+        assertEquals("dir/file1", fragment.getDataSource());
+        assertEquals(7, fragment.getDataFragment());
+        assertNull(fragment.getFragmentMetadata());
+        assertEquals("user data", new String(fragment.getFragmentUserData()));
+        assertEquals(2, fragment.getFragmentIndex());
+
+        // the request itself is unchanged
+        assertEquals("i'm/ready/to/go", protocolData.getDataSource());
+    }
+
+    @Test
+    public void missingFragment() {
+        parameters.put("X-GP-FRAGMENT-COUNT", "2");
+        parameters.put("X-GP-DATA-DIR0", "dir/file0");
+        ProtocolData protocolData = new ProtocolData(parameters);
+        try {
+            protocolData.getFragment(1);
+            fail("should throw IllegalArgumentException when a fragment has no data source");
+        } catch (IllegalArgumentException iae) {
+            assertEquals(
+                    "Internal server error. Property \"DATA-DIR1\" has no value in current request",
+                    iae.getMessage());
+        }
+    }
+
+    @Test
+    public void fragmentReadersNotPositive() {
+        parameters.put("X-GP-OPTIONS-FRAGMENT-READERS", "0");
+        try {
+            new ProtocolData(parameters);
+            fail("should throw IllegalArgumentException when FRAGMENT-READERS is not positive");
+        } catch (IllegalArgumentException iae) {
+            assertEquals("Wrong value '0'. FRAGMENT-READERS must be a positive integer",
+                    iae.getMessage());
+        }
+    }
+
     /*
      * setUp function called before each test
      */
@@ -423,12 +547,4 @@ public class ProtocolDataTest {
         parameters.put("X-GP-USER", "alex");
     }
 
-    /*
-     * tearDown function called after each test
-     */
-    @After
-    public void tearDown() {
-        // Cleanup the system property ProtocolData sets
-        System.clearProperty("greenplum.alignment");
-    }
 }
@@ -71,6 +71,11 @@ public class UtilitiesTest {
         public void retrieveStats() throws Exception {
         }
 
+        @Override
+        public boolean isUsingStats() {
+            return true;
+        }
+
         @Override
         public OneRow emitAggObject() {
             return null;
@@ -224,6 +229,35 @@ public class UtilitiesTest {
         assertFalse(Utilities.useAggBridge(metaData));
     }
 
+    @Test
+    public void useAggBridgeForColumnAggregates() {
+        InputData metaData = mock(InputData.class);
+        when(metaData.getAccessor()).thenReturn(StatsAccessorImpl.class.getName());
+
+        // MIN, MAX and SUM apply to the projected columns
+        when(metaData.getNumAttrsProjected()).thenReturn(2);
+        for (EnumAggregationType aggType : new EnumAggregationType[] {
+                EnumAggregationType.MIN, EnumAggregationType.MAX, EnumAggregationType.SUM }) {
+            when(metaData.getAggType()).thenReturn(aggType);
+            assertTrue(Utilities.useAggBridge(metaData));
+        }
+        when(metaData.getAggType()).thenReturn(EnumAggregationType.COUNT);
+        assertFalse(Utilities.useAggBridge(metaData));
+
+        when(metaData.getNumAttrsProjected()).thenReturn(0);
+        when(metaData.getAggType()).thenReturn(EnumAggregationType.MAX);
+        assertFalse(Utilities.useAggBridge(metaData));
+    }
+
+    @Test
+    public void getAggregationType() {
+        assertEquals(EnumAggregationType.COUNT, EnumAggregationType.getAggregationType("count"));
+        assertEquals(EnumAggregationType.MIN, EnumAggregationType.getAggregationType("min"));
+        assertEquals(EnumAggregationType.MAX, EnumAggregationType.getAggregationType("max"));
+        assertEquals(EnumAggregationType.SUM, EnumAggregationType.getAggregationType("sum"));
+        assertNull(EnumAggregationType.getAggregationType("avg"));
+    }
+
     @Test
     public void useStats() {
         InputData metaData = mock(InputData.class);
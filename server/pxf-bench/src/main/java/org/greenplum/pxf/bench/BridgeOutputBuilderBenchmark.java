@@ -0,0 +1,107 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.io.Writable;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.service.BridgeOutputBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of the resolved records into the output records sent to
+ * Greenplum: GPDBWritable records filled field by field, or text lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BridgeOutputBuilderBenchmark {
+
+    private static final DataType[] TYPES = {
+            DataType.INTEGER, DataType.BIGINT, DataType.SMALLINT, DataType.FLOAT8,
+            DataType.BOOLEAN, DataType.TEXT, DataType.TEXT, DataType.NUMERIC,
+            DataType.TIMESTAMP, DataType.BYTEA };
+    private static final int RECORDS = 1024;
+
+    /**
+     * Output format of the request
+     */
+    @Param({ "GPDBWritable", "TEXT" })
+    public String format;
+
+    /**
+     * Length of the text and binary columns
+     */
+    @Param({ "16", "256" })
+    public int length;
+
+    private BridgeOutputBuilder builder;
+    private List<List<OneField>> records;
+    private int index;
+
+    @Setup
+    public void setup() {
+        SyntheticData data = new SyntheticData();
+        DataType[] types = TYPES;
+        if (format.equals("TEXT")) {
+            // the text accessors return one field, the whole line
+            types = new DataType[] { DataType.TEXT };
+        }
+        String[] names = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            names[i] = "col" + i;
+        }
+
+        builder = new BridgeOutputBuilder(
+                SyntheticData.protocolData(format, names, types, "/bench/data", null));
+        records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            records.add(data.nextRecord(types, length));
+        }
+    }
+
+    @Benchmark
+    public List<Writable> makeOutput() throws Exception {
+        index = (index + 1) % RECORDS;
+        return builder.makeOutput(records.get(index));
+    }
+
+    @Benchmark
+    public List<Writable> makeVectorizedOutput() throws Exception {
+        return builder.makeVectorizedOutput(records);
+    }
+}
@@ -0,0 +1,98 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.greenplum.pxf.plugins.hdfs.ChunkReader;
+import org.greenplum.pxf.plugins.hdfs.ChunkWritable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading of 16MB of text by the ChunkReader of the LineBreakAccessor, line by
+ * line and chunk by chunk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkReaderBenchmark {
+
+    private static final int DATA_SIZE = 16 * 1024 * 1024;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Average length of the lines
+     */
+    @Param({ "100", "1000" })
+    public int lineLength;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticData generator = new SyntheticData();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(DATA_SIZE + 2 * lineLength);
+        while (out.size() < DATA_SIZE) {
+            out.write(generator.nextString(1 + generator.nextInt(2 * lineLength)).getBytes());
+            out.write('\n');
+        }
+        data = out.toByteArray();
+    }
+
+    @Benchmark
+    public long readLine() throws IOException {
+        ChunkReader reader = new ChunkReader(new ByteArrayInputStream(data));
+        ChunkWritable line = new ChunkWritable();
+        long total = 0;
+        int length;
+        while ((length = reader.readLine(line, Integer.MAX_VALUE)) > 0) {
+            total += length;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long readChunk() throws IOException {
+        ChunkReader reader = new ChunkReader(new ByteArrayInputStream(data));
+        ChunkWritable chunk = new ChunkWritable();
+        long total = 0;
+        int length;
+        while ((length = reader.readChunk(chunk, CHUNK_SIZE)) > 0) {
+            total += length;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,126 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.greenplum.pxf.api.BasicFilter;
+import org.greenplum.pxf.api.FilterParser;
+import org.greenplum.pxf.api.LogicalFilter;
+import org.greenplum.pxf.api.io.DataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the filter string pushed down by Greenplum, a conjunction of
+ * comparisons of integer, float and text columns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterParserBenchmark {
+
+    /**
+     * Number of comparisons of the filter
+     */
+    @Param({ "1", "8", "64" })
+    public int predicates;
+
+    private byte[] filter;
+    private FilterParser parser;
+
+    /*
+     * Builds the filter objects the same way the plugin filter builders do
+     */
+    static class TreeBuilder implements FilterParser.FilterBuilder {
+        @Override
+        public Object build(FilterParser.Operation operation, Object left, Object right) {
+            return new BasicFilter(operation, (FilterParser.ColumnIndex) left,
+                    (FilterParser.Constant) right);
+        }
+
+        @Override
+        public Object build(FilterParser.Operation operation, Object operand) {
+            return new BasicFilter(operation, (FilterParser.ColumnIndex) operand, null);
+        }
+
+        @Override
+        public Object build(FilterParser.LogicalOperation operation, Object left, Object right) {
+            return new LogicalFilter(operation, Arrays.asList(left, right));
+        }
+
+        @Override
+        public Object build(FilterParser.LogicalOperation operation, Object filter) {
+            return new LogicalFilter(operation, Arrays.asList(filter));
+        }
+    }
+
+    @Setup
+    public void setup() {
+        SyntheticData data = new SyntheticData();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < predicates; i++) {
+            String constant;
+            DataType type;
+            switch (i % 3) {
+                case 0:
+                    type = DataType.INTEGER;
+                    constant = Integer.toString(data.nextInt());
+                    break;
+                case 1:
+                    type = DataType.FLOAT8;
+                    constant = Double.toString(data.nextDouble());
+                    break;
+                default:
+                    type = DataType.TEXT;
+                    constant = data.nextString(12);
+            }
+            // column, constant and one of the comparison operators <, >, <=, >=, =, <>
+            sb.append(FilterParser.COL_OP).append(i)
+                    .append(FilterParser.SCALAR_CONST_OP).append(type.getOID())
+                    .append(FilterParser.CONST_LEN).append(constant.length())
+                    .append(FilterParser.CONST_DATA).append(constant)
+                    .append(FilterParser.COMP_OP).append(1 + data.nextInt(6));
+            if (i > 0) {
+                sb.append(FilterParser.LOG_OP).append(FilterParser.LogicalOperation.HDOP_AND.ordinal());
+            }
+        }
+        filter = sb.toString().getBytes();
+        parser = new FilterParser(new TreeBuilder());
+    }
+
+    @Benchmark
+    public Object parse() throws Exception {
+        return parser.parse(filter);
+    }
+}
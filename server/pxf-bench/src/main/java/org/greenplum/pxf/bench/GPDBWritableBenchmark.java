@@ -0,0 +1,145 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.service.io.GPDBWritable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization and deserialization of one GPDBWritable record, the binary
+ * format exchanged with Greenplum.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GPDBWritableBenchmark {
+
+    private static final DataType[] TYPES = {
+            DataType.INTEGER, DataType.BIGINT, DataType.SMALLINT, DataType.FLOAT8,
+            DataType.REAL, DataType.BOOLEAN, DataType.TEXT, DataType.BYTEA };
+    private static final int RECORDS = 1024;
+
+    /**
+     * Length of the text and binary columns
+     */
+    @Param({ "16", "256" })
+    public int length;
+
+    private GPDBWritable[] records;
+    private byte[][] serialized;
+    private DataOutputBuffer out;
+    private DataInputBuffer in;
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticData data = new SyntheticData();
+        int[] schema = new int[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            schema[i] = TYPES[i].getOID();
+        }
+
+        records = new GPDBWritable[RECORDS];
+        serialized = new byte[RECORDS][];
+        out = new DataOutputBuffer();
+        in = new DataInputBuffer();
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = new GPDBWritable(schema);
+            fill(records[i], data.nextRecord(TYPES, length));
+            out.reset();
+            records[i].write(out);
+            serialized[i] = new byte[out.getLength()];
+            System.arraycopy(out.getData(), 0, serialized[i], 0, out.getLength());
+        }
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        out.reset();
+        records[next()].write(out);
+        return out.getLength();
+    }
+
+    @Benchmark
+    public GPDBWritable readFields() throws IOException {
+        byte[] record = serialized[next()];
+        in.reset(record, record.length);
+        GPDBWritable writable = new GPDBWritable();
+        writable.readFields(in);
+        return writable;
+    }
+
+    private int next() {
+        index = (index + 1) % RECORDS;
+        return index;
+    }
+
+    private static void fill(GPDBWritable writable, List<OneField> record) throws IOException {
+        for (int i = 0; i < TYPES.length; i++) {
+            Object val = record.get(i).val;
+            switch (TYPES[i]) {
+                case INTEGER:
+                    writable.setInt(i, (Integer) val);
+                    break;
+                case BIGINT:
+                    writable.setLong(i, (Long) val);
+                    break;
+                case SMALLINT:
+                    writable.setShort(i, (Short) val);
+                    break;
+                case FLOAT8:
+                    writable.setDouble(i, (Double) val);
+                    break;
+                case REAL:
+                    writable.setFloat(i, (Float) val);
+                    break;
+                case BOOLEAN:
+                    writable.setBoolean(i, (Boolean) val);
+                    break;
+                case BYTEA:
+                    writable.setBytes(i, (byte[]) val);
+                    break;
+                default:
+                    writable.setString(i, (String) val);
+            }
+        }
+    }
+}
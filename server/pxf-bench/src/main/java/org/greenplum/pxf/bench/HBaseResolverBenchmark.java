@@ -0,0 +1,94 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.plugins.hbase.HBaseResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution of one HBase {@link Result}, whose values are stored as strings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HBaseResolverBenchmark {
+
+    private static final byte[] FAMILY = Bytes.toBytes("cf1");
+    /* sorted by qualifier, like the cells of a Result */
+    private static final String[] NAMES = {
+            ColumnDescriptor.RECORD_KEY_NAME, "cf1:q1", "cf1:q2", "cf1:q3", "cf1:q4",
+            "cf1:q5", "cf1:q6" };
+    private static final DataType[] TYPES = {
+            DataType.TEXT, DataType.INTEGER, DataType.BIGINT, DataType.FLOAT8,
+            DataType.TEXT, DataType.BOOLEAN, DataType.TIMESTAMP };
+    private static final int RECORDS = 1024;
+
+    private HBaseResolver resolver;
+    private OneRow[] rows;
+    private int index;
+
+    @Setup
+    public void setup() {
+        SyntheticData data = new SyntheticData();
+        resolver = new HBaseResolver(SyntheticData.protocolData("GPDBWritable", NAMES, TYPES,
+                "bench_table", null));
+
+        rows = new OneRow[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            byte[] row = Bytes.toBytes(String.format("row%08d", i));
+            Cell[] cells = new Cell[NAMES.length - 1];
+            for (int j = 1; j < NAMES.length; j++) {
+                byte[] qualifier = Bytes.toBytes(NAMES[j].substring(NAMES[j].indexOf(':') + 1));
+                String value = data.nextValue(TYPES[j], 32).toString();
+                cells[j - 1] = new KeyValue(row, FAMILY, qualifier, Bytes.toBytes(value));
+            }
+            rows[i] = new OneRow(null, Result.create(cells));
+        }
+    }
+
+    @Benchmark
+    public List<OneField> getFields() throws Exception {
+        index = (index + 1) % RECORDS;
+        return resolver.getFields(rows[index]);
+    }
+}
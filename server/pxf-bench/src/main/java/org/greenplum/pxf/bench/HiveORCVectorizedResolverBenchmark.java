@@ -0,0 +1,182 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.ql.io.orc.Writer;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.greenplum.pxf.api.ColumnBatch;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ProtocolData;
+import org.greenplum.pxf.plugins.hive.HiveDataFragmenter;
+import org.greenplum.pxf.plugins.hive.HiveORCVectorizedResolver;
+import org.greenplum.pxf.plugins.hive.HiveUserData;
+import org.greenplum.pxf.service.BridgeOutputBuilder;
+import org.greenplum.pxf.service.io.RecordBatch;
+import org.greenplum.pxf.service.io.Writable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution of one batch of 1024 rows read from a synthetic ORC file, written
+ * to a temporary directory before the benchmark, into fields or into a column
+ * batch, and its serialization into GPDBWritable records.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HiveORCVectorizedResolverBenchmark {
+
+    private static final String[] NAMES = { "id", "amount", "price", "flag", "name", "comment" };
+    private static final String HIVE_TYPES = "int:bigint:double:boolean:string:string";
+    private static final DataType[] TYPES = {
+            DataType.INTEGER, DataType.BIGINT, DataType.FLOAT8,
+            DataType.BOOLEAN, DataType.TEXT, DataType.TEXT };
+    private static final int RECORDS = VectorizedRowBatch.DEFAULT_SIZE;
+
+    private File directory;
+    private HiveORCVectorizedResolver resolver;
+    private OneRow batch;
+    private ColumnBatch columns;
+    private BridgeOutputBuilder builder;
+    private RecordBatch records;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("pxf-bench").toFile();
+        Path path = new Path(new File(directory, "data.orc").getAbsolutePath());
+        Configuration conf = new Configuration();
+        writeOrcFile(conf, path);
+
+        String properties = "columns=" + String.join(",", NAMES) + "\n"
+                + "columns.types=" + HIVE_TYPES + "\n";
+        HiveUserData userData = new HiveUserData(OrcInputFormat.class.getName(),
+                OrcSerde.class.getName(), properties, HiveDataFragmenter.HIVE_NO_PART_TBL,
+                false, null, HIVE_TYPES, 0);
+        ProtocolData protocolData = SyntheticData.protocolData("GPDBWritable",
+                NAMES, TYPES, path.toString(), userData.toString().getBytes());
+        resolver = new HiveORCVectorizedResolver(protocolData);
+        columns = new ColumnBatch(NAMES.length);
+        builder = new BridgeOutputBuilder(protocolData);
+        records = new RecordBatch(RECORDS, Integer.MAX_VALUE);
+
+        Reader reader = OrcFile.createReader(path.getFileSystem(conf), path);
+        RecordReader rows = reader.rows();
+        batch = new OneRow(null, rows.nextBatch(null));
+        rows.close();
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtil.fullyDelete(directory);
+    }
+
+    @Benchmark
+    public List<List<OneField>> getFieldsForBatch() {
+        return resolver.getFieldsForBatch(batch);
+    }
+
+    @Benchmark
+    public ColumnBatch getColumnsForBatch() {
+        resolver.getColumnsForBatch(batch, columns);
+        return columns;
+    }
+
+    @Benchmark
+    public RecordBatch serializeFields() throws Exception {
+        records.clear();
+        for (List<OneField> record : resolver.getFieldsForBatch(batch)) {
+            for (Writable output : builder.makeOutput(record)) {
+                records.add(output);
+            }
+        }
+        return records;
+    }
+
+    @Benchmark
+    public RecordBatch serializeColumns() throws Exception {
+        records.clear();
+        resolver.getColumnsForBatch(batch, columns);
+        builder.addColumnBatch(columns, records);
+        return records;
+    }
+
+    private void writeOrcFile(Configuration conf, Path path) throws IOException {
+        List<ObjectInspector> inspectors = Arrays.<ObjectInspector>asList(
+                PrimitiveObjectInspectorFactory.javaIntObjectInspector,
+                PrimitiveObjectInspectorFactory.javaLongObjectInspector,
+                PrimitiveObjectInspectorFactory.javaDoubleObjectInspector,
+                PrimitiveObjectInspectorFactory.javaBooleanObjectInspector,
+                PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+                PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+        ObjectInspector inspector = ObjectInspectorFactory.getStandardStructObjectInspector(
+                Arrays.asList(NAMES), inspectors);
+
+        SyntheticData data = new SyntheticData();
+        Writer writer = OrcFile.createWriter(path, OrcFile.writerOptions(conf).inspector(inspector));
+        try {
+            for (int i = 0; i < RECORDS; i++) {
+                List<Object> row = new ArrayList<>(NAMES.length);
+                row.add(i);
+                row.add(data.nextLong());
+                row.add(data.nextDouble());
+                row.add(data.nextBoolean());
+                row.add(data.nextString(16));
+                // some nulls, as the resolver checks every value
+                row.add((i % 10 == 0) ? null : data.nextString(128));
+                writer.addRow(row);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.io.Text;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.plugins.json.JsonResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution of one JSON record, with nested objects and arrays, into the
+ * projected columns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonResolverBenchmark {
+
+    private static final String[] NAMES = {
+            "id", "text", "user.screen_name", "user.followers_count", "user.verified",
+            "coordinates.lat", "coordinates.lon", "entities.hashtags[0]" };
+    private static final DataType[] TYPES = {
+            DataType.BIGINT, DataType.TEXT, DataType.TEXT, DataType.INTEGER,
+            DataType.BOOLEAN, DataType.FLOAT8, DataType.FLOAT8, DataType.TEXT };
+    private static final int RECORDS = 1024;
+
+    private JsonResolver resolver;
+    private OneRow[] rows;
+    private int index;
+
+    @Setup
+    public void setup() throws Exception {
+        SyntheticData data = new SyntheticData();
+        resolver = new JsonResolver(SyntheticData.protocolData("GPDBWritable", NAMES, TYPES,
+                "/bench/data.json", null));
+
+        rows = new OneRow[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            String json = "{\"id\":" + data.nextLong()
+                    + ",\"text\":\"" + data.nextString(140) + "\""
+                    + ",\"lang\":\"en\""
+                    + ",\"user\":{\"screen_name\":\"" + data.nextString(12) + "\""
+                    + ",\"followers_count\":" + data.nextInt(1000000)
+                    + ",\"verified\":" + data.nextBoolean()
+                    + ",\"location\":\"" + data.nextString(20) + "\"}"
+                    + ",\"coordinates\":{\"lat\":" + data.nextDouble()
+                    + ",\"lon\":" + data.nextDouble() + "}"
+                    + ",\"entities\":{\"hashtags\":[\"" + data.nextString(8)
+                    + "\",\"" + data.nextString(8) + "\"]}}";
+            rows[i] = new OneRow(null, new Text(json));
+        }
+    }
+
+    @Benchmark
+    public List<OneField> getFields() throws Exception {
+        index = (index + 1) % RECORDS;
+        return resolver.getFields(rows[index]);
+    }
+}
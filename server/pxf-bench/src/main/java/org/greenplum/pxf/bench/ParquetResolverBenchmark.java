@@ -0,0 +1,135 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.RowBuffer;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ProtocolData;
+import org.greenplum.pxf.plugins.hdfs.ParquetResolver;
+import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution of one Parquet record, read as a {@link Group}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParquetResolverBenchmark {
+
+    private static final String SCHEMA = "message bench {\n"
+            + "  required int32 id;\n"
+            + "  optional int64 amount;\n"
+            + "  optional double price;\n"
+            + "  optional float ratio;\n"
+            + "  optional boolean flag;\n"
+            + "  optional binary name (UTF8);\n"
+            + "  optional binary comment (UTF8);\n"
+            + "  optional binary payload;\n"
+            + "}";
+    private static final String[] NAMES = {
+            "id", "amount", "price", "ratio", "flag", "name", "comment", "payload" };
+    private static final DataType[] TYPES = {
+            DataType.INTEGER, DataType.BIGINT, DataType.FLOAT8, DataType.REAL,
+            DataType.BOOLEAN, DataType.TEXT, DataType.TEXT, DataType.BYTEA };
+    private static final int RECORDS = 1024;
+
+    private ParquetResolver resolver;
+    private MessageType schema;
+    private OneRow[] rows;
+    private RowBuffer buffer;
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticData data = new SyntheticData();
+        schema = MessageTypeParser.parseMessageType(SCHEMA);
+        ProtocolData protData = SyntheticData.protocolData("GPDBWritable", NAMES, TYPES,
+                "/bench/data.parquet", HdfsUtilities.makeParquetUserData(schema));
+        resolver = new ParquetResolver(protData);
+        buffer = new RowBuffer(protData);
+
+        SimpleGroupFactory factory = new SimpleGroupFactory(schema);
+        rows = new OneRow[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            Group group = factory.newGroup()
+                    .append("id", i)
+                    .append("amount", data.nextLong())
+                    .append("price", data.nextDouble())
+                    .append("ratio", (float) data.nextDouble())
+                    .append("flag", data.nextBoolean())
+                    .append("name", data.nextString(16))
+                    .append("comment", data.nextString(128))
+                    .append("payload", Binary.fromConstantByteArray(data.nextBytes(32)));
+            rows[i] = new OneRow(null, group);
+        }
+    }
+
+    @Benchmark
+    public List<OneField> getFields() throws Exception {
+        index = (index + 1) % RECORDS;
+        return resolver.getFields(rows[index]);
+    }
+
+    /**
+     * Resolution with the schema given by the caller, instead of the schema
+     * parsed from the fragment user data.
+     */
+    @Benchmark
+    public List<OneField> getFieldsWithSchema() throws Exception {
+        index = (index + 1) % RECORDS;
+        return resolver.getFields(rows[index], schema);
+    }
+
+    /**
+     * Resolution into a reused {@link RowBuffer}, as done by the bridge for
+     * the GPDBWritable output.
+     */
+    @Benchmark
+    public RowBuffer fillRow() throws Exception {
+        index = (index + 1) % RECORDS;
+        buffer.clear();
+        resolver.fillRow(rows[index], buffer);
+        return buffer;
+    }
+}
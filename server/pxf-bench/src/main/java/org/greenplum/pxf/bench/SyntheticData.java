@@ -0,0 +1,215 @@
+package org.greenplum.pxf.bench;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.codec.binary.Base64;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ProtocolData;
+
+/**
+ * Generator of the synthetic records and requests used by the benchmarks.
+ * <p>
+ * The generator is seeded with a constant, so that every run of a benchmark
+ * works on the same data and results can be compared across commits.
+ */
+public class SyntheticData {
+
+    /**
+     * Seed of the generators.
+     */
+    public static final long SEED = 20180901L;
+
+    private static final char[] CHARS =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ".toCharArray();
+
+    private final Random random;
+
+    /**
+     * Constructs a generator with the default seed.
+     */
+    public SyntheticData() {
+        this(SEED);
+    }
+
+    /**
+     * Constructs a generator with the given seed.
+     *
+     * @param seed seed of the generator
+     */
+    public SyntheticData(long seed) {
+        random = new Random(seed);
+    }
+
+    public int nextInt() {
+        return random.nextInt();
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    public double nextDouble() {
+        return random.nextDouble() * 1000000;
+    }
+
+    public boolean nextBoolean() {
+        return random.nextBoolean();
+    }
+
+    /**
+     * @param length length of the string
+     * @return a string of letters, digits and spaces
+     */
+    public String nextString(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = CHARS[random.nextInt(CHARS.length)];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @param length number of bytes
+     * @return random bytes
+     */
+    public byte[] nextBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return a timestamp of the current century, in milliseconds
+     */
+    public Timestamp nextTimestamp() {
+        return new Timestamp(946684800000L + (random.nextLong() >>> 1) % 3155760000000L);
+    }
+
+    /**
+     * Generates a value of the given type, as returned by the resolvers.
+     *
+     * @param type type of the value
+     * @param length length of the text and binary values
+     * @return the value
+     */
+    public Object nextValue(DataType type, int length) {
+        switch (type) {
+            case BOOLEAN:
+                return nextBoolean();
+            case SMALLINT:
+                return (short) random.nextInt(Short.MAX_VALUE);
+            case INTEGER:
+                return nextInt();
+            case BIGINT:
+                return nextLong();
+            case REAL:
+                return (float) nextDouble();
+            case FLOAT8:
+                return nextDouble();
+            case BYTEA:
+                return nextBytes(length);
+            case TIMESTAMP:
+                return nextTimestamp();
+            case NUMERIC:
+                return Long.toString(random.nextInt()) + "." + random.nextInt(1000);
+            default:
+                return nextString(length);
+        }
+    }
+
+    /**
+     * Generates a record of the given types, as returned by the resolvers.
+     *
+     * @param types types of the fields
+     * @param length length of the text and binary fields
+     * @return the fields of the record
+     */
+    public List<OneField> nextRecord(DataType[] types, int length) {
+        List<OneField> record = new ArrayList<>(types.length);
+        for (DataType type : types) {
+            record.add(new OneField(type.getOID(), nextValue(type, length)));
+        }
+        return record;
+    }
+
+    /**
+     * Builds the parameters of a read request of the given columns, as sent
+     * by Greenplum.
+     *
+     * @param format output format, TEXT or GPDBWritable
+     * @param names names of the columns
+     * @param types types of the columns
+     * @return the request parameters
+     */
+    public static Map<String, String> requestParameters(String format, String[] names,
+                                                        DataType[] types) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("X-GP-ALIGNMENT", "8");
+        parameters.put("X-GP-SEGMENT-ID", "0");
+        parameters.put("X-GP-SEGMENT-COUNT", "1");
+        parameters.put("X-GP-HAS-FILTER", "0");
+        parameters.put("X-GP-FORMAT", format);
+        parameters.put("X-GP-URL-HOST", "localhost");
+        parameters.put("X-GP-URL-PORT", "5888");
+        parameters.put("X-GP-DATA-DIR", "/bench/data");
+        parameters.put("X-GP-USER", "gpadmin");
+        parameters.put("X-GP-OPTIONS-ACCESSOR", "bench");
+        parameters.put("X-GP-OPTIONS-RESOLVER", "bench");
+        parameters.put("X-GP-ATTRS", Integer.toString(types.length));
+        for (int i = 0; i < types.length; i++) {
+            parameters.put("X-GP-ATTR-NAME" + i, names[i]);
+            parameters.put("X-GP-ATTR-TYPECODE" + i, Integer.toString(types[i].getOID()));
+            parameters.put("X-GP-ATTR-TYPENAME" + i, types[i].toString());
+        }
+        return parameters;
+    }
+
+    /**
+     * Builds the data of a read request of the given columns.
+     *
+     * @param format output format, TEXT or GPDBWritable
+     * @param names names of the columns
+     * @param types types of the columns
+     * @param dataSource path of the data source
+     * @param userData fragment user data, can be null
+     * @return the request data
+     */
+    public static ProtocolData protocolData(String format, String[] names, DataType[] types,
+                                            String dataSource, byte[] userData) {
+        Map<String, String> parameters = requestParameters(format, names, types);
+        parameters.put("X-GP-DATA-DIR", dataSource);
+        if (userData != null) {
+            parameters.put("X-GP-FRAGMENT-USER-DATA", new String(Base64.encodeBase64(userData)));
+        }
+        return new ProtocolData(parameters);
+    }
+}
@@ -44,9 +44,11 @@ import java.util.List;
  * That also includes the conversion process of each HBase column's value into its GPDB assigned type.
  *
  * Currently, the class assumes all HBase values are stored as String object Bytes encoded.
+ * The values of the columns not projected by the query are neither copied nor converted.
  */
-public class HBaseResolver extends Plugin implements ReadResolver {
+public class HBaseResolver extends Plugin implements ProjectionResolver {
     private HBaseTupleDescription tupleDescription;
+    private boolean[] projection;
 
     /**
      * Constructs a resolver and initializes the table's tuple description.
@@ -74,6 +76,11 @@ public class HBaseResolver extends Plugin implements ReadResolver {
             HBaseColumnDescriptor column = tupleDescription.getColumn(i);
             byte[] value;
 
+            if (!isProjected(i)) {
+                fields.add(new OneField(column.columnTypeCode(), null));
+                continue;
+            }
+
             if (column.isKeyColumn()) // if a row column is requested
             {
                 value = result.getRow(); // just return the row key
@@ -90,6 +97,15 @@ public class HBaseResolver extends Plugin implements ReadResolver {
         return fields;
     }
 
+    @Override
+    public void setProjection(boolean[] projection) {
+        this.projection = projection;
+    }
+
+    private boolean isProjected(int index) {
+        return projection == null || index >= projection.length || projection[index];
+    }
+
     /**
      * Converts given byte array value to the matching java object, according to
      * the given type code.
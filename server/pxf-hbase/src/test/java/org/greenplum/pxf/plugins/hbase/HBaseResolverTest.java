@@ -20,8 +20,13 @@ package org.greenplum.pxf.plugins.hbase;
  */
 
 
+import org.apache.hadoop.hbase.client.Result;
 import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.utilities.InputData;
+import org.greenplum.pxf.plugins.hbase.utilities.HBaseColumnDescriptor;
 import org.greenplum.pxf.plugins.hbase.utilities.HBaseTupleDescription;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -31,6 +36,11 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({HBaseResolver.class})
@@ -106,4 +116,35 @@ public class HBaseResolverTest {
         }
 
     }
+
+    @Test
+    /*
+     * Test that the columns not projected are neither read nor converted
+     */
+    public void nonProjectedColumns() throws Exception {
+        inputData = mock(InputData.class);
+        tupleDesc = mock(HBaseTupleDescription.class);
+        PowerMockito.whenNew(HBaseTupleDescription.class).withArguments(inputData).thenReturn(tupleDesc);
+        HBaseColumnDescriptor key = mock(HBaseColumnDescriptor.class);
+        when(key.isKeyColumn()).thenReturn(true);
+        when(key.columnTypeCode()).thenReturn(DataType.INTEGER.getOID());
+        HBaseColumnDescriptor column = mock(HBaseColumnDescriptor.class);
+        when(column.columnTypeCode()).thenReturn(DataType.TEXT.getOID());
+        when(tupleDesc.columns()).thenReturn(2);
+        when(tupleDesc.getColumn(0)).thenReturn(key);
+        when(tupleDesc.getColumn(1)).thenReturn(column);
+        Result result = mock(Result.class);
+        when(result.getRow()).thenReturn("12".getBytes());
+
+        HBaseResolver resolver = new HBaseResolver(inputData);
+        resolver.setProjection(new boolean[]{true, false});
+        List<OneField> fields = resolver.getFields(new OneRow(null, result));
+
+        assertEquals(2, fields.size());
+        assertEquals(12, fields.get(0).val);
+        assertEquals(DataType.TEXT.getOID(), fields.get(1).type);
+        assertNull(fields.get(1).val);
+        verify(result).getRow();
+        verifyNoMoreInteractions(result);
+    }
 }
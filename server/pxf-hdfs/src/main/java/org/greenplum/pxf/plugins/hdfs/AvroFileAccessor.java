@@ -21,6 +21,7 @@ package org.greenplum.pxf.plugins.hdfs;
 
 
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.SamplingAccessor;
 import org.greenplum.pxf.api.utilities.InputData;
 
 import org.apache.avro.Schema;
@@ -38,7 +39,8 @@ import static org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities.getAvroSche
 /**
  * A PXF Accessor for reading Avro File records
  */
-public class AvroFileAccessor extends HdfsSplittableDataAccessor {
+public class AvroFileAccessor extends HdfsSplittableDataAccessor implements
+        SamplingAccessor {
     private AvroWrapper<GenericRecord> avroWrapper = null;
 
     /**
@@ -22,7 +22,7 @@ package org.greenplum.pxf.plugins.hdfs;
 
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
-import org.greenplum.pxf.api.ReadResolver;
+import org.greenplum.pxf.api.ProjectionResolver;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.api.utilities.Plugin;
@@ -49,9 +49,10 @@ import java.util.Map;
 
 /**
  * Class AvroResolver handles deserialization of records that were serialized
- * using the AVRO serialization framework.
+ * using the AVRO serialization framework. The fields of the columns not
+ * projected by the query are not converted.
  */
-public class AvroResolver extends Plugin implements ReadResolver {
+public class AvroResolver extends Plugin implements ProjectionResolver {
     private GenericRecord avroRecord = null;
     private DatumReader<GenericRecord> reader = null;
     // member kept to enable reuse, and thus avoid repeated allocation
@@ -64,6 +65,7 @@ public class AvroResolver extends Plugin implements ReadResolver {
     private String collectionDelim;
     private String mapkeyDelim;
     private String recordkeyDelim;
+    private boolean[] projection;
 
     /**
      * Constructs an AvroResolver. Initializes Avro data structure: the Avro
@@ -125,6 +127,12 @@ public class AvroResolver extends Plugin implements ReadResolver {
                         inputData, row);
             }
 
+            if (!isProjected(record.size())) {
+                addNullField(record);
+                currentIndex++;
+                continue;
+            }
+
             currentIndex += populateRecord(record,
                     avroRecord.get(field.name()), field.schema());
         }
@@ -132,6 +140,24 @@ public class AvroResolver extends Plugin implements ReadResolver {
         return record;
     }
 
+    @Override
+    public void setProjection(boolean[] projection) {
+        this.projection = projection;
+    }
+
+    /*
+     * Each Avro field is resolved into one field of the record, so the column
+     * of a field is its index in the record.
+     */
+    private boolean isProjected(int index) {
+        return projection == null || index >= projection.length || projection[index];
+    }
+
+    private void addNullField(List<OneField> record) {
+        int type = inputData.getColumn(record.size()).columnTypeCode();
+        record.add(new OneField(type, null));
+    }
+
     /**
      * Tests if the Avro records are residing inside an AVRO file. If the Avro
      * records are not residing inside an AVRO file, then they may reside inside
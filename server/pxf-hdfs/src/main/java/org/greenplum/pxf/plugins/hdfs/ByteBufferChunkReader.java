@@ -0,0 +1,111 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+import org.apache.hadoop.fs.ByteBufferReadable;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.ReadOption;
+import org.apache.hadoop.io.ByteBufferPool;
+import org.apache.hadoop.io.ElasticByteBufferPool;
+
+/**
+ * ChunkReader of an uncompressed file reading the chunks through the
+ * ByteBuffer interfaces of the HDFS input stream:
+ * <ul>
+ * <li>{@link ReadMode#BYTEBUFFER}: the chunk is read with
+ * {@link ByteBufferReadable#read(ByteBuffer)} into a buffer wrapping the
+ * chunk, so that a short-circuit local read goes straight from the block
+ * file to the chunk;</li>
+ * <li>{@link ReadMode#ENHANCED}: the chunk is read with the enhanced
+ * byte buffer access of HDFS, which maps the blocks of the HDFS cache in
+ * memory instead of reading them through the DataNode. Blocks which cannot
+ * be mapped are read into buffers of a shared pool. The data is copied once,
+ * from the mapped or pooled buffer to the chunk, since the chunks are byte
+ * arrays that outlive the buffer.</li>
+ * </ul>
+ * The lines are still read through the stream.
+ */
+public class ByteBufferChunkReader extends ChunkReader {
+
+    /**
+     * How the chunks of an uncompressed file are read.
+     */
+    public enum ReadMode {
+        /** Through {@link java.io.InputStream#read(byte[], int, int)} */
+        STREAM,
+        /** Through {@link ByteBufferReadable#read(ByteBuffer)} */
+        BYTEBUFFER,
+        /** Through the enhanced byte buffer access, copying the data once */
+        ENHANCED
+    }
+
+    private static final ByteBufferPool BUFFER_POOL = new ElasticByteBufferPool();
+    private static final EnumSet<ReadOption> READ_OPTIONS = EnumSet.noneOf(ReadOption.class);
+
+    private final FSDataInputStream in;
+    private final ReadMode mode;
+
+    /**
+     * Constructs a ByteBufferChunkReader. The BYTEBUFFER mode falls back to
+     * the STREAM mode when the stream does not support it.
+     *
+     * @param in input stream of the file
+     * @param mode how the chunks are read
+     */
+    public ByteBufferChunkReader(FSDataInputStream in, ReadMode mode) {
+        super(in);
+        this.in = in;
+        this.mode = (mode == ReadMode.BYTEBUFFER && !(in.getWrappedStream() instanceof ByteBufferReadable))
+                ? ReadMode.STREAM : mode;
+    }
+
+    /**
+     * @return how the chunks are read
+     */
+    public ReadMode getMode() {
+        return mode;
+    }
+
+    @Override
+    protected int readChunkBytes(byte[] b, int off, int len) throws IOException {
+        switch (mode) {
+            case BYTEBUFFER:
+                return in.read(ByteBuffer.wrap(b, off, len));
+            case ENHANCED:
+                ByteBuffer data = in.read(BUFFER_POOL, len, READ_OPTIONS);
+                if (data == null) {
+                    return -1; // EOF
+                }
+                try {
+                    int read = data.remaining();
+                    data.get(b, off, read);
+                    return read;
+                } finally {
+                    in.releaseBuffer(data);
+                }
+            default:
+                return super.readChunkBytes(b, off, len);
+        }
+    }
+}
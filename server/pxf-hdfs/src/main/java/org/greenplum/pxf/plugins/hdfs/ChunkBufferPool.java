@@ -0,0 +1,80 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of the byte arrays holding the chunks read by the
+ * {@link ChunkRecordReader}s. Every fragment read by chunks needs a buffer of
+ * the size of a chunk; the buffers are returned to the pool when the reader of
+ * the fragment is closed, so the next fragments reuse them instead of
+ * allocating new ones.
+ * <p>
+ * The pool keeps at most 16 idle buffers, or the number set by the
+ * pxf.hdfs.chunk.pool.size system property. The buffers released to a full
+ * pool, and the buffers smaller than {@link ChunkReader#DEFAULT_BUFFER_SIZE},
+ * are left to the garbage collector.
+ */
+public final class ChunkBufferPool {
+
+    static final String PROPERTY_KEY_POOL_SIZE = "pxf.hdfs.chunk.pool.size";
+    static final int DEFAULT_POOL_SIZE = 16;
+    private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(
+            Math.max(1, Integer.getInteger(PROPERTY_KEY_POOL_SIZE, DEFAULT_POOL_SIZE)));
+
+    private ChunkBufferPool() {
+    }
+
+    /**
+     * Takes a buffer of at least the given size from the pool, or allocates
+     * it if the pool has none.
+     *
+     * @param size minimum size of the buffer
+     * @return the buffer, its content is undefined
+     */
+    public static byte[] acquire(int size) {
+        byte[] buffer = BUFFERS.poll();
+        if (buffer == null || buffer.length < size) {
+            // a too small buffer is dropped, the chunk size must have grown
+            buffer = new byte[size];
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer must not be used afterwards.
+     *
+     * @param buffer the buffer, may be null
+     */
+    public static void release(byte[] buffer) {
+        if (buffer != null && buffer.length >= ChunkReader.DEFAULT_BUFFER_SIZE) {
+            BUFFERS.offer(buffer);
+        }
+    }
+
+    /**
+     * @return number of idle buffers in the pool
+     */
+    static int getIdleBuffers() {
+        return BUFFERS.size();
+    }
+}
@@ -23,14 +23,15 @@ package org.greenplum.pxf.plugins.hdfs;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.LinkedList;
-import java.util.List;
 
 import org.apache.hadoop.io.Writable;
 
 /**
  * A class that provides a line reader from an input stream. Lines are
  * terminated by '\n' (LF) EOF also terminates an otherwise unterminated line.
+ * The lines and chunks are read into the reusable buffer of a
+ * {@link ChunkWritable}, so reading allocates nothing once the buffer is big
+ * enough.
  */
 public class ChunkReader implements Closeable {
     public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
@@ -61,24 +62,13 @@ public class ChunkReader implements Closeable {
         in.close();
     }
 
-    /*
-     * Internal class used for holding part of a chunk brought by one read()
-     * operation on the input stream. We collect several such nodes in a list by
-     * doing several read operation until we reach the chunk size -
-     * maxBytesToConsume
-     */
-    private class Node {
-        /* part of a chunk brought in a single inputstream.read() operation */
-        public byte[] slice;
-        /* the size of the slice */
-        public int len;
-    }
-
     /**
-     * Reads data in chunks of DEFAULT_CHUNK_SIZE, until we reach
-     * maxBytesToConsume.
+     * Reads data until we reach maxBytesToConsume. The data is read straight
+     * into the buffer of the ChunkWritable, which is reused from one chunk to
+     * the next.
      *
-     * @param str - output parameter, will contain the read chunk byte array
+     * @param str - output parameter, will contain the read chunk in its
+     *            buffer
      * @param maxBytesToConsume - requested chunk size
      * @return actual chunk size
      * @throws IOException if the first byte cannot be read for any reason
@@ -88,51 +78,48 @@ public class ChunkReader implements Closeable {
     public int readChunk(Writable str, int maxBytesToConsume) throws IOException
            {
         ChunkWritable cw = (ChunkWritable) str;
-        List<Node> list = new LinkedList<Node>();
-
-        long bytesConsumed = 0;
-
-        do {
-            if (bufferLength > 0) {
-                int remaining = bufferLength - bufferPosn;
-                Node nd = new Node();
-                nd.slice = new byte[remaining];
-                nd.len = remaining;
-                System.arraycopy(buffer, bufferPosn, nd.slice, 0, nd.len);
-                list.add(nd);
-                bytesConsumed += nd.len;
-            } else {
-                Node nd = new Node();
-                nd.slice = new byte[buffer.length];
-                nd.len = in.read(nd.slice);
-                if (nd.len <= 0) {
-                    break; // EOF
-                }
-                bytesConsumed += nd.len;
-                list.add(nd);
-            }
-
-            bufferLength = bufferPosn = 0;
-
-        } while (bytesConsumed < maxBytesToConsume);
+        cw.length = 0;
 
-        if (list.size() > 0) {
-            cw.box = new byte[(int) bytesConsumed];
-            int pos = 0;
-            for (int i = 0; i < list.size(); i++) {
-                Node n = list.get(i);
-                System.arraycopy(n.slice, 0, cw.box, pos, n.len);
-                pos += n.len;
+        // the bytes left in the buffer by readLine come first
+        int remaining = bufferLength - bufferPosn;
+        cw.ensureCapacity(Math.max(remaining, maxBytesToConsume));
+        if (remaining > 0) {
+            cw.append(buffer, bufferPosn, remaining);
+        }
+        bufferLength = bufferPosn = 0;
+
+        // the buffer may be larger than the chunk, never read past the chunk
+        int limit = Math.max(remaining, maxBytesToConsume);
+        while (cw.length < maxBytesToConsume) {
+            int len = readChunkBytes(cw.box, cw.length, limit - cw.length);
+            if (len <= 0) {
+                break; // EOF
             }
+            cw.length += len;
         }
 
-        return (int) bytesConsumed;
+        return cw.length;
+    }
+
+    /**
+     * Reads the bytes of a chunk from the input stream. Subclasses may read
+     * them otherwise than through {@link InputStream#read(byte[], int, int)}.
+     *
+     * @param b the buffer of the chunk
+     * @param off offset in the buffer
+     * @param len maximum number of bytes to read
+     * @return the number of bytes read, -1 or 0 at the end of the stream
+     * @throws IOException if an I/O error occurs
+     */
+    protected int readChunkBytes(byte[] b, int off, int len) throws IOException {
+        return in.read(b, off, len);
     }
 
     /**
      * Reads a line terminated by LF.
      *
-     * @param str - output parameter, will contain the read record
+     * @param str - output parameter, will contain the read record in its
+     *            buffer
      * @param maxBytesToConsume - the line mustn't exceed this value
      * @return length of the line read
      * @throws IOException if the first byte cannot be read for any reason
@@ -141,7 +128,7 @@ public class ChunkReader implements Closeable {
      */
     public int readLine(Writable str, int maxBytesToConsume) throws IOException {
         ChunkWritable cw = (ChunkWritable) str;
-        List<Node> list = new LinkedList<Node>();
+        cw.length = 0;
 
         boolean newLine = false; // length of terminating newline
         long bytesConsumed = 0;
@@ -172,23 +159,47 @@ public class ChunkReader implements Closeable {
             bytesConsumed += readLength;
 
             if (readLength > 0) {
-                Node nd = new Node();
-                nd.slice = new byte[readLength];
-                nd.len = readLength;
-                System.arraycopy(buffer, startPosn, nd.slice, 0, nd.len);
-                list.add(nd);
+                cw.append(buffer, startPosn, readLength);
             }
         } while (!newLine && bytesConsumed < maxBytesToConsume);
 
-        if (list.size() > 0) {
-            cw.box = new byte[(int) bytesConsumed];
-            int pos = 0;
-            for (int i = 0; i < list.size(); i++) {
-                Node n = list.get(i);
-                System.arraycopy(n.slice, 0, cw.box, pos, n.len);
-                pos += n.len;
+        return (int) bytesConsumed;
+    }
+
+    /**
+     * Skips a line terminated by LF. The bytes of the line are not copied.
+     *
+     * @param maxBytesToConsume - the line mustn't exceed this value
+     * @return length of the line skipped
+     * @throws IOException if the first byte cannot be read for any reason
+     *         other than the end of the file, if the input stream has been closed,
+     *         or if some other I/O error occurs.
+     */
+    public int skipLine(int maxBytesToConsume) throws IOException {
+        boolean newLine = false;
+        long bytesConsumed = 0;
+
+        do {
+            int startPosn = bufferPosn;
+            if (bufferPosn >= bufferLength) {
+                startPosn = bufferPosn = 0;
+
+                bufferLength = in.read(buffer);
+                if (bufferLength <= 0) {
+                    break; // EOF
+                }
+            }
+
+            for (; bufferPosn < bufferLength; ++bufferPosn) {
+                if (buffer[bufferPosn] == LF) {
+                    newLine = true;
+                    ++bufferPosn;
+                    break;
+                }
             }
-        }
+
+            bytesConsumed += bufferPosn - startPosn;
+        } while (!newLine && bytesConsumed < maxBytesToConsume);
 
         return (int) bytesConsumed;
     }
@@ -38,6 +38,7 @@ import org.apache.hadoop.io.compress.CodecPool;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.CompressionCodecFactory;
 import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.io.compress.GzipCodec;
 import org.apache.hadoop.io.compress.SplitCompressionInputStream;
 import org.apache.hadoop.io.compress.SplittableCompressionCodec;
 import org.apache.hadoop.mapred.FileSplit;
@@ -46,10 +47,26 @@ import org.apache.hadoop.mapred.RecordReader;
 /**
  * ChunkRecordReader is designed for fast reading of a file split. The idea is
  * to bring chunks of data instead of single records. The chunks contain many
- * records and the chunk end is not aligned on a record boundary. The size of
- * the chunk is a class hardcoded parameter - CHUNK_SIZE. This behaviour sets
- * this reader apart from the other readers which will fetch one record and stop
- * when reaching a record delimiter.
+ * records and the chunk end is not aligned on a record boundary. This
+ * behaviour sets this reader apart from the other readers which will fetch one
+ * record and stop when reaching a record delimiter. The chunks are read
+ * straight into a buffer taken from the {@link ChunkBufferPool}, which is
+ * reused for all the chunks of the split.
+ * <p>
+ * The size of the chunks adapts to the throughput of the split: starting from
+ * the maximum size, it is set after each chunk so that reading a chunk takes
+ * about 10 ms, within the minimum and maximum sizes. The following system
+ * properties are supported:
+ * <ul>
+ * <li>pxf.hdfs.chunk.size: maximum size of a chunk, 1MB by default;</li>
+ * <li>pxf.hdfs.chunk.size.min: minimum size of a chunk, 64KB by default. The
+ * size is fixed when it is equal to the maximum size;</li>
+ * <li>pxf.hdfs.chunk.read.mode: how the chunks of uncompressed files are
+ * read, see {@link ByteBufferChunkReader.ReadMode}. STREAM by default.</li>
+ * </ul>
+ * A split of a gzip file which is not the whole file is a fragment created
+ * from the {@link GzipIndex} of the file, and is read from a checkpoint of the
+ * index.
  */
 public class ChunkRecordReader implements
         RecordReader<LongWritable, ChunkWritable> {
@@ -66,7 +83,24 @@ public class ChunkRecordReader implements
     private int maxLineLength;
     private CompressionCodec codec;
     private Decompressor decompressor;
-    private static final int CHUNK_SIZE = 1024 * 1024;
+    private ChunkWritable value;
+    private int chunkSize = MAX_CHUNK_SIZE;
+
+    static final String PROPERTY_KEY_CHUNK_SIZE = "pxf.hdfs.chunk.size";
+    static final String PROPERTY_KEY_MIN_CHUNK_SIZE = "pxf.hdfs.chunk.size.min";
+    static final String PROPERTY_KEY_READ_MODE = "pxf.hdfs.chunk.read.mode";
+    static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    static final int DEFAULT_MIN_CHUNK_SIZE = ChunkReader.DEFAULT_BUFFER_SIZE;
+    // the chunk sizes are multiples of this size
+    static final int CHUNK_SIZE_UNIT = 4 * 1024;
+    // reading a chunk should take about this time
+    static final long TARGET_CHUNK_READ_NANOS = 10 * 1000 * 1000;
+    private static final int MAX_CHUNK_SIZE = Math.min(256 * 1024 * 1024, Math.max(CHUNK_SIZE_UNIT,
+            Integer.getInteger(PROPERTY_KEY_CHUNK_SIZE, DEFAULT_CHUNK_SIZE)));
+    private static final int MIN_CHUNK_SIZE = Math.min(MAX_CHUNK_SIZE, Math.max(CHUNK_SIZE_UNIT,
+            Integer.getInteger(PROPERTY_KEY_MIN_CHUNK_SIZE, DEFAULT_MIN_CHUNK_SIZE)));
+    private static final ByteBufferChunkReader.ReadMode READ_MODE = getReadMode(
+            System.getProperty(PROPERTY_KEY_READ_MODE));
 
     /**
      * Translates the FSDataInputStream into a DFSInputStream.
@@ -109,7 +143,18 @@ public class ChunkRecordReader implements
         final FileSystem fs = file.getFileSystem(job);
         fileIn = fs.open(file, ChunkReader.DEFAULT_BUFFER_SIZE);
         fileLength = getInputStream().getFileLength();
-        if (isCompressedInput()) {
+        if (codec instanceof GzipCodec && (start != 0 || end < fileLength)) {
+            // a fragment of a gzip file with an index
+            final GzipIndexInputStream cIn = GzipIndexInputStream.open(fs, file, fileIn, start, end);
+            in = new ChunkReader(cIn);
+            start = cIn.getAdjustedStart();
+            end = cIn.getAdjustedEnd();
+            /*
+             * the positions of the stream are exact uncompressed positions,
+             * the lines are counted like in an uncompressed file
+             */
+            filePosition = null;
+        } else if (isCompressedInput()) {
             decompressor = CodecPool.getDecompressor(codec);
             if (codec instanceof SplittableCompressionCodec) {
                 final SplitCompressionInputStream cIn = ((SplittableCompressionCodec) codec).createInputStream(
@@ -126,7 +171,8 @@ public class ChunkRecordReader implements
             }
         } else {
             fileIn.seek(start);
-            in = new ChunkReader(fileIn);
+            in = (READ_MODE == ByteBufferChunkReader.ReadMode.STREAM) ? new ChunkReader(fileIn)
+                    : new ByteBufferChunkReader(fileIn, READ_MODE);
             filePosition = fileIn;
         }
         /*
@@ -135,7 +181,7 @@ public class ChunkRecordReader implements
          * next() method.
          */
         if (start != 0) {
-            start += in.readLine(new ChunkWritable(), maxBytesToConsume(start));
+            start += in.skipLine(maxBytesToConsume(start));
         }
         this.pos = start;
     }
@@ -153,25 +199,27 @@ public class ChunkRecordReader implements
 
     /**
      * Used by the client of this class to create the 'value' output parameter
-     * for next() method.
+     * for next() method. The buffer of the value is returned to the
+     * {@link ChunkBufferPool} when the reader is closed.
      *
      * @return an instance of ChunkWritable
      */
     @Override
     public ChunkWritable createValue() {
-        return new ChunkWritable();
+        value = new ChunkWritable();
+        return value;
     }
 
     /**
-     * Fetches the next data chunk from the file split. The size of the chunk is
-     * a class hardcoded parameter - CHUNK_SIZE. This behaviour sets this reader
+     * Fetches the next data chunk from the file split. The size of the chunk
+     * adapts to the throughput of the split. This behaviour sets this reader
      * apart from the other readers which will fetch one record and stop when
      * reaching a record delimiter.
      *
      * @param key - output parameter. When method returns will contain the key -
      *            the number of the start byte of the chunk
      * @param value - output parameter. When method returns will contain the
-     *            value - the chunk, a byte array inside the ChunkWritable
+     *            value - the chunk, in the buffer of the ChunkWritable
      *            instance
      * @return false - when end of split was reached
      * @throws IOException if an I/O error occurred while reading the next chunk
@@ -191,7 +239,7 @@ public class ChunkRecordReader implements
          * before the last record.
          */
         float factor = 1.5f;
-        int limit = (int) (factor * CHUNK_SIZE);
+        int limit = (int) (factor * chunkSize);
         long curPos = getFilePosition();
         int newSize = 0;
 
@@ -199,7 +247,10 @@ public class ChunkRecordReader implements
             key.set(pos);
 
             if ((end - curPos) > limit) {
-                newSize = in.readChunk(value, CHUNK_SIZE);
+                long startTime = System.nanoTime();
+                newSize = in.readChunk(value, chunkSize);
+                chunkSize = nextChunkSize(chunkSize, newSize, System.nanoTime() - startTime,
+                        MIN_CHUNK_SIZE, MAX_CHUNK_SIZE);
             } else {
                 newSize = in.readLine(value,
                         Math.max(maxBytesToConsume(pos), maxLineLength));
@@ -209,19 +260,7 @@ public class ChunkRecordReader implements
             }
 
             pos += newSize;
-
-            if (pos == fileLength) { /*
-                                      * in case text file last character is not
-                                      * a linefeed
-                                      */
-                if (value.box[value.box.length - 1] != '\n') {
-                    int newLen = value.box.length + 1;
-                    byte[] tmp = new byte[newLen];
-                    System.arraycopy(value.box, 0, tmp, 0, newLen - 1);
-                    tmp[newLen - 1] = '\n';
-                    value.box = tmp;
-                }
-            }
+            terminateLastLine(value);
 
             return true;
         }
@@ -232,6 +271,58 @@ public class ChunkRecordReader implements
         return false;
     }
 
+    /**
+     * Fetches the next line of the file split, whatever the position in the
+     * split. Used when single records are needed, e.g. for sampling.
+     *
+     * @param key - output parameter. When method returns will contain the key -
+     *            the number of the start byte of the line
+     * @param value - output parameter. When method returns will contain the
+     *            value - the line including its linefeed
+     * @return false - when end of split was reached
+     * @throws IOException if an I/O error occurred while reading the line
+     */
+    public synchronized boolean nextLine(LongWritable key, ChunkWritable value)
+            throws IOException {
+        if (getFilePosition() > end) {
+            return false;
+        }
+
+        key.set(pos);
+        int newSize = in.readLine(value,
+                Math.max(maxBytesToConsume(pos), maxLineLength));
+        if (newSize == 0) {
+            return false;
+        }
+
+        pos += newSize;
+        terminateLastLine(value);
+        return true;
+    }
+
+    /**
+     * Skips the next lines of the file split. The skipped lines are scanned
+     * for their linefeed only, they are not copied.
+     *
+     * @param count the number of lines to skip
+     * @return the number of lines skipped, lower than count when the end of
+     *         split was reached
+     * @throws IOException if an I/O error occurred while reading the lines
+     */
+    public synchronized long skipLines(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && getFilePosition() <= end) {
+            int newSize = in.skipLine(
+                    Math.max(maxBytesToConsume(pos), maxLineLength));
+            if (newSize == 0) {
+                break;
+            }
+            pos += newSize;
+            skipped++;
+        }
+        return skipped;
+    }
+
     /**
      * Gets the progress within the split.
      */
@@ -256,18 +347,79 @@ public class ChunkRecordReader implements
     }
 
     /**
-     * Closes the input stream.
+     * Closes the input stream, and returns the buffer of the value to the
+     * pool.
      */
     @Override
     public synchronized void close() throws IOException {
         try {
             if (in != null) {
                 in.close();
+                in = null;
             }
         } finally {
             if (decompressor != null) {
                 CodecPool.returnDecompressor(decompressor);
+                decompressor = null;
             }
+            if (value != null) {
+                value.release();
+                value = null;
+            }
+        }
+    }
+
+    /*
+     * in case text file last character is not a linefeed
+     */
+    private void terminateLastLine(ChunkWritable value) {
+        if (pos == fileLength && value.box[value.length - 1] != '\n') {
+            value.ensureCapacity(value.length + 1);
+            value.box[value.length++] = '\n';
+        }
+    }
+
+    /**
+     * Computes the size of the next chunk from the time taken to read the
+     * last one, so that reading a chunk takes about
+     * {@link #TARGET_CHUNK_READ_NANOS}. The size changes by a factor of 2 at
+     * most from one chunk to the next.
+     *
+     * @param chunkSize size of the last chunk
+     * @param bytesRead number of bytes read in the last chunk
+     * @param nanos time taken to read the last chunk
+     * @param minSize minimum chunk size
+     * @param maxSize maximum chunk size
+     * @return the size of the next chunk
+     */
+    static int nextChunkSize(int chunkSize, int bytesRead, long nanos, int minSize, int maxSize) {
+        if (minSize >= maxSize || bytesRead < chunkSize || nanos <= 0) {
+            // a short chunk is the end of the split, its time is meaningless
+            return chunkSize;
+        }
+        long size = (long) ((double) bytesRead * TARGET_CHUNK_READ_NANOS / nanos);
+        size = Math.max(chunkSize / 2, Math.min(2L * chunkSize, size));
+        size -= size % CHUNK_SIZE_UNIT;
+        return (int) Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    /**
+     * @return the current chunk size
+     */
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    private static ByteBufferChunkReader.ReadMode getReadMode(String value) {
+        if (value == null) {
+            return ByteBufferChunkReader.ReadMode.STREAM;
+        }
+        try {
+            return ByteBufferChunkReader.ReadMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Invalid value '" + value + "' for " + PROPERTY_KEY_READ_MODE
+                    + ", using STREAM");
+            return ByteBufferChunkReader.ReadMode.STREAM;
         }
     }
 
@@ -23,15 +23,75 @@ package org.greenplum.pxf.plugins.hdfs;
 import java.io.DataOutput;
 import java.io.DataInput;
 import java.lang.UnsupportedOperationException;
+import java.util.Arrays;
 
 import org.apache.hadoop.io.Writable;
 
 /**
  * Just an output buffer for the ChunkRecordReader. It must extend Writable
  * otherwise it will not fit into the next() interface method
+ * <p>
+ * The data is held in the first {@link #length} bytes of {@link #box}, a
+ * buffer taken from the {@link ChunkBufferPool} and reused from one chunk to
+ * the next: the data is only valid until the next read into the object.
  */
 public class ChunkWritable implements Writable {
 	public byte [] box;
+	/* number of bytes of data in box */
+	public int length;
+
+	/**
+	 * Makes sure the buffer can hold the given number of bytes. A larger
+	 * buffer is taken from the pool when needed, the data is kept.
+	 *
+	 * @param capacity the number of bytes
+	 */
+	public void ensureCapacity(int capacity) {
+		if (box != null && box.length >= capacity) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, ChunkReader.DEFAULT_BUFFER_SIZE);
+		if (box != null) {
+			// grow by doubling, lines are appended slice by slice
+			newCapacity = (int) Math.min(Integer.MAX_VALUE,
+					Math.max(newCapacity, 2L * box.length));
+		}
+		byte[] newBox = ChunkBufferPool.acquire(newCapacity);
+		if (length > 0) {
+			System.arraycopy(box, 0, newBox, 0, length);
+		}
+		ChunkBufferPool.release(box);
+		box = newBox;
+	}
+
+	/**
+	 * Appends bytes to the data.
+	 *
+	 * @param bytes array holding the bytes
+	 * @param offset offset of the bytes in the array
+	 * @param len number of bytes
+	 */
+	public void append(byte[] bytes, int offset, int len) {
+		ensureCapacity(length + len);
+		System.arraycopy(bytes, offset, box, length, len);
+		length += len;
+	}
+
+	/**
+	 * @return a copy of the data
+	 */
+	public byte[] getBytes() {
+		return (box == null) ? new byte[0] : Arrays.copyOf(box, length);
+	}
+
+	/**
+	 * Returns the buffer to the pool. The object is empty afterwards.
+	 */
+	public void release() {
+		ChunkBufferPool.release(box);
+		box = null;
+		length = 0;
+	}
 
 	/**
      * Serializes the fields of this object to <code>out</code>.
@@ -0,0 +1,473 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Random access index of a gzip file, so that the file can be read from
+ * several points instead of from its beginning only.
+ * <p>
+ * The index records checkpoints at the start of deflate blocks, about every
+ * 32MB of uncompressed data (or the size set by the pxf.hdfs.gzip.index.span
+ * system property). A checkpoint holds the position of the block in the file,
+ * the position of the block in the uncompressed data, and the last 32KB of
+ * uncompressed data before the block, which the block may refer to. The
+ * inflater of the JDK cannot start in the middle of a byte, so only the
+ * blocks starting on a byte boundary are checkpoints: about one block in
+ * eight, and the blocks following a stored block. The decompression can start
+ * at any checkpoint, see {@link GzipIndexInputStream}. The index also lists the
+ * members of the file, a gzip file being a concatenation of members.
+ * <p>
+ * The index is built once by decompressing the whole file, and stored next to
+ * it in a hidden file, which the file input formats and the fragments version
+ * ignore, or under the directory set by the pxf.hdfs.gzip.index.dir system
+ * property, on the file system of the file. It records the
+ * length and the modification time of the file, and is rebuilt when they
+ * change. The last indexes used are also kept in memory (16 by default, or
+ * the number set by the pxf.hdfs.gzip.index.cache.size system property), so
+ * that an index which could not be stored, e.g. in a read-only directory, is
+ * still built only once by each PXF server.
+ */
+public class GzipIndex {
+
+    private static final Log LOG = LogFactory.getLog(GzipIndex.class);
+
+    /**
+     * Option of the data source enabling the indexes of the gzip files. The
+     * index of a file is built by the fragmenter request which first finds it
+     * missing or out of date: that request decompresses the whole file, with
+     * no time limit. To keep that cost out of the queries, the indexes can be
+     * built beforehand by a query reading the new files.
+     */
+    public static final String INDEX_OPTION = "GZIP-INDEX";
+    static final String PROPERTY_KEY_SPAN = "pxf.hdfs.gzip.index.span";
+    static final String PROPERTY_KEY_CACHE_SIZE = "pxf.hdfs.gzip.index.cache.size";
+    static final String PROPERTY_KEY_DIR = "pxf.hdfs.gzip.index.dir";
+    static final long DEFAULT_SPAN = 32 * 1024 * 1024;
+    static final int WINDOW_SIZE = 32 * 1024;
+    private static final int MAGIC = 0x50474958; // "PGIX"
+    private static final int VERSION = 1;
+    private static final int DEFAULT_CACHE_SIZE = 16;
+    private static final Map<String, GzipIndex> CACHE = new LinkedHashMap<String, GzipIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GzipIndex> eldest) {
+            return size() > Integer.getInteger(PROPERTY_KEY_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+        }
+    };
+    // indexes being built, so that concurrent requests build an index once
+    private static final ConcurrentMap<String, FutureTask<GzipIndex>> BUILDS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean storeFailureLogged = new AtomicBoolean();
+
+    private final long fileLength;
+    private final long modificationTime;
+    private final long uncompressedLength;
+    // offsets of the deflate data of the members
+    private final long[] memberOffsets;
+    private final long[] compressedOffsets;
+    private final long[] uncompressedOffsets;
+    // deflated windows of the checkpoints
+    private final byte[][] windows;
+
+    GzipIndex(long fileLength, long modificationTime, long uncompressedLength,
+              long[] memberOffsets, long[] compressedOffsets, long[] uncompressedOffsets,
+              byte[][] windows) {
+        this.fileLength = fileLength;
+        this.modificationTime = modificationTime;
+        this.uncompressedLength = uncompressedLength;
+        this.memberOffsets = memberOffsets;
+        this.compressedOffsets = compressedOffsets;
+        this.uncompressedOffsets = uncompressedOffsets;
+        this.windows = windows;
+    }
+
+    /**
+     * Returns the path of the index of a gzip file: a hidden file next to it,
+     * or the path of the file under the index directory when one is set.
+     *
+     * @param file the gzip file
+     * @return the path of its index
+     */
+    public static Path getIndexPath(Path file) {
+        String indexDir = System.getProperty(PROPERTY_KEY_DIR);
+        if (indexDir != null && !indexDir.isEmpty()) {
+            return new Path(indexDir + file.toUri().getPath() + ".gzidx");
+        }
+        return new Path(file.getParent(), "." + file.getName() + ".gzidx");
+    }
+
+    /**
+     * Returns the index of a gzip file, building and storing it if it does
+     * not exist or is out of date. The index is returned even if it could not
+     * be stored.
+     *
+     * @param fs the file system of the file
+     * @param status the status of the file
+     * @return the index, null if it could not be built
+     */
+    public static GzipIndex getOrBuild(FileSystem fs, FileStatus status) {
+        try {
+            return get(fs, status);
+        } catch (IOException e) {
+            LOG.warn("Could not index gzip file " + status.getPath() + ", it is read as one fragment", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the index of a gzip file, from memory or from its stored copy,
+     * building and storing it if it does not exist or is out of date.
+     *
+     * @param fs the file system of the file
+     * @param status the status of the file
+     * @return the index
+     * @throws IOException if the index could not be built
+     */
+    public static GzipIndex get(final FileSystem fs, final FileStatus status) throws IOException {
+        final String key = status.getPath() + "@" + status.getLen() + "@" + status.getModificationTime();
+        GzipIndex index;
+        synchronized (CACHE) {
+            index = CACHE.get(key);
+        }
+        if (index != null) {
+            return index;
+        }
+
+        FutureTask<GzipIndex> task = new FutureTask<>(new Callable<GzipIndex>() {
+            @Override
+            public GzipIndex call() throws IOException {
+                GzipIndex index = read(fs, status);
+                if (index == null) {
+                    index = buildAndStore(fs, status);
+                }
+                synchronized (CACHE) {
+                    CACHE.put(key, index);
+                }
+                return index;
+            }
+        });
+        FutureTask<GzipIndex> running = BUILDS.putIfAbsent(key, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                BUILDS.remove(key, task);
+            }
+        }
+
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing gzip file " + status.getPath(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /*
+     * Builds the index of a file and stores it. The index is kept in memory
+     * only when it cannot be stored.
+     */
+    private static GzipIndex buildAndStore(FileSystem fs, FileStatus status) throws IOException {
+        Path file = status.getPath();
+        long span = Math.max(WINDOW_SIZE, Long.getLong(PROPERTY_KEY_SPAN, DEFAULT_SPAN));
+        long startTime = System.currentTimeMillis();
+        GzipIndex index;
+        try (FSDataInputStream in = fs.open(file)) {
+            index = build(in, status.getLen(), status.getModificationTime(), span);
+        }
+        LOG.info("Built the index of " + file + " with " + index.getCheckpointCount()
+                + " checkpoints in " + (System.currentTimeMillis() - startTime) + " ms");
+
+        try {
+            write(fs, file, index);
+        } catch (IOException e) {
+            // typically a read-only directory: logged once, as every index fails the same way
+            if (storeFailureLogged.compareAndSet(false, true)) {
+                LOG.warn("Could not store the index of gzip file " + file
+                        + ", the indexes are kept in memory only", e);
+            } else if (LOG.isDebugEnabled()) {
+                LOG.debug("Could not store the index of gzip file " + file, e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reads the index of a gzip file.
+     *
+     * @param fs the file system of the file
+     * @param status the status of the file
+     * @return the index, null if it does not exist or is out of date
+     * @throws IOException if the index could not be read
+     */
+    public static GzipIndex read(FileSystem fs, FileStatus status) throws IOException {
+        GzipIndex index;
+        try (FSDataInputStream in = fs.open(getIndexPath(status.getPath()))) {
+            index = read(in);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        return index.isValidFor(status.getLen(), status.getModificationTime()) ? index : null;
+    }
+
+    /*
+     * Writes the index to a temporary file renamed to the index path, so that
+     * readers never see a partial index.
+     */
+    private static void write(FileSystem fs, Path file, GzipIndex index) throws IOException {
+        Path indexPath = getIndexPath(file);
+        Path tmpPath = new Path(indexPath.getParent(), indexPath.getName() + "." + UUID.randomUUID());
+        try (FSDataOutputStream out = fs.create(tmpPath, false)) {
+            index.write(out);
+        }
+        fs.delete(indexPath, false);
+        if (!fs.rename(tmpPath, indexPath)) {
+            // another request stored the index first
+            fs.delete(tmpPath, false);
+        }
+    }
+
+    /**
+     * Builds the index of a gzip file.
+     *
+     * @param in the content of the file
+     * @param fileLength length of the file
+     * @param modificationTime modification time of the file
+     * @param span minimum uncompressed size between two checkpoints
+     * @return the index
+     * @throws IOException if the file could not be read or is not valid gzip
+     */
+    static GzipIndex build(InputStream in, long fileLength, long modificationTime, long span)
+            throws IOException {
+        return new GzipIndexBuilder(in, span).build(fileLength, modificationTime);
+    }
+
+    /**
+     * Serializes the index.
+     *
+     * @param out the output stream
+     * @throws IOException if the index could not be written
+     */
+    void write(OutputStream out) throws IOException {
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeLong(fileLength);
+        dos.writeLong(modificationTime);
+        dos.writeLong(uncompressedLength);
+        dos.writeInt(memberOffsets.length);
+        for (long offset : memberOffsets) {
+            dos.writeLong(offset);
+        }
+        dos.writeInt(compressedOffsets.length);
+        for (int i = 0; i < compressedOffsets.length; i++) {
+            dos.writeLong(compressedOffsets[i]);
+            dos.writeLong(uncompressedOffsets[i]);
+            dos.writeInt(windows[i].length);
+            dos.write(windows[i]);
+        }
+        dos.flush();
+    }
+
+    /**
+     * Deserializes an index.
+     *
+     * @param in the input stream
+     * @return the index
+     * @throws IOException if the index could not be read or is not valid
+     */
+    static GzipIndex read(InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(in);
+        if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+            throw new IOException("Invalid gzip index");
+        }
+        long fileLength = dis.readLong();
+        long modificationTime = dis.readLong();
+        long uncompressedLength = dis.readLong();
+        long[] memberOffsets = new long[dis.readInt()];
+        for (int i = 0; i < memberOffsets.length; i++) {
+            memberOffsets[i] = dis.readLong();
+        }
+        int count = dis.readInt();
+        long[] compressedOffsets = new long[count];
+        long[] uncompressedOffsets = new long[count];
+        byte[][] windows = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            compressedOffsets[i] = dis.readLong();
+            uncompressedOffsets[i] = dis.readLong();
+            windows[i] = new byte[dis.readInt()];
+            dis.readFully(windows[i]);
+        }
+        return new GzipIndex(fileLength, modificationTime, uncompressedLength,
+                memberOffsets, compressedOffsets, uncompressedOffsets, windows);
+    }
+
+    /**
+     * @param length length of the file
+     * @param modificationTime modification time of the file
+     * @return true if the index was built for this version of the file
+     */
+    public boolean isValidFor(long length, long modificationTime) {
+        return fileLength == length && this.modificationTime == modificationTime;
+    }
+
+    /**
+     * @return the uncompressed length of the file
+     */
+    public long getUncompressedLength() {
+        return uncompressedLength;
+    }
+
+    /**
+     * @return the number of checkpoints, at least one
+     */
+    public int getCheckpointCount() {
+        return compressedOffsets.length;
+    }
+
+    /**
+     * @param checkpoint the checkpoint
+     * @return the position in the file of the checkpoint
+     */
+    public long getCompressedOffset(int checkpoint) {
+        return compressedOffsets[checkpoint];
+    }
+
+    /**
+     * @param checkpoint the checkpoint
+     * @return the position in the uncompressed data of the checkpoint
+     */
+    public long getUncompressedOffset(int checkpoint) {
+        return uncompressedOffsets[checkpoint];
+    }
+
+    /**
+     * @param checkpoint the checkpoint
+     * @return the uncompressed data preceding the checkpoint in its member,
+     *         32KB at most
+     * @throws IOException if the window cannot be inflated
+     */
+    public byte[] getWindow(int checkpoint) throws IOException {
+        byte[] window = new byte[WINDOW_SIZE];
+        int length = 0;
+        try (InflaterInputStream in = new InflaterInputStream(
+                new ByteArrayInputStream(windows[checkpoint]))) {
+            int n;
+            while (length < window.length && (n = in.read(window, length, window.length - length)) > 0) {
+                length += n;
+            }
+        }
+        return Arrays.copyOf(window, length);
+    }
+
+    /**
+     * Finds the first checkpoint starting at or after a position of the
+     * file.
+     *
+     * @param offset position in the file
+     * @return the checkpoint, {@link #getCheckpointCount()} if none
+     */
+    public int findCheckpoint(long offset) {
+        int low = 0;
+        int high = compressedOffsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getCompressedOffset(mid) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the number of members of the file
+     */
+    public int getMemberCount() {
+        return memberOffsets.length;
+    }
+
+    /**
+     * @param member the member
+     * @return the position in the file of the deflate data of the member
+     */
+    public long getMemberOffset(int member) {
+        return memberOffsets[member];
+    }
+
+    /**
+     * @param checkpoint the checkpoint
+     * @return the member holding the checkpoint
+     */
+    public int getMember(int checkpoint) {
+        int member = Arrays.binarySearch(memberOffsets, getCompressedOffset(checkpoint));
+        return (member >= 0) ? member : -member - 2;
+    }
+
+    /**
+     * Deflates the window of a checkpoint.
+     */
+    static byte[] deflateWindow(byte[] window, int length) {
+        Deflater deflater = new Deflater();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(out, deflater)) {
+            dos.write(window, 0, length);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen in memory
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+}
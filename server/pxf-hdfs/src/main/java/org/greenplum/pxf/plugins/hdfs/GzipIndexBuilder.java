@@ -0,0 +1,448 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.ZipException;
+
+/**
+ * Builds a {@link GzipIndex} by decompressing a gzip file. The checkpoints
+ * must be at the start of deflate blocks, which {@link java.util.zip.Inflater}
+ * does not report, so the file is decompressed here, following RFC 1951 and
+ * RFC 1952. The uncompressed data itself is not kept, except for the last
+ * 32KB needed by the checkpoints.
+ */
+class GzipIndexBuilder {
+
+    private static final int[] LENGTH_BASE = {3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19,
+            23, 27, 31, 35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258};
+    private static final int[] LENGTH_EXTRA = {0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2,
+            2, 2, 3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0};
+    private static final int[] DISTANCE_BASE = {1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49,
+            65, 97, 129, 193, 257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097, 6145, 8193,
+            12289, 16385, 24577};
+    private static final int[] DISTANCE_EXTRA = {0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5,
+            6, 6, 7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 12, 12, 13, 13};
+    private static final int[] CODE_LENGTH_ORDER = {16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11,
+            4, 12, 3, 13, 2, 14, 1, 15};
+    private static final int WINDOW_MASK = GzipIndex.WINDOW_SIZE - 1;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final Huffman FIXED_LITERALS = new Huffman();
+    private static final Huffman FIXED_DISTANCES = new Huffman();
+
+    static {
+        int[] lengths = new int[288];
+        Arrays.fill(lengths, 0, 144, 8);
+        Arrays.fill(lengths, 144, 256, 9);
+        Arrays.fill(lengths, 256, 280, 7);
+        Arrays.fill(lengths, 280, 288, 8);
+        try {
+            FIXED_LITERALS.build(lengths, 0, 288);
+            Arrays.fill(lengths, 0, 30, 5);
+            FIXED_DISTANCES.build(lengths, 0, 30);
+        } catch (ZipException e) {
+            throw new IllegalStateException(e); // the fixed codes are valid
+        }
+    }
+
+    private final InputStream in;
+    private final long span;
+    private final byte[] buffer = new byte[64 * 1024];
+    private int bufferPosition;
+    private int bufferLength;
+    private long bytesRead;
+    // bits read ahead, the next bit is the lowest one
+    private long bits;
+    private int bitCount;
+    // zero bytes read after the end of the file
+    private int padding;
+
+    private final byte[] window = new byte[GzipIndex.WINDOW_SIZE];
+    private int windowPosition;
+    // bytes of the window belonging to the current member
+    private int windowLength;
+    private long uncompressed;
+    private long memberUncompressed;
+
+    private final Huffman literals = new Huffman();
+    private final Huffman distances = new Huffman();
+    private final Huffman codeLengths = new Huffman();
+    private final int[] lengths = new int[288 + 32];
+
+    private long[] memberOffsets = new long[16];
+    private int memberCount;
+    private long[] compressedOffsets = new long[16];
+    private long[] uncompressedOffsets = new long[16];
+    private byte[][] windows = new byte[16][];
+    private int checkpointCount;
+
+    GzipIndexBuilder(InputStream in, long span) {
+        this.in = in;
+        this.span = span;
+    }
+
+    /**
+     * Decompresses the whole file and returns its index.
+     */
+    GzipIndex build(long fileLength, long modificationTime) throws IOException {
+        if (!readHeader()) {
+            throw new ZipException("Not in gzip format");
+        }
+        do {
+            readMember();
+        } while (readHeader());
+
+        return new GzipIndex(fileLength, modificationTime, uncompressed,
+                Arrays.copyOf(memberOffsets, memberCount),
+                Arrays.copyOf(compressedOffsets, checkpointCount),
+                Arrays.copyOf(uncompressedOffsets, checkpointCount),
+                Arrays.copyOf(windows, checkpointCount));
+    }
+
+    /*
+     * Reads the header of the next member. Returns false at the end of the
+     * file, or if the file goes on with something else than a member, which
+     * is ignored like gzip does.
+     */
+    private boolean readHeader() throws IOException {
+        if (!hasMoreBytes() || readByte() != 0x1f || !hasMoreBytes() || readByte() != 0x8b) {
+            return false;
+        }
+        if (readByte() != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flags = readByte();
+        skipBytes(6); // modification time, extra flags, operating system
+        if ((flags & FEXTRA) != 0) {
+            skipBytes(readByte() | (readByte() << 8));
+        }
+        if ((flags & FNAME) != 0) {
+            while (readByte() != 0) {
+                // skip the file name
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readByte() != 0) {
+                // skip the comment
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            skipBytes(2);
+        }
+        if (memberCount == memberOffsets.length) {
+            memberOffsets = Arrays.copyOf(memberOffsets, memberCount * 2);
+        }
+        memberOffsets[memberCount++] = getBitPosition() >>> 3;
+        return true;
+    }
+
+    private void readMember() throws IOException {
+        windowLength = 0;
+        memberUncompressed = 0;
+        boolean last;
+        do {
+            if (checkpointCount == 0 || ((getBitPosition() & 7) == 0
+                    && uncompressed - uncompressedOffsets[checkpointCount - 1] >= span)) {
+                addCheckpoint();
+            }
+            last = readBits(1) == 1;
+            switch (readBits(2)) {
+                case 0:
+                    readStoredBlock();
+                    break;
+                case 1:
+                    readCompressedBlock(FIXED_LITERALS, FIXED_DISTANCES);
+                    break;
+                case 2:
+                    readDynamicTables();
+                    readCompressedBlock(literals, distances);
+                    break;
+                default:
+                    throw new ZipException("Invalid block type");
+            }
+        } while (!last);
+
+        // trailer: CRC-32 and size of the uncompressed data
+        dropBits(bitCount & 7);
+        skipBytes(4);
+        long size = readByte() | (readByte() << 8) | (readByte() << 16) | ((long) readByte() << 24);
+        if (size != (memberUncompressed & 0xffffffffL)) {
+            throw new ZipException("Corrupt gzip trailer");
+        }
+    }
+
+    private void addCheckpoint() {
+        if (checkpointCount == compressedOffsets.length) {
+            int capacity = checkpointCount * 2;
+            compressedOffsets = Arrays.copyOf(compressedOffsets, capacity);
+            uncompressedOffsets = Arrays.copyOf(uncompressedOffsets, capacity);
+            windows = Arrays.copyOf(windows, capacity);
+        }
+        byte[] data = new byte[windowLength];
+        int start = (windowPosition - windowLength) & WINDOW_MASK;
+        int firstPart = Math.min(windowLength, GzipIndex.WINDOW_SIZE - start);
+        System.arraycopy(window, start, data, 0, firstPart);
+        System.arraycopy(window, 0, data, firstPart, windowLength - firstPart);
+
+        compressedOffsets[checkpointCount] = getBitPosition() >>> 3;
+        uncompressedOffsets[checkpointCount] = uncompressed;
+        windows[checkpointCount] = GzipIndex.deflateWindow(data, data.length);
+        checkpointCount++;
+    }
+
+    private void readStoredBlock() throws IOException {
+        dropBits(bitCount & 7);
+        int length = readBits(16);
+        if ((readBits(16) ^ 0xffff) != length) {
+            throw new ZipException("Invalid stored block length");
+        }
+        for (int i = 0; i < length; i++) {
+            output((byte) readByte());
+        }
+    }
+
+    private void readDynamicTables() throws IOException {
+        int literalCount = readBits(5) + 257;
+        int distanceCount = readBits(5) + 1;
+        int codeLengthCount = readBits(4) + 4;
+        if (literalCount > 286 || distanceCount > 30) {
+            throw new ZipException("Invalid dynamic block header");
+        }
+
+        Arrays.fill(lengths, 0, 19, 0);
+        for (int i = 0; i < codeLengthCount; i++) {
+            lengths[CODE_LENGTH_ORDER[i]] = readBits(3);
+        }
+        codeLengths.build(lengths, 0, 19);
+
+        int count = literalCount + distanceCount;
+        int i = 0;
+        while (i < count) {
+            int symbol = codeLengths.decode(this);
+            if (symbol < 16) {
+                lengths[i++] = symbol;
+                continue;
+            }
+            int value = 0;
+            int repeat;
+            if (symbol == 16) {
+                if (i == 0) {
+                    throw new ZipException("Invalid code length repeat");
+                }
+                value = lengths[i - 1];
+                repeat = 3 + readBits(2);
+            } else if (symbol == 17) {
+                repeat = 3 + readBits(3);
+            } else {
+                repeat = 11 + readBits(7);
+            }
+            if (i + repeat > count) {
+                throw new ZipException("Invalid code length repeat");
+            }
+            Arrays.fill(lengths, i, i + repeat, value);
+            i += repeat;
+        }
+        if (lengths[256] == 0) {
+            throw new ZipException("Missing end of block code");
+        }
+        literals.build(lengths, 0, literalCount);
+        distances.build(lengths, literalCount, distanceCount);
+    }
+
+    private void readCompressedBlock(Huffman literalCodes, Huffman distanceCodes) throws IOException {
+        while (true) {
+            int symbol = literalCodes.decode(this);
+            if (symbol < 256) {
+                output((byte) symbol);
+            } else if (symbol == 256) {
+                return;
+            } else {
+                symbol -= 257;
+                if (symbol >= LENGTH_BASE.length) {
+                    throw new ZipException("Invalid length code");
+                }
+                int length = LENGTH_BASE[symbol] + readBits(LENGTH_EXTRA[symbol]);
+                int distanceSymbol = distanceCodes.decode(this);
+                if (distanceSymbol >= DISTANCE_BASE.length) {
+                    throw new ZipException("Invalid distance code");
+                }
+                int distance = DISTANCE_BASE[distanceSymbol] + readBits(DISTANCE_EXTRA[distanceSymbol]);
+                if (distance > windowLength) {
+                    throw new ZipException("Invalid distance too far back");
+                }
+                copy(distance, length);
+            }
+        }
+    }
+
+    private void output(byte b) {
+        window[windowPosition] = b;
+        windowPosition = (windowPosition + 1) & WINDOW_MASK;
+        if (windowLength < GzipIndex.WINDOW_SIZE) {
+            windowLength++;
+        }
+        uncompressed++;
+        memberUncompressed++;
+    }
+
+    private void copy(int distance, int length) {
+        int from = windowPosition - distance;
+        for (int i = 0; i < length; i++) {
+            window[windowPosition] = window[(from + i) & WINDOW_MASK];
+            windowPosition = (windowPosition + 1) & WINDOW_MASK;
+        }
+        windowLength = Math.min(GzipIndex.WINDOW_SIZE, windowLength + length);
+        uncompressed += length;
+        memberUncompressed += length;
+    }
+
+    /*
+     * Makes at least the given number of bits (57 at most) available. After
+     * the end of the file zero bytes are added, so that a code may be looked
+     * up near the end, but consuming them is an error.
+     */
+    private void fillBits(int count) throws IOException {
+        while (bitCount < count) {
+            if (bufferPosition == bufferLength && !fillBuffer()) {
+                if (++padding > 8) {
+                    throw new EOFException("Unexpected end of the gzip file");
+                }
+                bitCount += 8;
+                continue;
+            }
+            bits |= (long) (buffer[bufferPosition++] & 0xff) << bitCount;
+            bitCount += 8;
+            bytesRead++;
+        }
+    }
+
+    private int readBits(int count) throws IOException {
+        fillBits(count);
+        int value = (int) (bits & ((1L << count) - 1));
+        dropBits(count);
+        return value;
+    }
+
+    private void dropBits(int count) throws IOException {
+        bits >>>= count;
+        bitCount -= count;
+        if (padding > 0 && bitCount < padding * 8) {
+            throw new EOFException("Unexpected end of the gzip file");
+        }
+    }
+
+    private int readByte() throws IOException {
+        return readBits(8);
+    }
+
+    private void skipBytes(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readByte();
+        }
+    }
+
+    private boolean hasMoreBytes() throws IOException {
+        return bitCount - padding * 8 >= 8 || bufferPosition < bufferLength || fillBuffer();
+    }
+
+    private long getBitPosition() {
+        return (bytesRead + padding) * 8 - bitCount;
+    }
+
+    private boolean fillBuffer() throws IOException {
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        bufferPosition = 0;
+        bufferLength = n;
+        return true;
+    }
+
+    /**
+     * A canonical Huffman code, decoded with a table indexed by the next
+     * bits of the input.
+     */
+    private static final class Huffman {
+        private static final int MAX_BITS = 15;
+        // symbol << 4 | code length, 0 for the unused codes
+        private final short[] table = new short[1 << MAX_BITS];
+        private final int[] count = new int[MAX_BITS + 1];
+        private final int[] nextCode = new int[MAX_BITS + 1];
+        private int tableBits;
+
+        void build(int[] lengths, int offset, int symbols) throws ZipException {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < symbols; i++) {
+                count[lengths[offset + i]]++;
+            }
+            count[0] = 0;
+            tableBits = 0;
+            int code = 0;
+            int left = 1;
+            for (int bits = 1; bits <= MAX_BITS; bits++) {
+                code = (code + count[bits - 1]) << 1;
+                nextCode[bits] = code;
+                left = (left << 1) - count[bits];
+                if (left < 0) {
+                    throw new ZipException("Over-subscribed Huffman code");
+                }
+                if (count[bits] > 0) {
+                    tableBits = bits;
+                }
+            }
+            int size = 1 << tableBits;
+            Arrays.fill(table, 0, size, (short) 0);
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                int length = lengths[offset + symbol];
+                if (length == 0) {
+                    continue;
+                }
+                int reversed = Integer.reverse(nextCode[length]++) >>> (32 - length);
+                short entry = (short) ((symbol << 4) | length);
+                for (int i = reversed; i < size; i += 1 << length) {
+                    table[i] = entry;
+                }
+            }
+        }
+
+        int decode(GzipIndexBuilder builder) throws IOException {
+            builder.fillBits(tableBits);
+            int entry = table[(int) (builder.bits & ((1 << tableBits) - 1))];
+            int length = entry & 15;
+            if (length == 0) {
+                throw new ZipException("Invalid Huffman code");
+            }
+            builder.dropBits(length);
+            return entry >>> 4;
+        }
+    }
+}
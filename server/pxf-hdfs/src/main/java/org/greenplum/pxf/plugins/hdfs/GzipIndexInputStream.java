@@ -0,0 +1,191 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.SplitCompressionInputStream;
+
+/**
+ * Input stream of a fragment of a gzip file, decompressing it from a
+ * checkpoint of its {@link GzipIndex}.
+ * <p>
+ * Like the streams of the splittable codecs, the stream reads the data of the
+ * checkpoints starting in the fragment: its adjusted start is the uncompressed
+ * position of the first checkpoint starting at or after the start of the
+ * fragment, and its adjusted end the one of the first checkpoint starting at
+ * or after the end of the fragment. The positions returned by
+ * {@link #getPos()} are positions in the uncompressed data, so that the
+ * readers of lines can tell which lines belong to the fragment, as with
+ * uncompressed files.
+ */
+public class GzipIndexInputStream extends SplitCompressionInputStream {
+
+    private final FSDataInputStream fileIn;
+    private final GzipIndex index;
+    private final Inflater inflater = new Inflater(true);
+    private final byte[] input = new byte[64 * 1024];
+    private final byte[] oneByte = new byte[1];
+    private int member;
+    private boolean endOfFile;
+    private boolean finished;
+    private long pos;
+
+    /**
+     * Opens the stream of a fragment of a gzip file.
+     *
+     * @param fs the file system of the file
+     * @param file the gzip file
+     * @param fileIn the input stream of the file
+     * @param start start of the fragment in the file
+     * @param end end of the fragment in the file
+     * @return the stream
+     * @throws IOException if the index of the file could not be read or
+     *             built
+     */
+    public static GzipIndexInputStream open(FileSystem fs, Path file, FSDataInputStream fileIn,
+                                            long start, long end) throws IOException {
+        FileStatus status = fs.getFileStatus(file);
+        // the index is built again when it could not be stored by the fragmenter
+        GzipIndex index = GzipIndex.get(fs, status);
+        return new GzipIndexInputStream(fileIn, index, start, end);
+    }
+
+    /**
+     * Constructs the stream of a fragment of a gzip file.
+     *
+     * @param fileIn the input stream of the file
+     * @param index the index of the file
+     * @param start start of the fragment in the file
+     * @param end end of the fragment in the file
+     * @throws IOException if the file could not be read
+     */
+    GzipIndexInputStream(FSDataInputStream fileIn, GzipIndex index, long start, long end)
+            throws IOException {
+        super(fileIn, start, end);
+        this.fileIn = fileIn;
+        this.index = index;
+
+        int count = index.getCheckpointCount();
+        int first = index.findCheckpoint(start);
+        int last = index.findCheckpoint(end);
+        setStart((first < count) ? index.getUncompressedOffset(first) : index.getUncompressedLength());
+        setEnd((last < count) ? index.getUncompressedOffset(last) : index.getUncompressedLength());
+        pos = getAdjustedStart();
+
+        if (first < count) {
+            member = index.getMember(first);
+            restart(index.getCompressedOffset(first));
+            byte[] window = index.getWindow(first);
+            if (window.length > 0) {
+                inflater.setDictionary(window);
+            }
+        } else {
+            finished = true;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        return (read(oneByte, 0, 1) == 1) ? (oneByte[0] & 0xff) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (!finished) {
+            if (inflater.needsInput()) {
+                if (endOfFile) {
+                    throw new EOFException("Unexpected end of the gzip file");
+                }
+                fill();
+                continue;
+            }
+            int n;
+            try {
+                n = inflater.inflate(b, off, len);
+            } catch (DataFormatException e) {
+                throw new IOException("Invalid gzip data: " + e.getMessage(), e);
+            }
+            if (n > 0) {
+                pos += n;
+                return n;
+            }
+            if (inflater.finished()) {
+                // the next member, if any, starts after the trailer
+                if (++member < index.getMemberCount()) {
+                    restart(index.getMemberOffset(member));
+                } else {
+                    finished = true;
+                }
+            } else if (inflater.needsDictionary()) {
+                throw new IOException("Invalid gzip data: unexpected dictionary");
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the position in the uncompressed data
+     */
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public void resetState() {
+        throw new UnsupportedOperationException("A gzip fragment cannot be reset");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void restart(long offset) throws IOException {
+        fileIn.seek(offset);
+        endOfFile = false;
+        inflater.reset();
+    }
+
+    private void fill() throws IOException {
+        int n = fileIn.read(input, 0, input.length);
+        if (n < 0) {
+            endOfFile = true;
+        } else {
+            inflater.setInput(input, 0, n);
+        }
+    }
+}
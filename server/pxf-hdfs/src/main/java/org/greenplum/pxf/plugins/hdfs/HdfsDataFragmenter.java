@@ -23,12 +23,18 @@ package org.greenplum.pxf.plugins.hdfs;
 import org.greenplum.pxf.api.Fragment;
 import org.greenplum.pxf.api.Fragmenter;
 import org.greenplum.pxf.api.FragmentsStats;
+import org.greenplum.pxf.api.VersionedFragmenter;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 import org.greenplum.pxf.plugins.hdfs.utilities.PxfInputFormat;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.GzipCodec;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
@@ -43,9 +49,16 @@ import java.util.List;
  * Given an HDFS data source (a file, directory, or wild card pattern) divide
  * the data into fragments and return a list of them along with a list of
  * host:port locations for each.
+ *
+ * Gzip files are not splittable and are one fragment each, unless the
+ * GZIP-INDEX option of the data source is true: the files are then indexed
+ * (see {@link GzipIndex}) and divided at checkpoints of their index into
+ * fragments of about the block size. A missing index is built while the
+ * fragments are computed, which takes the time of decompressing the file.
  */
-public class HdfsDataFragmenter extends Fragmenter {
+public class HdfsDataFragmenter extends Fragmenter implements VersionedFragmenter {
     private JobConf jobConf;
+    private final boolean useGzipIndex;
 
     /**
      * Constructs an HdfsDataFragmenter object.
@@ -56,6 +69,7 @@ public class HdfsDataFragmenter extends Fragmenter {
         super(md);
 
         jobConf = new JobConf(new Configuration(), HdfsDataFragmenter.class);
+        useGzipIndex = "true".equalsIgnoreCase(md.getUserProperty(GzipIndex.INDEX_OPTION));
     }
 
     /**
@@ -86,6 +100,15 @@ public class HdfsDataFragmenter extends Fragmenter {
         return fragments;
     }
 
+    /**
+     * Returns the version of the files of the data source, so that the
+     * fragments are reused until a file is added, removed or modified.
+     */
+    @Override
+    public String getFragmentsVersion() throws Exception {
+        return HdfsUtilities.getDataSourceVersion(jobConf, inputData.getDataSource());
+    }
+
     @Override
     public FragmentsStats getFragmentsStats() throws Exception {
         String absoluteDataPath = HdfsUtilities.absoluteDataPath(inputData.getDataSource());
@@ -113,8 +136,15 @@ public class HdfsDataFragmenter extends Fragmenter {
          * locations and no length.
          */
         if (splits != null) {
+            CompressionCodecFactory codecs = useGzipIndex ? new CompressionCodecFactory(jobConf) : null;
             for (InputSplit split : splits) {
-                if (split.getLength() > 0) {
+                if (split.getLength() <= 0) {
+                    continue;
+                }
+                Path file = ((FileSplit) split).getPath();
+                if (useGzipIndex && codecs.getCodec(file) instanceof GzipCodec) {
+                    result.addAll(getGzipSplits((FileSplit) split));
+                } else {
                     result.add(split);
                 }
             }
@@ -122,4 +152,41 @@ public class HdfsDataFragmenter extends Fragmenter {
 
         return result;
     }
+
+    /*
+     * Divides a gzip file at checkpoints of its index, in splits of at least
+     * the block size. The file is one split if it could not be indexed.
+     */
+    private List<InputSplit> getGzipSplits(FileSplit split) throws IOException {
+        List<InputSplit> result = new ArrayList<InputSplit>();
+        Path file = split.getPath();
+        FileSystem fs = file.getFileSystem(jobConf);
+        FileStatus status = fs.getFileStatus(file);
+        GzipIndex index = GzipIndex.getOrBuild(fs, status);
+        if (index == null) {
+            result.add(split);
+            return result;
+        }
+
+        BlockLocation[] blocks = fs.getFileBlockLocations(status, 0, status.getLen());
+        long splitStart = 0;
+        for (int i = 1; i <= index.getCheckpointCount(); i++) {
+            long splitEnd = (i < index.getCheckpointCount()) ? index.getCompressedOffset(i) : status.getLen();
+            if (splitEnd - splitStart >= status.getBlockSize() || i == index.getCheckpointCount()) {
+                result.add(new FileSplit(file, splitStart, splitEnd - splitStart,
+                        getHosts(blocks, splitStart)));
+                splitStart = splitEnd;
+            }
+        }
+        return result;
+    }
+
+    private String[] getHosts(BlockLocation[] blocks, long offset) {
+        for (BlockLocation block : blocks) {
+            if (offset >= block.getOffset() && offset < block.getOffset() + block.getLength()) {
+                return block.getHosts();
+            }
+        }
+        return new String[0];
+    }
 }
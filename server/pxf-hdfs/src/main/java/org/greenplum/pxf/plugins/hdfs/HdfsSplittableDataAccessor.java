@@ -115,6 +115,10 @@ public abstract class HdfsSplittableDataAccessor extends Plugin implements
             return false;
         }
 
+        // the reader of the previous split is exhausted
+        if (reader != null) {
+            reader.close();
+        }
         InputSplit currSplit = iter.next();
         reader = (RecordReader<Object, Object>) getReader(jobConf, currSplit);
         key = reader.createKey();
@@ -152,6 +156,28 @@ public abstract class HdfsSplittableDataAccessor extends Plugin implements
         return new OneRow(key, data);
     }
 
+    /**
+     * Skips the given number of records without building objects for them,
+     * and fetches the record following them. Accessors reading one record per
+     * object can implement {@link org.greenplum.pxf.api.SamplingAccessor}
+     * with this method.
+     *
+     * @param skip the number of records to skip
+     * @return the record following the skipped ones, null when all the splits
+     *         are exhausted
+     * @throws IOException if reading failed
+     */
+    public OneRow readNextSample(long skip) throws IOException {
+        while (skip > 0) {
+            if (reader.next(key, data)) {
+                skip--;
+            } else if (!getNextSplit()) {
+                return null;
+            }
+        }
+        return readNextObject();
+    }
+
     /**
      * When user finished reading the file, it closes the RecordReader
      */
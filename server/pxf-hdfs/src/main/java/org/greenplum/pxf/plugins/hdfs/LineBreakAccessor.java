@@ -26,29 +26,36 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.GzipCodec;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.LineRecordReader;
 import org.apache.hadoop.mapred.TextInputFormat;
+import org.greenplum.pxf.api.BatchWriteAccessor;
 import org.greenplum.pxf.api.OneRow;
-import org.greenplum.pxf.api.WriteAccessor;
+import org.greenplum.pxf.api.SamplingAccessor;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * A PXF Accessor for reading delimited plain text records.
  */
 public class LineBreakAccessor extends HdfsSplittableDataAccessor implements
-        WriteAccessor {
+        BatchWriteAccessor, SamplingAccessor {
     private DataOutputStream dos;
+    private byte[] batchBuffer = new byte[0];
     private FSDataOutputStream fsdos;
     private FileSystem fs;
     private Path file;
+    private ChunkRecordReader chunkReader;
     private static final Log LOG = LogFactory.getLog(LineBreakAccessor.class);
 
     /**
@@ -67,8 +74,44 @@ public class LineBreakAccessor extends HdfsSplittableDataAccessor implements
     protected Object getReader(JobConf jobConf, InputSplit split)
             throws IOException {
 
-        return isDFS ? new ChunkRecordReader(jobConf, (FileSplit) split) :
-                new LineRecordReader(jobConf, (FileSplit) split);
+        if (isDFS) {
+            chunkReader = new ChunkRecordReader(jobConf, (FileSplit) split);
+            return chunkReader;
+        }
+        // LineRecordReader reads the whole file from any split of a gzip file
+        FileSplit fileSplit = (FileSplit) split;
+        Path path = fileSplit.getPath();
+        if (new CompressionCodecFactory(jobConf).getCodec(path) instanceof GzipCodec) {
+            long length = path.getFileSystem(jobConf).getFileStatus(path).getLen();
+            if (fileSplit.getStart() != 0 || fileSplit.getLength() < length) {
+                throw new IOException("Fragments of gzip files (" + GzipIndex.INDEX_OPTION
+                        + " option) are only supported on HDFS");
+            }
+        }
+        return new LineRecordReader(jobConf, fileSplit);
+    }
+
+    /**
+     * Skips the given number of lines and fetches the line following them.
+     * When the file is read by chunks, the skipped lines are not copied, and
+     * the sampled line is read alone.
+     */
+    @Override
+    public OneRow readNextSample(long skip) throws IOException {
+        if (!isDFS) {
+            return super.readNextSample(skip);
+        }
+
+        while (true) {
+            skip -= chunkReader.skipLines(skip);
+            if (skip == 0 && chunkReader.nextLine((LongWritable) key, (ChunkWritable) data)) {
+                return new OneRow(key, data);
+            }
+            // the current split is exhausted. try to move to the next split
+            if (!getNextSplit()) {
+                return null;
+            }
+        }
     }
 
     /**
@@ -135,6 +178,29 @@ public class LineBreakAccessor extends HdfsSplittableDataAccessor implements
         return true;
     }
 
+    /**
+     * Writes a batch of rows into stream. The rows are copied in one buffer,
+     * so that the stream is written once per batch.
+     */
+    @Override
+    public boolean writeNextBatch(List<OneRow> rows) throws Exception {
+        int length = 0;
+        for (OneRow row : rows) {
+            length += ((byte[]) row.getData()).length;
+        }
+        if (batchBuffer.length < length) {
+            batchBuffer = new byte[length];
+        }
+        int offset = 0;
+        for (OneRow row : rows) {
+            byte[] data = (byte[]) row.getData();
+            System.arraycopy(data, 0, batchBuffer, offset, data.length);
+            offset += data.length;
+        }
+        dos.write(batchBuffer, 0, length);
+        return true;
+    }
+
     /**
      * Closes the output stream after done writing.
      */
@@ -28,6 +28,7 @@ import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapreduce.Job;
 import org.greenplum.pxf.api.Fragment;
 import org.greenplum.pxf.api.Fragmenter;
+import org.greenplum.pxf.api.VersionedFragmenter;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 import org.apache.parquet.format.converter.ParquetMetadataConverter;
@@ -45,7 +46,7 @@ import java.util.List;
  * Fragmenter for Parquet on HDFS.
  * Returns list of splits for a given HDFS path.
  */
-public class ParquetDataFragmenter extends Fragmenter {
+public class ParquetDataFragmenter extends Fragmenter implements VersionedFragmenter {
     private Job job;
 
     public ParquetDataFragmenter(InputData md) {
@@ -84,6 +85,15 @@ public class ParquetDataFragmenter extends Fragmenter {
         return fragments;
     }
 
+    /**
+     * Returns the version of the files of the data source, so that the
+     * fragments are reused until a file is added, removed or modified.
+     */
+    @Override
+    public String getFragmentsVersion() throws Exception {
+        return HdfsUtilities.getDataSourceVersion(job.getConfiguration(), inputData.getDataSource());
+    }
+
         private List<InputSplit> getSplits (Path path) throws IOException {
             ParquetInputFormat<Group> parquetInputFormat = new ParquetInputFormat<Group>();
             ParquetInputFormat.setInputPaths(job, path);
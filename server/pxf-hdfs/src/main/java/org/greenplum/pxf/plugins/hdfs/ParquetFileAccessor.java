@@ -22,35 +22,59 @@ package org.greenplum.pxf.plugins.hdfs;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.FileSplit;
+import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
-import org.greenplum.pxf.api.ReadAccessor;
+import org.greenplum.pxf.api.SamplingAccessor;
+import org.greenplum.pxf.api.StatsAccessor;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.EnumAggregationType;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.api.utilities.Plugin;
+import org.greenplum.pxf.api.utilities.Utilities;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 
 import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.column.statistics.Statistics;
 import org.apache.parquet.example.data.Group;
 import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
 import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.io.ColumnIOFactory;
 import org.apache.parquet.io.MessageColumnIO;
 import org.apache.parquet.io.RecordReader;
 import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Parquet file accessor.
  * Unit of operation is record.
+ * <p>
+ * COUNT(*), and MIN and MAX of integer and boolean columns, are answered from
+ * the statistics of the row groups of the split, without reading data pages.
  */
-public class ParquetFileAccessor extends Plugin implements ReadAccessor {
+public class ParquetFileAccessor extends Plugin implements SamplingAccessor, StatsAccessor {
+
+    /* value of a column without suitable statistics */
+    private static final Object NO_STATS = new Object();
 
     private ParquetFileReader reader;
     private MessageColumnIO columnIO;
     private RecordIterator recordIterator;
     private MessageType schema;
+    private boolean useStats;
+    private OneRow aggRow;
+    private long aggRowCount;
+    private long objectsEmitted;
 
     private class RecordIterator implements Iterator<OneRow> {
 
@@ -91,6 +115,24 @@ public class ParquetFileAccessor extends Plugin implements ReadAccessor {
             recordReader = columnIO.getRecordReader(currentRowGroup, new GroupRecordConverter(schema));
         }
 
+        /*
+         * Skips the given number of records. The records of the row groups
+         * skipped entirely are not assembled, the other ones are read and
+         * discarded.
+         */
+        private void skip(long count) {
+            while (count > 0 && currentRowGroup != null) {
+                if (count >= rowsRemainedInRowGroup) {
+                    count -= rowsRemainedInRowGroup;
+                    rowsRemainedInRowGroup = 0;
+                    readNextRowGroup();
+                } else {
+                    readNextGroup();
+                    count--;
+                }
+            }
+        }
+
         private Group readNextGroup() {
             Group g = null;
             if (rowsRemainedInRowGroup == 0) {
@@ -130,6 +172,7 @@ public class ParquetFileAccessor extends Plugin implements ReadAccessor {
      */
     public ParquetFileAccessor(InputData input) {
         super(input);
+        useStats = Utilities.useStats(this, inputData);
     }
 
     public MessageType getSchema() {
@@ -163,6 +206,10 @@ public class ParquetFileAccessor extends Plugin implements ReadAccessor {
         // Create reader for a given split, read a range in file
         setReader(new ParquetFileReader(conf, file, ParquetMetadataConverter.range(
                 fileSplit.getStart(), fileSplit.getStart() + fileSplit.getLength())));
+        if (useStats) {
+            // the row groups are read only if the statistics are not enough
+            return !reader.getRowGroups().isEmpty();
+        }
         setRecordIterator();
         return recordIterator.hasNext();
     }
@@ -179,6 +226,180 @@ public class ParquetFileAccessor extends Plugin implements ReadAccessor {
         }
     }
 
+    /**
+     * Skips the given number of records and reads the record following them.
+     *
+     * @param skip the number of records to skip
+     * @return one record or null when split is already exhausted
+     */
+    @Override
+    public OneRow readNextSample(long skip) {
+        recordIterator.skip(skip);
+        return readNextObject();
+    }
+
+    /**
+     * Computes the aggregate from the statistics of the row groups of the
+     * split. The row groups of a file are split between the fragments, so each
+     * fragment emits the aggregate of its own row groups.
+     */
+    @Override
+    public void retrieveStats() throws Exception {
+        if (!useStats) {
+            throw new IllegalStateException("Accessor is not using statistics in current context.");
+        }
+
+        List<BlockMetaData> rowGroups = reader.getRowGroups();
+        List<OneField> fields = getStatsFields(rowGroups);
+        if (fields == null) {
+            useStats = false;
+            setRecordIterator();
+            return;
+        }
+
+        long rowCount = 0;
+        for (BlockMetaData rowGroup : rowGroups) {
+            rowCount += rowGroup.getRowCount();
+        }
+        if (inputData.getAggType() == EnumAggregationType.COUNT) {
+            aggRowCount = rowCount;
+        } else {
+            aggRowCount = rowCount > 0 ? 1 : 0;
+        }
+        aggRow = new OneRow(getStatsKey(fields), fields);
+    }
+
+    @Override
+    public boolean isUsingStats() {
+        return useStats;
+    }
+
+    /**
+     * @return the row of the aggregate, as many times as the aggregate
+     *         requires, then null
+     */
+    @Override
+    public OneRow emitAggObject() {
+        if (objectsEmitted < aggRowCount) {
+            objectsEmitted++;
+            return aggRow;
+        }
+        return null;
+    }
+
+    /*
+     * Builds the fields of the aggregate of each projected column, null if a
+     * projected column has no suitable statistics.
+     */
+    private List<OneField> getStatsFields(List<BlockMetaData> rowGroups) {
+        List<OneField> fields = new ArrayList<OneField>();
+        for (ColumnDescriptor col : inputData.getTupleDescription()) {
+            Object value = null;
+            if (col.isProjected()) {
+                value = getStatsValue(rowGroups, col.columnIndex(),
+                        DataType.get(col.columnTypeCode()));
+                if (value == NO_STATS) {
+                    return null;
+                }
+            }
+            fields.add(new OneField(col.columnTypeCode(), value));
+        }
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object getStatsValue(List<BlockMetaData> rowGroups, int columnIndex, DataType type) {
+        EnumAggregationType aggType = inputData.getAggType();
+        // row group statistics have no sums
+        if (aggType != EnumAggregationType.MIN && aggType != EnumAggregationType.MAX
+                || columnIndex >= schema.getFieldCount()) {
+            return NO_STATS;
+        }
+        Type field = schema.getType(columnIndex);
+        if (!field.isPrimitive() || !hasOrderedStats(field.asPrimitiveType())) {
+            return NO_STATS;
+        }
+
+        Comparable<Object> value = null;
+        for (BlockMetaData rowGroup : rowGroups) {
+            if (rowGroup.getRowCount() == 0) {
+                continue;
+            }
+            ColumnChunkMetaData column = getColumn(rowGroup, field.getName());
+            Statistics<?> stats = (column == null) ? null : column.getStatistics();
+            if (stats == null || stats.isEmpty()) {
+                return NO_STATS;
+            }
+            if (!stats.hasNonNullValue()) {
+                continue; // only nulls
+            }
+            Comparable<Object> rowGroupValue = (Comparable<Object>) (aggType == EnumAggregationType.MIN
+                    ? stats.genericGetMin() : stats.genericGetMax());
+            if (value == null || (aggType == EnumAggregationType.MIN
+                    ? rowGroupValue.compareTo(value) < 0 : rowGroupValue.compareTo(value) > 0)) {
+                value = rowGroupValue;
+            }
+        }
+        return value == null ? null : toColumnType(value, type);
+    }
+
+    /*
+     * The statistics of floating point values may ignore NaN, and the ones of
+     * binary and unsigned values are compared as signed values.
+     */
+    private static boolean hasOrderedStats(PrimitiveType type) {
+        OriginalType originalType = type.getOriginalType();
+        switch (type.getPrimitiveTypeName()) {
+            case INT32:
+                return originalType == null || originalType == OriginalType.INT_8
+                        || originalType == OriginalType.INT_16
+                        || originalType == OriginalType.INT_32
+                        || originalType == OriginalType.DATE;
+            case INT64:
+                return originalType == null || originalType == OriginalType.INT_64
+                        || originalType == OriginalType.TIMESTAMP_MILLIS;
+            case BOOLEAN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Object toColumnType(Object value, DataType type) {
+        if (value instanceof Boolean) {
+            return type == DataType.BOOLEAN ? value : NO_STATS;
+        }
+        long number = ((Number) value).longValue();
+        switch (type) {
+            case BIGINT:
+                return number;
+            case INTEGER:
+                return number == (int) number ? (Object) (int) number : NO_STATS;
+            case SMALLINT:
+                return number == (short) number ? (Object) (short) number : NO_STATS;
+            default:
+                return NO_STATS;
+        }
+    }
+
+    private static ColumnChunkMetaData getColumn(BlockMetaData rowGroup, String name) {
+        for (ColumnChunkMetaData column : rowGroup.getColumns()) {
+            if (column.getPath().toDotString().equals(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /* rows with the same values share their cached output */
+    private static List<Object> getStatsKey(List<OneField> fields) {
+        List<Object> key = new ArrayList<Object>(fields.size());
+        for (OneField field : fields) {
+            key.add(field.val);
+        }
+        return key;
+    }
+
     @Override
     public void closeForRead() throws Exception {
         if (reader != null) {
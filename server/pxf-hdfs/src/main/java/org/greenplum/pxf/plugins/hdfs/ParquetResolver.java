@@ -19,9 +19,12 @@ package org.greenplum.pxf.plugins.hdfs;
  * under the License.
  */
 
+import org.greenplum.pxf.api.BadRecordException;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
-import org.greenplum.pxf.api.ReadResolver;
+import org.greenplum.pxf.api.ProjectionResolver;
+import org.greenplum.pxf.api.RowBuffer;
+import org.greenplum.pxf.api.RowBufferResolver;
 import org.greenplum.pxf.api.UnsupportedTypeException;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.utilities.InputData;
@@ -38,14 +41,22 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.sql.Timestamp;
-import java.util.LinkedList;
 import java.util.List;
 
-public class ParquetResolver extends Plugin implements ReadResolver {
+/**
+ * Resolver of the records of Parquet files. The values of the columns not
+ * projected by the query are not read from the records. The records are
+ * resolved into a {@link RowBuffer}, the fields are built from the buffer.
+ */
+public class ParquetResolver extends Plugin implements ProjectionResolver, RowBufferResolver {
 
     public static final int JULIAN_EPOCH_OFFSET_DAYS = 2440588;
     public static final long MILLIS_IN_DAY = 24 * 3600 * 1000;
 
+    private boolean[] projection;
+    private ParquetUserData userData;
+    private RowBuffer fieldsBuffer;
+
     /**
      * Constructs the ParquetResolver
      *
@@ -64,106 +75,116 @@ public class ParquetResolver extends Plugin implements ReadResolver {
     {
       ParquetUserData parquetUserData = new ParquetUserData(schema);
       Group g = (Group) row.getData();
-      List<OneField> output = resolveRecord(parquetUserData, g);
-      return output;
+      RowBuffer buffer = getFieldsBuffer();
+      buffer.clear();
+      resolveRecord(parquetUserData, g, buffer);
+      return buffer.toFields();
     }
 
     @Override
     public List<OneField> getFields(OneRow row) throws Exception {
-        Object data = row.getData();
-        ParquetUserData parquetUserData = HdfsUtilities.parseParquetUserData(inputData);
-        Group g = (Group) data;
-        List<OneField> output = resolveRecord(parquetUserData, g);
+        RowBuffer buffer = getFieldsBuffer();
+        buffer.clear();
+        fillRow(row, buffer);
+        return buffer.toFields();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The schema of the records is parsed from the fragment user data once,
+     * for the first record.
+     */
+    @Override
+    public void fillRow(OneRow row, RowBuffer buffer) throws Exception {
+        if (userData == null) {
+            userData = HdfsUtilities.parseParquetUserData(inputData);
+        }
+        resolveRecord(userData, (Group) row.getData(), buffer);
+    }
 
-        return output;
+    @Override
+    public void setProjection(boolean[] projection) {
+        this.projection = projection;
     }
 
-    private List<OneField> resolveRecord(ParquetUserData userData, Group g) {
-        List<OneField> output = new LinkedList<OneField>();
+    private RowBuffer getFieldsBuffer() {
+        if (fieldsBuffer == null) {
+            fieldsBuffer = new RowBuffer(inputData);
+        }
+        return fieldsBuffer;
+    }
 
-        for (int i = 0; i < userData.getSchema().getFieldCount(); i++) {
-            if (userData.getSchema().getType(i).isPrimitive()) {
-                output.add(resolvePrimitive(i, g, userData.getSchema().getType(i)));
+    private void resolveRecord(ParquetUserData userData, Group g, RowBuffer buffer)
+            throws BadRecordException {
+        MessageType schema = userData.getSchema();
+        if (schema.getFieldCount() != buffer.getColumnCount()) {
+            throw new BadRecordException("Record has " + schema.getFieldCount()
+                    + " fields but the schema size is " + buffer.getColumnCount());
+        }
+        for (int i = 0; i < schema.getFieldCount(); i++) {
+            if (projection != null && i < projection.length && !projection[i]) {
+                continue;
+            } else if (schema.getType(i).isPrimitive()) {
+                if (g.getFieldRepetitionCount(i) > 0) {
+                    resolvePrimitive(i, g, schema.getType(i), buffer);
+                }
             } else {
                 throw new UnsupportedTypeException("Only primitive types are supported.");
             }
         }
-        return output;
     }
 
-    private OneField resolvePrimitive(Integer columnIndex, Group g, Type type) {
-        OneField field = new OneField();
+    private void resolvePrimitive(int columnIndex, Group g, Type type, RowBuffer buffer) {
         OriginalType originalType = type.getOriginalType();
         PrimitiveType primitiveType = type.asPrimitiveType();
         switch (primitiveType.getPrimitiveTypeName()) {
             case BINARY: {
                 if (originalType == null) {
-                    field.type = DataType.BYTEA.getOID();
-                    field.val = g.getFieldRepetitionCount(columnIndex) == 0 ?
-                            null : g.getBinary(columnIndex, 0).getBytes();
+                    byte[] bytes = g.getBinary(columnIndex, 0).getBytesUnsafe();
+                    buffer.setBytes(columnIndex, bytes, 0, bytes.length);
                 } else if (originalType == OriginalType.DATE) { // DATE type
-                    field.type = DataType.DATE.getOID();
-                    field.val = g.getFieldRepetitionCount(columnIndex) == 0 ? null : g.getString(columnIndex, 0);
+                    buffer.setObject(columnIndex, DataType.DATE.getOID(), g.getString(columnIndex, 0));
                 } else if (originalType == OriginalType.TIMESTAMP_MILLIS) { // TIMESTAMP type
-                    field.type = DataType.TIMESTAMP.getOID();
-                    field.val = g.getFieldRepetitionCount(columnIndex) == 0 ? null : g.getString(columnIndex, 0);
+                    buffer.setObject(columnIndex, DataType.TIMESTAMP.getOID(), g.getString(columnIndex, 0));
                 } else {
-                    field.type = DataType.TEXT.getOID();
-                    field.val = g.getFieldRepetitionCount(columnIndex) == 0 ?
-                            null : g.getString(columnIndex, 0);
+                    byte[] bytes = g.getBinary(columnIndex, 0).getBytesUnsafe();
+                    buffer.setString(columnIndex, bytes, 0, bytes.length);
                 }
                 break;
             }
             case INT32: {
                 if (originalType == OriginalType.INT_8 || originalType == OriginalType.INT_16) {
-                    field.type = DataType.SMALLINT.getOID();
-                    field.val = g.getFieldRepetitionCount(columnIndex) == 0 ?
-                            null : (short) g.getInteger(columnIndex, 0);
+                    buffer.setShort(columnIndex, (short) g.getInteger(columnIndex, 0));
                 } else {
-                    field.type = DataType.INTEGER.getOID();
-                    field.val = g.getFieldRepetitionCount(columnIndex) == 0 ?
-                            null : g.getInteger(columnIndex, 0);
+                    buffer.setInt(columnIndex, g.getInteger(columnIndex, 0));
                 }
                 break;
             }
             case INT64: {
-                field.type = DataType.BIGINT.getOID();
-                field.val = g.getFieldRepetitionCount(columnIndex) == 0 ?
-                        null : g.getLong(columnIndex, 0);
+                buffer.setLong(columnIndex, g.getLong(columnIndex, 0));
                 break;
             }
             case DOUBLE: {
-                field.type = DataType.FLOAT8.getOID();
-                field.val = g.getFieldRepetitionCount(columnIndex) == 0 ?
-                        null : g.getDouble(columnIndex, 0);
+                buffer.setDouble(columnIndex, g.getDouble(columnIndex, 0));
                 break;
             }
             case INT96: {
-                field.type = DataType.TIMESTAMP.getOID();
-                Timestamp ts = g.getFieldRepetitionCount(columnIndex) == 0 ?
-                        null : bytesToTimestamp(g.getInt96(columnIndex, 0).getBytes());
-                field.val = ts;
+                buffer.setObject(columnIndex, DataType.TIMESTAMP.getOID(),
+                        bytesToTimestamp(g.getInt96(columnIndex, 0).getBytes()));
                 break;
             }
             case FLOAT: {
-                field.type = DataType.REAL.getOID();
-                field.val = g.getFieldRepetitionCount(columnIndex) == 0 ?
-                        null : g.getFloat(columnIndex, 0);
+                buffer.setFloat(columnIndex, g.getFloat(columnIndex, 0));
                 break;
             }
             case FIXED_LEN_BYTE_ARRAY: {
-                field.type = DataType.NUMERIC.getOID();
-                if (g.getFieldRepetitionCount(columnIndex) > 0) {
-                    int scale = type.asPrimitiveType().getDecimalMetadata().getScale();
-                    BigDecimal bd = new BigDecimal(new BigInteger(g.getBinary(columnIndex, 0).getBytes()), scale);
-                    field.val = bd;
-                }
+                int scale = type.asPrimitiveType().getDecimalMetadata().getScale();
+                BigDecimal bd = new BigDecimal(new BigInteger(g.getBinary(columnIndex, 0).getBytes()), scale);
+                buffer.setObject(columnIndex, DataType.NUMERIC.getOID(), bd);
                 break;
             }
             case BOOLEAN: {
-                field.type = DataType.BOOLEAN.getOID();
-                field.val = g.getFieldRepetitionCount(columnIndex) == 0 ?
-                        null : g.getBoolean(columnIndex, 0);
+                buffer.setBoolean(columnIndex, g.getBoolean(columnIndex, 0));
                 break;
             }
             default: {
@@ -171,7 +192,6 @@ public class ParquetResolver extends Plugin implements ReadResolver {
                         + "is not supported");
             }
         }
-        return field;
     }
 
     private Timestamp bytesToTimestamp(byte[] bytes) {
@@ -20,20 +20,40 @@ package org.greenplum.pxf.plugins.hdfs;
  */
 
 
-import org.greenplum.pxf.api.OneRow;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.greenplum.pxf.api.SamplingAccessor;
 import org.greenplum.pxf.api.utilities.InputData;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 
 /**
- * A (atomic) PXF Accessor for reading \n delimited files with quoted
+ * A PXF Accessor for reading \n delimited files with quoted
  * field delimiter, line delimiter, and quotes. This accessor supports
- * multi-line records, that are read from a single source (non-parallel).
+ * multi-line records, and reads the records of each file split with a
+ * {@link QuotedRecordReader}, so that the splits of a file are read in
+ * parallel. Each record is returned as a {@link ChunkWritable} holding its
+ * bytes and its line feed. When sampling, the records are skipped by the
+ * reader, and each sampled record is sent whole, with the line feeds of its
+ * quoted fields.
+ * <p>
+ * The following user options are supported:
+ * <ul>
+ * <li>QUOTE: the quote character, " by default;</li>
+ * <li>ESCAPE: the character escaping the quote in quoted fields, the quote
+ * character by default (the quote is escaped by doubling it).</li>
+ * </ul>
  */
-public class QuotedLineBreakAccessor extends HdfsAtomicDataAccessor {
-    private BufferedReader reader;
+public class QuotedLineBreakAccessor extends HdfsSplittableDataAccessor implements
+        SamplingAccessor {
+    static final String QUOTE_OPTION = "QUOTE";
+    static final String ESCAPE_OPTION = "ESCAPE";
+    private static final byte DEFAULT_QUOTE = '"';
+
+    private final byte quote;
+    private final byte escape;
 
     /**
      * Constructs a QuotedLineBreakAccessor.
@@ -41,32 +61,30 @@ public class QuotedLineBreakAccessor extends HdfsAtomicDataAccessor {
      * @param input all input parameters coming from the client request
      */
     public QuotedLineBreakAccessor(InputData input) {
-        super(input);
+        super(input, new TextInputFormat());
+        ((TextInputFormat) inputFormat).configure(jobConf);
+        quote = getCharOption(input, QUOTE_OPTION, DEFAULT_QUOTE);
+        escape = getCharOption(input, ESCAPE_OPTION, quote);
     }
 
     @Override
-    public boolean openForRead() throws Exception {
-        if (!super.openForRead()) {
-            return false;
-        }
-        reader = new BufferedReader(new InputStreamReader(inp));
-        return true;
+    protected Object getReader(JobConf jobConf, InputSplit split)
+            throws IOException {
+        return new QuotedRecordReader(jobConf, (FileSplit) split, quote, escape);
     }
 
-    /**
-     * Fetches one record (maybe partial) from the  file. The record is returned as a Java object.
+    /*
+     * Returns the single byte character of the given user option.
      */
-    @Override
-    public OneRow readNextObject() throws IOException {
-        if (super.readNextObject() == null) /* check if working segment */ {
-            return null;
+    private static byte getCharOption(InputData input, String option, byte defaultValue) {
+        String value = input.getUserProperty(option);
+        if (value == null) {
+            return defaultValue;
         }
-
-        String next_line = reader.readLine();
-        if (next_line == null) /* EOF */ {
-            return null;
+        if (value.length() != 1 || value.charAt(0) > 0x7f) {
+            throw new IllegalArgumentException(option
+                    + " must be a single ASCII character, got '" + value + "'");
         }
-
-        return new OneRow(null, next_line);
+        return (byte) value.charAt(0);
     }
 }
@@ -0,0 +1,407 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.RecordReader;
+
+/**
+ * QuotedRecordReader reads the records of a file split where quoted fields
+ * may contain line feeds. A record ends at a line feed which is not inside a
+ * quoted field, and is returned with its line feed as a byte slice, without
+ * decoding. The value is only valid until the next read.
+ * <p>
+ * The records of a split start at the record boundary of the split start and
+ * end at the record boundary of the split end, so that each record is read by
+ * exactly one split. The boundary of an offset is the position following the
+ * first line feed at or after the offset which is outside of quotes. Whether
+ * the bytes following the offset are inside quotes is not known without
+ * reading the file from its start, and is speculated (see
+ * {@link #findRecordStart}). The speculation is confirmed when the previous
+ * split reaches the boundary: its records are parsed from a known state, and
+ * must end exactly at the boundary. An IOException is thrown otherwise,
+ * rather than returning records cut in the middle.
+ * <p>
+ * Compressed files cannot be read from an offset, they are read whole by the
+ * split starting at 0.
+ */
+public class QuotedRecordReader implements
+        RecordReader<LongWritable, ChunkWritable> {
+    private static final Log LOG = LogFactory.getLog(QuotedRecordReader.class);
+
+    /*
+     * number of bytes after a split offset in which the state of the quotes is
+     * speculated. The bytes are assumed to be outside of quotes when there is
+     * no hint in them.
+     */
+    static final int SPECULATION_WINDOW = 1024 * 1024;
+    private static final byte LINE_FEED = '\n';
+
+    private final byte quote;
+    private final byte escape;
+    private FSDataInputStream fileIn;
+    private InputStream in;
+    private Decompressor decompressor;
+    private byte[] buffer;
+    private int bufferLength;
+    private int bufferPos;
+    private long start;
+    private long pos;
+    // record boundary of the split end, Long.MAX_VALUE for the end of the file
+    private long end;
+    private boolean inQuotes;
+    private boolean escaped;
+    private boolean eof;
+
+    /**
+     * Constructs a QuotedRecordReader instance.
+     *
+     * @param job the job configuration
+     * @param split contains the file name, begin byte of the split and the
+     *            bytes length
+     * @param quote the quote character
+     * @param escape the escape character of the quoted fields, equal to the
+     *            quote when quotes are escaped by doubling them
+     * @throws IOException if an I/O error occurs when accessing the file or
+     *             creating input stream to read from it
+     */
+    public QuotedRecordReader(Configuration job, FileSplit split, byte quote, byte escape)
+            throws IOException {
+        this.quote = quote;
+        this.escape = escape;
+        final Path file = split.getPath();
+        final FileSystem fs = file.getFileSystem(job);
+        final CompressionCodec codec = new CompressionCodecFactory(job).getCodec(file);
+        fileIn = fs.open(file, ChunkReader.DEFAULT_BUFFER_SIZE);
+        if (codec != null) {
+            if (split.getStart() == 0) {
+                decompressor = CodecPool.getDecompressor(codec);
+                initStream(codec.createInputStream(fileIn, decompressor), 0, Long.MAX_VALUE);
+            } else {
+                initStream(null, 0, 0);
+            }
+        } else {
+            long fileLength = fs.getFileStatus(file).getLen();
+            initSplit(fileIn, split.getStart(), split.getStart() + split.getLength(), fileLength);
+        }
+    }
+
+    /*
+     * Constructs a reader of the [start, end) split of the uncompressed file
+     * open in the given stream.
+     */
+    QuotedRecordReader(FSDataInputStream fileIn, long start, long end, long fileLength,
+                       byte quote, byte escape) throws IOException {
+        this.quote = quote;
+        this.escape = escape;
+        this.fileIn = fileIn;
+        initSplit(fileIn, start, end, fileLength);
+    }
+
+    private void initSplit(FSDataInputStream fileIn, long start, long end, long fileLength)
+            throws IOException {
+        long recordStart = (start == 0) ? 0 : getBoundary(fileIn, start, fileLength);
+        long recordEnd = (end >= fileLength) ? Long.MAX_VALUE : getBoundary(fileIn, end, fileLength);
+        if (recordEnd == fileLength) {
+            recordEnd = Long.MAX_VALUE;
+        }
+        if (recordStart >= recordEnd) {
+            // no record starts in the split
+            initStream(null, 0, 0);
+            return;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Split [" + start + ", " + end + ") reads the records of ["
+                    + recordStart + ", " + recordEnd + ")");
+        }
+        fileIn.seek(recordStart);
+        initStream(fileIn, recordStart, recordEnd);
+    }
+
+    private void initStream(InputStream in, long start, long end) {
+        this.in = in;
+        this.start = start;
+        this.pos = start;
+        this.end = end;
+        this.eof = (in == null);
+        if (in != null) {
+            buffer = ChunkBufferPool.acquire(ChunkReader.DEFAULT_BUFFER_SIZE);
+        }
+    }
+
+    /*
+     * Returns the record boundary of the given offset of the file, the file
+     * length when no record starts after the offset.
+     */
+    private long getBoundary(FSDataInputStream fileIn, long offset, long fileLength)
+            throws IOException {
+        fileIn.seek(offset - 1);
+        long boundary = findRecordStart(fileIn, offset, quote, escape);
+        return (boundary < 0) ? fileLength : boundary;
+    }
+
+    /**
+     * Finds the start of the first record following the given offset.
+     * <p>
+     * The bytes following the offset are scanned twice at once, assuming that
+     * the offset is outside and inside quotes, and the first line feed outside
+     * quotes of each scan is kept: one of them is the record boundary,
+     * depending on whether the offset is inside quotes. As when reading the
+     * records, the escape character only applies inside quotes. The state of
+     * the offset is deduced from the first quote which is either preceded or
+     * followed by a word character (letter, digit or non ASCII byte): a quote
+     * preceded by one closes a quoted field, a quote followed by one opens a
+     * quoted field.
+     * Quotes next to delimiters or to other quotes are not conclusive since
+     * the delimiter is not known. When there is no such quote in the
+     * {@link #SPECULATION_WINDOW} bytes following the offset, the offset is
+     * assumed to be outside of quotes.
+     *
+     * @param in the stream, positioned at the byte preceding the offset
+     * @param offset the offset, greater than 0
+     * @param quote the quote character
+     * @param escape the escape character of the quoted fields
+     * @return the offset following the line feed ending the record before the
+     *         offset, -1 if the stream ends first
+     * @throws IOException if reading failed
+     */
+    static long findRecordStart(InputStream in, long offset, byte quote, byte escape)
+            throws IOException {
+        int prev = in.read();
+        if (prev < 0) {
+            return -1;
+        }
+        // the state of each scan, assuming the offset outside (0) or inside (1) quotes
+        boolean[] inQuotes = {false, true};
+        boolean[] escaped = new boolean[2];
+        // whether the previous byte is a quote opening a field
+        boolean[] opened = {false, prev == (quote & 0xff)};
+        // the first line feed outside quotes
+        long[] lineFeeds = {-1, -1};
+        // the state of the quotes at the offset, -1 while unknown
+        int initial = -1;
+        boolean escapes = (escape != quote);
+        escaped[1] = escapes && prev == (escape & 0xff);
+        long position = offset;
+        byte[] bytes = new byte[ChunkReader.DEFAULT_BUFFER_SIZE];
+        int n;
+        while ((n = in.read(bytes, 0, bytes.length)) > 0) {
+            for (int i = 0; i < n; i++, position++) {
+                int b = bytes[i] & 0xff;
+                for (int state = 0; state < 2; state++) {
+                    boolean opening = false;
+                    if (escaped[state]) {
+                        escaped[state] = false;
+                    } else if (b == (quote & 0xff)) {
+                        if (initial < 0 && inQuotes[state] && isWordByte(prev)) {
+                            // closing quote, inside quotes before it
+                            initial = state;
+                        }
+                        inQuotes[state] = !inQuotes[state];
+                        opening = inQuotes[state];
+                    } else if (inQuotes[state]) {
+                        if (initial < 0 && opened[state] && isWordByte(b)) {
+                            // the previous quote opened a field
+                            initial = state;
+                        }
+                        escaped[state] = escapes && b == (escape & 0xff);
+                    } else if (b == LINE_FEED && lineFeeds[state] < 0) {
+                        lineFeeds[state] = position;
+                    }
+                    opened[state] = opening;
+                }
+                prev = b;
+                if (initial < 0 && position - offset >= SPECULATION_WINDOW) {
+                    initial = 0;
+                }
+                if (initial >= 0 && lineFeeds[initial] >= 0) {
+                    return lineFeeds[initial] + 1;
+                }
+            }
+        }
+        if (initial < 0) {
+            initial = 0;
+        }
+        return (lineFeeds[initial] < 0) ? -1 : lineFeeds[initial] + 1;
+    }
+
+    private static boolean isWordByte(int b) {
+        return (b >= '0' && b <= '9') || (b >= 'a' && b <= 'z')
+                || (b >= 'A' && b <= 'Z') || b >= 0x80;
+    }
+
+    /**
+     * Used by the client of this class to create the 'key' output parameter for
+     * next() method.
+     *
+     * @return an instance of LongWritable
+     */
+    @Override
+    public LongWritable createKey() {
+        return new LongWritable();
+    }
+
+    /**
+     * Used by the client of this class to create the 'value' output parameter
+     * for next() method.
+     *
+     * @return an instance of ChunkWritable
+     */
+    @Override
+    public ChunkWritable createValue() {
+        return new ChunkWritable();
+    }
+
+    /**
+     * Fetches the next record of the split.
+     *
+     * @param key output parameter. When method returns, key holds the offset
+     *            of the record in the file
+     * @param value output parameter. When method returns, value holds the
+     *            record, ending with a line feed
+     * @return false if there are no more records in the split
+     * @throws IOException if an I/O error occurs while reading the file, or if
+     *             the records are not aligned on the record boundary of the
+     *             split end
+     */
+    @Override
+    public synchronized boolean next(LongWritable key, ChunkWritable value)
+            throws IOException {
+        value.length = 0;
+        if (pos >= end) {
+            return false;
+        }
+        key.set(pos);
+        while (true) {
+            if (bufferPos == bufferLength && !fill()) {
+                if (value.length == 0) {
+                    return false;
+                }
+                // the last record of the file has no line feed
+                value.append(new byte[] { LINE_FEED }, 0, 1);
+                return true;
+            }
+            int limit = (int) Math.min(bufferLength, bufferPos + (end - pos));
+            int recordEnd = scan(limit);
+            int length = ((recordEnd < 0) ? limit : recordEnd) - bufferPos;
+            value.append(buffer, bufferPos, length);
+            bufferPos += length;
+            pos += length;
+            if (recordEnd >= 0) {
+                return true;
+            }
+            if (pos == end) {
+                throw new IOException("Record boundary at offset " + end
+                        + " is inside a quoted field, check the quote and escape characters of the file");
+            }
+        }
+    }
+
+    /*
+     * Scans the buffer up to the limit, returns the position following the
+     * line feed ending the record, -1 if the record goes on.
+     */
+    private int scan(int limit) {
+        for (int i = bufferPos; i < limit; i++) {
+            byte b = buffer[i];
+            if (escaped) {
+                escaped = false;
+            } else if (b == quote) {
+                inQuotes = !inQuotes;
+            } else if (inQuotes) {
+                escaped = (b == escape);
+            } else if (b == LINE_FEED) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            eof = true;
+            return false;
+        }
+        bufferPos = 0;
+        bufferLength = n;
+        return true;
+    }
+
+    /**
+     * Gets the progress within the split.
+     */
+    @Override
+    public synchronized float getProgress() throws IOException {
+        if (end == Long.MAX_VALUE || start == end) {
+            return eof ? 1.0f : 0.0f;
+        }
+        return Math.min(1.0f, (pos - start) / (float) (end - start));
+    }
+
+    /**
+     * Returns the position of the unread tail of the file.
+     *
+     * @return pos - start byte of the next record
+     */
+    @Override
+    public synchronized long getPos() throws IOException {
+        return pos;
+    }
+
+    /**
+     * Closes the input stream and returns the buffer to the pool.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (in != null) {
+                in.close();
+            } else if (fileIn != null) {
+                fileIn.close();
+            }
+        } finally {
+            if (decompressor != null) {
+                CodecPool.returnDecompressor(decompressor);
+                decompressor = null;
+            }
+            ChunkBufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.greenplum.pxf.plugins.hdfs;
 
 
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.SamplingAccessor;
 import org.greenplum.pxf.api.WriteAccessor;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
@@ -46,7 +47,7 @@ import java.util.EnumSet;
  * A PXF Accessor for reading and writing Sequence File records
  */
 public class SequenceFileAccessor extends HdfsSplittableDataAccessor implements
-        WriteAccessor {
+        WriteAccessor, SamplingAccessor {
 
     private Configuration conf;
     private FileContext fc;
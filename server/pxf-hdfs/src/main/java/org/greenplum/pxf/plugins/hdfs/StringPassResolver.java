@@ -28,6 +28,7 @@ import org.greenplum.pxf.api.WriteResolver;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.api.utilities.Plugin;
 
+import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -71,7 +72,12 @@ public class StringPassResolver extends Plugin implements ReadResolver, WriteRes
         List<OneField> record = new LinkedList<>();
 		Object data = onerow.getData();
 		if (data instanceof ChunkWritable) {
-			record.add(new OneField(DataType.BYTEA.getOID(), ((ChunkWritable)data).box));
+			/*
+			 * a view of the buffer of the reader, the bridge writes it before
+			 * the next record is read into the buffer
+			 */
+			ChunkWritable chunk = (ChunkWritable) data;
+			record.add(new OneField(DataType.BYTEA.getOID(), ByteBuffer.wrap(chunk.box, 0, chunk.length)));
 		}
 		else {
 			record.add(new OneField(VARCHAR.getOID(), data.toString()));
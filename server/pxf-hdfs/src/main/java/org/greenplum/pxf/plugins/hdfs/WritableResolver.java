@@ -46,7 +46,7 @@ import java.util.List;
  * A field named 'recordkey' is treated as a key of the given row, and not as
  * part of the data schema. See {@link RecordkeyAdapter}.
  */
-public class WritableResolver extends Plugin implements ReadResolver, WriteResolver {
+public class WritableResolver extends Plugin implements ReadResolver, RecordViewWriteResolver {
     private static final int RECORDKEY_UNDEFINED = -1;
     private static final Log LOG = LogFactory.getLog(WritableResolver.class);
     private RecordkeyAdapter recordkeyAdapter = new RecordkeyAdapter();
@@ -218,6 +218,72 @@ public class WritableResolver extends Plugin implements ReadResolver, WriteResol
         return new OneRow(key, userObject);
     }
 
+    /**
+     * Sets customWritable fields from a record sent in GPDBWritable format
+     * and creates a OneRow object. The values of the primitive fields are
+     * read from the record and set without being boxed.
+     */
+    @Override
+    public OneRow setFields(RecordView record) throws Exception {
+        Writable key = null;
+
+        int colIdx = 0;
+        for (Field field : fields) {
+            if (colIdx == recordkeyIndex) {
+                key = recordkeyAdapter.convertKeyValue(record.getValue(colIdx));
+                colIdx++;
+            }
+
+            if (Modifier.isPrivate(field.getModifiers())) {
+                continue;
+            }
+
+            String javaType = field.getType().getName();
+            convertJavaToGPDBType(javaType);
+            if (isArray(javaType)) {
+                Object value = field.get(userObject);
+                int length = Array.getLength(value);
+                for (int j = 0; j < length; j++, colIdx++) {
+                    Array.set(value, j, record.getValue(colIdx));
+                }
+            } else {
+                setField(field, record, colIdx);
+                colIdx++;
+            }
+        }
+
+        return new OneRow(key, userObject);
+    }
+
+    private void setField(Field field, RecordView record, int colIdx) throws IllegalAccessException {
+        if (!field.getType().isPrimitive() || record.isNull(colIdx)) {
+            field.set(userObject, record.getValue(colIdx));
+            return;
+        }
+        switch (DataType.get(record.getColumnType(colIdx))) {
+            case BIGINT:
+                field.setLong(userObject, record.getLong(colIdx));
+                break;
+            case INTEGER:
+                field.setInt(userObject, record.getInt(colIdx));
+                break;
+            case SMALLINT:
+                field.setShort(userObject, record.getShort(colIdx));
+                break;
+            case FLOAT8:
+                field.setDouble(userObject, record.getDouble(colIdx));
+                break;
+            case REAL:
+                field.setFloat(userObject, record.getFloat(colIdx));
+                break;
+            case BOOLEAN:
+                field.setBoolean(userObject, record.getBoolean(colIdx));
+                break;
+            default:
+                field.set(userObject, record.getValue(colIdx));
+        }
+    }
+
     /*
      * Tests for the case schema resource is a file like avro_schema.avsc
      * or for the case schema resource is a Java class. in which case we try to reflect the class name.
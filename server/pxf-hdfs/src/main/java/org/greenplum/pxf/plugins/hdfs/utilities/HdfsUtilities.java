@@ -33,6 +33,8 @@ import org.apache.avro.mapred.FsInput;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.compress.BZip2Codec;
 import org.apache.hadoop.io.compress.CompressionCodec;
@@ -52,6 +54,7 @@ import java.util.List;
  */
 public class HdfsUtilities {
     private static final Log LOG = LogFactory.getLog(HdfsUtilities.class);
+    static final String PROPERTY_KEY_BZIP2_SYNCHRONIZED = "pxf.hdfs.bzip2.synchronized";
     private static Configuration config = new Configuration();
     private static CompressionCodecFactory factory = new CompressionCodecFactory(
             config);
@@ -133,6 +136,12 @@ public class HdfsUtilities {
 
     /**
      * Checks if requests should be handle in a single thread or not.
+     * <p>
+     * The bzip2 codec used to share static state between its streams and was
+     * not thread safe. Its streams are independent since Hadoop 2.5, and the
+     * readers and writers create their own codec and take their decompressor
+     * from the codec pool, so bzip2 requests are thread safe too, unless the
+     * system property pxf.hdfs.bzip2.synchronized is set to true.
      *
      * @param dataDir hdfs path to the data source
      * @param compCodec the fully qualified name of the compression codec
@@ -140,12 +149,59 @@ public class HdfsUtilities {
      */
     public static boolean isThreadSafe(String dataDir, String compCodec) {
 
+        if (!Boolean.getBoolean(PROPERTY_KEY_BZIP2_SYNCHRONIZED)) {
+            return true;
+        }
         Class<? extends CompressionCodec> codecClass = (compCodec != null) ? HdfsUtilities.getCodecClass(
                 config, compCodec) : HdfsUtilities.getCodecClassByPath(dataDir);
-        /* bzip2 codec is not thread safe */
         return (codecClass == null || !BZip2Codec.class.isAssignableFrom(codecClass));
     }
 
+    /**
+     * Returns a token identifying the current version of the files of a data
+     * source. The token changes when a file matching the data source (a file,
+     * directory, or wild card pattern) is added, removed, modified or resized.
+     * The hidden files of a directory, which are not read (e.g. the indexes of
+     * gzip files), and the modification time of the directory, which they
+     * change, are ignored.
+     *
+     * @param conf configuration used to access the file system
+     * @param dataSource the data source
+     * @return the version of the data source, null if it does not exist
+     * @throws IOException if the file system could not be listed
+     */
+    public static String getDataSourceVersion(Configuration conf, String dataSource)
+            throws IOException {
+        Path path = new Path(absoluteDataPath(dataSource));
+        FileSystem fs = path.getFileSystem(conf);
+        FileStatus[] matches = fs.globStatus(path);
+        if (matches == null) {
+            return null;
+        }
+
+        long version = 1;
+        for (FileStatus match : matches) {
+            if (!match.isDirectory()) {
+                version = updateVersion(version, match);
+                continue;
+            }
+            version = 31 * version + match.getPath().hashCode();
+            for (FileStatus child : fs.listStatus(match.getPath())) {
+                String name = child.getPath().getName();
+                if (!name.startsWith(".") && !name.startsWith("_")) {
+                    version = updateVersion(version, child);
+                }
+            }
+        }
+        return Long.toHexString(version);
+    }
+
+    private static long updateVersion(long version, FileStatus status) {
+        version = 31 * version + status.getPath().hashCode();
+        version = 31 * version + status.getModificationTime();
+        return 31 * version + status.getLen();
+    }
+
     /**
      * Prepares byte serialization of a file split information (start, length,
      * hosts) using {@link ObjectOutputStream}.
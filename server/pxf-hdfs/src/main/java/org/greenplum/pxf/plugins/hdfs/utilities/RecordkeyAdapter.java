@@ -94,9 +94,9 @@ public class RecordkeyAdapter {
         /*
          * The recordkey was filled in the fileAccessor during execution of
          * method readNextObject. The current accessor implementations are
-         * SequenceFileAccessor, LineBreakAccessor and AvroFileAccessor from
-         * HdfsSplittableDataAccessor and QuotedLineBreakAccessor from
-         * HdfsAtomicDataAccessor. For SequenceFileAccessor, LineBreakAccessor
+         * SequenceFileAccessor, LineBreakAccessor, QuotedLineBreakAccessor and
+         * AvroFileAccessor from HdfsSplittableDataAccessor. For
+         * SequenceFileAccessor, LineBreakAccessor and QuotedLineBreakAccessor
          * the recordkey is set, since it is returned by the
          * SequenceFileRecordReader or LineRecordReader(for text file). But Avro
          * files do not have keys, so the AvroRecordReader will not return a key
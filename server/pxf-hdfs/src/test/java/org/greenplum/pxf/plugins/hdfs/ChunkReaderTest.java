@@ -20,6 +20,8 @@ package org.greenplum.pxf.plugins.hdfs;
  */
 
 
+import java.io.ByteArrayInputStream;
+
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.hdfs.DFSInputStream;
 
@@ -90,11 +92,11 @@ public class ChunkReaderTest {
 		// read first line
 		assertEquals("OneLine\n".length()
 					 , reader.readLine(out, maxBytesToConsume) );
-		assertEquals("OneLine\n", new String(out.box) );
+		assertEquals("OneLine\n", new String(out.box, 0, out.length) );
 
 		// read second line
 		assertEquals("TwoLine\n".length(), reader.readLine(out, maxBytesToConsume) );
-		assertEquals("TwoLine\n", new String(out.box) );
+		assertEquals("TwoLine\n", new String(out.box, 0, out.length) );
     }
 	
 	/*
@@ -103,13 +105,15 @@ public class ChunkReaderTest {
     @Test
     public void readChunk() throws Exception {
 		reader = new ChunkReader(mockStream);
-		when( mockStream.read( (byte [])Mockito.anyObject()) ).thenAnswer(new Answer<java.lang.Number>() {
+		/* chunks are read straight into the buffer of the ChunkWritable */
+		when( mockStream.read( (byte [])Mockito.anyObject(), anyInt(), anyInt()) ).thenAnswer(new Answer<java.lang.Number>() {
 			@Override
 			public java.lang.Number answer(InvocationOnMock invocation) throws Throwable {
 				byte[] buf = (byte[]) invocation.getArguments()[0];
+				int off = (Integer) invocation.getArguments()[1];
 				
 				byte [] source = "OneLine\nTwoLine\n".getBytes();
-				System.arraycopy(source, 0, buf, 0, source.length);
+				System.arraycopy(source, 0, buf, off, source.length);
 				return new java.lang.Integer(source.length);
 			}
 		});
@@ -119,8 +123,88 @@ public class ChunkReaderTest {
 		// read chunk
 		assertEquals("OneLine\nTwoLine\n".length()
 					 , reader.readChunk(out, maxBytesToConsume) );
-		assertEquals("OneLine\nTwoLine\n", new String(out.box) );
+		assertEquals("OneLine\nTwoLine\n", new String(out.box, 0, out.length) );
     }	
+
+	/*
+	 * Skip lines, then read the following one
+	 */
+    @Test
+    public void skipLine() throws Exception {
+		reader = new ChunkReader(new ByteArrayInputStream("OneLine\nTwoLine\nThreeLine".getBytes()));
+
+		ChunkWritable out = new ChunkWritable();
+		int maxBytesToConsume = 1024*1024;
+		assertEquals("OneLine\n".length(), reader.skipLine(maxBytesToConsume));
+		assertEquals("TwoLine\n".length(), reader.readLine(out, maxBytesToConsume));
+		assertEquals("TwoLine\n", new String(out.box, 0, out.length) );
+
+		// last line without linefeed, then end of file
+		assertEquals("ThreeLine".length(), reader.skipLine(maxBytesToConsume));
+		assertEquals(0, reader.skipLine(maxBytesToConsume));
+    }
+
+	/*
+	 * Read a chunk after a line: the rest of the line buffer comes first,
+	 * and the buffer of the ChunkWritable is reused
+	 */
+    @Test
+    public void readChunkAfterLine() throws Exception {
+		reader = new ChunkReader(new ByteArrayInputStream("OneLine\nTwoLine\nThreeLine\n".getBytes()));
+
+		ChunkWritable out = new ChunkWritable();
+		int maxBytesToConsume = 1024;
+		assertEquals("OneLine\n".length(), reader.readLine(out, maxBytesToConsume));
+		byte[] box = out.box;
+		assertEquals("TwoLine\nThreeLine\n".length(), reader.readChunk(out, maxBytesToConsume));
+		assertEquals("TwoLine\nThreeLine\n", new String(out.box, 0, out.length) );
+		assertSame(box, out.box);
+		assertEquals(0, reader.readChunk(out, maxBytesToConsume));
+		assertEquals(0, out.length);
+
+		out.release();
+		assertNull(out.box);
+    }
+
+	/*
+	 * A chunk never goes past the bytes to consume, even when the buffer of
+	 * the ChunkWritable is larger
+	 */
+    @Test
+    public void readChunkIsCapped() throws Exception {
+		byte[] data = new byte[4 * ChunkReader.DEFAULT_BUFFER_SIZE];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) ('a' + i % 26);
+		}
+		reader = new ChunkReader(new ByteArrayInputStream(data));
+
+		ChunkWritable out = new ChunkWritable();
+		out.ensureCapacity(data.length);
+		assertEquals(1000, reader.readChunk(out, 1000));
+		assertEquals(new String(data, 0, 1000), new String(out.box, 0, out.length));
+		assertEquals(1000, reader.readChunk(out, 1000));
+		assertEquals(new String(data, 1000, 1000), new String(out.box, 0, out.length));
+		out.release();
+    }
+
+	/*
+	 * A line longer than the read buffer is assembled in the ChunkWritable
+	 */
+    @Test
+    public void readLongLine() throws Exception {
+		StringBuilder line = new StringBuilder();
+		while (line.length() < 3 * ChunkReader.DEFAULT_BUFFER_SIZE) {
+			line.append("a long line ");
+		}
+		line.append('\n');
+		reader = new ChunkReader(new ByteArrayInputStream((line + "short\n").getBytes()));
+
+		ChunkWritable out = new ChunkWritable();
+		assertEquals(line.length(), reader.readLine(out, Integer.MAX_VALUE));
+		assertEquals(line.toString(), new String(out.box, 0, out.length));
+		assertEquals("short\n".length(), reader.readLine(out, Integer.MAX_VALUE));
+		assertEquals("short\n", new String(out.box, 0, out.length));
+    }
 	
 }
 
@@ -0,0 +1,64 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.greenplum.pxf.plugins.hdfs.ChunkRecordReader.nextChunkSize;
+
+public class ChunkRecordReaderTest {
+
+    private static final int KB = 1024;
+    private static final int MIN = 64 * KB;
+    private static final int MAX = 1024 * KB;
+    private static final long MS = 1000 * 1000;
+
+    @Test
+    public void chunkSizeFollowsThroughput() {
+        // 256KB read in 10ms: on target
+        assertEquals(256 * KB, nextChunkSize(256 * KB, 256 * KB, 10 * MS, MIN, MAX));
+        // 256KB read in 8ms: 320KB in 10ms
+        assertEquals(320 * KB, nextChunkSize(256 * KB, 256 * KB, 8 * MS, MIN, MAX));
+        // 256KB read in 15ms: 170.7KB in 10ms, rounded down to 4KB
+        assertEquals(168 * KB, nextChunkSize(256 * KB, 256 * KB, 15 * MS, MIN, MAX));
+    }
+
+    @Test
+    public void chunkSizeChangesByTwoAtMost() {
+        assertEquals(512 * KB, nextChunkSize(256 * KB, 256 * KB, 1 * MS, MIN, MAX));
+        assertEquals(128 * KB, nextChunkSize(256 * KB, 256 * KB, 100 * MS, MIN, MAX));
+    }
+
+    @Test
+    public void chunkSizeIsBounded() {
+        assertEquals(MAX, nextChunkSize(MAX, MAX, 1 * MS, MIN, MAX));
+        assertEquals(MIN, nextChunkSize(MIN, MIN, 100 * MS, MIN, MAX));
+    }
+
+    @Test
+    public void chunkSizeIsKept() {
+        // short chunk at the end of the split
+        assertEquals(256 * KB, nextChunkSize(256 * KB, 1000, 1 * MS, MIN, MAX));
+        // fixed chunk size
+        assertEquals(MAX, nextChunkSize(MAX, MAX, 100 * MS, MAX, MAX));
+    }
+}
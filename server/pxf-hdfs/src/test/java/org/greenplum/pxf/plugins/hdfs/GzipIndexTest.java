@@ -0,0 +1,189 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GzipIndexTest {
+
+    private static final long SPAN = 64 * 1024;
+    private byte[] data;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 2 * 1024 * 1024) {
+            text.append(random.nextInt(100000)).append(",row ").append(random.nextInt(50)).append('\n');
+        }
+        data = text.toString().getBytes();
+    }
+
+    @Test
+    public void checkpointsAreReadable() throws Exception {
+        byte[] file = gzip(data, Deflater.DEFAULT_COMPRESSION);
+        GzipIndex index = roundTrip(GzipIndex.build(new ByteArrayInputStream(file), file.length, 1000, SPAN));
+
+        assertTrue(index.isValidFor(file.length, 1000));
+        assertFalse(index.isValidFor(file.length, 2000));
+        assertEquals(data.length, index.getUncompressedLength());
+        assertEquals(1, index.getMemberCount());
+        assertTrue(index.getCheckpointCount() > 1);
+        assertCheckpoints(file, index);
+    }
+
+    @Test
+    public void membersAreIndexed() throws Exception {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(gzip(Arrays.copyOfRange(data, 0, 500000), Deflater.BEST_SPEED));
+        // a member of stored blocks
+        file.write(gzip(Arrays.copyOfRange(data, 500000, 600000), Deflater.NO_COMPRESSION));
+        file.write(gzip(Arrays.copyOfRange(data, 600000, data.length), Deflater.BEST_COMPRESSION));
+        byte[] bytes = file.toByteArray();
+
+        GzipIndex index = GzipIndex.build(new ByteArrayInputStream(bytes), bytes.length, 1000, SPAN);
+        assertEquals(3, index.getMemberCount());
+        assertEquals(data.length, index.getUncompressedLength());
+        assertCheckpoints(bytes, index);
+    }
+
+    @Test
+    public void fragmentsStartAtCheckpoints() throws Exception {
+        byte[] file = gzip(data, Deflater.DEFAULT_COMPRESSION);
+        GzipIndex index = GzipIndex.build(new ByteArrayInputStream(file), file.length, 1000, SPAN);
+        long first = index.getCompressedOffset(1);
+
+        // a fragment holding the first checkpoint only
+        GzipIndexInputStream in = open(file, index, 0, first);
+        assertEquals(0, in.getAdjustedStart());
+        assertEquals(index.getUncompressedOffset(1), in.getAdjustedEnd());
+
+        // the next fragment starts at the second checkpoint
+        in = open(file, index, index.getCompressedOffset(0) + 1, first + 1);
+        assertEquals(index.getUncompressedOffset(1), in.getAdjustedStart());
+        assertEquals((index.getCheckpointCount() > 2) ? index.getUncompressedOffset(2) : data.length,
+                in.getAdjustedEnd());
+
+        // no checkpoint after the last one
+        long last = index.getCompressedOffset(index.getCheckpointCount() - 1);
+        in = open(file, index, last + 1, file.length);
+        assertEquals(data.length, in.getAdjustedStart());
+        assertEquals(data.length, in.getAdjustedEnd());
+        assertEquals(-1, in.read());
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedFile() throws Exception {
+        byte[] file = gzip(data, Deflater.DEFAULT_COMPRESSION);
+        GzipIndex.build(new ByteArrayInputStream(Arrays.copyOf(file, file.length / 2)), file.length, 1000, SPAN);
+    }
+
+    @Test(expected = ZipException.class)
+    public void notGzip() throws Exception {
+        GzipIndex.build(new ByteArrayInputStream(data), data.length, 1000, SPAN);
+    }
+
+    @Test
+    public void indexIsKeptInMemoryWhenItCannotBeStored() throws Exception {
+        byte[] file = gzip(data, Deflater.DEFAULT_COMPRESSION);
+        Path path = new Path("/read-only/file.gz");
+        FileStatus status = new FileStatus(file.length, false, 1, 128 * 1024 * 1024, 1000, path);
+        FileSystem fs = mock(FileSystem.class);
+        when(fs.open(path)).thenReturn(new FSDataInputStream(new SeekableByteArrayInputStream(file)));
+        when(fs.open(GzipIndex.getIndexPath(path))).thenThrow(new FileNotFoundException());
+        when(fs.create(any(Path.class), anyBoolean())).thenThrow(new IOException("Permission denied"));
+
+        GzipIndex index = GzipIndex.getOrBuild(fs, status);
+        assertNotNull(index);
+        assertTrue(index.isValidFor(file.length, 1000));
+
+        // the file is decompressed once
+        assertSame(index, GzipIndex.getOrBuild(fs, status));
+        assertSame(index, GzipIndex.get(fs, status));
+        verify(fs, times(1)).open(path);
+    }
+
+    private void assertCheckpoints(byte[] file, GzipIndex index) throws IOException {
+        for (int i = 0; i < index.getCheckpointCount(); i++) {
+            long start = index.getCompressedOffset(i);
+            GzipIndexInputStream in = open(file, index, start, file.length);
+            assertEquals(index.getUncompressedOffset(i), in.getAdjustedStart());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[10000];
+            int n;
+            while ((n = in.read(buffer, 0, buffer.length)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            in.close();
+            int offset = (int) index.getUncompressedOffset(i);
+            assertArrayEquals("checkpoint " + i, Arrays.copyOfRange(data, offset, data.length), out.toByteArray());
+            assertEquals(data.length, in.getPos());
+        }
+    }
+
+    private GzipIndexInputStream open(byte[] file, GzipIndex index, long start, long end) throws IOException {
+        return new GzipIndexInputStream(new FSDataInputStream(new SeekableByteArrayInputStream(file)),
+                index, start, end);
+    }
+
+    private GzipIndex roundTrip(GzipIndex index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+        return GzipIndex.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private byte[] gzip(byte[] bytes, final int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
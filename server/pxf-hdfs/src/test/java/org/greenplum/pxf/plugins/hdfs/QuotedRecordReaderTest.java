@@ -0,0 +1,164 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuotedRecordReaderTest {
+
+    private static final byte QUOTE = '"';
+
+    @Test
+    public void findRecordStart() throws Exception {
+        // outside of quotes, a quote opens a field
+        assertEquals(4, findRecordStart("1,a\n2,\"b\nc\"\n", 1));
+        // inside quotes, a quote closes a field
+        assertEquals(10, findRecordStart("1,\"a\nb\nc\"\n2,d\n", 4));
+        // doubled quotes inside a field
+        assertEquals(10, findRecordStart("\"x\n\"\"bar\"\n2,d\n", 2));
+        // no quotes, the first line feed
+        assertEquals(7, findRecordStart("12,345\n6\n", 2));
+        // no record starts after the offset
+        assertEquals(-1, findRecordStart("1,\"a\nb\"", 4));
+    }
+
+    @Test
+    public void splitsReadEachRecordOnce() throws Exception {
+        Random random = new Random(1);
+        List<String> records = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            String record = randomRecord(random, i);
+            records.add(record);
+            text.append(record);
+        }
+        // the last record has no line feed
+        byte[] data = text.substring(0, text.length() - 1).getBytes();
+
+        for (int splitSize : new int[] { 1, 7, 100, 4096, data.length }) {
+            List<String> read = new ArrayList<>();
+            for (long start = 0; start < data.length; start += splitSize) {
+                long end = Math.min(data.length, start + splitSize);
+                readSplit(data, start, end, read);
+            }
+            assertEquals("split size " + splitSize, records, read);
+        }
+    }
+
+    @Test
+    public void boundaryInsideQuotesFails() throws Exception {
+        /*
+         * the quote following the comma looks like opening a field, but the
+         * comma is inside the field opened at 0
+         */
+        byte[] data = "\"x\n,\"y\"\nz\n".getBytes();
+        List<String> read = new ArrayList<>();
+        try {
+            readSplit(data, 0, 2, read);
+            fail("the boundary of the split end is inside a quoted field");
+        } catch (IOException e) {
+            assertEquals("Record boundary at offset 3 is inside a quoted field, "
+                    + "check the quote and escape characters of the file", e.getMessage());
+        }
+    }
+
+    @Test
+    public void escapedQuotes() throws Exception {
+        byte[] data = "1,\"a\\\"\nb\"\n2,c\n".getBytes();
+        List<String> read = new ArrayList<>();
+        readSplit(data, 0, 5, read, (byte) '\\');
+        readSplit(data, 5, data.length, read, (byte) '\\');
+        assertEquals(2, read.size());
+        assertEquals("1,\"a\\\"\nb\"\n", read.get(0));
+        assertEquals("2,c\n", read.get(1));
+    }
+
+    @Test
+    public void escapeOutsideQuotesIsLiteral() throws Exception {
+        /*
+         * the backslash of the unquoted field does not escape the quote
+         * following it, which opens a field containing the first line feed
+         */
+        byte[] data = "1,\"ab\",x\\\"y\nz\"\n2,w\n".getBytes();
+        List<String> read = new ArrayList<>();
+        readSplit(data, 0, 4, read, (byte) '\\');
+        readSplit(data, 4, data.length, read, (byte) '\\');
+        assertEquals(2, read.size());
+        assertEquals("1,\"ab\",x\\\"y\nz\"\n", read.get(0));
+        assertEquals("2,w\n", read.get(1));
+    }
+
+    private static String randomRecord(Random random, int id) {
+        StringBuilder record = new StringBuilder().append(id).append(',');
+        int kind = random.nextInt(4);
+        if (kind == 0) {
+            record.append("plain value");
+        } else {
+            record.append('"');
+            for (int i = random.nextInt(5); i >= 0; i--) {
+                record.append("line ").append(random.nextInt(1000));
+                record.append((kind == 1) ? "\n" : ((kind == 2) ? " \"\"quoted\"\"\n" : ","));
+            }
+            record.append('"');
+        }
+        return record.append(",x\n").toString();
+    }
+
+    private static long findRecordStart(String text, long offset) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(text.getBytes());
+        in.skip(offset - 1);
+        return QuotedRecordReader.findRecordStart(in, offset, QUOTE, QUOTE);
+    }
+
+    private static void readSplit(byte[] data, long start, long end, List<String> read)
+            throws IOException {
+        readSplit(data, start, end, read, QUOTE);
+    }
+
+    private static void readSplit(byte[] data, long start, long end, List<String> read,
+                                  byte escape) throws IOException {
+        FSDataInputStream fileIn = new FSDataInputStream(new SeekableByteArrayInputStream(data));
+        QuotedRecordReader reader = new QuotedRecordReader(fileIn, start, end, data.length,
+                QUOTE, escape);
+        LongWritable key = reader.createKey();
+        ChunkWritable value = reader.createValue();
+        try {
+            while (reader.next(key, value)) {
+                ByteArrayOutputStream record = new ByteArrayOutputStream();
+                record.write(value.box, 0, value.length);
+                read.add(record.toString());
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
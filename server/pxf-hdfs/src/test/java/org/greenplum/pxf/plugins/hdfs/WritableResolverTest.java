@@ -0,0 +1,178 @@
+package org.greenplum.pxf.plugins.hdfs;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.RecordView;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.InputData;
+import org.junit.Test;
+
+public class WritableResolverTest {
+
+    /**
+     * Schema of the written records.
+     */
+    public static class Schema {
+        public long id;
+        public boolean flag;
+        public double amount;
+        public int[] counts = new int[2];
+        public float ratio;
+        public short code;
+        public byte[] payload;
+        public String name;
+        public String comment;
+        private int ignored;
+    }
+
+    /*
+     * View of a record held as a list of fields, standing for the view of a
+     * GPDBWritable packet
+     */
+    private static class ListRecordView implements RecordView {
+        private final List<OneField> fields;
+
+        ListRecordView(List<OneField> fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return fields.size();
+        }
+
+        @Override
+        public int getColumnType(int col) {
+            return fields.get(col).type;
+        }
+
+        @Override
+        public boolean isNull(int col) {
+            return fields.get(col).val == null;
+        }
+
+        @Override
+        public long getLong(int col) {
+            return (Long) fields.get(col).val;
+        }
+
+        @Override
+        public int getInt(int col) {
+            return (Integer) fields.get(col).val;
+        }
+
+        @Override
+        public short getShort(int col) {
+            return (Short) fields.get(col).val;
+        }
+
+        @Override
+        public double getDouble(int col) {
+            return (Double) fields.get(col).val;
+        }
+
+        @Override
+        public float getFloat(int col) {
+            return (Float) fields.get(col).val;
+        }
+
+        @Override
+        public boolean getBoolean(int col) {
+            return (Boolean) fields.get(col).val;
+        }
+
+        @Override
+        public String getString(int col) {
+            return (String) fields.get(col).val;
+        }
+
+        @Override
+        public byte[] getBytes(int col) {
+            return ((byte[]) fields.get(col).val).clone();
+        }
+
+        @Override
+        public byte[] getBuffer() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getValueOffset(int col) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getValueLength(int col) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object getValue(int col) {
+            return fields.get(col).val;
+        }
+    }
+
+    @Test
+    public void viewAndListSetTheSameFields() throws Exception {
+        List<OneField> record = Arrays.asList(
+                new OneField(DataType.BIGINT.getOID(), Long.MAX_VALUE),
+                new OneField(DataType.BOOLEAN.getOID(), true),
+                new OneField(DataType.FLOAT8.getOID(), 3.25),
+                new OneField(DataType.INTEGER.getOID(), 7),
+                new OneField(DataType.INTEGER.getOID(), -7),
+                new OneField(DataType.REAL.getOID(), 1.5f),
+                new OneField(DataType.SMALLINT.getOID(), (short) 300),
+                new OneField(DataType.BYTEA.getOID(), new byte[]{1, 2, 3}),
+                new OneField(DataType.TEXT.getOID(), "name"),
+                new OneField(DataType.TEXT.getOID(), null));
+
+        Schema fromList = (Schema) buildResolver().setFields(record).getData();
+        Schema fromView = (Schema) buildResolver().setFields(new ListRecordView(record)).getData();
+
+        assertEquals(Long.MAX_VALUE, fromView.id);
+        assertEquals(fromList.id, fromView.id);
+        assertEquals(fromList.flag, fromView.flag);
+        assertEquals(fromList.amount, fromView.amount, 0);
+        assertArrayEquals(new int[]{7, -7}, fromView.counts);
+        assertArrayEquals(fromList.counts, fromView.counts);
+        assertEquals(fromList.ratio, fromView.ratio, 0);
+        assertEquals(fromList.code, fromView.code);
+        assertArrayEquals(fromList.payload, fromView.payload);
+        assertEquals("name", fromView.name);
+        assertEquals(fromList.name, fromView.name);
+        assertNull(fromView.comment);
+    }
+
+    private WritableResolver buildResolver() throws Exception {
+        InputData inputData = mock(InputData.class);
+        when(inputData.getUserProperty("DATA-SCHEMA")).thenReturn(Schema.class.getName());
+        return new WritableResolver(inputData);
+    }
+}
@@ -24,6 +24,7 @@ import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.apache.commons.logging.Log;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileUtil;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.compress.*;
 import org.apache.hadoop.mapred.FileSplit;
@@ -38,7 +39,9 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.ObjectOutputStream;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -124,10 +127,10 @@ public class HdfsUtilitiesTest {
                 true);
 
         testIsThreadSafe(
-                "readable compression, bzip2 compression - not thread safe",
+                "readable compression, bzip2 compression - thread safe",
                 "/some/path/with/bzip2.bz2",
                 null, new BZip2Codec(),
-                false);
+                true);
 
         testIsThreadSafe(
                 "writable compression, no compression codec - thread safe",
@@ -142,10 +145,37 @@ public class HdfsUtilitiesTest {
                 true);
 
         testIsThreadSafe(
-                "writable compression, compression codec bzip2 - not thread safe",
+                "writable compression, compression codec bzip2 - thread safe",
                 "/some/path",
                 "org.apache.hadoop.io.compress.BZip2Codec", new BZip2Codec(),
-                false);
+                true);
+    }
+
+    @Test
+    public void isThreadSafeSynchronizedBZip2() {
+
+        System.setProperty(HdfsUtilities.PROPERTY_KEY_BZIP2_SYNCHRONIZED, "true");
+        try {
+            testIsThreadSafe(
+                    "readable compression, gzip compression - thread safe",
+                    "/some/compressed/path.gz",
+                    null, new GzipCodec(),
+                    true);
+
+            testIsThreadSafe(
+                    "readable compression, bzip2 compression - not thread safe",
+                    "/some/path/with/bzip2.bz2",
+                    null, new BZip2Codec(),
+                    false);
+
+            testIsThreadSafe(
+                    "writable compression, compression codec bzip2 - not thread safe",
+                    "/some/path",
+                    "org.apache.hadoop.io.compress.BZip2Codec", new BZip2Codec(),
+                    false);
+        } finally {
+            System.clearProperty(HdfsUtilities.PROPERTY_KEY_BZIP2_SYNCHRONIZED);
+        }
     }
 
     private void testIsThreadSafe(String testDescription, String path, String codecStr, CompressionCodec codec, boolean expectedResult) {
@@ -219,4 +249,23 @@ public class HdfsUtilitiesTest {
         assertEquals(fileSplit.getLength(), 100);
         assertEquals(fileSplit.getPath().toString(), "/abc/path/to/data/source");
     }
+
+    @Test
+    public void dataSourceVersionIgnoresHiddenFiles() throws Exception {
+        Configuration conf = new Configuration();
+        File dir = Files.createTempDirectory("pxf-version").toFile();
+        try {
+            assertTrue(new File(dir, "data.gz").createNewFile());
+            String version = HdfsUtilities.getDataSourceVersion(conf, dir.getAbsolutePath());
+
+            // storing the index of a gzip file does not change the version
+            assertTrue(new File(dir, ".data.gz.gzidx").createNewFile());
+            assertEquals(version, HdfsUtilities.getDataSourceVersion(conf, dir.getAbsolutePath()));
+
+            assertTrue(new File(dir, "data2.gz").createNewFile());
+            assertNotEquals(version, HdfsUtilities.getDataSourceVersion(conf, dir.getAbsolutePath()));
+        } finally {
+            FileUtil.fullyDelete(dir);
+        }
+    }
 }
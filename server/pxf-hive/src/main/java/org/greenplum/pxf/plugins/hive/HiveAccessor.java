@@ -31,6 +31,7 @@ import org.greenplum.pxf.api.BasicFilter;
 import org.greenplum.pxf.api.FilterParser;
 import org.greenplum.pxf.api.LogicalFilter;
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.SamplingAccessor;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.plugins.hdfs.HdfsSplittableDataAccessor;
@@ -53,7 +54,8 @@ import java.util.List;
  * split which does not belong to a partition filter. Naturally, the partition
  * filtering will be done only for Hive tables that are partitioned.
  */
-public class HiveAccessor extends HdfsSplittableDataAccessor {
+public class HiveAccessor extends HdfsSplittableDataAccessor implements
+        SamplingAccessor {
     private static final Log LOG = LogFactory.getLog(HiveAccessor.class);
     List<HivePartition> partitions;
     String HIVE_DEFAULT_PARTITION = "__HIVE_DEFAULT_PARTITION__";
@@ -142,6 +144,19 @@ public class HiveAccessor extends HdfsSplittableDataAccessor {
         return super.readNextObject();
     }
 
+    /**
+     * Skips the header lines first, so that they are not counted as skipped
+     * records.
+     */
+    @Override
+    public OneRow readNextSample(long skip) throws IOException {
+        while (skipHeaderCount > 0) {
+            super.readNextObject();
+            skipHeaderCount--;
+        }
+        return super.readNextSample(skip);
+    }
+
 
     /**
      * Creates the RecordReader suitable for this given split.
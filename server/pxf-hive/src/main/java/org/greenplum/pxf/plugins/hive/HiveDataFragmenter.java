@@ -37,6 +37,7 @@ import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.Partition;
 import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
 import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.api.hive_metastoreConstants;
 import org.apache.hadoop.hive.serde.serdeConstants;
 import org.apache.hadoop.mapred.FileInputFormat;
 import org.apache.hadoop.mapred.FileSplit;
@@ -51,6 +52,7 @@ import org.greenplum.pxf.api.Fragmenter;
 import org.greenplum.pxf.api.FragmentsStats;
 import org.greenplum.pxf.api.LogicalFilter;
 import org.greenplum.pxf.api.Metadata;
+import org.greenplum.pxf.api.VersionedFragmenter;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.api.utilities.ProfilesConf;
@@ -72,7 +74,7 @@ import org.apache.hadoop.hive.conf.HiveConf;
  * file_input_format_name_DELIM_serde_name_DELIM_serialization_properties</li>
  * </ol>
  */
-public class HiveDataFragmenter extends Fragmenter {
+public class HiveDataFragmenter extends Fragmenter implements VersionedFragmenter {
     private static final Log LOG = LogFactory.getLog(HiveDataFragmenter.class);
     private static final short ALL_PARTS = -1;
 
@@ -90,6 +92,8 @@ public class HiveDataFragmenter extends Fragmenter {
 
     private JobConf jobConf;
     private HiveMetaStoreClient client;
+    // table fetched by getFragmentsVersion, reused by getFragments
+    private Table table;
 
     protected boolean filterInFragmenter = false;
 
@@ -133,6 +137,39 @@ public class HiveDataFragmenter extends Fragmenter {
         return fragments;
     }
 
+    /**
+     * Returns the version of the table, made of the last DDL time of the table
+     * and of the names of its partitions, which the metastore lists without
+     * loading the partitions. Adding or dropping a partition changes the
+     * version, but changing the data of an existing partition does not: such
+     * changes are only seen once the cached fragments expire. Data files
+     * changed without a DDL operation on an external table are not detected
+     * either.
+     * <p>
+     * The table is kept, so that computing the fragments after a cache miss
+     * does not fetch it again.
+     *
+     * @return the version of the table, null if the table has no DDL time
+     */
+    @Override
+    public String getFragmentsVersion() throws Exception {
+        Metadata.Item tblDesc = HiveUtilities.extractTableFromName(inputData.getDataSource());
+        table = HiveUtilities.getHiveTable(client, tblDesc);
+
+        String tableDdlTime = table.getParameters().get(hive_metastoreConstants.DDL_TIME);
+        if (tableDdlTime == null) {
+            return null;
+        }
+        if (table.getPartitionKeysSize() == 0) {
+            return tableDdlTime;
+        }
+
+        List<String> partitionNames = client.listPartitionNames(tblDesc.getPath(),
+                tblDesc.getName(), ALL_PARTS);
+        return tableDdlTime + "-" + partitionNames.size() + "-"
+                + Integer.toHexString(partitionNames.hashCode());
+    }
+
     /**
      * Creates the partition InputFormat.
      *
@@ -162,7 +199,7 @@ public class HiveDataFragmenter extends Fragmenter {
      */
     private void fetchTableMetaData(Metadata.Item tblDesc) throws Exception {
 
-        Table tbl = HiveUtilities.getHiveTable(client, tblDesc);
+        Table tbl = (table != null) ? table : HiveUtilities.getHiveTable(client, tblDesc);
 
         Metadata metadata = new Metadata(tblDesc);
         HiveUtilities.getSchema(tbl, metadata);
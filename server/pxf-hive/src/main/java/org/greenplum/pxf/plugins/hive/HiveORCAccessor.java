@@ -22,16 +22,26 @@ package org.greenplum.pxf.plugins.hive;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.io.orc.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.DateColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.DecimalColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.DoubleColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.IntegerColumnStatistics;
 import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
 import org.apache.hadoop.hive.ql.io.orc.Reader;
 import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
 import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
 import org.apache.hadoop.hive.serde2.io.DateWritable;
 import org.greenplum.pxf.api.BasicFilter;
 import org.greenplum.pxf.api.LogicalFilter;
+import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.StatsAccessor;
+import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.EnumAggregationType;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.api.utilities.Utilities;
 import org.greenplum.pxf.plugins.hive.utilities.HiveUtilities;
@@ -55,6 +65,8 @@ public class HiveORCAccessor extends HiveAccessor implements StatsAccessor {
     private final String READ_ALL_COLUMNS = "hive.io.file.read.all.columns";
     private final String READ_COLUMN_NAMES_CONF_STR = "hive.io.file.readcolumn.names";
     private final String SARG_PUSHDOWN = "sarg.pushdown";
+    /* value of a column without suitable statistics */
+    private static final Object NO_STATS = new Object();
     protected Reader orcReader;
 
     private boolean useStats;
@@ -242,16 +254,35 @@ public class HiveORCAccessor extends HiveAccessor implements StatsAccessor {
          * it's enough to return count for a first split in file.
          * In case file has multiple splits - we don't want to duplicate counts.
          */
-        if (inputData.getFragmentIndex() == 0) {
-            this.count = this.orcReader.getNumberOfRows();
-            rowToEmitCount = readNextObject();
+        if (inputData.getAggType() == EnumAggregationType.COUNT) {
+            if (inputData.getFragmentIndex() == 0) {
+                this.count = this.orcReader.getNumberOfRows();
+                rowToEmitCount = readNextObject();
+            }
+        } else {
+            /*
+             * All the splits of the file take the same decision, from the
+             * same file-level stats, but only the first one emits the row.
+             */
+            List<OneField> fields = getStatsFields(orcReader.getStatistics());
+            if (fields == null) {
+                useStats = false;
+            } else if (inputData.getFragmentIndex() == 0 && orcReader.getNumberOfRows() > 0) {
+                this.count = 1;
+                rowToEmitCount = new OneRow(getStatsKey(fields), fields);
+            }
         }
         statsInitialized = true;
 
     }
 
+    @Override
+    public boolean isUsingStats() {
+        return useStats;
+    }
+
     /**
-     * Emits tuple without reading from disk, currently supports COUNT
+     * Emits tuple without reading from disk, supports COUNT, MIN, MAX and SUM
      */
     @Override
     public OneRow emitAggObject() {
@@ -263,6 +294,9 @@ public class HiveORCAccessor extends HiveAccessor implements StatsAccessor {
             throw new UnsupportedOperationException("Aggregate opration is required");
         switch (inputData.getAggType()) {
             case COUNT:
+            case MIN:
+            case MAX:
+            case SUM:
                 if (objectsEmitted < count) {
                     objectsEmitted++;
                     row = rowToEmitCount;
@@ -275,4 +309,110 @@ public class HiveORCAccessor extends HiveAccessor implements StatsAccessor {
         return row;
     }
 
+    /*
+     * Builds the fields of the aggregate of each projected column, null if a
+     * projected column has no suitable statistics.
+     */
+    private List<OneField> getStatsFields(ColumnStatistics[] statistics) {
+        List<OneField> fields = new ArrayList<OneField>();
+        /*
+         * The statistics are indexed by the ids of the flattened types: the
+         * root struct is 0, and each column is followed by its children
+         */
+        OrcProto.Type root = orcReader.getTypes().get(0);
+        for (ColumnDescriptor col : inputData.getTupleDescription()) {
+            Object value = null;
+            if (col.isProjected()) {
+                if (isPartitionColumn(col) || col.columnIndex() >= root.getSubtypesCount()) {
+                    return null;
+                }
+                int orcColumn = root.getSubtypes(col.columnIndex());
+                if (orcColumn >= statistics.length) {
+                    return null;
+                }
+                value = getStatsValue(statistics[orcColumn], DataType.get(col.columnTypeCode()));
+                if (value == NO_STATS) {
+                    return null;
+                }
+            }
+            fields.add(new OneField(col.columnTypeCode(), value));
+        }
+        return fields;
+    }
+
+    private Object getStatsValue(ColumnStatistics stats, DataType type) {
+        EnumAggregationType aggType = inputData.getAggType();
+        if (stats.getNumberOfValues() == 0) {
+            // only nulls
+            return null;
+        }
+
+        if (stats instanceof IntegerColumnStatistics) {
+            IntegerColumnStatistics intStats = (IntegerColumnStatistics) stats;
+            if (aggType == EnumAggregationType.SUM && !intStats.isSumDefined()) {
+                return NO_STATS; // the sum overflowed
+            }
+            long value = aggType == EnumAggregationType.MIN ? intStats.getMinimum()
+                    : aggType == EnumAggregationType.MAX ? intStats.getMaximum()
+                    : intStats.getSum();
+            switch (type) {
+                case BIGINT:
+                    return value;
+                case INTEGER:
+                    return value == (int) value ? (Object) (int) value : NO_STATS;
+                case SMALLINT:
+                    return value == (short) value ? (Object) (short) value : NO_STATS;
+                default:
+                    return NO_STATS;
+            }
+        }
+
+        /* floating point min and max ignore NaN, only sums are used */
+        if (stats instanceof DoubleColumnStatistics && aggType == EnumAggregationType.SUM) {
+            double sum = ((DoubleColumnStatistics) stats).getSum();
+            if (type == DataType.FLOAT8) {
+                return sum;
+            } else if (type == DataType.REAL) {
+                return (float) sum;
+            }
+            return NO_STATS;
+        }
+
+        if (stats instanceof DecimalColumnStatistics && aggType != EnumAggregationType.SUM
+                && type == DataType.NUMERIC) {
+            DecimalColumnStatistics decimalStats = (DecimalColumnStatistics) stats;
+            HiveDecimal value = aggType == EnumAggregationType.MIN ? decimalStats.getMinimum()
+                    : decimalStats.getMaximum();
+            return value == null ? NO_STATS : value.toString();
+        }
+
+        if (stats instanceof DateColumnStatistics && aggType != EnumAggregationType.SUM
+                && type == DataType.DATE) {
+            DateColumnStatistics dateStats = (DateColumnStatistics) stats;
+            java.util.Date value = aggType == EnumAggregationType.MIN ? dateStats.getMinimum()
+                    : dateStats.getMaximum();
+            return value == null ? NO_STATS : new Date(value.getTime()).toString();
+        }
+
+        return NO_STATS;
+    }
+
+    private boolean isPartitionColumn(ColumnDescriptor col) {
+        for (HivePartition partition : partitions) {
+            if (partition.name.equalsIgnoreCase(col.columnName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* rows with the same values share their cached output */
+    private static List<Object> getStatsKey(List<OneField> fields) {
+        List<Object> key = new ArrayList<Object>(fields.size());
+        for (OneField field : fields) {
+            key.add(field.val);
+        }
+        return key;
+    }
+
 }
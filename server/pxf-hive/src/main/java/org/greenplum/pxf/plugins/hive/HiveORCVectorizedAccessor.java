@@ -82,6 +82,21 @@ public class HiveORCVectorizedAccessor extends HiveORCAccessor {
         }
     }
 
+    /**
+     * Sampling is done on records, not on batches, so the records of
+     * the batches are sampled by the bridge.
+     */
+    @Override
+    public boolean supportsSampling() {
+        return false;
+    }
+
+    @Override
+    public OneRow readNextSample(long skip) {
+        throw new UnsupportedOperationException("Sampling is not supported by "
+                + getClass().getSimpleName());
+    }
+
     /**
      * This method updated reader options to include projected columns only.
      * @param options reader options to modify
@@ -19,31 +19,25 @@ package org.greenplum.pxf.plugins.hive;
  * under the License.
  */
 
-import static org.greenplum.pxf.api.io.DataType.BIGINT;
-import static org.greenplum.pxf.api.io.DataType.BOOLEAN;
-import static org.greenplum.pxf.api.io.DataType.BPCHAR;
-import static org.greenplum.pxf.api.io.DataType.BYTEA;
-import static org.greenplum.pxf.api.io.DataType.DATE;
-import static org.greenplum.pxf.api.io.DataType.FLOAT8;
-import static org.greenplum.pxf.api.io.DataType.INTEGER;
-import static org.greenplum.pxf.api.io.DataType.NUMERIC;
-import static org.greenplum.pxf.api.io.DataType.REAL;
-import static org.greenplum.pxf.api.io.DataType.SMALLINT;
-import static org.greenplum.pxf.api.io.DataType.TEXT;
-import static org.greenplum.pxf.api.io.DataType.VARCHAR;
-
-import java.util.ArrayList;
 import java.util.List;
-import java.sql.Date;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
-import org.apache.hadoop.io.Writable;
-import org.apache.hadoop.io.Text;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.greenplum.pxf.api.ColumnBatch;
+import org.greenplum.pxf.api.ColumnBatchResolver;
+import org.greenplum.pxf.api.ColumnVector;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.ReadVectorizedResolver;
@@ -51,22 +45,21 @@ import org.greenplum.pxf.api.UnsupportedTypeException;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.plugins.hive.utilities.HiveUtilities;
-import org.apache.hadoop.hive.serde2.io.DateWritable;
-import org.apache.hadoop.hive.serde2.objectinspector.*;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
-import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
-import org.apache.hadoop.hive.serde2.objectinspector.StructField;
-import org.apache.hadoop.hive.ql.exec.vector.*;
 
 /**
- * Class which implements resolving a batch of records at once
+ * Class which implements resolving a batch of records at once.
+ * <p>
+ * The columns of the ORC batch are resolved into the vectors of a
+ * {@link ColumnBatch}, which share the arrays of the ORC vectors: numbers,
+ * strings, binaries and decimals are neither copied nor boxed. Only dates are
+ * converted, one object per value.
  */
-public class HiveORCVectorizedResolver extends HiveResolver implements ReadVectorizedResolver {
+public class HiveORCVectorizedResolver extends HiveResolver implements ReadVectorizedResolver, ColumnBatchResolver {
 
     private static final Log LOG = LogFactory.getLog(HiveORCVectorizedResolver.class);
 
-    private List<List<OneField>> resolvedBatch;
     private StructObjectInspector soi;
+    private ColumnVector[] vectors;
 
     public HiveORCVectorizedResolver(InputData input) throws Exception {
         super(input);
@@ -80,41 +73,35 @@ public class HiveORCVectorizedResolver extends HiveResolver implements ReadVecto
 
     @Override
     public List<List<OneField>> getFieldsForBatch(OneRow batch) {
+        ColumnBatch columns = new ColumnBatch(inputData.getColumns());
+        getColumnsForBatch(batch, columns);
+        return columns.toFields();
+    }
 
-        Writable writableObject = null;
-        Object fieldValue = null;
+    @Override
+    public void getColumnsForBatch(OneRow batch, ColumnBatch columns) {
         VectorizedRowBatch vectorizedBatch = (VectorizedRowBatch) batch.getData();
-
-        /* Allocate empty result set */
-        int columnsNumber = inputData.getColumns();
-        resolvedBatch = new ArrayList<List<OneField>>(vectorizedBatch.size);
-
-        /* Create empty template row */
-        ArrayList<OneField> templateRow = new ArrayList<OneField>(columnsNumber);
-        ArrayList<OneField> currentRow = null;
-        for (int j = 0; j < inputData.getColumns(); j++) {
-            templateRow.add(null);
-        }
-        /* Replicate template row*/
-        for (int i = 0; i < vectorizedBatch.size; i++) {
-            currentRow = new ArrayList<OneField>(templateRow);
-            resolvedBatch.add(currentRow);
+        int columnsNumber = columns.getColumnCount();
+        if (vectors == null) {
+            vectors = new ColumnVector[columnsNumber];
         }
 
         /* process all columns*/
         List<? extends StructField> allStructFieldRefs = soi.getAllStructFieldRefs();
-        for (int columnIndex = 0; columnIndex < vectorizedBatch.numCols; columnIndex++) {
+        for (int columnIndex = 0; columnIndex < columnsNumber; columnIndex++) {
+            if (columnIndex >= vectorizedBatch.numCols) {
+                columns.setColumn(columnIndex, getMissingColumn(columnIndex));
+                continue;
+            }
             ObjectInspector oi = allStructFieldRefs.get(columnIndex).getFieldObjectInspector();
-            if (oi.getCategory() == Category.PRIMITIVE) {
-                PrimitiveObjectInspector poi = (PrimitiveObjectInspector) oi;
-                resolvePrimitiveColumn(columnIndex, oi, vectorizedBatch);
-            } else {
+            if (oi.getCategory() != Category.PRIMITIVE) {
                 throw new UnsupportedTypeException("Unable to resolve column index:" + columnIndex
                         + ". Only primitive types are supported.");
             }
+            columns.setColumn(columnIndex, resolvePrimitiveColumn(columnIndex,
+                    (PrimitiveObjectInspector) oi, vectorizedBatch));
         }
-
-        return resolvedBatch;
+        columns.setSize(vectorizedBatch.size);
     }
 
     /**
@@ -123,227 +110,65 @@ public class HiveORCVectorizedResolver extends HiveResolver implements ReadVecto
      * @param columnIndex     index of the column
      * @param oi              object inspector
      * @param vectorizedBatch input batch or records
+     * @return the vector of the column
      */
-    private void resolvePrimitiveColumn(int columnIndex, ObjectInspector oi, VectorizedRowBatch vectorizedBatch) {
-
-        OneField field = null;
-        Writable writableObject = null;
-        PrimitiveCategory poc = ((PrimitiveObjectInspector) oi).getPrimitiveCategory();
-        populatePrimitiveColumn(poc, oi, vectorizedBatch, columnIndex);
-    }
-
-    private void addValueToColumn(int columnIndex, int rowIndex, OneField field) {
-        List<OneField> row = this.resolvedBatch.get(rowIndex);
-        row.set(columnIndex, field);
-    }
-
-    private void populatePrimitiveColumn(PrimitiveCategory primitiveCategory, ObjectInspector oi, VectorizedRowBatch vectorizedBatch, int columnIndex) {
-        ColumnVector columnVector = vectorizedBatch.cols[columnIndex];
-        Object fieldValue = null;
-        DataType fieldType = null;
+    private ColumnVector resolvePrimitiveColumn(int columnIndex,
+            PrimitiveObjectInspector oi, VectorizedRowBatch vectorizedBatch) {
+        org.apache.hadoop.hive.ql.exec.vector.ColumnVector columnVector = vectorizedBatch.cols[columnIndex];
+        PrimitiveCategory primitiveCategory = oi.getPrimitiveCategory();
 
         switch (primitiveCategory) {
-            case BOOLEAN: {
-                fieldType = BOOLEAN;
-                LongColumnVector lcv = (LongColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (lcv != null) {
-                        int rowId = lcv.isRepeating ? 0 : rowIndex;
-                        if (!lcv.isNull[rowId]) {
-                            fieldValue = lcv.vector[rowId] == 1;
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
-            }
-            case SHORT: {
-                fieldType = SMALLINT;
-                LongColumnVector lcv = (LongColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (lcv != null) {
-                        int rowId = lcv.isRepeating ? 0 : rowIndex;
-                        if (!lcv.isNull[rowId]) {
-                            fieldValue = (short) lcv.vector[rowId];
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
-            }
-            case INT: {
-                fieldType = INTEGER;
-                LongColumnVector lcv = (LongColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (lcv != null) {
-                        int rowId = lcv.isRepeating ? 0 : rowIndex;
-                        if (!lcv.isNull[rowId]) {
-                            fieldValue = (int) lcv.vector[rowId];
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
-            }
-            case LONG: {
-                fieldType = BIGINT;
-                LongColumnVector lcv = (LongColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (lcv != null) {
-                        int rowId = lcv.isRepeating ? 0 : rowIndex;
-                        if (!lcv.isNull[rowId]) {
-                            fieldValue = lcv.vector[rowId];
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
-            }
-            case FLOAT: {
-                fieldType = REAL;
-                DoubleColumnVector dcv = (DoubleColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (dcv != null) {
-                        int rowId = dcv.isRepeating ? 0 : rowIndex;
-                        if (!dcv.isNull[rowId]) {
-                            fieldValue = (float) dcv.vector[rowId];
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
-            }
-            case DOUBLE: {
-                fieldType = FLOAT8;
-                DoubleColumnVector dcv = (DoubleColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (dcv != null) {
-                        int rowId = dcv.isRepeating ? 0 : rowIndex;
-                        if (!dcv.isNull[rowId]) {
-                            fieldValue = dcv.vector[rowId];
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
-            }
+            case BOOLEAN:
+                return getLongVector(columnIndex, DataType.BOOLEAN, (LongColumnVector) columnVector);
+            case BYTE:
+            case SHORT:
+                return getLongVector(columnIndex, DataType.SMALLINT, (LongColumnVector) columnVector);
+            case INT:
+                return getLongVector(columnIndex, DataType.INTEGER, (LongColumnVector) columnVector);
+            case LONG:
+                return getLongVector(columnIndex, DataType.BIGINT, (LongColumnVector) columnVector);
+            case FLOAT:
+                return getDoubleVector(columnIndex, DataType.REAL, (DoubleColumnVector) columnVector);
+            case DOUBLE:
+                return getDoubleVector(columnIndex, DataType.FLOAT8, (DoubleColumnVector) columnVector);
             case DECIMAL: {
-                fieldType = NUMERIC;
                 DecimalColumnVector dcv = (DecimalColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (dcv != null) {
-                        int rowId = dcv.isRepeating ? 0 : rowIndex;
-                        if (!dcv.isNull[rowId]) {
-                            fieldValue = dcv.vector[rowId];
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
-            }
-            case VARCHAR: {
-                fieldType = VARCHAR;
-                BytesColumnVector bcv = (BytesColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (columnVector != null) {
-                        int rowId = bcv.isRepeating ? 0 : rowIndex;
-                        if (!bcv.isNull[rowId]) {
-                            Text textValue = new Text();
-                            textValue.set(bcv.vector[rowIndex], bcv.start[rowIndex], bcv.length[rowIndex]);
-                            fieldValue = textValue;
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
-            }
-            case CHAR: {
-                fieldType = BPCHAR;
-                BytesColumnVector bcv = (BytesColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (columnVector != null) {
-                        int rowId = bcv.isRepeating ? 0 : rowIndex;
-                        if (!bcv.isNull[rowId]) {
-                            Text textValue = new Text();
-                            textValue.set(bcv.vector[rowIndex], bcv.start[rowIndex], bcv.length[rowIndex]);
-                            fieldValue = textValue;
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
+                ColumnVector.ObjectVector vector =
+                        (ColumnVector.ObjectVector) getVector(columnIndex, DataType.NUMERIC);
+                if (dcv == null) {
+                    vector.setAllNull();
+                } else {
+                    vector.vector = dcv.vector;
+                    vector.setNulls(dcv.isNull, dcv.noNulls, dcv.isRepeating);
                 }
-                break;
-            }
-            case STRING: {
-                fieldType = TEXT;
-                BytesColumnVector bcv = (BytesColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (columnVector != null) {
-                        int rowId = bcv.isRepeating ? 0 : rowIndex;
-                        if (!bcv.isNull[rowId]) {
-                            Text textValue = new Text();
-                            textValue.set(bcv.vector[rowIndex], bcv.start[rowIndex], bcv.length[rowIndex]);
-                            fieldValue = textValue;
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
-            }
-            case BINARY: {
-                fieldType = BYTEA;
-                BytesColumnVector bcv = (BytesColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (columnVector != null) {
-                        int rowId = bcv.isRepeating ? 0 : rowIndex;
-                        if (!bcv.isNull[rowId]) {
-                            fieldValue = new byte[bcv.length[rowId]];
-                            System.arraycopy(bcv.vector[rowId], bcv.start[rowId], fieldValue, 0, bcv.length[rowId]);
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
-                }
-                break;
+                return vector;
             }
+            case VARCHAR:
+                return getBytesVector(columnIndex, DataType.VARCHAR, (BytesColumnVector) columnVector);
+            case CHAR:
+                return getBytesVector(columnIndex, DataType.BPCHAR, (BytesColumnVector) columnVector);
+            case STRING:
+                return getBytesVector(columnIndex, DataType.TEXT, (BytesColumnVector) columnVector);
+            case BINARY:
+                return getBytesVector(columnIndex, DataType.BYTEA, (BytesColumnVector) columnVector);
             case DATE: {
-                fieldType = DATE;
                 LongColumnVector lcv = (LongColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (lcv != null) {
-                        int rowId = lcv.isRepeating ? 0 : rowIndex;
-                        if (!lcv.isNull[rowId]) {
-                            fieldValue = new Date(DateWritable.daysToMillis((int) lcv.vector[rowIndex]));
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
+                ColumnVector.ObjectVector vector =
+                        (ColumnVector.ObjectVector) getVector(columnIndex, DataType.DATE);
+                if (lcv == null) {
+                    vector.setAllNull();
+                    return vector;
                 }
-                break;
-            }
-            case BYTE: {
-                fieldType = SMALLINT;
-                LongColumnVector lcv = (LongColumnVector) columnVector;
-                for (int rowIndex = 0; rowIndex < vectorizedBatch.size; rowIndex++) {
-                    fieldValue = null;
-                    if (lcv != null) {
-                        int rowId = lcv.isRepeating ? 0 : rowIndex;
-                        if (!lcv.isNull[rowId]) {
-                            fieldValue = (short) lcv.vector[rowIndex];
-                        }
-                    }
-                    addValueToColumn(columnIndex, rowIndex, new OneField(fieldType.getOID(), fieldValue));
+                int values = lcv.isRepeating ? 1 : vectorizedBatch.size;
+                if (vector.vector == null || vector.vector.length < values) {
+                    vector.vector = new Object[Math.max(values, VectorizedRowBatch.DEFAULT_SIZE)];
                 }
-                break;
+                for (int rowIndex = 0; rowIndex < values; rowIndex++) {
+                    vector.vector[rowIndex] = (!lcv.noNulls && lcv.isNull[rowIndex]) ? null
+                            : new java.sql.Date(DateWritable.daysToMillis((int) lcv.vector[rowIndex]));
+                }
+                vector.setNulls(lcv.isNull, lcv.noNulls, lcv.isRepeating);
+                return vector;
             }
             default: {
                 throw new UnsupportedTypeException(oi.getTypeName()
@@ -352,4 +177,86 @@ public class HiveORCVectorizedResolver extends HiveResolver implements ReadVecto
             }
         }
     }
+
+    private ColumnVector getLongVector(int columnIndex, DataType type,
+            LongColumnVector lcv) {
+        ColumnVector.LongVector vector =
+                (ColumnVector.LongVector) getVector(columnIndex, type);
+        if (lcv == null) {
+            vector.setAllNull();
+        } else {
+            vector.vector = lcv.vector;
+            vector.setNulls(lcv.isNull, lcv.noNulls, lcv.isRepeating);
+        }
+        return vector;
+    }
+
+    private ColumnVector getDoubleVector(int columnIndex, DataType type,
+            DoubleColumnVector dcv) {
+        ColumnVector.DoubleVector vector =
+                (ColumnVector.DoubleVector) getVector(columnIndex, type);
+        if (dcv == null) {
+            vector.setAllNull();
+        } else {
+            vector.vector = dcv.vector;
+            vector.setNulls(dcv.isNull, dcv.noNulls, dcv.isRepeating);
+        }
+        return vector;
+    }
+
+    private ColumnVector getBytesVector(int columnIndex, DataType type,
+            BytesColumnVector bcv) {
+        ColumnVector.BytesVector vector =
+                (ColumnVector.BytesVector) getVector(columnIndex, type);
+        if (bcv == null) {
+            vector.setAllNull();
+        } else {
+            vector.setValues(bcv.vector, bcv.start, bcv.length);
+            vector.setNulls(bcv.isNull, bcv.noNulls, bcv.isRepeating);
+        }
+        return vector;
+    }
+
+    /*
+     * The columns of the table beyond the columns of the ORC batch are null
+     */
+    private ColumnVector getMissingColumn(int columnIndex) {
+        ColumnVector vector = new ColumnVector.ObjectVector(
+                inputData.getColumn(columnIndex).columnTypeCode());
+        vector.setAllNull();
+        return vector;
+    }
+
+    /*
+     * The vector of a column is created once, of the class its type is
+     * resolved into, and reused for every batch
+     */
+    private ColumnVector getVector(int columnIndex, DataType type) {
+        ColumnVector vector = vectors[columnIndex];
+        if (vector == null || vector.type != type.getOID()) {
+            switch (type) {
+                case BOOLEAN:
+                case SMALLINT:
+                case INTEGER:
+                case BIGINT:
+                    vector = new ColumnVector.LongVector(type.getOID());
+                    break;
+                case REAL:
+                case FLOAT8:
+                    vector = new ColumnVector.DoubleVector(type.getOID());
+                    break;
+                case VARCHAR:
+                case BPCHAR:
+                case TEXT:
+                case BYTEA:
+                    vector = new ColumnVector.BytesVector(type.getOID());
+                    break;
+                default:
+                    vector = new ColumnVector.ObjectVector(type.getOID());
+                    break;
+            }
+            vectors[columnIndex] = vector;
+        }
+        return vector;
+    }
 }
@@ -26,10 +26,13 @@ import org.greenplum.pxf.api.BasicFilter;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import static org.greenplum.pxf.api.FilterParser.Operation.*;
 
+import org.apache.commons.logging.Log;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Table;
 import org.apache.hadoop.mapred.JobConf;
 
 import org.junit.Test;
@@ -42,6 +45,8 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.core.classloader.annotations.SuppressStaticInitializationFor;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+import org.greenplum.pxf.plugins.hive.utilities.HiveUtilities;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -96,6 +101,29 @@ public class HiveDataFragmenterTest {
         }
     }
 
+    @Test
+    public void fragmentsVersionDoesNotListPartitions() throws Exception {
+        prepareConstruction();
+        Whitebox.setInternalState(HiveUtilities.class, mock(Log.class));
+        fragmenter = new HiveDataFragmenter(inputData);
+        when(inputData.getDataSource()).thenReturn("db.tbl");
+
+        Table table = new Table();
+        table.setTableType("MANAGED_TABLE");
+        table.setParameters(Collections.singletonMap("transient_lastDdlTime", "1000"));
+        table.setPartitionKeys(Collections.singletonList(new FieldSchema("dt", "string", null)));
+        when(hiveClient.getTable("db", "tbl")).thenReturn(table);
+        when(hiveClient.listPartitionNames("db", "tbl", (short) -1)).thenReturn(Arrays.asList("dt=1", "dt=2"));
+
+        String version = fragmenter.getFragmentsVersion();
+        assertEquals("1000-2-", version.substring(0, 7));
+        verify(hiveClient, never()).listPartitions(anyString(), anyString(), anyShort());
+
+        // adding a partition changes the version
+        when(hiveClient.listPartitionNames("db", "tbl", (short) -1)).thenReturn(Arrays.asList("dt=1", "dt=2", "dt=3"));
+        assertNotEquals(version, fragmenter.getFragmentsVersion());
+    }
+
     @Test
     public void testBuildSingleFilter() throws Exception {
         prepareConstruction();
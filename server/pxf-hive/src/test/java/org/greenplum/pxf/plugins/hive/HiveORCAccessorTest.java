@@ -19,12 +19,23 @@ package org.greenplum.pxf.plugins.hive;
  * under the License.
  */
 
+import org.apache.hadoop.hive.ql.io.orc.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.IntegerColumnStatistics;
 import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
 import org.apache.hadoop.hive.ql.io.orc.Reader;
 import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
 import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
 import org.apache.hadoop.mapred.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
+import org.greenplum.pxf.api.utilities.EnumAggregationType;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.plugins.hdfs.utilities.HdfsUtilities;
 import org.greenplum.pxf.plugins.hive.utilities.HiveUtilities;
@@ -39,13 +50,16 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import static org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory.SARG_PUSHDOWN;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({HiveORCAccessor.class, HiveUtilities.class, HdfsUtilities.class, HiveDataFragmenter.class})
+@PrepareForTest({HiveORCAccessor.class, HiveORCVectorizedAccessor.class, HiveUtilities.class, HdfsUtilities.class, HiveDataFragmenter.class})
 @SuppressStaticInitializationFor({"org.apache.hadoop.mapred.JobConf",
         "org.apache.hadoop.hive.metastore.api.MetaException",
         "org.greenplum.pxf.plugins.hive.utilities.HiveUtilities"}) // Prevents static inits
@@ -125,9 +139,129 @@ public class HiveORCAccessorTest {
         assertEquals(sarg.toKryo(), jobConf.get(SARG_PUSHDOWN));
     }
 
+    @Test
+    public void samplingIsSupported() {
+        assertTrue(accessor.supportsSampling());
+    }
+
+    @Test
+    public void vectorizedSamplingIsDoneByTheBridge() throws Exception {
+        PowerMockito.when(inputData.getAccessor()).thenReturn(HiveORCVectorizedAccessor.class.getName());
+        HiveORCVectorizedAccessor vectorizedAccessor = new HiveORCVectorizedAccessor(inputData);
+
+        // ANALYZE reads the batches with readNextObject and samples their records
+        assertFalse(vectorizedAccessor.supportsSampling());
+    }
+
     @Test(expected=IllegalStateException.class)
     public void emitAggObjectCountStatsNotInitialized() {
         accessor.emitAggObject();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void emitAggObjectMaxFromStats() throws Exception {
+        IntegerColumnStatistics idStats = mock(IntegerColumnStatistics.class);
+        when(idStats.getNumberOfValues()).thenReturn(10L);
+        when(idStats.getMaximum()).thenReturn(42L);
+        mockColumnAggregate(EnumAggregationType.MAX, idStats);
+
+        assertTrue(accessor.isUsingStats());
+        OneRow row = accessor.emitAggObject();
+        List<OneField> fields = (List<OneField>) row.getData();
+        assertEquals(2, fields.size());
+        assertEquals(42, fields.get(0).val);
+        assertEquals(DataType.INTEGER.getOID(), fields.get(0).type);
+        assertNull(fields.get(1).val);
+
+        // one row for the whole file
+        assertNull(accessor.emitAggObject());
+    }
+
+    @Test
+    public void overflowedSumIsNotUsed() throws Exception {
+        IntegerColumnStatistics idStats = mock(IntegerColumnStatistics.class);
+        when(idStats.getNumberOfValues()).thenReturn(10L);
+        when(idStats.isSumDefined()).thenReturn(false);
+        mockColumnAggregate(EnumAggregationType.SUM, idStats);
+
+        assertFalse(accessor.isUsingStats());
+    }
+
+    @Test
+    public void sumOutOfColumnRangeIsNotUsed() throws Exception {
+        IntegerColumnStatistics idStats = mock(IntegerColumnStatistics.class);
+        when(idStats.getNumberOfValues()).thenReturn(10L);
+        when(idStats.isSumDefined()).thenReturn(true);
+        when(idStats.getSum()).thenReturn(Integer.MAX_VALUE + 1L);
+        mockColumnAggregate(EnumAggregationType.SUM, idStats);
+
+        assertFalse(accessor.isUsingStats());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void statsOfColumnAfterComplexColumn() throws Exception {
+        IntegerColumnStatistics keyStats = mock(IntegerColumnStatistics.class);
+        when(keyStats.getNumberOfValues()).thenReturn(10L);
+        when(keyStats.getMaximum()).thenReturn(7L);
+        IntegerColumnStatistics idStats = mock(IntegerColumnStatistics.class);
+        when(idStats.getNumberOfValues()).thenReturn(10L);
+        when(idStats.getMaximum()).thenReturn(42L);
+
+        /*
+         * Table (tags map<int,string>, id int): the types are the root
+         * struct (0), the map (1), its key (2) and value (3), and id (4)
+         */
+        ArrayList<ColumnDescriptor> columns = new ArrayList<>();
+        columns.add(new ColumnDescriptor("tags", DataType.TEXT.getOID(), 0, "text", null, false));
+        columns.add(new ColumnDescriptor("id", DataType.INTEGER.getOID(), 1, "int4", null, true));
+        when(orcReader.getTypes()).thenReturn(Arrays.asList(
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.STRUCT)
+                        .addSubtypes(1).addSubtypes(4).addFieldNames("tags").addFieldNames("id").build(),
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.MAP)
+                        .addSubtypes(2).addSubtypes(3).build(),
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.INT).build(),
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.STRING).build(),
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.INT).build()));
+        mockAggregate(EnumAggregationType.MAX, columns, new ColumnStatistics[] {
+                mock(ColumnStatistics.class), mock(ColumnStatistics.class), keyStats,
+                mock(ColumnStatistics.class), idStats });
+
+        assertTrue(accessor.isUsingStats());
+        List<OneField> fields = (List<OneField>) accessor.emitAggObject().getData();
+        assertNull(fields.get(0).val);
+        assertEquals(42, fields.get(1).val);
+    }
+
+    /*
+     * Table (id int, name text) where id is projected, read with stats.
+     */
+    private void mockColumnAggregate(EnumAggregationType aggType, ColumnStatistics idStats) throws Exception {
+        ArrayList<ColumnDescriptor> columns = new ArrayList<>();
+        columns.add(new ColumnDescriptor("id", DataType.INTEGER.getOID(), 0, "int4", null, true));
+        columns.add(new ColumnDescriptor("name", DataType.TEXT.getOID(), 1, "text", null, false));
+        when(orcReader.getTypes()).thenReturn(Arrays.asList(
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.STRUCT)
+                        .addSubtypes(1).addSubtypes(2).addFieldNames("id").addFieldNames("name").build(),
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.INT).build(),
+                OrcProto.Type.newBuilder().setKind(OrcProto.Type.Kind.STRING).build()));
+        mockAggregate(aggType, columns, new ColumnStatistics[] {
+                mock(ColumnStatistics.class), idStats, mock(ColumnStatistics.class) });
+    }
+
+    private void mockAggregate(EnumAggregationType aggType, ArrayList<ColumnDescriptor> columns,
+                               ColumnStatistics[] statistics) throws Exception {
+        when(inputData.getTupleDescription()).thenReturn(columns);
+        when(inputData.getAggType()).thenReturn(aggType);
+        when(inputData.getNumAttrsProjected()).thenReturn(1);
+        when(inputData.getFragmentIndex()).thenReturn(0);
+        when(orcReader.getNumberOfRows()).thenReturn(10L);
+        when(orcReader.getStatistics()).thenReturn(statistics);
+
+        accessor = new HiveORCAccessor(inputData);
+        accessor.openForRead();
+        accessor.retrieveStats();
+    }
+
 }
\ No newline at end of file
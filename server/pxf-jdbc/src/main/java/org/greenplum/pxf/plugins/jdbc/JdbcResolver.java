@@ -24,7 +24,7 @@ import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
-import org.greenplum.pxf.api.ReadResolver;
+import org.greenplum.pxf.api.ProjectionResolver;
 import org.greenplum.pxf.api.UserDataException;
 import org.greenplum.pxf.api.WriteResolver;
 
@@ -45,9 +45,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
- * JDBC tables resolver
+ * JDBC tables resolver. The values of the columns not projected by the query
+ * are not read from the result set.
  */
-public class JdbcResolver extends JdbcPlugin implements ReadResolver, WriteResolver {
+public class JdbcResolver extends JdbcPlugin implements ProjectionResolver, WriteResolver {
+    private boolean[] projection;
+
     /**
      * Class constructor
      *
@@ -77,6 +80,11 @@ public class JdbcResolver extends JdbcPlugin implements ReadResolver, WriteResol
             OneField oneField = new OneField();
             oneField.type = column.columnTypeCode();
 
+            if (projection != null && !projection[column.columnIndex()]) {
+                fields.add(oneField);
+                continue;
+            }
+
             switch (DataType.get(oneField.type)) {
                 case INTEGER:
                     value = result.getInt(colName);
@@ -121,6 +129,11 @@ public class JdbcResolver extends JdbcPlugin implements ReadResolver, WriteResol
         return fields;
     }
 
+    @Override
+    public void setProjection(boolean[] projection) {
+        this.projection = projection;
+    }
+
     /**
      * setFields() implementation
      * @param record  List of fields
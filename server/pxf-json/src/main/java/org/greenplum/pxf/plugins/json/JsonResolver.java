@@ -28,7 +28,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
-import org.greenplum.pxf.api.ReadResolver;
+import org.greenplum.pxf.api.ProjectionResolver;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.api.utilities.InputData;
@@ -40,15 +40,16 @@ import org.codehaus.jackson.map.ObjectMapper;
 /**
  * This JSON resolver for PXF will decode a given object from the {@link JsonAccessor} into a row for GPDB. It will
  * decode this data into a JsonNode and walk the tree for each column. It supports normal value mapping via projections
- * and JSON array indexing.
+ * and JSON array indexing. The columns not projected by the query are not looked up in the tree.
  */
-public class JsonResolver extends Plugin implements ReadResolver {
+public class JsonResolver extends Plugin implements ProjectionResolver {
 
 	private static final Log LOG = LogFactory.getLog(JsonResolver.class);
 
 	private ArrayList<OneField> oneFieldList;
 	private ColumnDescriptorCache[] columnDescriptorCache;
 	private ObjectMapper mapper;
+	private boolean[] projection;
 
 	/**
 	 * Row with empty fields. Returned in case of broken or malformed json records.
@@ -84,7 +85,14 @@ public class JsonResolver extends Plugin implements ReadResolver {
 		}
 
 		// Iterate through the column definition and fetch our JSON data
-		for (ColumnDescriptorCache columnMetadata : columnDescriptorCache) {
+		for (int i = 0; i < columnDescriptorCache.length; ++i) {
+			ColumnDescriptorCache columnMetadata = columnDescriptorCache[i];
+
+			// The columns not projected are sent as null values
+			if (projection != null && !projection[i]) {
+				addNullField(columnMetadata.getColumnType());
+				continue;
+			}
 
 			JsonNode node = getChildJsonNode(root, columnMetadata.getNormalizedProjections());
 
@@ -109,6 +117,11 @@ public class JsonResolver extends Plugin implements ReadResolver {
 		return oneFieldList;
 	}
 
+	@Override
+	public void setProjection(boolean[] projection) {
+		this.projection = projection;
+	}
+
 	/**
 	 * @return Returns a row comprised of typed, empty fields. Used as a result of broken/malformed json records.
 	 */
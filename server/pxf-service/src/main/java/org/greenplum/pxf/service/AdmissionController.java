@@ -0,0 +1,364 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Limits the number of requests served concurrently by the PXF service, so
+ * that bursts of queries do not overload the shared backends (name node, Hive
+ * metastore, databases).
+ * <p>
+ * A request is admitted once it obtains a permit from each of its limits:
+ * <ul>
+ * <li>pxf.service.admission.max.requests, for all the requests;</li>
+ * <li>pxf.service.admission.max.requests.per.user, for the requests of the
+ * same Greenplum user;</li>
+ * <li>pxf.service.admission.max.requests.per.profile, for the requests of the
+ * same profile, overridden for a given profile by
+ * pxf.service.admission.profile.&lt;profile&gt;.max.requests;</li>
+ * <li>pxf.service.admission.max.requests.per.datasource, for the requests on
+ * the same data source.</li>
+ * </ul>
+ * Limits are set with system properties, usually in PXF_JVM_OPTS, and a limit
+ * of 0 (the default) means no limit. Requests exceeding a limit wait in a
+ * first-in first-out queue, for at most pxf.service.admission.queue.timeout
+ * seconds, after which they are rejected.
+ * <p>
+ * Permits are always acquired in the same order, from the most specific limit
+ * to the global one, so that requests cannot deadlock, and so that a request
+ * waiting for the permit of its user or data source does not hold a global
+ * permit meanwhile. Like the plugin locks, the queues are reference counted
+ * and discarded when no request uses them. The time spent waiting in the
+ * queues is collected and available through the getters of this class.
+ */
+public class AdmissionController {
+
+    private static final Log LOG = LogFactory.getLog(AdmissionController.class);
+    static final String PROPERTY_KEY_MAX_REQUESTS = "pxf.service.admission.max.requests";
+    static final String PROPERTY_KEY_MAX_REQUESTS_PER_USER = "pxf.service.admission.max.requests.per.user";
+    static final String PROPERTY_KEY_MAX_REQUESTS_PER_PROFILE = "pxf.service.admission.max.requests.per.profile";
+    static final String PROPERTY_KEY_MAX_REQUESTS_PER_DATASOURCE = "pxf.service.admission.max.requests.per.datasource";
+    static final String PROPERTY_KEY_QUEUE_TIMEOUT = "pxf.service.admission.queue.timeout";
+    private static final String PROFILE_PROPERTY_PREFIX = "pxf.service.admission.profile.";
+    private static final String PROFILE_PROPERTY_SUFFIX = ".max.requests";
+    static final long DEFAULT_QUEUE_TIMEOUT = 600;
+    private static final AdmissionController INSTANCE = new AdmissionController(System.getProperties());
+
+    private final int maxRequests;
+    private final int maxRequestsPerUser;
+    private final int maxRequestsPerProfile;
+    private final int maxRequestsPerDataSource;
+    private final Map<String, Integer> profileLimits = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final long queueTimeoutNanos;
+
+    private final Map<String, QueueEntry> queues = new HashMap<>();
+    private final AtomicLong admissions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong contentions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * @return the admission controller shared by the PXF resources
+     */
+    public static AdmissionController getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Creates an AdmissionController with the limits found in the given
+     * properties. Intended for use by tests.
+     */
+    AdmissionController(Properties properties) {
+        maxRequests = getLimit(properties, PROPERTY_KEY_MAX_REQUESTS);
+        maxRequestsPerUser = getLimit(properties, PROPERTY_KEY_MAX_REQUESTS_PER_USER);
+        maxRequestsPerProfile = getLimit(properties, PROPERTY_KEY_MAX_REQUESTS_PER_PROFILE);
+        maxRequestsPerDataSource = getLimit(properties, PROPERTY_KEY_MAX_REQUESTS_PER_DATASOURCE);
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(PROFILE_PROPERTY_PREFIX) && name.endsWith(PROFILE_PROPERTY_SUFFIX)
+                    && name.length() > PROFILE_PROPERTY_PREFIX.length() + PROFILE_PROPERTY_SUFFIX.length()) {
+                String profile = name.substring(PROFILE_PROPERTY_PREFIX.length(),
+                        name.length() - PROFILE_PROPERTY_SUFFIX.length());
+                profileLimits.put(profile, getLimit(properties, name));
+            }
+        }
+        long timeout = getLong(properties, PROPERTY_KEY_QUEUE_TIMEOUT, DEFAULT_QUEUE_TIMEOUT);
+        queueTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(timeout, 0));
+    }
+
+    private static int getLimit(Properties properties, String name) {
+        return (int) Math.min(Math.max(getLong(properties, name, 0), 0), Integer.MAX_VALUE);
+    }
+
+    /*
+     * Invalid values fall back to the default, like Long.getLong does, but
+     * are reported
+     */
+    private static long getLong(Properties properties, String name, long defaultValue) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid value '" + value + "' of " + name + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns the concurrency limit of the given profile.
+     *
+     * @param profile the profile name, may be null
+     * @return the limit, 0 if the profile is not limited
+     */
+    int getProfileLimit(String profile) {
+        if (profile == null) {
+            return 0;
+        }
+        Integer limit = profileLimits.get(profile);
+        return (limit != null) ? limit : maxRequestsPerProfile;
+    }
+
+    /**
+     * Admits a request, waiting in the queues of its limits if needed. The
+     * returned ticket must be released when the request completes. Any of the
+     * request attributes may be null, in which case the corresponding limit
+     * does not apply.
+     *
+     * @param user the Greenplum user of the request
+     * @param profile the profile of the request
+     * @param dataSource the data source of the request
+     * @return the admission ticket, or null if the request could not be
+     *         admitted before the queue timeout
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public Ticket admit(String user, String profile, String dataSource) throws InterruptedException {
+        List<QueueEntry> entries = new ArrayList<>(4);
+        reference(entries, "user:", user, maxRequestsPerUser);
+        reference(entries, "datasource:", dataSource, maxRequestsPerDataSource);
+        reference(entries, "profile:", profile, getProfileLimit(profile));
+        reference(entries, "global", "", maxRequests);
+
+        long start = System.nanoTime();
+        long deadline = start + queueTimeoutNanos;
+        boolean contended = false;
+        int acquired = 0;
+        try {
+            for (QueueEntry entry : entries) {
+                /* a timed tryAcquire, unlike tryAcquire(), does not barge ahead of the queue */
+                if (!entry.permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                    if (!contended) {
+                        contended = true;
+                        waiting.incrementAndGet();
+                    }
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Request of user " + user + " queued on " + entry.key);
+                    }
+                    if (!entry.permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                }
+                acquired++;
+            }
+        } finally {
+            if (contended) {
+                waiting.decrementAndGet();
+            }
+            if (acquired < entries.size()) {
+                release(entries, acquired);
+            }
+        }
+
+        long waitNanos = System.nanoTime() - start;
+        if (acquired < entries.size()) {
+            rejections.incrementAndGet();
+            LOG.warn("Request of user " + user + " on " + dataSource + " (profile " + profile
+                    + ") rejected after waiting " + (waitNanos / 1000000) + " ms");
+            return null;
+        }
+        recordWait(waitNanos, contended);
+        active.incrementAndGet();
+        if (contended && LOG.isDebugEnabled()) {
+            LOG.debug("Request of user " + user + " admitted after waiting " + (waitNanos / 1000000) + " ms");
+        }
+        return new Ticket(entries);
+    }
+
+    private void reference(List<QueueEntry> entries, String prefix, String name, int limit) {
+        if (limit <= 0 || name == null) {
+            return;
+        }
+        String key = prefix + name;
+        synchronized (queues) {
+            QueueEntry entry = queues.get(key);
+            if (entry == null) {
+                entry = new QueueEntry(key, limit);
+                queues.put(key, entry);
+            }
+            entry.references++;
+            entries.add(entry);
+        }
+    }
+
+    /*
+     * Releases the permits of the first acquired entries, and the references
+     * to all the entries
+     */
+    private void release(List<QueueEntry> entries, int acquired) {
+        for (int i = 0; i < acquired; i++) {
+            entries.get(i).permits.release();
+        }
+        synchronized (queues) {
+            for (QueueEntry entry : entries) {
+                if (--entry.references == 0) {
+                    queues.remove(entry.key);
+                }
+            }
+        }
+    }
+
+    private void recordWait(long waitNanos, boolean contended) {
+        admissions.incrementAndGet();
+        if (!contended) {
+            return;
+        }
+        contentions.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        long max;
+        while (waitNanos > (max = maxWaitNanos.get())) {
+            if (maxWaitNanos.compareAndSet(max, waitNanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return number of requests admitted
+     */
+    public long getAdmissions() {
+        return admissions.get();
+    }
+
+    /**
+     * @return number of requests rejected after the queue timeout
+     */
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    /**
+     * @return number of admitted requests that had to wait in a queue
+     */
+    public long getContentions() {
+        return contentions.get();
+    }
+
+    /**
+     * @return total time spent waiting in the queues by the admitted requests,
+     *         in nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    /**
+     * @return longest time spent waiting in the queues by an admitted request,
+     *         in nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * @return number of requests currently waiting in a queue
+     */
+    public int getWaitingRequests() {
+        return waiting.get();
+    }
+
+    /**
+     * @return number of requests currently admitted
+     */
+    public int getActiveRequests() {
+        return active.get();
+    }
+
+    /**
+     * @return number of queues currently used
+     */
+    public int getActiveQueues() {
+        synchronized (queues) {
+            return queues.size();
+        }
+    }
+
+    private static class QueueEntry {
+        private final String key;
+        private final Semaphore permits;
+        // guarded by the queues map
+        private int references;
+
+        private QueueEntry(String key, int limit) {
+            this.key = key;
+            this.permits = new Semaphore(limit, true);
+        }
+    }
+
+    /**
+     * Admission of a single request, holding its permits until released.
+     */
+    public class Ticket {
+        private final List<QueueEntry> entries;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Ticket(List<QueueEntry> entries) {
+            this.entries = entries;
+        }
+
+        /**
+         * Releases the permits of the request. Only the first call has an
+         * effect, and it may be made by any thread.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                active.decrementAndGet();
+                AdmissionController.this.release(entries, entries.size());
+            }
+        }
+    }
+}
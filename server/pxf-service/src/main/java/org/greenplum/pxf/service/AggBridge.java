@@ -19,10 +19,17 @@
 
 package org.greenplum.pxf.service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.LinkedList;
+import java.util.List;
 
+import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.StatsAccessor;
+import org.greenplum.pxf.service.io.BufferWritable;
+import org.greenplum.pxf.service.io.RecordBatch;
 import org.greenplum.pxf.service.io.Writable;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 import org.apache.commons.logging.Log;
@@ -31,12 +38,16 @@ import org.apache.commons.collections.map.LRUMap;
 
 /**
  * Bridge class optimized for aggregate queries.
- *
+ * <p>
+ * The rows are emitted by the {@link StatsAccessor} from statistics. When the
+ * statistics do not answer the aggregate, the bridge reads the data like a
+ * {@link ReadBridge}.
  */
 public class AggBridge extends ReadBridge implements Bridge {
     private static final Log LOG = LogFactory.getLog(AggBridge.class);
     /* Avoid resolving rows with the same key twice */
     private LRUMap outputCache;
+    private boolean useStats;
 
     public AggBridge(ProtocolData protData) throws Exception {
         super(protData);
@@ -47,13 +58,21 @@ public class AggBridge extends ReadBridge implements Bridge {
         /* Initialize LRU cache with 100 items*/
         outputCache = new LRUMap();
         boolean openForReadStatus = super.fileAccessor.openForRead();
-        ((StatsAccessor) fileAccessor).retrieveStats();
+        StatsAccessor statsAccessor = (StatsAccessor) fileAccessor;
+        statsAccessor.retrieveStats();
+        useStats = statsAccessor.isUsingStats();
+        if (!useStats) {
+            LOG.debug("Statistics do not answer the aggregate, reading the data");
+        }
         return openForReadStatus;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Writable getNext() throws Exception {
+        if (!useStats) {
+            return super.getNext();
+        }
+
         Writable output = null;
         LinkedList<Writable> cachedOutput = null;
         OneRow onerow = null;
@@ -64,15 +83,11 @@ public class AggBridge extends ReadBridge implements Bridge {
 
         try {
             while (outputQueue.isEmpty()) {
-                onerow = ((StatsAccessor) fileAccessor).emitAggObject();
+                onerow = emitAggObject();
                 if (onerow == null) {
                     break;
                 }
-                cachedOutput = (LinkedList<Writable>) outputCache.get(onerow.getKey());
-                if (cachedOutput == null) {
-                    cachedOutput = outputBuilder.makeOutput(fieldsResolver.getFields(onerow));
-                    outputCache.put(onerow.getKey(), cachedOutput);
-                }
+                cachedOutput = getCachedOutput(onerow);
                 outputQueue.addAll(cachedOutput);
                 if (!outputQueue.isEmpty()) {
                     output = outputQueue.pop();
@@ -87,4 +102,76 @@ public class AggBridge extends ReadBridge implements Bridge {
         return output;
     }
 
+    @Override
+    public int getNextBatch(RecordBatch batch) throws Exception {
+        if (!useStats) {
+            return super.getNextBatch(batch);
+        }
+
+        batch.clear();
+
+        while (!outputQueue.isEmpty() && !batch.isFull()) {
+            batch.add(outputQueue.pop());
+        }
+
+        try {
+            while (!batch.isFull()) {
+                OneRow onerow = emitAggObject();
+                if (onerow == null) {
+                    break;
+                }
+                for (Writable output : getCachedOutput(onerow)) {
+                    batch.add(output);
+                }
+            }
+        } catch (Exception ex) {
+            LOG.error("Error occurred when reading next batch from aggregate bridge:" + ex.getMessage());
+            throw ex;
+        }
+
+        return batch.size();
+    }
+
+    private OneRow emitAggObject() throws Exception {
+        metrics.nextRow();
+        long start = metrics.startStage();
+        OneRow onerow = ((StatsAccessor) fileAccessor).emitAggObject();
+        metrics.endAccessorStage(start);
+        return onerow;
+    }
+
+    /*
+     * The output builder reuses its output records, so serialized copies of
+     * them are cached.
+     */
+    @SuppressWarnings("unchecked")
+    private LinkedList<Writable> getCachedOutput(OneRow onerow) throws Exception {
+        LinkedList<Writable> cachedOutput = (LinkedList<Writable>) outputCache.get(onerow.getKey());
+        if (cachedOutput == null) {
+            cachedOutput = new LinkedList<Writable>();
+            for (Writable output : makeOutput(getAggFields(onerow))) {
+                cachedOutput.add(copy(output));
+            }
+            outputCache.put(onerow.getKey(), cachedOutput);
+        }
+        return cachedOutput;
+    }
+
+    /*
+     * Rows emitted from statistics may hold their fields already.
+     */
+    @SuppressWarnings("unchecked")
+    private List<OneField> getAggFields(OneRow onerow) throws Exception {
+        if (onerow.getData() instanceof List) {
+            return (List<OneField>) onerow.getData();
+        }
+        return getFields(onerow);
+    }
+
+    private static Writable copy(Writable output) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        output.write(new DataOutputStream(buffer));
+        return new BufferWritable(buffer.toByteArray());
+    }
+
 }
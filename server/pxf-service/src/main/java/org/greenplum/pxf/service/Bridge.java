@@ -20,7 +20,9 @@ package org.greenplum.pxf.service;
  */
 
 
+import org.greenplum.pxf.service.io.RecordBatch;
 import org.greenplum.pxf.service.io.Writable;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 
 import java.io.DataInputStream;
 
@@ -28,15 +30,33 @@ import java.io.DataInputStream;
  * Bridge interface - defines the interface of the Bridge classes. Any Bridge
  * class acts as an iterator over Hadoop stored data, and should implement
  * getNext (for reading) or setNext (for writing) for handling accessed data.
+ * Reading bridges also implement getNextBatch, which fills a reusable
+ * {@link RecordBatch} with several records at once.
  */
 public interface Bridge {
     boolean beginIteration() throws Exception;
 
     Writable getNext() throws Exception;
 
+    /**
+     * Clears the given batch and fills it with the next records.
+     *
+     * @param batch the batch to fill
+     * @return the number of records in the batch, 0 when there is no more data
+     * @throws Exception if reading the records failed
+     */
+    int getNextBatch(RecordBatch batch) throws Exception;
+
     boolean setNext(DataInputStream inputStream) throws Exception;
 
     boolean isThreadSafe();
 
+    /**
+     * Sets the metrics the bridge records the time spent in its plugins in.
+     *
+     * @param metrics the metrics of the request
+     */
+    void setMetrics(RequestMetrics metrics);
+
     void endIteration() throws Exception;
 }
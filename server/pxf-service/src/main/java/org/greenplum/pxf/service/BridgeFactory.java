@@ -0,0 +1,42 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.api.utilities.ProtocolData;
+import org.greenplum.pxf.api.utilities.Utilities;
+
+/**
+ * Factory class for creation of the reading {@link Bridge} of a request,
+ * according to its parameters: sampling for ANALYZE, aggregate pushdown,
+ * vectorized resolver, or plain reading.
+ */
+public class BridgeFactory {
+    public static Bridge createReadBridge(ProtocolData protData) throws Exception {
+        if (protData.getStatsSampleRatio() > 0) {
+            return new ReadSamplingBridge(protData);
+        } else if (Utilities.useAggBridge(protData)) {
+            return new AggBridge(protData);
+        } else if (Utilities.useVectorization(protData)) {
+            return new ReadVectorizedBridge(protData);
+        } else {
+            return new ReadBridge(protData);
+        }
+    }
+}
@@ -22,8 +22,11 @@ package org.greenplum.pxf.service;
 
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OutputFormat;
+import org.greenplum.pxf.api.RecordView;
 import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.service.io.GPDBRecordView;
 import org.greenplum.pxf.service.io.GPDBWritable;
+import org.greenplum.pxf.service.io.SerializationContext;
 import org.greenplum.pxf.service.io.Text;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 
@@ -31,36 +34,50 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.DataInput;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 public class BridgeInputBuilder {
     private ProtocolData protocolData;
+    private SerializationContext context;
+    /* the GPDBWritable record and its mapper are reused for every record */
+    private GPDBWritable gpdbWritable;
+    private GPDBWritableMapper mapper;
+    private GPDBRecordView view;
+    private boolean endOfStream;
     private static final Log LOG = LogFactory.getLog(BridgeInputBuilder.class);
 
     public BridgeInputBuilder(ProtocolData protocolData) throws Exception {
         this.protocolData = protocolData;
+        context = (protocolData.outputFormat() == OutputFormat.GPDBWritable)
+                ? SerializationContext.forRequest(protocolData)
+                : SerializationContext.DEFAULT;
     }
 
     public List<OneField> makeInput(DataInput inputStream) throws Exception {
         if (protocolData.outputFormat() == OutputFormat.TEXT) {
             Text txt = new Text();
             txt.readFields(inputStream);
+            /* the resolver ends the iteration on the empty record */
+            endOfStream = (txt.getLength() == 0);
             return Collections.singletonList(new OneField(DataType.BYTEA.getOID(), txt.getBytes()));
         }
 
-        GPDBWritable gpdbWritable = new GPDBWritable();
+        if (gpdbWritable == null) {
+            gpdbWritable = new GPDBWritable(context);
+            mapper = new GPDBWritableMapper(gpdbWritable);
+        }
         gpdbWritable.readFields(inputStream);
 
         if (gpdbWritable.isEmpty()) {
             LOG.debug("Reached end of stream");
+            endOfStream = true;
             return null;
         }
 
-        GPDBWritableMapper mapper = new GPDBWritableMapper(gpdbWritable);
         int[] colTypes = gpdbWritable.getColType();
-        List<OneField> record = new LinkedList<OneField>();
+        List<OneField> record = new ArrayList<OneField>(colTypes.length);
         for (int i = 0; i < colTypes.length; i++) {
             mapper.setDataType(colTypes[i]);
             record.add(new OneField(colTypes[i], mapper.getData(i)));
@@ -68,4 +85,44 @@ public class BridgeInputBuilder {
 
         return record;
     }
+
+    /**
+     * Reads the next GPDBWritable record of the stream into a view over its
+     * packet, instead of materializing its fields like
+     * {@link #makeInput(DataInput)}. The view is reused for every record.
+     *
+     * @param inputStream stream to read from
+     * @return the view of the record, or null at the end of the stream
+     * @throws Exception if the record could not be read
+     */
+    public RecordView makeView(DataInput inputStream) throws Exception {
+        if (view == null) {
+            view = newView();
+        }
+        view.readFields(inputStream);
+        if (view.isEmpty()) {
+            LOG.debug("Reached end of stream");
+            endOfStream = true;
+            return null;
+        }
+        return view;
+    }
+
+    /**
+     * @return a new empty view with the serialization settings of the request
+     */
+    public GPDBRecordView newView() {
+        return new GPDBRecordView(context);
+    }
+
+    /**
+     * Returns whether the last call to {@link #makeInput(DataInput)} or
+     * {@link #makeView(DataInput)} reached the end of the input stream. The
+     * record it returned, if any, is the last one of the stream.
+     *
+     * @return true if the end of the stream was reached
+     */
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
 }
@@ -20,11 +20,16 @@ package org.greenplum.pxf.service;
  */
 
 import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.ColumnBatch;
+import org.greenplum.pxf.api.ColumnVector;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OutputFormat;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.service.io.BufferWritable;
+import org.greenplum.pxf.service.io.ColumnBatchRecord;
 import org.greenplum.pxf.service.io.GPDBWritable;
+import org.greenplum.pxf.service.io.RecordBatch;
+import org.greenplum.pxf.service.io.SerializationContext;
 import org.greenplum.pxf.service.io.Text;
 import org.greenplum.pxf.service.io.Writable;
 import org.greenplum.pxf.api.utilities.ProtocolData;
@@ -34,7 +39,9 @@ import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -51,13 +58,17 @@ import static org.greenplum.pxf.api.io.DataType.TEXT;
  */
 public class BridgeOutputBuilder {
     private ProtocolData inputData;
+    private SerializationContext context;
     private Writable output = null;
     private LinkedList<Writable> outputList = null;
     private Writable partialLine = null;
     private GPDBWritable errorRecord = null;
+    private ColumnBatchRecord columnBatchRecord = null;
+    private ColumnVector[] checkedVectors = null;
     private int[] schema;
     private String[] colNames;
-    private boolean samplingEnabled = false;
+    private boolean[] projected;
+    private boolean splitLines = false;
     private boolean isPartialLine = false;
 
     private static final byte DELIM = 10; /* (byte)'\n'; */
@@ -72,9 +83,24 @@ public class BridgeOutputBuilder {
      */
     public BridgeOutputBuilder(ProtocolData input) {
         inputData = input;
+        context = (inputData.outputFormat() == OutputFormat.GPDBWritable)
+                ? SerializationContext.forRequest(inputData)
+                : SerializationContext.DEFAULT;
         outputList = new LinkedList<Writable>();
         makeErrorRecord();
-        samplingEnabled = (inputData.getStatsSampleRatio() > 0);
+        splitLines = (inputData.getStatsSampleRatio() > 0);
+    }
+
+    /**
+     * Sets whether the binary text data of the records is broken into lines
+     * when sampling, see {@link #convertTextDataToLines(byte[])}. It should
+     * not be when each object read by the accessor is a single record, which
+     * may span several lines (e.g. a quoted field with a line feed).
+     *
+     * @param splitLines true to break the data into lines when sampling
+     */
+    void setSplitLines(boolean splitLines) {
+        this.splitLines = splitLines && (inputData.getStatsSampleRatio() > 0);
     }
 
     /**
@@ -95,7 +121,7 @@ public class BridgeOutputBuilder {
             return;
         }
 
-        errorRecord = new GPDBWritable(errSchema);
+        errorRecord = new GPDBWritable(errSchema, context);
         errorRecord.setError(true);
     }
 
@@ -149,6 +175,52 @@ public class BridgeOutputBuilder {
         return outputList;
     }
 
+    /**
+     * Serializes the rows of a column batch into the record batch, straight
+     * from the column vectors. Like the fields of {@link #fillGPDBWritable},
+     * the vector of a column must match the type of the column, and the
+     * columns not projected by the query are sent as NULL. Only used for the
+     * GPDBWritable output format. A vector is checked only the first time it
+     * is seen, since the vectors are reused from one batch to the next.
+     *
+     * @param columns the column batch, with one column per column of the
+     *            table
+     * @param recordBatch the batch to add the records to
+     * @throws BadRecordException if a vector does not match its column
+     * @throws IOException if a record failed to serialize
+     */
+    public void addColumnBatch(ColumnBatch columns, RecordBatch recordBatch)
+            throws BadRecordException, IOException {
+        if (columnBatchRecord == null) {
+            makeGPDBWritableOutput();
+            columnBatchRecord = new ColumnBatchRecord(schema, projected, context);
+            checkedVectors = new ColumnVector[schema.length];
+        }
+        if (columns.getColumnCount() != schema.length) {
+            throw new BadRecordException("Batch has " + columns.getColumnCount()
+                    + " columns but the schema size is " + schema.length);
+        }
+        for (int i = 0; i < schema.length; i++) {
+            ColumnVector vector = columns.getColumn(i);
+            if (!projected[i] || vector == null || vector == checkedVectors[i]) {
+                continue;
+            }
+            if (!isTypeInSchema(vector.type, schema[i]) || !columnBatchRecord.canWrite(i, columns)) {
+                throw new BadRecordException("For field " + colNames[i]
+                        + " schema requires type "
+                        + DataType.get(schema[i]).toString()
+                        + " but input record has type "
+                        + DataType.get(vector.type).toString());
+            }
+            checkedVectors[i] = vector;
+        }
+
+        for (int row = 0; row < columns.size(); row++) {
+            columnBatchRecord.set(columns, row);
+            recordBatch.add(columnBatchRecord);
+        }
+    }
+
     /**
      * Returns whether or not this is a partial line.
      *
@@ -168,13 +240,15 @@ public class BridgeOutputBuilder {
         int num_actual_fields = inputData.getColumns();
         schema = new int[num_actual_fields];
         colNames = new String[num_actual_fields];
+        projected = new boolean[num_actual_fields];
 
         for (int i = 0; i < num_actual_fields; i++) {
             schema[i] = inputData.getColumn(i).columnTypeCode();
             colNames[i] = inputData.getColumn(i).columnName();
+            projected[i] = inputData.getColumn(i).isProjected();
         }
 
-        output = new GPDBWritable(schema);
+        output = new GPDBWritable(schema, context);
 
         return (GPDBWritable) output;
     }
@@ -198,6 +272,8 @@ public class BridgeOutputBuilder {
      * recFields must correspond to schema. If the record has more or less
      * fields than the schema we throw an exception. We require that the type of
      * field[i] in recFields corresponds to the type of field[i] in the schema.
+     * The columns not projected by the query are sent as NULL, their fields
+     * are neither checked nor converted.
      *
      * @param recFields record fields
      * @throws BadRecordException if building the output record failed
@@ -212,7 +288,12 @@ public class BridgeOutputBuilder {
                     + " fields but the schema size is " + schema.length);
         }
 
+        GPDBWritable gpdbOutput = (GPDBWritable) output;
         for (int i = 0; i < size; i++) {
+            if (!projected[i]) {
+                gpdbOutput.setNull(i);
+                continue;
+            }
             OneField current = recFields.get(i);
             if (!isTypeInSchema(current.type, schema[i])) {
                 throw new BadRecordException("For field " + colNames[i]
@@ -275,14 +356,26 @@ public class BridgeOutputBuilder {
         OneField fld = recFields.get(0);
         int type = fld.type;
         Object val = fld.val;
-        if (DataType.get(type) == DataType.BYTEA) {// from LineBreakAccessor
-            if (samplingEnabled) {
-                convertTextDataToLines((byte[]) val);
+        if (DataType.get(type) == DataType.BYTEA) {// from LineBreakAccessor, QuotedLineBreakAccessor
+            byte[] bytes;
+            int offset = 0;
+            int length;
+            if (val instanceof ByteBuffer) { // a view of the buffer of the accessor
+                ByteBuffer view = (ByteBuffer) val;
+                bytes = view.array();
+                offset = view.arrayOffset() + view.position();
+                length = view.remaining();
             } else {
-                output = new BufferWritable((byte[]) val);
+                bytes = (byte[]) val;
+                length = bytes.length;
+            }
+            if (splitLines) {
+                convertTextDataToLines(bytes, offset, length);
+            } else {
+                output = new BufferWritable(bytes, offset, length);
                 outputList.add(output); // TODO break output into lines
             }
-        } else { // from QuotedLineBreakAccessor
+        } else { // a record read as a String
             String textRec = (String) val;
             output = new Text(textRec + "\n");
             outputList.add(output);
@@ -303,15 +396,27 @@ public class BridgeOutputBuilder {
      * @param val input raw data to break into lines
      */
     void convertTextDataToLines(byte[] val) {
-        int len = val.length;
-        int start = 0;
+        convertTextDataToLines(val, 0, val.length);
+    }
+
+    /**
+     * Breaks a part of a raw bytes buffer into lines. The lines are copied, so
+     * the buffer can be reused afterwards.
+     *
+     * @param val buffer holding the input raw data
+     * @param offset offset of the data in the buffer
+     * @param length length of the data
+     */
+    void convertTextDataToLines(byte[] val, int offset, int length) {
+        int len = offset + length;
+        int start = offset;
         int end = 0;
         byte[] line;
         BufferWritable writable;
 
         while (start < len) {
             end = ArrayUtils.indexOf(val, DELIM, start);
-            if (end == ArrayUtils.INDEX_NOT_FOUND) {
+            if (end == ArrayUtils.INDEX_NOT_FOUND || end >= len) {
                 // data finished in the middle of the line
                 end = len;
                 isPartialLine = true;
@@ -374,7 +479,11 @@ public class BridgeOutputBuilder {
                     break;
                 case BYTEA:
                     byte[] bts = null;
-                    if (val != null) {
+                    if (val instanceof ByteBuffer) {
+                        ByteBuffer view = (ByteBuffer) val;
+                        bts = new byte[view.remaining()];
+                        view.duplicate().get(bts);
+                    } else if (val != null) {
                         int length = Array.getLength(val);
                         bts = new byte[length];
                         for (int j = 0; j < length; j++) {
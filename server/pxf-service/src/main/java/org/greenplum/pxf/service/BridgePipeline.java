@@ -0,0 +1,230 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.service.io.RecordBatch;
+
+/**
+ * Runs the reading side of a bridge (accessor, resolver and output builder) in
+ * its own thread, ahead of the thread writing to the client.
+ * <p>
+ * The reader stage fills {@link RecordBatch}es taken from a fixed pool and
+ * queues them, already serialized. The writer stage only copies the queued
+ * batches to the output and gives them back to the pool. At most
+ * <code>depth</code> batches are read ahead of the writer, so a slow client
+ * eventually blocks the reader, and a slow data source leaves the writer
+ * waiting.
+ * <p>
+ * The reader stage runs as the user of the thread starting the pipeline, so
+ * that impersonation applies to it. The caller must {@link #close()} the
+ * pipeline before ending the iteration of the bridge.
+ */
+public class BridgePipeline {
+
+    private static final Log LOG = LogFactory.getLog(BridgePipeline.class);
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("pxf-pipeline-%d").setDaemon(true).build());
+    // marks the end of the data in the queue of filled batches
+    private static final RecordBatch END_OF_DATA = new RecordBatch(1, 1);
+
+    private final Bridge bridge;
+    private final PipelineStats stats;
+    private final BlockingQueue<RecordBatch> freeBatches;
+    private final BlockingQueue<RecordBatch> filledBatches;
+    private final CountDownLatch readerFinished = new CountDownLatch(1);
+    private volatile boolean closed;
+    private volatile Exception failure;
+    private boolean started;
+    // guarded by this, to never interrupt the pooled thread after the reader ended
+    private Thread readerThread;
+    private long writerBusyNanos;
+    private long writerIdleNanos;
+
+    /**
+     * Constructs a pipeline over a bridge whose iteration has begun.
+     *
+     * @param bridge the bridge to read from
+     * @param depth maximum number of batches read ahead of the writer
+     * @param stats statistics to update
+     */
+    public BridgePipeline(Bridge bridge, int depth, PipelineStats stats) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("pipeline depth must be positive (" + depth + ")");
+        }
+        this.bridge = bridge;
+        this.stats = stats;
+        /* one more batch than the depth, for the batch being written */
+        freeBatches = new ArrayBlockingQueue<>(depth + 1);
+        for (int i = 0; i <= depth; i++) {
+            freeBatches.add(new RecordBatch());
+        }
+        /* room for all the batches and the end marker, so the reader never blocks on it */
+        filledBatches = new ArrayBlockingQueue<>(depth + 2);
+    }
+
+    /**
+     * Starts the reader stage.
+     *
+     * @throws IOException if the current user could not be determined
+     */
+    public void start() throws IOException {
+        final UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+        stats.pipelineStarted();
+        started = true;
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (BridgePipeline.this) {
+                    readerThread = Thread.currentThread();
+                }
+                try {
+                    ugi.doAs(new PrivilegedExceptionAction<Void>() {
+                        @Override
+                        public Void run() {
+                            read();
+                            return null;
+                        }
+                    });
+                } catch (Exception e) {
+                    failure = e;
+                    filledBatches.offer(END_OF_DATA);
+                } finally {
+                    synchronized (BridgePipeline.this) {
+                        readerThread = null;
+                        Thread.interrupted();
+                    }
+                    readerFinished.countDown();
+                }
+            }
+        });
+    }
+
+    /*
+     * The reader stage: fills free batches until the bridge has no more
+     * records, the pipeline is closed or the bridge fails.
+     */
+    private void read() {
+        long busyNanos = 0;
+        long idleNanos = 0;
+        try {
+            while (!closed) {
+                long start = System.nanoTime();
+                RecordBatch batch = freeBatches.take();
+                long taken = System.nanoTime();
+                idleNanos += taken - start;
+                if (closed) {
+                    break;
+                }
+                int records = bridge.getNextBatch(batch);
+                busyNanos += System.nanoTime() - taken;
+                if (records == 0) {
+                    break;
+                }
+                filledBatches.put(batch);
+            }
+        } catch (InterruptedException e) {
+            // the pipeline was closed by the writer
+        } catch (Exception e) {
+            if (!closed) {
+                failure = e;
+            }
+        } finally {
+            stats.addReaderTimes(busyNanos, idleNanos);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Pipeline reader stage busy " + (busyNanos / 1000000)
+                        + " ms, idle " + (idleNanos / 1000000) + " ms");
+            }
+            filledBatches.offer(END_OF_DATA);
+        }
+    }
+
+    /**
+     * Writes the next batch filled by the reader stage to <code>out</code>,
+     * waiting for the reader if no batch is ready.
+     *
+     * @param out output to write the batch to
+     * @return number of records written, 0 when there are no more records
+     * @throws Exception if the reader stage failed, or writing failed
+     */
+    public int writeNextBatch(DataOutput out) throws Exception {
+        long start = System.nanoTime();
+        RecordBatch batch = filledBatches.take();
+        long taken = System.nanoTime();
+        writerIdleNanos += taken - start;
+
+        if (batch == END_OF_DATA) {
+            // leave the marker for the following calls
+            filledBatches.offer(END_OF_DATA);
+            if (failure != null) {
+                throw failure;
+            }
+            return 0;
+        }
+
+        stats.sampleQueueDepth(filledBatches.size());
+        try {
+            batch.write(out);
+            return batch.size();
+        } finally {
+            writerBusyNanos += System.nanoTime() - taken;
+            freeBatches.offer(batch);
+        }
+    }
+
+    /**
+     * Stops the reader stage and waits for it to finish, so that the bridge
+     * is no longer used once this method returns.
+     *
+     * @throws InterruptedException if interrupted while waiting for the reader
+     */
+    public void close() throws InterruptedException {
+        if (!started || closed) {
+            return;
+        }
+        closed = true;
+        synchronized (this) {
+            if (readerThread != null) {
+                readerThread.interrupt();
+            }
+        }
+        /* wake up the reader if the interrupt was swallowed while it waits for a batch */
+        freeBatches.offer(END_OF_DATA);
+        readerFinished.await();
+
+        stats.addWriterTimes(writerBusyNanos, writerIdleNanos);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Pipeline writer stage busy " + (writerBusyNanos / 1000000)
+                    + " ms, idle " + (writerIdleNanos / 1000000) + " ms");
+        }
+    }
+}
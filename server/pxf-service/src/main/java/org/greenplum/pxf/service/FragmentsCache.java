@@ -0,0 +1,221 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.greenplum.pxf.api.Fragment;
+import org.greenplum.pxf.api.Fragmenter;
+import org.greenplum.pxf.api.VersionedFragmenter;
+import org.greenplum.pxf.api.utilities.ProtocolData;
+
+/**
+ * Caches the fragments of the data sources, shared by all the requests.
+ * <p>
+ * Only the fragments of a {@link VersionedFragmenter} are cached. They are
+ * keyed by everything in the request that can change them: the data source,
+ * the fragmenter, the filter, the user, the columns and the user options, and
+ * by the version of the data source returned by the fragmenter. When the data
+ * source changes, its new version misses the cache and the stale entry ages
+ * out. Concurrent requests missing the same entry compute the fragments once.
+ * <p>
+ * The cache is bounded by the pxf.service.fragments.cache.size system property
+ * (number of entries, 0 disables the cache) and entries expire after
+ * pxf.service.fragments.cache.ttl seconds.
+ */
+public class FragmentsCache {
+
+    private static final Log LOG = LogFactory.getLog(FragmentsCache.class);
+    static final String PROPERTY_KEY_CACHE_SIZE = "pxf.service.fragments.cache.size";
+    static final String PROPERTY_KEY_CACHE_TTL = "pxf.service.fragments.cache.ttl";
+    static final long DEFAULT_CACHE_SIZE = 1000;
+    static final long DEFAULT_CACHE_TTL = 60;
+    private static final String PROP_PREFIX = "X-GP-";
+    private static final FragmentsCache INSTANCE = new FragmentsCache(
+            Long.getLong(PROPERTY_KEY_CACHE_SIZE, DEFAULT_CACHE_SIZE),
+            Long.getLong(PROPERTY_KEY_CACHE_TTL, DEFAULT_CACHE_TTL),
+            Ticker.systemTicker());
+
+    private final Cache<String, List<Fragment>> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a FragmentsCache. Intended for use by tests which need to
+     * control the current time.
+     */
+    FragmentsCache(long maxSize, long ttlSeconds, Ticker ticker) {
+        if (maxSize <= 0) {
+            cache = null;
+            return;
+        }
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * @return the fragments cache shared by the PXF resources
+     */
+    public static FragmentsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the fragments of the request, from the cache when possible.
+     * The returned fragments belong to the caller, who may modify them.
+     *
+     * @param fragmenter the fragmenter of the request
+     * @param protData the request data
+     * @return the fragments of the data source
+     * @throws Exception if the fragments or their version could not be
+     *             retrieved
+     */
+    public List<Fragment> getFragments(final Fragmenter fragmenter, ProtocolData protData)
+            throws Exception {
+        if (cache == null || !(fragmenter instanceof VersionedFragmenter)) {
+            return fragmenter.getFragments();
+        }
+        String version = ((VersionedFragmenter) fragmenter).getFragmentsVersion();
+        if (version == null) {
+            return fragmenter.getFragments();
+        }
+
+        String key = getCacheKey(protData) + version;
+        final boolean[] loaded = new boolean[1];
+        List<Fragment> fragments;
+        try {
+            fragments = cache.get(key, new Callable<List<Fragment>>() {
+                @Override
+                public List<Fragment> call() throws Exception {
+                    loaded[0] = true;
+                    return copy(fragmenter.getFragments());
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : e;
+        }
+
+        if (loaded[0]) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Using " + fragments.size() + " cached fragments of "
+                        + protData.getDataSource() + " version " + version);
+            }
+        }
+        return copy(fragments);
+    }
+
+    /**
+     * Builds the part of the cache key identifying the request, from the
+     * request parameters that may change the fragments. Parameters specific to
+     * a query or a segment are excluded.
+     *
+     * @param protData the request data
+     * @return the cache key of the request
+     */
+    static String getCacheKey(ProtocolData protData) {
+        Map<String, String> sorted = new TreeMap<>();
+        for (Map.Entry<String, String> entry : protData.getParametersMap().entrySet()) {
+            String name = entry.getKey().toUpperCase();
+            if (!name.startsWith(PROP_PREFIX)) {
+                continue;
+            }
+            name = name.substring(PROP_PREFIX.length());
+            if (name.startsWith("OPTIONS-") || name.startsWith("ATTR")
+                    || name.equals("DATA-DIR") || name.equals("HAS-FILTER")
+                    || name.equals("FILTER") || name.equals("USER")) {
+                sorted.put(name, entry.getValue());
+            }
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            key.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        return key.toString();
+    }
+
+    /*
+     * Copies the fragments, as the response formatter updates their indexes
+     * and replicas
+     */
+    private static List<Fragment> copy(List<Fragment> fragments) {
+        List<Fragment> result = new ArrayList<>(fragments.size());
+        for (Fragment fragment : fragments) {
+            String[] replicas = fragment.getReplicas();
+            Fragment copy = new Fragment(fragment.getSourceName(),
+                    (replicas == null) ? null : replicas.clone(),
+                    fragment.getMetadata(), fragment.getUserData(),
+                    fragment.getProfile());
+            copy.setIndex(fragment.getIndex());
+            result.add(copy);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of requests served from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of requests for which the fragments were computed
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of cached entries
+     */
+    public long getSize() {
+        return (cache == null) ? 0 : cache.size();
+    }
+
+    /**
+     * Discards all the cached fragments.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.RecordView;
+import org.greenplum.pxf.api.RecordViewWriteResolver;
+import org.greenplum.pxf.service.io.GPDBRecordView;
+import org.greenplum.pxf.service.io.RecordBatch;
+
+/**
+ * A reusable batch of records decoded from the input stream of a write
+ * request, before they are resolved and written by the accessor. The records
+ * are either lists of fields, or views over GPDBWritable packets when the
+ * resolver reads them directly (see {@link RecordViewWriteResolver}).
+ * <p>
+ * The batch keeps the lists holding its records and the rows they are
+ * resolved to, as well as its views and their buffers, so that filling it
+ * again allocates nothing but the lists of fields. Like a {@link RecordBatch}, it is full when it holds
+ * {@code maxRecords} records or when the size of their values reaches
+ * {@code maxBytes}, whichever comes first.
+ */
+public class InputBatch {
+
+    private final int maxRecords;
+    private final int maxBytes;
+    private final List<List<OneField>> records;
+    private final List<OneRow> rows;
+    private final List<OneRow> resolvedRows;
+    private final List<GPDBRecordView> views;
+    private int viewCount;
+    private int bytes;
+
+    /**
+     * Constructs an InputBatch with the default limits of a
+     * {@link RecordBatch}.
+     */
+    public InputBatch() {
+        this(RecordBatch.DEFAULT_MAX_RECORDS, RecordBatch.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs an InputBatch.
+     *
+     * @param maxRecords maximum number of records held by the batch
+     * @param maxBytes maximum size in bytes of the values of the records
+     */
+    public InputBatch(int maxRecords, int maxBytes) {
+        if (maxRecords <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("batch limits must be positive (records = "
+                    + maxRecords + ", bytes = " + maxBytes + ")");
+        }
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        records = new ArrayList<>(maxRecords);
+        rows = new ArrayList<>(maxRecords);
+        resolvedRows = new ArrayList<>(maxRecords);
+        views = new ArrayList<>();
+    }
+
+    /**
+     * Adds a record at the end of the batch.
+     *
+     * @param record record to add
+     */
+    public void add(List<OneField> record) {
+        records.add(record);
+        for (OneField field : record) {
+            bytes += sizeOf(field.val);
+        }
+    }
+
+    /**
+     * Returns the view to read the next record into. The record is only part
+     * of the batch once {@link #addView()} is called.
+     *
+     * @param inputBuilder builder creating the views of the batch
+     * @return a view of the batch
+     */
+    public GPDBRecordView nextView(BridgeInputBuilder inputBuilder) {
+        if (viewCount == views.size()) {
+            views.add(inputBuilder.newView());
+        }
+        return views.get(viewCount);
+    }
+
+    /**
+     * Adds the record read into the view returned by
+     * {@link #nextView(BridgeInputBuilder)} at the end of the batch.
+     */
+    public void addView() {
+        bytes += views.get(viewCount).getPacketLength();
+        viewCount++;
+    }
+
+    /**
+     * @param index index of the view, lower than {@link #getViewCount()}
+     * @return the view of the record at the given index
+     */
+    public RecordView getView(int index) {
+        return views.get(index);
+    }
+
+    /**
+     * @return number of records added as views
+     */
+    public int getViewCount() {
+        return viewCount;
+    }
+
+    /**
+     * @return the records of the batch added as lists of fields, in order
+     */
+    public List<List<OneField>> getRecords() {
+        return records;
+    }
+
+    /**
+     * Keeps a copy of a row resolved from a record of the batch. Resolvers
+     * may return the same row object for every record, so the row itself is
+     * not kept.
+     *
+     * @param row resolved row
+     */
+    public void addRow(OneRow row) {
+        int index = resolvedRows.size();
+        if (index == rows.size()) {
+            rows.add(new OneRow());
+        }
+        OneRow copy = rows.get(index);
+        copy.setKey(row.getKey());
+        copy.setData(row.getData());
+        resolvedRows.add(copy);
+    }
+
+    /**
+     * @return the rows added by {@link #addRow(OneRow)}, in order
+     */
+    public List<OneRow> getRows() {
+        return resolvedRows;
+    }
+
+    /**
+     * @return number of records in the batch
+     */
+    public int size() {
+        return records.size() + viewCount;
+    }
+
+    /**
+     * @return whether the batch reached one of its limits
+     */
+    public boolean isFull() {
+        return size() >= maxRecords || bytes >= maxBytes;
+    }
+
+    /**
+     * Empties the batch, keeping its lists for the next records.
+     */
+    public void clear() {
+        records.clear();
+        for (OneRow row : resolvedRows) {
+            row.setKey(null);
+            row.setData(null);
+        }
+        resolvedRows.clear();
+        viewCount = 0;
+        bytes = 0;
+    }
+
+    /*
+     * Approximate size of a value: the length of variable length values, the
+     * size of a long otherwise.
+     */
+    private static int sizeOf(Object value) {
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        } else if (value instanceof String) {
+            return ((String) value).length();
+        }
+        return 8;
+    }
+}
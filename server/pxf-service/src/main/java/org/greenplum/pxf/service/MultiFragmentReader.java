@@ -0,0 +1,302 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.DataOutput;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.greenplum.pxf.api.utilities.ProtocolData;
+import org.greenplum.pxf.service.io.RecordBatch;
+
+/**
+ * Reads the fragments of a multi-fragment request concurrently, and merges
+ * their records into a single stream.
+ * <p>
+ * Each reader runs in a thread of a shared pool and takes the next fragment
+ * not yet read, creates its bridge (accessor, resolver and output builder) and
+ * fills {@link RecordBatch}es from it, taken from a fixed pool. The filled
+ * batches of all the readers are queued already serialized, so records of
+ * different fragments are interleaved at batch boundaries only. The thread
+ * writing to the client copies the queued batches to the output and gives
+ * them back to the pool, so a slow client eventually blocks the readers.
+ * <p>
+ * The bridges of non-thread-safe plugins are read while holding the plugin
+ * lock of their fragment. The readers run as the user of the thread starting
+ * them, so that impersonation applies to them. The caller must
+ * {@link #close()} the reader once done, so that no bridge is used
+ * afterwards.
+ */
+public class MultiFragmentReader {
+
+    private static final Log LOG = LogFactory.getLog(MultiFragmentReader.class);
+    static final String PROPERTY_KEY_MAX_READERS = "pxf.service.fragment.readers.max";
+    static final int DEFAULT_MAX_READERS = 16;
+    private static final int MAX_READERS = Integer.getInteger(PROPERTY_KEY_MAX_READERS,
+            DEFAULT_MAX_READERS);
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("pxf-fragment-reader-%d").setDaemon(true).build());
+    // marks the end of the data in the queue of filled batches
+    private static final RecordBatch END_OF_DATA = new RecordBatch(1, 1);
+
+    private final ProtocolData protData;
+    private final boolean threadSafe;
+    private final int fragments;
+    private final int readers;
+    private final BlockingQueue<RecordBatch> freeBatches;
+    private final BlockingQueue<RecordBatch> filledBatches;
+    private final AtomicInteger nextFragment = new AtomicInteger();
+    private final AtomicInteger runningReaders = new AtomicInteger();
+    private final CountDownLatch readersFinished;
+    private final Thread[] readerThreads;
+    private Bridge firstBridge;
+    private volatile boolean stopped;
+    private volatile Exception failure;
+    private boolean started;
+    private boolean closed;
+
+    /**
+     * Constructs a reader of the fragments of a request.
+     *
+     * @param protData the request data
+     * @param firstBridge the bridge of the first fragment, already created,
+     *            or null
+     * @param threadSafe whether the bridges can be read without lock
+     */
+    public MultiFragmentReader(ProtocolData protData, Bridge firstBridge, boolean threadSafe) {
+        this.protData = protData;
+        this.firstBridge = firstBridge;
+        this.threadSafe = threadSafe;
+        fragments = protData.getFragmentCount();
+        readers = Math.max(1, Math.min(fragments,
+                Math.min(protData.getFragmentReaders(), MAX_READERS)));
+        /* two batches per reader, one being filled and one queued */
+        freeBatches = new ArrayBlockingQueue<>(2 * readers);
+        for (int i = 0; i < 2 * readers; i++) {
+            freeBatches.add(new RecordBatch());
+        }
+        /* room for all the batches and the end marker, so the readers never block on it */
+        filledBatches = new ArrayBlockingQueue<>(2 * readers + 1);
+        readersFinished = new CountDownLatch(readers);
+        readerThreads = new Thread[readers];
+    }
+
+    /**
+     * @return the number of fragments read concurrently
+     */
+    public int getReaders() {
+        return readers;
+    }
+
+    /**
+     * Starts the readers.
+     *
+     * @throws Exception if the current user could not be determined
+     */
+    public void start() throws Exception {
+        final UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+        started = true;
+        runningReaders.set(readers);
+        for (int i = 0; i < readers; i++) {
+            final int reader = i;
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (MultiFragmentReader.this) {
+                        readerThreads[reader] = Thread.currentThread();
+                    }
+                    try {
+                        ugi.doAs(new PrivilegedExceptionAction<Void>() {
+                            @Override
+                            public Void run() {
+                                read();
+                                return null;
+                            }
+                        });
+                    } catch (Exception e) {
+                        fail(e);
+                    } finally {
+                        synchronized (MultiFragmentReader.this) {
+                            readerThreads[reader] = null;
+                            Thread.interrupted();
+                        }
+                        if (runningReaders.decrementAndGet() == 0) {
+                            filledBatches.offer(END_OF_DATA);
+                        }
+                        readersFinished.countDown();
+                    }
+                }
+            });
+        }
+    }
+
+    /*
+     * A reader: reads the next fragment not yet taken by another reader,
+     * until all the fragments are read, the reader is stopped or a fragment
+     * fails.
+     */
+    private void read() {
+        int fragment = 0;
+        try {
+            while (!stopped) {
+                fragment = nextFragment.getAndIncrement();
+                if (fragment >= fragments) {
+                    break;
+                }
+                readFragment(fragment);
+            }
+        } catch (InterruptedException e) {
+            // the reader was closed by the writer
+        } catch (Exception e) {
+            LOG.error("Failed to read fragment " + fragment + " of the request", e);
+            fail(e);
+        }
+    }
+
+    private void readFragment(int fragment) throws Exception {
+        Bridge bridge;
+        ProtocolData fragmentData = protData.getFragment(fragment);
+        synchronized (this) {
+            bridge = (fragment == 0) ? firstBridge : null;
+            firstBridge = null;
+        }
+        if (bridge == null) {
+            bridge = createBridge(fragmentData);
+        }
+
+        PluginLockManager.PluginLock lock = threadSafe ? null :
+                PluginLockManager.getInstance().getLock(fragmentData);
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            if (!bridge.beginIteration()) {
+                return;
+            }
+            try {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Starting streaming fragment " + fragmentData.getDataFragment()
+                            + " of resource " + fragmentData.getDataSource());
+                }
+                while (!stopped) {
+                    RecordBatch batch = freeBatches.take();
+                    if (stopped || bridge.getNextBatch(batch) == 0) {
+                        freeBatches.offer(batch);
+                        break;
+                    }
+                    filledBatches.put(batch);
+                }
+            } finally {
+                try {
+                    bridge.endIteration();
+                } catch (Exception e) {
+                    // ignore ... any significant errors should already have been handled
+                }
+            }
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Creates the bridge reading a fragment.
+     *
+     * @param fragmentData the request data of the fragment
+     * @return the bridge
+     * @throws Exception if the bridge could not be created
+     */
+    protected Bridge createBridge(ProtocolData fragmentData) throws Exception {
+        return BridgeFactory.createReadBridge(fragmentData);
+    }
+
+    /*
+     * Keeps the first failure and stops the other readers
+     */
+    private synchronized void fail(Exception e) {
+        if (!stopped) {
+            failure = e;
+        }
+        stopped = true;
+    }
+
+    /**
+     * Writes the next batch filled by the readers to <code>out</code>,
+     * waiting for the readers if no batch is ready.
+     *
+     * @param out output to write the batch to
+     * @return number of records written, 0 when there are no more records
+     * @throws Exception if a fragment failed, or writing failed
+     */
+    public int writeNextBatch(DataOutput out) throws Exception {
+        RecordBatch batch = filledBatches.take();
+        if (batch == END_OF_DATA) {
+            // leave the marker for the following calls
+            filledBatches.offer(END_OF_DATA);
+            if (failure != null) {
+                throw failure;
+            }
+            return 0;
+        }
+
+        try {
+            batch.write(out);
+            return batch.size();
+        } finally {
+            freeBatches.offer(batch);
+        }
+    }
+
+    /**
+     * Stops the readers and waits for them to finish, so that no bridge is
+     * used once this method returns.
+     *
+     * @throws InterruptedException if interrupted while waiting for the readers
+     */
+    public void close() throws InterruptedException {
+        if (!started || closed) {
+            return;
+        }
+        closed = true;
+        stopped = true;
+        synchronized (this) {
+            for (Thread thread : readerThreads) {
+                if (thread != null) {
+                    thread.interrupt();
+                }
+            }
+        }
+        /* wake up the readers if the interrupt was swallowed while they wait for a batch */
+        for (int i = 0; i < readers; i++) {
+            freeBatches.offer(END_OF_DATA);
+        }
+        readersFinished.await();
+    }
+}
@@ -0,0 +1,163 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulated statistics of the pipelined requests of one profile.
+ * <p>
+ * The busy time of a stage is the time spent doing its own work: reading and
+ * serializing batches for the reader stage, writing batches to the client for
+ * the writer stage. The idle time is the time a stage waited for the other
+ * one. A reader stage that is mostly idle means the client or the network is
+ * the bottleneck, a mostly idle writer stage means the data source or the
+ * plugins are.
+ */
+public class PipelineStats {
+
+    private static final ConcurrentMap<String, PipelineStats> STATS = new ConcurrentHashMap<>();
+
+    private final AtomicLong pipelines = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong readerBusyNanos = new AtomicLong();
+    private final AtomicLong readerIdleNanos = new AtomicLong();
+    private final AtomicLong writerBusyNanos = new AtomicLong();
+    private final AtomicLong writerIdleNanos = new AtomicLong();
+    private final AtomicLong queueDepthSum = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    /**
+     * Returns the statistics of the given profile, creating them if needed.
+     *
+     * @param profile profile name, or the accessor when no profile is used
+     * @return the statistics of the profile
+     */
+    public static PipelineStats forProfile(String profile) {
+        PipelineStats stats = STATS.get(profile);
+        if (stats == null) {
+            PipelineStats newStats = new PipelineStats();
+            stats = STATS.putIfAbsent(profile, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return the statistics of all the profiles that ran pipelined requests
+     */
+    public static Map<String, PipelineStats> getAll() {
+        return Collections.unmodifiableMap(STATS);
+    }
+
+    void pipelineStarted() {
+        pipelines.incrementAndGet();
+    }
+
+    void addReaderTimes(long busyNanos, long idleNanos) {
+        readerBusyNanos.addAndGet(busyNanos);
+        readerIdleNanos.addAndGet(idleNanos);
+    }
+
+    void addWriterTimes(long busyNanos, long idleNanos) {
+        writerBusyNanos.addAndGet(busyNanos);
+        writerIdleNanos.addAndGet(idleNanos);
+    }
+
+    /*
+     * Records the number of filled batches waiting in the queue when the writer
+     * stage takes a batch.
+     */
+    void sampleQueueDepth(int depth) {
+        batches.incrementAndGet();
+        queueDepthSum.addAndGet(depth);
+        long max;
+        while (depth > (max = maxQueueDepth.get())) {
+            if (maxQueueDepth.compareAndSet(max, depth)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return number of pipelined requests
+     */
+    public long getPipelines() {
+        return pipelines.get();
+    }
+
+    /**
+     * @return number of batches sent to the clients
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * @return time spent by the reader stages reading batches, in nanoseconds
+     */
+    public long getReaderBusyNanos() {
+        return readerBusyNanos.get();
+    }
+
+    /**
+     * @return time spent by the reader stages waiting for a free batch, in
+     *         nanoseconds
+     */
+    public long getReaderIdleNanos() {
+        return readerIdleNanos.get();
+    }
+
+    /**
+     * @return time spent by the writer stages writing batches, in nanoseconds
+     */
+    public long getWriterBusyNanos() {
+        return writerBusyNanos.get();
+    }
+
+    /**
+     * @return time spent by the writer stages waiting for a filled batch, in
+     *         nanoseconds
+     */
+    public long getWriterIdleNanos() {
+        return writerIdleNanos.get();
+    }
+
+    /**
+     * @return average number of filled batches waiting in the queue
+     */
+    public double getAverageQueueDepth() {
+        long count = batches.get();
+        return (count == 0) ? 0 : (double) queueDepthSum.get() / count;
+    }
+
+    /**
+     * @return maximum number of filled batches waiting in the queue
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+}
@@ -0,0 +1,294 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.greenplum.pxf.api.utilities.InputData;
+
+/**
+ * Serializes the requests served by non-thread-safe plugins.
+ * <p>
+ * Instead of one lock for the whole JVM, requests are only serialized with the
+ * requests sharing the same lock key. The key is derived from the request
+ * according to its {@link LockScope}, taken from the LOCK-SCOPE option (usually
+ * set by the profile in pxf-profiles-default.xml). Requests without the option
+ * use {@link LockScope#GLOBAL}, which keeps the behavior expected by custom
+ * plugins.
+ * <p>
+ * Locks are reference counted and discarded when no request holds or waits for
+ * them, so that per data source keys do not accumulate. The time spent waiting
+ * for the locks is collected and available through the getters of this class.
+ */
+public class PluginLockManager {
+
+    private static final Log LOG = LogFactory.getLog(PluginLockManager.class);
+    public static final String LOCK_SCOPE_OPTION = "LOCK-SCOPE";
+    private static final PluginLockManager INSTANCE = new PluginLockManager();
+
+    /**
+     * Granularity of the mutual exclusion between non-thread-safe requests.
+     */
+    public enum LockScope {
+        /** all non-thread-safe requests are serialized */
+        GLOBAL,
+        /** requests using the same accessor and resolver are serialized */
+        PLUGIN,
+        /** requests using the same compression codec are serialized */
+        CODEC,
+        /** requests on the same data source are serialized */
+        DATASOURCE
+    }
+
+    private final Map<String, LockEntry> locks = new HashMap<>();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong contentions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private volatile CompressionCodecFactory codecFactory;
+
+    /**
+     * @return the lock manager shared by the PXF resources
+     */
+    public static PluginLockManager getInstance() {
+        return INSTANCE;
+    }
+
+    PluginLockManager() {
+    }
+
+    /**
+     * Returns the lock protecting the given request. The lock is not acquired.
+     *
+     * @param inputData the request data
+     * @return the lock of the request
+     */
+    public PluginLock getLock(InputData inputData) {
+        return new PluginLock(getLockKey(inputData));
+    }
+
+    /**
+     * Computes the lock key of the request according to its lock scope.
+     *
+     * @param inputData the request data
+     * @return the lock key
+     */
+    String getLockKey(InputData inputData) {
+        LockScope scope = getLockScope(inputData);
+        switch (scope) {
+            case PLUGIN:
+                return "plugin:" + inputData.getAccessor() + "," + inputData.getResolver();
+            case CODEC:
+                return "codec:" + getCodecName(inputData);
+            case DATASOURCE:
+                return "datasource:" + inputData.getDataSource();
+            default:
+                return "global";
+        }
+    }
+
+    /**
+     * Returns the lock scope of the request, from the LOCK-SCOPE option.
+     *
+     * @param inputData the request data
+     * @return the lock scope, GLOBAL if not set
+     * @throws IllegalArgumentException if the option value is not a valid scope
+     */
+    static LockScope getLockScope(InputData inputData) {
+        String scope = inputData.getUserProperty(LOCK_SCOPE_OPTION);
+        if (scope == null) {
+            return LockScope.GLOBAL;
+        }
+        try {
+            return LockScope.valueOf(scope.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Illegal " + LOCK_SCOPE_OPTION
+                    + " value '" + scope + "'. Usage: [GLOBAL|PLUGIN|CODEC|DATASOURCE]");
+        }
+    }
+
+    /*
+     * The codec given by COMPRESSION_CODEC, or otherwise the codec matching
+     * the data source path, like HdfsUtilities.isThreadSafe does.
+     */
+    private String getCodecName(InputData inputData) {
+        String codec = inputData.getUserProperty("COMPRESSION_CODEC");
+        if (codec != null) {
+            return codec;
+        }
+        String dataSource = inputData.getDataSource();
+        if (dataSource == null || dataSource.isEmpty()) {
+            return "none";
+        }
+        CompressionCodec codecByPath = getCodecFactory().getCodec(new Path(dataSource));
+        return (codecByPath == null) ? "none" : codecByPath.getClass().getName();
+    }
+
+    private CompressionCodecFactory getCodecFactory() {
+        if (codecFactory == null) {
+            codecFactory = new CompressionCodecFactory(new Configuration());
+        }
+        return codecFactory;
+    }
+
+    private LockEntry reference(String key) {
+        synchronized (locks) {
+            LockEntry entry = locks.get(key);
+            if (entry == null) {
+                entry = new LockEntry();
+                locks.put(key, entry);
+            }
+            entry.references++;
+            return entry;
+        }
+    }
+
+    private void dereference(String key, LockEntry entry) {
+        synchronized (locks) {
+            if (--entry.references == 0) {
+                locks.remove(key);
+            }
+        }
+    }
+
+    private void recordWait(long waitNanos, boolean contended) {
+        acquisitions.incrementAndGet();
+        if (!contended) {
+            return;
+        }
+        contentions.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        long max;
+        while (waitNanos > (max = maxWaitNanos.get())) {
+            if (maxWaitNanos.compareAndSet(max, waitNanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return number of locks acquired
+     */
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    /**
+     * @return number of lock acquisitions that had to wait for another request
+     */
+    public long getContentions() {
+        return contentions.get();
+    }
+
+    /**
+     * @return total time spent waiting for locks, in nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    /**
+     * @return longest time spent waiting for a lock, in nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * @return number of locks currently held or waited for
+     */
+    public int getActiveLocks() {
+        synchronized (locks) {
+            return locks.size();
+        }
+    }
+
+    private static class LockEntry {
+        private final ReentrantLock lock = new ReentrantLock();
+        // guarded by the locks map
+        private int references;
+    }
+
+    /**
+     * Lock of a single request. Must be unlocked by the thread that locked it.
+     */
+    public class PluginLock {
+        private final String key;
+        private LockEntry entry;
+
+        private PluginLock(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return the key identifying the lock
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Acquires the lock, waiting for the requests holding it.
+         */
+        public void lock() {
+            if (entry != null) {
+                throw new IllegalStateException("lock " + key + " is already held");
+            }
+            LOG.trace("Locking " + key);
+            LockEntry lockEntry = reference(key);
+            boolean contended = !lockEntry.lock.tryLock();
+            long start = System.nanoTime();
+            if (contended) {
+                lockEntry.lock.lock();
+            }
+            long waitNanos = System.nanoTime() - start;
+            entry = lockEntry;
+            recordWait(waitNanos, contended);
+            if (contended && LOG.isDebugEnabled()) {
+                LOG.debug("Waited " + (waitNanos / 1000000) + " ms for lock " + key);
+            }
+            LOG.trace("Locked " + key);
+        }
+
+        /**
+         * Releases the lock.
+         */
+        public void unlock() {
+            if (entry == null) {
+                throw new IllegalStateException("lock " + key + " is not held");
+            }
+            LOG.trace("Unlocking " + key);
+            LockEntry lockEntry = entry;
+            entry = null;
+            lockEntry.lock.unlock();
+            dereference(key, lockEntry);
+            LOG.trace("Unlocked " + key);
+        }
+    }
+}
@@ -20,20 +20,32 @@ package org.greenplum.pxf.service;
  */
 
 import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
 import org.greenplum.pxf.api.ReadAccessor;
+import org.greenplum.pxf.api.OutputFormat;
+import org.greenplum.pxf.api.ProjectionResolver;
 import org.greenplum.pxf.api.ReadResolver;
+import org.greenplum.pxf.api.RowBuffer;
+import org.greenplum.pxf.api.RowBufferResolver;
+import org.greenplum.pxf.api.RowFilter;
+import org.greenplum.pxf.api.SamplingAccessor;
+import org.greenplum.pxf.api.utilities.ColumnDescriptor;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.api.utilities.Plugin;
 import org.greenplum.pxf.api.utilities.Utilities;
+import org.greenplum.pxf.service.io.RecordBatch;
 import org.greenplum.pxf.service.io.Writable;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.*;
 import java.nio.charset.CharacterCodingException;
+import java.util.BitSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.zip.ZipException;
 
 /**
@@ -42,13 +54,26 @@ import java.util.zip.ZipException;
  * get records from accessor, let resolver deserialize them and reserialize them
  * using the output conversion class. <br>
  * The class handles BadRecordException and other exception type and marks the
- * record as invalid for GPDB.
+ * record as invalid for GPDB. <br>
+ * When the FILTER-EVALUATION option is set, the records not matching the
+ * filter of the request are dropped before being serialized. <br>
+ * When the resolver is a {@link ProjectionResolver}, it decodes only the
+ * columns projected by the query and the columns of the evaluated filter.
+ * <br>
+ * When the resolver is a {@link RowBufferResolver} and the output format is
+ * GPDBWritable, the records of a batch are resolved into a {@link RowBuffer}
+ * and serialized from it, without creating fields.
  */
 public class ReadBridge implements Bridge {
     ReadAccessor fileAccessor = null;
     ReadResolver fieldsResolver = null;
     BridgeOutputBuilder outputBuilder = null;
     LinkedList<Writable> outputQueue = null;
+    RowFilter rowFilter = null;
+    RowBuffer rowBuffer = null;
+    int columns;
+    boolean endOfData = false;
+    RequestMetrics metrics = RequestMetrics.disabled();
 
     private static final Log LOG = LogFactory.getLog(ReadBridge.class);
 
@@ -63,6 +88,21 @@ public class ReadBridge implements Bridge {
         outputQueue = new LinkedList<Writable>();
         fileAccessor = getFileAccessor(protData);
         fieldsResolver = getFieldsResolver(protData);
+        // the objects of a sampling accessor are whole records, sent as is
+        outputBuilder.setSplitLines(!isSamplingAccessor());
+        rowFilter = getRowFilter(protData);
+        columns = protData.getColumns();
+        if (fieldsResolver instanceof ProjectionResolver) {
+            boolean[] projection = getProjection(protData, rowFilter);
+            if (projection != null) {
+                ((ProjectionResolver) fieldsResolver).setProjection(projection);
+            }
+        }
+        if (fieldsResolver instanceof RowBufferResolver
+                && protData.outputFormat() == OutputFormat.GPDBWritable
+                && rowFilter == null) {
+            rowBuffer = new RowBuffer(protData);
+        }
     }
 
     /**
@@ -88,7 +128,7 @@ public class ReadBridge implements Bridge {
 
         try {
             while (outputQueue.isEmpty()) {
-                onerow = fileAccessor.readNextObject();
+                onerow = readNextObject();
                 if (onerow == null) {
                     output = outputBuilder.getPartialLine();
                     if (output != null) {
@@ -101,7 +141,7 @@ public class ReadBridge implements Bridge {
 
                 // we checked before that outputQueue is empty, so we can
                 // override it.
-                outputQueue = outputBuilder.makeOutput(fieldsResolver.getFields(onerow));
+                outputQueue = makeOutput(getFields(onerow));
                 if (!outputQueue.isEmpty()) {
                     output = outputQueue.pop();
                     break;
@@ -113,16 +153,7 @@ public class ReadBridge implements Bridge {
             }
             output = outputBuilder.getErrorOutput(ex);
         } catch (BadRecordException ex) {
-            String row_info = "null";
-            if (onerow != null) {
-                row_info = onerow.toString();
-            }
-            if (ex.getCause() != null) {
-                LOG.debug("BadRecordException " + ex.getCause().toString()
-                        + ": " + row_info);
-            } else {
-                LOG.debug(ex.toString() + ": " + row_info);
-            }
+            logBadRecord(ex, onerow);
             output = outputBuilder.getErrorOutput(ex);
         } catch (Exception ex) {
             throw ex;
@@ -131,6 +162,190 @@ public class ReadBridge implements Bridge {
         return output;
     }
 
+    /**
+     * Fills the batch with the records built from the next objects of the
+     * file. Records are serialized into the batch as soon as they are built,
+     * so no per-record queue is involved. Bad records are replaced by an error
+     * record, like in {@link #getNext()}.
+     */
+    @Override
+    public int getNextBatch(RecordBatch batch) throws Exception {
+        batch.clear();
+
+        // leftovers of a previous getNext call
+        while (!outputQueue.isEmpty() && !batch.isFull()) {
+            batch.add(outputQueue.pop());
+        }
+
+        while (!endOfData && !batch.isFull()) {
+            OneRow onerow = null;
+            try {
+                onerow = readNextObject();
+                if (onerow == null) {
+                    endOfData = true;
+                    Writable partialLine = outputBuilder.getPartialLine();
+                    if (partialLine != null) {
+                        LOG.warn("A partial record in the end of the fragment");
+                        batch.add(partialLine);
+                    }
+                    break;
+                }
+                addToBatch(onerow, batch);
+            } catch (IOException ex) {
+                if (!isDataException(ex)) {
+                    throw ex;
+                }
+                batch.add(outputBuilder.getErrorOutput(ex));
+            } catch (BadRecordException ex) {
+                logBadRecord(ex, onerow);
+                batch.add(outputBuilder.getErrorOutput(ex));
+            }
+        }
+
+        return batch.size();
+    }
+
+    /**
+     * @return true if the accessor can skip the records discarded by sampling
+     */
+    boolean isSamplingAccessor() {
+        return fileAccessor instanceof SamplingAccessor
+                && ((SamplingAccessor) fileAccessor).supportsSampling();
+    }
+
+    /**
+     * Skips the given number of records, and returns the output record of the
+     * record following them. The skipped records are neither resolved nor
+     * serialized. Bad records are replaced by an error record, like in
+     * {@link #getNext()}.
+     *
+     * @param skip the number of records to skip
+     * @return the output record, null when there is no more data
+     * @throws Exception if reading or resolving the record failed
+     */
+    Writable getNextSample(long skip) throws Exception {
+        OneRow onerow = null;
+        try {
+            while (true) {
+                metrics.nextRow();
+                long start = metrics.startStage();
+                onerow = ((SamplingAccessor) fileAccessor).readNextSample(skip);
+                metrics.endAccessorStage(start);
+                if (onerow == null) {
+                    return null;
+                }
+
+                // a single record gives a single output record
+                LinkedList<Writable> output = makeOutput(getFields(onerow));
+                if (!output.isEmpty()) {
+                    return output.getFirst();
+                }
+                skip = 0;
+            }
+        } catch (IOException ex) {
+            if (!isDataException(ex)) {
+                throw ex;
+            }
+            return outputBuilder.getErrorOutput(ex);
+        } catch (BadRecordException ex) {
+            logBadRecord(ex, onerow);
+            return outputBuilder.getErrorOutput(ex);
+        }
+    }
+
+    /**
+     * Resolves the given object and adds the resulting records to the batch.
+     *
+     * @param onerow object read by the accessor
+     * @param batch batch to add the records to
+     * @throws Exception if resolving or serializing the object failed
+     */
+    protected void addToBatch(OneRow onerow, RecordBatch batch) throws Exception {
+        if (rowBuffer != null) {
+            long start = metrics.startStage();
+            rowBuffer.clear();
+            ((RowBufferResolver) fieldsResolver).fillRow(onerow, rowBuffer);
+            metrics.endResolverStage(start);
+            start = metrics.startStage();
+            outputBuilder.addColumnBatch(rowBuffer.getColumnBatch(), batch);
+            metrics.endBuilderStage(start);
+            return;
+        }
+        for (Writable output : makeOutput(getFields(onerow))) {
+            batch.add(output);
+        }
+    }
+
+    /**
+     * Reads the next object from the accessor, timing it in the metrics of
+     * the request.
+     *
+     * @return the next object, null when there is no more data
+     * @throws Exception if reading failed
+     */
+    protected OneRow readNextObject() throws Exception {
+        metrics.nextRow();
+        long start = metrics.startStage();
+        OneRow onerow = fileAccessor.readNextObject();
+        metrics.endAccessorStage(start);
+        return onerow;
+    }
+
+    /**
+     * Resolves the given object, timing it in the metrics of the request.
+     *
+     * @param onerow object read by the accessor
+     * @return the fields of the record
+     * @throws Exception if resolving failed
+     */
+    protected List<OneField> getFields(OneRow onerow) throws Exception {
+        long start = metrics.startStage();
+        List<OneField> fields = fieldsResolver.getFields(onerow);
+        metrics.endResolverStage(start);
+        return fields;
+    }
+
+    /**
+     * Builds the output records of the given fields, timing it in the metrics
+     * of the request.
+     *
+     * @param fields the fields of the record
+     * @return the output records
+     * @throws BadRecordException if building the output records failed
+     */
+    protected LinkedList<Writable> makeOutput(List<OneField> fields) throws BadRecordException {
+        long start = metrics.startStage();
+        if (!isAccepted(fields)) {
+            metrics.endBuilderStage(start);
+            return new LinkedList<Writable>();
+        }
+        LinkedList<Writable> output = outputBuilder.makeOutput(fields);
+        metrics.endBuilderStage(start);
+        return output;
+    }
+
+    /*
+     * Records whose fields are not one per column are always sent, the
+     * indexes of the filter could not be matched with their fields.
+     */
+    private boolean isAccepted(List<OneField> fields) {
+        return rowFilter == null || fields.size() != columns
+                || rowFilter.accept(fields);
+    }
+
+    void logBadRecord(BadRecordException ex, OneRow onerow) {
+        String row_info = "null";
+        if (onerow != null) {
+            row_info = onerow.toString();
+        }
+        if (ex.getCause() != null) {
+            LOG.debug("BadRecordException " + ex.getCause().toString()
+                    + ": " + row_info);
+        } else {
+            LOG.debug(ex.toString() + ": " + row_info);
+        }
+    }
+
     /**
      * Close the underlying resource
      */
@@ -155,6 +370,50 @@ public class ReadBridge implements Bridge {
                 inputData.getResolver(), inputData);
     }
 
+    /**
+     * Compiles the filter of the request when it is evaluated by PXF. Only
+     * records output as GPDBWritable have one field per column the filter
+     * can be evaluated on. The filter is not required to be evaluated, GPDB
+     * applies it anyway, so a filter that cannot be parsed is ignored.
+     *
+     * @param protData request data with the filter string
+     * @return the row filter, null if the filter is not evaluated
+     */
+    static RowFilter getRowFilter(ProtocolData protData) {
+        if (!protData.isFilterEvaluated() || !protData.hasFilter()
+                || protData.outputFormat() != OutputFormat.GPDBWritable) {
+            return null;
+        }
+        try {
+            return RowFilter.compile(protData);
+        } catch (Exception e) {
+            LOG.warn("Filter " + protData.getFilterString()
+                    + " is not evaluated: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the columns whose values are needed: the columns projected by
+     * the query, and the columns of the filter evaluated by PXF.
+     *
+     * @param protData request data with the projected columns
+     * @param rowFilter the evaluated filter, null if none
+     * @return for each column whether its value is needed, null if all the
+     *         columns are needed
+     */
+    static boolean[] getProjection(ProtocolData protData, RowFilter rowFilter) {
+        BitSet filterColumns = (rowFilter == null) ? new BitSet() : rowFilter.getColumns();
+        boolean[] projection = new boolean[protData.getColumns()];
+        boolean projected = true;
+        for (int i = 0; i < projection.length; i++) {
+            ColumnDescriptor column = protData.getColumn(i);
+            projection[i] = column.isProjected() || filterColumns.get(i);
+            projected &= projection[i];
+        }
+        return projected ? null : projection;
+    }
+
     /*
      * There are many exceptions that inherit IOException. Some of them like
      * EOFException are generated due to a data problem, and not because of an
@@ -178,6 +437,11 @@ public class ReadBridge implements Bridge {
         throw new UnsupportedOperationException("setNext is not implemented");
     }
 
+    @Override
+    public void setMetrics(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public boolean isThreadSafe() {
         boolean result = ((Plugin) fileAccessor).isThreadSafe()
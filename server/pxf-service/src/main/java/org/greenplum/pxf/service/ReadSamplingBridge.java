@@ -25,7 +25,10 @@ import java.util.BitSet;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.greenplum.pxf.api.SamplingAccessor;
+import org.greenplum.pxf.service.io.RecordBatch;
 import org.greenplum.pxf.service.io.Writable;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 import org.greenplum.pxf.service.utilities.AnalyzeUtils;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 
@@ -39,7 +42,10 @@ import org.greenplum.pxf.api.utilities.ProtocolData;
  * creating a bit map matching the precision of the sampleRatio, so that for a
  * ratio of 0.034, a bit-map of 1000 bits will be created, and 34 bits will be
  * set. This map is matched against each read record, discarding ones with a 0
- * bit and continuing until a 1 bit record is read.
+ * bit and continuing until a 1 bit record is read. <br>
+ * When the accessor is a {@link SamplingAccessor}, the records matching 0 bits
+ * are skipped by the accessor instead, and only the sampled records are
+ * resolved and serialized.
  */
 public class ReadSamplingBridge implements Bridge {
 
@@ -50,6 +56,7 @@ public class ReadSamplingBridge implements Bridge {
     int bitSetSize;
     int sampleSize;
     int curIndex;
+    boolean samplingAccessor;
 
     private static final Log LOG = LogFactory.getLog(ReadSamplingBridge.class);
 
@@ -74,6 +81,7 @@ public class ReadSamplingBridge implements Bridge {
         this.sampleBitSet = AnalyzeUtils.generateSamplingBitSet(bitSetSize,
                 sampleSize);
         this.curIndex = 0;
+        this.samplingAccessor = bridge.isSamplingAccessor();
     }
 
     private void calculateBitSetSize() {
@@ -94,6 +102,10 @@ public class ReadSamplingBridge implements Bridge {
      */
     @Override
     public Writable getNext() throws Exception {
+        if (samplingAccessor) {
+            return getNextSample();
+        }
+
         Writable output = bridge.getNext();
 
         // sample - if bit is false, advance to the next object
@@ -110,6 +122,39 @@ public class ReadSamplingBridge implements Bridge {
         return output;
     }
 
+    /*
+     * Counts the records of the 0 bits before the next 1 bit, and lets the
+     * accessor skip them.
+     */
+    private Writable getNextSample() throws Exception {
+        if (sampleBitSet.isEmpty()) {
+            return null;
+        }
+
+        long skip = 0;
+        while (!sampleBitSet.get(curIndex)) {
+            skip++;
+            incIndex();
+        }
+
+        incIndex();
+        return bridge.getNextSample(skip);
+    }
+
+    /**
+     * Fills the batch with the next samples. Sampling is done record by
+     * record, so the wrapped bridge is drained through {@link #getNext()}.
+     */
+    @Override
+    public int getNextBatch(RecordBatch batch) throws Exception {
+        batch.clear();
+        Writable output;
+        while (!batch.isFull() && (output = getNext()) != null) {
+            batch.add(output);
+        }
+        return batch.size();
+    }
+
     private void incIndex() {
         curIndex = (++curIndex) % bitSetSize;
     }
@@ -133,4 +178,9 @@ public class ReadSamplingBridge implements Bridge {
     public boolean isThreadSafe() {
         return bridge.isThreadSafe();
     }
+
+    @Override
+    public void setMetrics(RequestMetrics metrics) {
+        bridge.setMetrics(metrics);
+    }
 }
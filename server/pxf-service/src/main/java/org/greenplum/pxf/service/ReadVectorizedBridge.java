@@ -24,19 +24,34 @@ import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.ColumnBatch;
+import org.greenplum.pxf.api.ColumnBatchResolver;
 import org.greenplum.pxf.api.OneField;
 import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.OutputFormat;
 import org.greenplum.pxf.api.ReadVectorizedResolver;
+import org.greenplum.pxf.service.io.RecordBatch;
 import org.greenplum.pxf.service.io.Writable;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 
-
+/**
+ * Bridge of the resolvers resolving a batch of records at once. When the
+ * resolver is a {@link ColumnBatchResolver}, the batches of records are
+ * resolved into a {@link ColumnBatch} and serialized straight from its
+ * vectors. Otherwise, and when the records must be processed one by one
+ * (single record reads, evaluated filter), each record of the batch is
+ * resolved into a list of fields.
+ */
 public class ReadVectorizedBridge extends ReadBridge {
 
     private static final Log LOG = LogFactory.getLog(ReadVectorizedBridge.class);
+    private final ColumnBatch columnBatch;
 
     public ReadVectorizedBridge(ProtocolData protData) throws Exception {
         super(protData);
+        columnBatch = (fieldsResolver instanceof ColumnBatchResolver
+                && protData.outputFormat() == OutputFormat.GPDBWritable
+                && rowFilter == null) ? new ColumnBatch(protData.getColumns()) : null;
     }
 
     @Override
@@ -50,7 +65,7 @@ public class ReadVectorizedBridge extends ReadBridge {
 
         try {
             while (outputQueue.isEmpty()) {
-                batch = fileAccessor.readNextObject();
+                batch = readNextObject();
                 if (batch == null) {
                     output = outputBuilder.getPartialLine();
                     if (output != null) {
@@ -63,8 +78,10 @@ public class ReadVectorizedBridge extends ReadBridge {
 
                 // we checked before that outputQueue is empty, so we can
                 // override it.
-                List<List<OneField>> resolvedBatch = ((ReadVectorizedResolver) fieldsResolver).getFieldsForBatch(batch);
+                List<List<OneField>> resolvedBatch = getFieldsForBatch(batch);
+                long start = metrics.startStage();
                 outputQueue = outputBuilder.makeVectorizedOutput(resolvedBatch);
+                metrics.endBuilderStage(start);
                 if (!outputQueue.isEmpty()) {
                     output = outputQueue.pop();
                     break;
@@ -76,16 +93,7 @@ public class ReadVectorizedBridge extends ReadBridge {
             }
             output = outputBuilder.getErrorOutput(ex);
         } catch (BadRecordException ex) {
-            String row_info = "null";
-            if (batch != null) {
-                row_info = batch.toString();
-            }
-            if (ex.getCause() != null) {
-                LOG.debug("BadRecordException " + ex.getCause().toString()
-                        + ": " + row_info);
-            } else {
-                LOG.debug(ex.toString() + ": " + row_info);
-            }
+            logBadRecord(ex, batch);
             output = outputBuilder.getErrorOutput(ex);
         } catch (Exception ex) {
             throw ex;
@@ -94,6 +102,41 @@ public class ReadVectorizedBridge extends ReadBridge {
         return output;
     }
 
+    /**
+     * Resolves a whole batch of rows and serializes them one by one into the
+     * record batch. Unlike {@link BridgeOutputBuilder#makeVectorizedOutput},
+     * this reuses a single output record for all the rows, and with a
+     * {@link ColumnBatchResolver} no field is created at all.
+     */
+    @Override
+    protected void addToBatch(OneRow batch, RecordBatch recordBatch) throws Exception {
+        if (columnBatch != null) {
+            long start = metrics.startStage();
+            ((ColumnBatchResolver) fieldsResolver).getColumnsForBatch(batch, columnBatch);
+            metrics.endResolverStage(start);
+            start = metrics.startStage();
+            outputBuilder.addColumnBatch(columnBatch, recordBatch);
+            metrics.endBuilderStage(start);
+            return;
+        }
+        List<List<OneField>> resolvedBatch = getFieldsForBatch(batch);
+        if (resolvedBatch == null) {
+            return;
+        }
+        for (List<OneField> record : resolvedBatch) {
+            for (Writable output : makeOutput(record)) {
+                recordBatch.add(output);
+            }
+        }
+    }
+
+    private List<List<OneField>> getFieldsForBatch(OneRow batch) throws Exception {
+        long start = metrics.startStage();
+        List<List<OneField>> resolvedBatch = ((ReadVectorizedResolver) fieldsResolver).getFieldsForBatch(batch);
+        metrics.endResolverStage(start);
+        return resolvedBatch;
+    }
+
     @Override
     public void endIteration() throws Exception {
         fileAccessor.closeForRead();
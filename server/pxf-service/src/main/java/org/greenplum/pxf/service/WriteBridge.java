@@ -20,12 +20,14 @@ package org.greenplum.pxf.service;
  */
 
 
-import org.greenplum.pxf.api.*;
 import org.greenplum.pxf.api.*;
 import org.greenplum.pxf.api.utilities.InputData;
 import org.greenplum.pxf.api.utilities.Plugin;
 import org.greenplum.pxf.api.utilities.Utilities;
+import org.greenplum.pxf.service.io.GPDBRecordView;
+import org.greenplum.pxf.service.io.RecordBatch;
 import org.greenplum.pxf.service.io.Writable;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -42,7 +44,10 @@ public class WriteBridge implements Bridge {
     private static final Log LOG = LogFactory.getLog(WriteBridge.class);
     WriteAccessor fileAccessor = null;
     WriteResolver fieldsResolver = null;
+    /* set when the resolver reads the GPDBWritable records directly */
+    RecordViewWriteResolver viewResolver = null;
     BridgeInputBuilder inputBuilder;
+    RequestMetrics metrics = RequestMetrics.disabled();
 
     /*
      * C'tor - set the implementation of the bridge
@@ -53,7 +58,10 @@ public class WriteBridge implements Bridge {
         /* plugins accept InputData parameters */
         fileAccessor = getFileAccessor(protocolData);
         fieldsResolver = getFieldsResolver(protocolData);
-
+        if (fieldsResolver instanceof RecordViewWriteResolver
+                && protocolData.outputFormat() == OutputFormat.GPDBWritable) {
+            viewResolver = (RecordViewWriteResolver) fieldsResolver;
+        }
     }
 
     /*
@@ -71,21 +79,109 @@ public class WriteBridge implements Bridge {
     @Override
     public boolean setNext(DataInputStream inputStream) throws Exception {
 
-        List<OneField> record = inputBuilder.makeInput(inputStream);
-        if (record == null) {
-            return false;
+        metrics.nextRow();
+        long start = metrics.startStage();
+        OneRow onerow;
+        if (viewResolver != null) {
+            RecordView record = inputBuilder.makeView(inputStream);
+            metrics.endBuilderStage(start);
+            if (record == null) {
+                return false;
+            }
+
+            start = metrics.startStage();
+            onerow = viewResolver.setFields(record);
+        } else {
+            List<OneField> record = inputBuilder.makeInput(inputStream);
+            metrics.endBuilderStage(start);
+            if (record == null) {
+                return false;
+            }
+
+            start = metrics.startStage();
+            onerow = fieldsResolver.setFields(record);
         }
-
-        OneRow onerow = fieldsResolver.setFields(record);
+        metrics.endResolverStage(start);
         if (onerow == null) {
             return false;
         }
-        if (!fileAccessor.writeNextObject(onerow)) {
+        start = metrics.startStage();
+        boolean written = fileAccessor.writeNextObject(onerow);
+        metrics.endAccessorStage(start);
+        if (!written) {
             throw new BadRecordException();
         }
         return true;
     }
 
+    /**
+     * Reads records from the stream into the batch, until the batch is full
+     * or the stream ends. Only the records are decoded, they are resolved and
+     * written by {@link #writeBatch(InputBatch)}, possibly in another thread.
+     *
+     * @param inputStream stream to read from
+     * @param batch batch to fill, cleared first
+     * @return false if the end of the stream was reached
+     * @throws Exception if a record could not be decoded
+     */
+    public boolean readNextBatch(DataInputStream inputStream, InputBatch batch) throws Exception {
+        batch.clear();
+        while (!batch.isFull()) {
+            if (viewResolver != null) {
+                GPDBRecordView view = batch.nextView(inputBuilder);
+                view.readFields(inputStream);
+                if (view.isEmpty()) {
+                    return false;
+                }
+                batch.addView();
+                continue;
+            }
+            List<OneField> record = inputBuilder.makeInput(inputStream);
+            if (record != null) {
+                batch.add(record);
+            }
+            if (inputBuilder.isEndOfStream()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the records of the batch and writes them with the accessor,
+     * all at once if it is a {@link BatchWriteAccessor}, one by one otherwise.
+     * The records are written up to the first one the resolver does not
+     * convert, like with {@link #setNext(DataInputStream)}.
+     *
+     * @param batch batch filled by {@link #readNextBatch(DataInputStream, InputBatch)}
+     * @return number of records written
+     * @throws Exception if a record could not be resolved or written
+     */
+    public int writeBatch(InputBatch batch) throws Exception {
+        boolean batchAccessor = fileAccessor instanceof BatchWriteAccessor;
+        int size = batch.size();
+        int written = 0;
+        while (written < size) {
+            OneRow onerow = (viewResolver != null)
+                    ? viewResolver.setFields(batch.getView(written))
+                    : fieldsResolver.setFields(batch.getRecords().get(written));
+            if (onerow == null) {
+                break;
+            }
+            if (batchAccessor) {
+                batch.addRow(onerow);
+            } else if (!fileAccessor.writeNextObject(onerow)) {
+                throw new BadRecordException();
+            }
+            written++;
+        }
+        if (batchAccessor && written > 0
+                && !((BatchWriteAccessor) fileAccessor).writeNextBatch(batch.getRows())) {
+            throw new BadRecordException();
+        }
+        return written;
+    }
+
     /*
      * Close the underlying resource
      */
@@ -111,6 +207,16 @@ public class WriteBridge implements Bridge {
         throw new UnsupportedOperationException("getNext is not implemented");
     }
 
+    @Override
+    public int getNextBatch(RecordBatch batch) {
+        throw new UnsupportedOperationException("getNextBatch is not implemented");
+    }
+
+    @Override
+    public void setMetrics(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public boolean isThreadSafe() {
         return ((Plugin) fileAccessor).isThreadSafe() && ((Plugin) fieldsResolver).isThreadSafe();
@@ -0,0 +1,225 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.security.UserGroupInformation;
+
+/**
+ * Runs the writing side of a write bridge (resolver and accessor) in its own
+ * thread, while the thread of the request decodes the records sent by GPDB.
+ * <p>
+ * The decoding stage fills {@link InputBatch}es taken from a fixed pool and
+ * queues them. The writing stage resolves the queued batches, writes them to
+ * the data source and gives them back to the pool. At most <code>depth</code>
+ * batches are decoded ahead of the writing stage, so a slow data source
+ * eventually blocks the decoding of the input stream.
+ * <p>
+ * The writing stage runs as the user of the thread starting the pipeline, so
+ * that impersonation applies to it. The caller must {@link #close()} the
+ * pipeline before ending the iteration of the bridge.
+ */
+public class WritePipeline {
+
+    private static final Log LOG = LogFactory.getLog(WritePipeline.class);
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("pxf-write-pipeline-%d").setDaemon(true).build());
+    // marks the end of the data in the queue of filled batches
+    private static final InputBatch END_OF_DATA = new InputBatch(1, 1);
+
+    private final WriteBridge bridge;
+    private final BlockingQueue<InputBatch> freeBatches;
+    private final BlockingQueue<InputBatch> filledBatches;
+    private final CountDownLatch writerFinished = new CountDownLatch(1);
+    // set when the writing stage stops before the end of the data
+    private volatile boolean stopped;
+    private volatile Exception failure;
+    private volatile long recordsWritten;
+    private boolean started;
+
+    /**
+     * Constructs a pipeline over a bridge whose iteration has begun.
+     *
+     * @param bridge the bridge to write with
+     * @param depth maximum number of batches decoded ahead of the writing stage
+     */
+    public WritePipeline(WriteBridge bridge, int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("pipeline depth must be positive (" + depth + ")");
+        }
+        this.bridge = bridge;
+        /* one more batch than the depth, for the batch being written */
+        freeBatches = new ArrayBlockingQueue<>(depth + 1);
+        for (int i = 0; i <= depth; i++) {
+            freeBatches.add(new InputBatch());
+        }
+        /* room for all the batches and the end marker, so that offering it never blocks */
+        filledBatches = new ArrayBlockingQueue<>(depth + 2);
+    }
+
+    /**
+     * Starts the writing stage.
+     *
+     * @throws IOException if the current user could not be determined
+     */
+    public void start() throws IOException {
+        final UserGroupInformation ugi = UserGroupInformation.getCurrentUser();
+        started = true;
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ugi.doAs(new PrivilegedExceptionAction<Void>() {
+                        @Override
+                        public Void run() {
+                            write();
+                            return null;
+                        }
+                    });
+                } catch (Exception e) {
+                    failure = e;
+                    stop();
+                } finally {
+                    writerFinished.countDown();
+                }
+            }
+        });
+    }
+
+    /*
+     * The writing stage: writes the filled batches until the end of the data,
+     * the first record the resolver does not convert, or a failure.
+     */
+    private void write() {
+        long busyNanos = 0;
+        long idleNanos = 0;
+        long records = 0;
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                InputBatch batch = filledBatches.take();
+                long taken = System.nanoTime();
+                idleNanos += taken - start;
+                if (batch == END_OF_DATA) {
+                    break;
+                }
+                int written = bridge.writeBatch(batch);
+                records += written;
+                recordsWritten = records;
+                busyNanos += System.nanoTime() - taken;
+                if (written < batch.size()) {
+                    break;
+                }
+                freeBatches.offer(batch);
+            }
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Write pipeline writing stage busy " + (busyNanos / 1000000)
+                        + " ms, idle " + (idleNanos / 1000000) + " ms");
+            }
+            stop();
+        }
+    }
+
+    /*
+     * Tells the decoding stage that no more batches are written, waking it
+     * up if it waits for a free batch.
+     */
+    private void stop() {
+        stopped = true;
+        freeBatches.offer(END_OF_DATA);
+    }
+
+    /**
+     * Decodes the records of the stream in batches and queues them to the
+     * writing stage, until the end of the stream or until the writing stage
+     * stops.
+     *
+     * @param inputStream stream sent by GPDB
+     * @throws Exception if decoding failed, or the writing stage failed
+     */
+    public void readFrom(DataInputStream inputStream) throws Exception {
+        long busyNanos = 0;
+        long idleNanos = 0;
+        try {
+            boolean more = true;
+            while (more) {
+                long start = System.nanoTime();
+                InputBatch batch = freeBatches.take();
+                long taken = System.nanoTime();
+                idleNanos += taken - start;
+                if (stopped) {
+                    break;
+                }
+                more = bridge.readNextBatch(inputStream, batch);
+                busyNanos += System.nanoTime() - taken;
+                filledBatches.put(batch);
+            }
+        } finally {
+            filledBatches.offer(END_OF_DATA);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Write pipeline decoding stage busy " + (busyNanos / 1000000)
+                        + " ms, idle " + (idleNanos / 1000000) + " ms");
+            }
+        }
+        writerFinished.await();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return number of records written so far by the writing stage
+     */
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Waits for the writing stage to finish, so that the bridge is no longer
+     * used once this method returns. The batches decoded before a failure of
+     * the decoding stage are still written, as the records preceding a bad
+     * record are without pipeline.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer
+     */
+    public void close() throws InterruptedException {
+        if (!started) {
+            return;
+        }
+        /* in case the decoding stage did not run */
+        filledBatches.offer(END_OF_DATA);
+        writerFinished.await();
+    }
+}
@@ -32,6 +32,8 @@ import java.lang.UnsupportedOperationException;
 public class BufferWritable implements Writable {
 
     byte[] buf = null;
+    int offset;
+    int length;
 
     /**
      * Constructs a BufferWritable. Copies the buffer reference and not the
@@ -42,7 +44,22 @@ public class BufferWritable implements Writable {
      * @param inBuf buffer
      */
     public BufferWritable(byte[] inBuf) {
+        this(inBuf, 0, (inBuf == null) ? 0 : inBuf.length);
+    }
+
+    /**
+     * Constructs a BufferWritable of a part of a buffer. Like
+     * {@link #BufferWritable(byte[])}, the bytes are not copied, so the buffer
+     * can be reused once the object is written.
+     *
+     * @param inBuf buffer
+     * @param offset offset of the data in the buffer
+     * @param length length of the data
+     */
+    public BufferWritable(byte[] inBuf, int offset, int length) {
         buf = inBuf;
+        this.offset = offset;
+        this.length = length;
     }
 
     /**
@@ -55,7 +72,7 @@ public class BufferWritable implements Writable {
     public void write(DataOutput out) throws IOException {
         if (buf == null)
             throw new IOException("BufferWritable was not set");
-        out.write(buf);
+        out.write(buf, offset, length);
     }
 
     /**
@@ -84,15 +101,19 @@ public class BufferWritable implements Writable {
     public void append(byte[] app) {
         if (buf == null) {
             buf = app;
+            offset = 0;
+            length = (app == null) ? 0 : app.length;
             return;
         }
         if (app == null) {
             return;
         }
 
-        byte[] newbuf = new byte[buf.length + app.length];
-        System.arraycopy(buf, 0, newbuf, 0, buf.length);
-        System.arraycopy(app, 0, newbuf, buf.length, app.length);
+        byte[] newbuf = new byte[length + app.length];
+        System.arraycopy(buf, offset, newbuf, 0, length);
+        System.arraycopy(app, 0, newbuf, length, app.length);
         buf = newbuf;
+        offset = 0;
+        length = newbuf.length;
     }
 }
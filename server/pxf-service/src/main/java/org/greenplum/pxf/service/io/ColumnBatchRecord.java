@@ -0,0 +1,96 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.greenplum.pxf.api.ColumnBatch;
+
+/**
+ * A GPDBWritable record read from a row of a {@link ColumnBatch}. The record
+ * is a cursor on the batch: it is moved from row to row and serialized by a
+ * {@link GPDBWritableSerializer}, so nothing is allocated per row.
+ */
+public class ColumnBatchRecord implements Writable {
+
+    private final GPDBWritableSerializer serializer;
+    private final boolean[] projected;
+    private ColumnBatch batch;
+    private int row;
+
+    /**
+     * Constructs a ColumnBatchRecord.
+     *
+     * @param colType the type OIDs of the columns
+     * @param projected for each column whether it is projected, null if all
+     *            the columns are
+     * @param context serialization settings of the request
+     */
+    public ColumnBatchRecord(int[] colType, boolean[] projected, SerializationContext context) {
+        this.serializer = new GPDBWritableSerializer(colType, context.getAlignmentOfEightBytes());
+        this.projected = projected;
+    }
+
+    /**
+     * @param colIdx the column index
+     * @param batch the column batch
+     * @return true if the vector of the column can be serialized
+     */
+    public boolean canWrite(int colIdx, ColumnBatch batch) {
+        return batch.getColumn(colIdx) == null || serializer.canWrite(colIdx, batch.getColumn(colIdx));
+    }
+
+    /**
+     * Points the record to a row of a batch.
+     *
+     * @param batch the column batch
+     * @param row the row index
+     */
+    public void set(ColumnBatch batch, int row) {
+        this.batch = batch;
+        this.row = row;
+    }
+
+    /**
+     * Serializes the current row.
+     *
+     * @param out the output to write the packet into
+     * @throws IOException if writing to the output failed
+     */
+    @Override
+    public void write(DataOutput out) throws IOException {
+        serializer.write(batch, row, projected, out);
+    }
+
+    /**
+     * Deserialization into a column batch is not supported.
+     *
+     * @param in <code>DataInput</code> to deserialize this object from
+     * @throws UnsupportedOperationException this function is not supported
+     */
+    @Override
+    public void readFields(DataInput in) {
+        throw new UnsupportedOperationException(
+                "ColumnBatchRecord.readFields() is not implemented");
+    }
+}
@@ -0,0 +1,373 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.greenplum.pxf.api.RecordView;
+import org.greenplum.pxf.api.io.DataType;
+
+/**
+ * A {@link RecordView} over a GPDBWritable packet.
+ * <p>
+ * Unlike {@link GPDBWritable#readFields(DataInput)}, reading a record copies
+ * the whole packet into a buffer kept from one record to the next, and only
+ * locates the values of the columns in it. Nothing is allocated per record
+ * once the buffer is large enough for the widest one.
+ */
+public class GPDBRecordView implements RecordView, Writable {
+
+    private static final int EOF = -1;
+    private static final int PREV_VERSION = 1;
+    private static final int VERSION = 2;
+    /* total length (4 bytes), version (2 bytes), #col (2 bytes) */
+    private static final int MIN_PACKET_LENGTH = 4 + 2 + 2;
+    private static final GPDBWritable.DBType[] DB_TYPES = GPDBWritable.DBType.values();
+
+    private final int alignmentOfEightBytes;
+    private byte[] buf = new byte[1024];
+    private int pktlen = EOF;
+    private int colCnt;
+    private int[] colType = new int[0];
+    private int[] colOffset = new int[0];
+    private int[] colLength = new int[0];
+
+    /**
+     * Constructs an empty view with the serialization settings of a request.
+     *
+     * @param context serialization settings of the request
+     */
+    public GPDBRecordView(SerializationContext context) {
+        alignmentOfEightBytes = context.getAlignmentOfEightBytes();
+    }
+
+    /**
+     * Reads the next packet of the stream. At the end of the stream, the view
+     * is left empty.
+     *
+     * @param in the stream to read from
+     * @throws IOException if reading failed, or the packet is malformed or
+     *             holds the error flag
+     */
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        pktlen = EOF;
+        colCnt = 0;
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return;
+        }
+        if (length == EOF) {
+            return;
+        }
+        if (length < MIN_PACKET_LENGTH) {
+            throw new IOException("Invalid GPDBWritable packet length " + length);
+        }
+        if (buf.length < length) {
+            buf = new byte[Math.max(length, buf.length * 2)];
+        }
+        putInt(0, length);
+        in.readFully(buf, 4, length - 4);
+        pktlen = length;
+        locateColumns();
+    }
+
+    /*
+     * Parses the header of the packet and finds the offset and length of
+     * every column value, following the layout read by GPDBWritable.
+     */
+    private void locateColumns() throws IOException {
+        int pos = 4;
+        int version = shortAt(pos);
+        pos += 2;
+        if (version != VERSION && version != PREV_VERSION) {
+            throw new IOException("Current GPDBWritable version(" + VERSION
+                    + ") does not match input version(" + version + ")");
+        }
+        byte errorFlag = 0;
+        if (version == VERSION) {
+            errorFlag = buf[pos++];
+        }
+        int count = shortAt(pos);
+        pos += 2;
+        if (count < 0) {
+            throw new IOException("Invalid GPDBWritable column count " + count);
+        }
+        if (colType.length < count) {
+            colType = new int[count];
+            colOffset = new int[count];
+            colLength = new int[count];
+        }
+
+        int nullBytes = GPDBWritable.getNullByteArraySize(count);
+        checkBounds(pos + count + nullBytes);
+        for (int i = 0; i < count; i++) {
+            int ordinal = buf[pos + i];
+            if (ordinal < 0 || ordinal >= DB_TYPES.length) {
+                throw new IOException("Unknown GPDBWritable.DBType ordinal value");
+            }
+        }
+        int typesOffset = pos;
+        int nullOffset = typesOffset + count;
+        pos = nullOffset + nullBytes;
+
+        for (int i = 0; i < count; i++) {
+            GPDBWritable.DBType dbType = DB_TYPES[buf[typesOffset + i]];
+            colType[i] = oidOf(dbType);
+            if ((buf[nullOffset + (i >>> 3)] & (0x80 >>> (i & 7))) != 0) {
+                colOffset[i] = EOF;
+                colLength[i] = 0;
+                continue;
+            }
+            pos = roundUpAlignment(pos, dbType.getAlignment());
+            if (dbType.isVarLength()) {
+                checkBounds(pos + 4);
+                int length = intAt(pos);
+                pos += 4;
+                if (length < 0) {
+                    throw new IOException("Malformed GPDBWritable packet: negative length " + length);
+                }
+                colOffset[i] = pos;
+                /* TEXT values are null terminated */
+                colLength[i] = (dbType == GPDBWritable.DBType.TEXT) ? length - 1 : length;
+                pos += length;
+            } else {
+                colOffset[i] = pos;
+                colLength[i] = dbType.getTypeLength();
+                pos += dbType.getTypeLength();
+            }
+            checkBounds(pos);
+        }
+        colCnt = count;
+
+        if (errorFlag != 0) {
+            throw new IOException("Received error value " + errorFlag + " from format");
+        }
+    }
+
+    /**
+     * Writes the packet as it was read.
+     */
+    @Override
+    public void write(DataOutput out) throws IOException {
+        if (!isEmpty()) {
+            out.write(buf, 0, pktlen);
+        }
+    }
+
+    /**
+     * @return true if no record was read
+     */
+    public boolean isEmpty() {
+        return pktlen == EOF;
+    }
+
+    /**
+     * @return length of the packet of the record, 0 if no record was read
+     */
+    public int getPacketLength() {
+        return isEmpty() ? 0 : pktlen;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return colCnt;
+    }
+
+    @Override
+    public int getColumnType(int col) {
+        checkIndex(col);
+        return colType[col];
+    }
+
+    @Override
+    public boolean isNull(int col) {
+        checkIndex(col);
+        return colOffset[col] == EOF;
+    }
+
+    @Override
+    public long getLong(int col) {
+        return longAt(valueOffset(col, DataType.BIGINT));
+    }
+
+    @Override
+    public int getInt(int col) {
+        return intAt(valueOffset(col, DataType.INTEGER));
+    }
+
+    @Override
+    public short getShort(int col) {
+        return (short) shortAt(valueOffset(col, DataType.SMALLINT));
+    }
+
+    @Override
+    public double getDouble(int col) {
+        return Double.longBitsToDouble(longAt(valueOffset(col, DataType.FLOAT8)));
+    }
+
+    @Override
+    public float getFloat(int col) {
+        return Float.intBitsToFloat(intAt(valueOffset(col, DataType.REAL)));
+    }
+
+    @Override
+    public boolean getBoolean(int col) {
+        return buf[valueOffset(col, DataType.BOOLEAN)] != 0;
+    }
+
+    @Override
+    public String getString(int col) {
+        int offset = valueOffset(col, DataType.TEXT);
+        return new String(buf, offset, colLength[col], StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] getBytes(int col) {
+        int offset = getValueOffset(col);
+        if (colType[col] != DataType.BYTEA.getOID() && colType[col] != DataType.TEXT.getOID()) {
+            throw new IllegalArgumentException(mismatch(DataType.BYTEA, col));
+        }
+        return Arrays.copyOfRange(buf, offset, offset + colLength[col]);
+    }
+
+    @Override
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    @Override
+    public int getValueOffset(int col) {
+        checkIndex(col);
+        int offset = colOffset[col];
+        if (offset == EOF) {
+            throw new IllegalArgumentException("Column " + col + " is null");
+        }
+        return offset;
+    }
+
+    @Override
+    public int getValueLength(int col) {
+        getValueOffset(col);
+        return colLength[col];
+    }
+
+    @Override
+    public Object getValue(int col) {
+        if (isNull(col)) {
+            return null;
+        }
+        switch (DataType.get(colType[col])) {
+            case BIGINT:
+                return getLong(col);
+            case BOOLEAN:
+                return getBoolean(col);
+            case FLOAT8:
+                return getDouble(col);
+            case INTEGER:
+                return getInt(col);
+            case REAL:
+                return getFloat(col);
+            case SMALLINT:
+                return getShort(col);
+            case BYTEA:
+                return getBytes(col);
+            default:
+                return getString(col);
+        }
+    }
+
+    private int valueOffset(int col, DataType type) {
+        int offset = getValueOffset(col);
+        if (colType[col] != type.getOID()) {
+            throw new IllegalArgumentException(mismatch(type, col));
+        }
+        return offset;
+    }
+
+    private String mismatch(DataType type, int col) {
+        return "Cannot get " + type + " from a " + DataType.get(colType[col]) + " column";
+    }
+
+    private void checkIndex(int col) {
+        if (col < 0 || col >= colCnt) {
+            throw new IndexOutOfBoundsException("Column index " + col + " is out of range");
+        }
+    }
+
+    private void checkBounds(int pos) throws IOException {
+        if (pos > pktlen) {
+            throw new IOException("Malformed GPDBWritable packet: values exceed the packet length " + pktlen);
+        }
+    }
+
+    private int roundUpAlignment(int len, int align) {
+        int commonAlignment = (align == 8) ? alignmentOfEightBytes : align;
+        return (len + (commonAlignment - 1)) & ~(commonAlignment - 1);
+    }
+
+    private static int oidOf(GPDBWritable.DBType dbType) {
+        switch (dbType) {
+            case BIGINT:
+                return DataType.BIGINT.getOID();
+            case BOOLEAN:
+                return DataType.BOOLEAN.getOID();
+            case FLOAT8:
+                return DataType.FLOAT8.getOID();
+            case INTEGER:
+                return DataType.INTEGER.getOID();
+            case REAL:
+                return DataType.REAL.getOID();
+            case SMALLINT:
+                return DataType.SMALLINT.getOID();
+            case BYTEA:
+                return DataType.BYTEA.getOID();
+            default:
+                return DataType.TEXT.getOID();
+        }
+    }
+
+    private int shortAt(int pos) {
+        return (short) (((buf[pos] & 0xff) << 8) | (buf[pos + 1] & 0xff));
+    }
+
+    private int intAt(int pos) {
+        return ((buf[pos] & 0xff) << 24) | ((buf[pos + 1] & 0xff) << 16)
+                | ((buf[pos + 2] & 0xff) << 8) | (buf[pos + 3] & 0xff);
+    }
+
+    private long longAt(int pos) {
+        return ((long) intAt(pos) << 32) | (intAt(pos + 4) & 0xffffffffL);
+    }
+
+    private void putInt(int pos, int value) {
+        buf[pos] = (byte) (value >>> 24);
+        buf[pos + 1] = (byte) (value >>> 16);
+        buf[pos + 2] = (byte) (value >>> 8);
+        buf[pos + 3] = (byte) value;
+    }
+}
@@ -50,7 +50,7 @@ public class GPDBWritable implements Writable {
     /*
      * Enum of the Database type
      */
-    private enum DBType {
+    enum DBType {
         BIGINT(8, 8),
         BOOLEAN(1, 1),
         FLOAT8(8, 8),
@@ -94,9 +94,10 @@ public class GPDBWritable implements Writable {
      */
     protected int[] colType;
     protected Object[] colValue;
-    protected int alignmentOfEightBytes = 8;
+    protected int alignmentOfEightBytes;
     protected byte errorFlag = 0;
     protected int pktlen = EOF;
+    private GPDBWritableSerializer serializer;
 
     public int[] getColType() {
         return colType;
@@ -116,7 +117,16 @@ public class GPDBWritable implements Writable {
      * Empty Constructor
      */
     public GPDBWritable() {
-        initializeEightByteAlignment();
+        this(SerializationContext.DEFAULT);
+    }
+
+    /**
+     * Constructs an empty record with the serialization settings of a request.
+     *
+     * @param context the serialization settings
+     */
+    public GPDBWritable(SerializationContext context) {
+        alignmentOfEightBytes = context.getAlignmentOfEightBytes();
     }
 
     /**
@@ -125,7 +135,18 @@ public class GPDBWritable implements Writable {
      * @param columnType the table column types
      */
     public GPDBWritable(int[] columnType) {
-        initializeEightByteAlignment();
+        this(columnType, SerializationContext.DEFAULT);
+    }
+
+    /**
+     * Constructor to build a db record with the serialization settings of a
+     * request. colType defines the schema
+     *
+     * @param columnType the table column types
+     * @param context the serialization settings
+     */
+    public GPDBWritable(int[] columnType, SerializationContext context) {
+        this(context);
         colType = columnType;
         colValue = new Object[columnType.length];
     }
@@ -137,7 +158,7 @@ public class GPDBWritable implements Writable {
      * @throws IOException if the data is malformatted.
      */
     public GPDBWritable(byte[] data) throws IOException {
-        initializeEightByteAlignment();
+        this(SerializationContext.DEFAULT);
         ByteArrayInputStream bis = new ByteArrayInputStream(data);
         DataInputStream dis = new DataInputStream(bis);
 
@@ -324,179 +345,23 @@ public class GPDBWritable implements Writable {
         }
     }
 
-    @Override
-    public void write(DataOutput out) throws IOException {
-        int numCol = colType.length;
-        boolean[] nullBits = new boolean[numCol];
-        int[] colLength = new int[numCol];
-        byte[] enumType = new byte[numCol];
-        int[] padLength = new int[numCol];
-        byte[] padbytes = new byte[8];
-
-        /**
-         * Compute the total payload and header length
-         * header = total length (4 byte), Version (2 byte), Error (1 byte), #col (2 byte)
-         * col type array = #col * 1 byte
-         * null bit array = ceil(#col/8)
-         */
-        int datlen = 4 + 2 + 1 + 2;
-        datlen += numCol;
-        datlen += getNullByteArraySize(numCol);
-
-        for (int i = 0; i < numCol; i++) {
-            /* Get the enum type */
-            DBType coldbtype;
-            switch (DataType.get(colType[i])) {
-                case BIGINT:
-                    coldbtype = DBType.BIGINT;
-                    break;
-                case BOOLEAN:
-                    coldbtype = DBType.BOOLEAN;
-                    break;
-                case FLOAT8:
-                    coldbtype = DBType.FLOAT8;
-                    break;
-                case INTEGER:
-                    coldbtype = DBType.INTEGER;
-                    break;
-                case REAL:
-                    coldbtype = DBType.REAL;
-                    break;
-                case SMALLINT:
-                    coldbtype = DBType.SMALLINT;
-                    break;
-                case BYTEA:
-                    coldbtype = DBType.BYTEA;
-                    break;
-                default:
-                    coldbtype = DBType.TEXT;
-            }
-            enumType[i] = (byte) (coldbtype.ordinal());
-
-			/* Get the actual value, and set the null bit */
-            if (colValue[i] == null) {
-                nullBits[i] = true;
-                colLength[i] = 0;
-            } else {
-                nullBits[i] = false;
-
-				/*
-                 * For fixed length type, we get the fixed length.
-				 * For var len binary format, the length is in the col value.
-				 * For text format, we must convert encoding first.
-				 */
-                if (!coldbtype.isVarLength()) {
-                    colLength[i] = coldbtype.getTypeLength();
-                } else if (!isTextForm(colType[i])) {
-                    colLength[i] = ((byte[]) colValue[i]).length;
-                } else {
-                    colLength[i] = ((String) colValue[i]).getBytes(CHARSET).length;
-                }
-
-				/* calculate and add the type alignment padding */
-                padLength[i] = roundUpAlignment(datlen, coldbtype.getAlignment()) - datlen;
-                datlen += padLength[i];
-
-				/* for variable length type, we add a 4 byte length header */
-                if (coldbtype.isVarLength()) {
-                    datlen += 4;
-                }
-            }
-            datlen += colLength[i];
-        }
-
-		/*
-		 * Add the final alignment padding for the next record
-		 */
-        int endpadding = roundUpAlignment(datlen, 8) - datlen;
-        datlen += endpadding;
-
-		/* Construct the packet header */
-        out.writeInt(datlen);
-        out.writeShort(VERSION);
-        out.writeByte(errorFlag);
-        out.writeShort(numCol);
-
-		/* Write col type */
-        for (int i = 0; i < numCol; i++) {
-            out.writeByte(enumType[i]);
-        }
-
-		/* Nullness */
-        byte[] nullBytes = boolArrayToByteArray(nullBits);
-        out.write(nullBytes);
-
-		/* Column Value */
-        for (int i = 0; i < numCol; i++) {
-            if (!nullBits[i]) {
-				/* Pad the alignment byte first */
-                if (padLength[i] > 0) {
-                    out.write(padbytes, 0, padLength[i]);
-                }
-
-				/* Now, write the actual column value */
-                switch (DataType.get(colType[i])) {
-                    case BIGINT:
-                        out.writeLong(((Long) colValue[i]));
-                        break;
-                    case BOOLEAN:
-                        out.writeBoolean(((Boolean) colValue[i]));
-                        break;
-                    case FLOAT8:
-                        out.writeDouble(((Double) colValue[i]));
-                        break;
-                    case INTEGER:
-                        out.writeInt(((Integer) colValue[i]));
-                        break;
-                    case REAL:
-                        out.writeFloat(((Float) colValue[i]));
-                        break;
-                    case SMALLINT:
-                        out.writeShort(((Short) colValue[i]));
-                        break;
-
-					/* For BYTEA format, add 4byte length header at the beginning  */
-                    case BYTEA:
-                        out.writeInt(colLength[i]);
-                        out.write((byte[]) colValue[i]);
-                        break;
-
-					/* For text format, add 4byte length header. string is already '\0' terminated */
-                    default: {
-                        out.writeInt(colLength[i]);
-                        byte[] data = ((String) colValue[i]).getBytes(CHARSET);
-                        out.write(data);
-                        break;
-                    }
-                }
-            }
-        }
-
-		/* End padding */
-        out.write(padbytes, 0, endpadding);
-    }
-
     /**
-     * Private helper to convert boolean array to byte array
+     * Serializes the record using a {@link GPDBWritableSerializer}. The
+     * serializer holds the layout plan of the schema, so it is kept and reused
+     * as long as the schema and alignment of the record do not change.
      */
-    private static byte[] boolArrayToByteArray(boolean[] data) {
-        int len = data.length;
-        byte[] byts = new byte[getNullByteArraySize(len)];
-
-        for (int i = 0, j = 0, k = 7; i < data.length; i++) {
-            byts[j] |= (data[i] ? 1 : 0) << k--;
-            if (k < 0) {
-                j++;
-                k = 7;
-            }
+    @Override
+    public void write(DataOutput out) throws IOException {
+        if (serializer == null || !serializer.isPlanFor(colType, alignmentOfEightBytes)) {
+            serializer = new GPDBWritableSerializer(colType, alignmentOfEightBytes);
         }
-        return byts;
+        serializer.write(colValue, errorFlag, out);
     }
 
     /**
-     * Private helper to determine the size of the null byte array
+     * Helper to determine the size of the null byte array
      */
-    private static int getNullByteArraySize(int colCnt) {
+    static int getNullByteArraySize(int colCnt) {
         return (colCnt / 8) + (colCnt % 8 != 0 ? 1 : 0);
     }
 
@@ -638,6 +503,16 @@ public class GPDBWritable implements Writable {
         colValue[colIdx] = val;
     }
 
+    /**
+     * Sets the column value of the record to NULL, whatever the type of the
+     * column.
+     *
+     * @param colIdx the column index
+     */
+    public void setNull(int colIdx) {
+        colValue[colIdx] = null;
+    }
+
     /**
      * Gets the column value of the record.
      *
@@ -812,6 +687,34 @@ public class GPDBWritable implements Writable {
                 : "Cannot get " + getTypeName(inTyp) + " from a " + getTypeName(colTyp) + " column";
     }
 
+    /**
+     * Helper to get the serialization type of a column. Any type that is not
+     * natively supported is serialized as text.
+     *
+     * @param type the type OID of the column
+     * @return the serialization type
+     */
+    static DBType getDBType(int type) {
+        switch (DataType.get(type)) {
+            case BIGINT:
+                return DBType.BIGINT;
+            case BOOLEAN:
+                return DBType.BOOLEAN;
+            case FLOAT8:
+                return DBType.FLOAT8;
+            case INTEGER:
+                return DBType.INTEGER;
+            case REAL:
+                return DBType.REAL;
+            case SMALLINT:
+                return DBType.SMALLINT;
+            case BYTEA:
+                return DBType.BYTEA;
+            default:
+                return DBType.TEXT;
+        }
+    }
+
     /**
      * Private Helper routine to tell whether a type is Text form or not
      *
@@ -836,18 +739,6 @@ public class GPDBWritable implements Writable {
         return type.name();
     }
 
-    /*
-     * Get alignment from command line to match to the alignment
-     * the C code uses (see gphdfs/src/protocol_formatter/common.c).
-     */
-    private void initializeEightByteAlignment() {
-        String alignment = System.getProperty("greenplum.alignment");
-        if (alignment == null) {
-            return;
-        }
-        alignmentOfEightBytes = Integer.parseInt(alignment);
-    }
-
     /**
      * Returns if the writable object is empty,
      * based on the pkt len as read from stream.
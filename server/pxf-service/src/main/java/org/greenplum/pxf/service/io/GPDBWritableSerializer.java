@@ -0,0 +1,421 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.greenplum.pxf.api.ColumnBatch;
+import org.greenplum.pxf.api.ColumnVector;
+
+/**
+ * Serializes records into the GPDBWritable wire format (see
+ * {@link GPDBWritable}).
+ * <p>
+ * The layout plan of the schema (serialization type, alignment and header of
+ * each column) is computed once, when the serializer is created. Each record is
+ * then built in a single pass into a reusable scratch buffer: strings are
+ * encoded to UTF-8 directly into the buffer, and the total length is patched
+ * at the beginning of the packet once it is known. The finished packet is
+ * written to the output with one call.
+ * <p>
+ * Records can also be serialized straight from a row of a {@link ColumnBatch},
+ * reading the primitive values and the byte slices of its vectors without
+ * boxing them.
+ * <p>
+ * This class is not thread safe.
+ */
+public class GPDBWritableSerializer {
+
+    private static final int VERSION = 2;
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    /* header = total length (4 byte), Version (2 byte), Error (1 byte), #col (2 byte) */
+    private static final int ERROR_FLAG_OFFSET = 4 + 2;
+    private static final int HEADER_LENGTH = 4 + 2 + 1 + 2;
+
+    private final int[] colType;
+    private final int alignmentOfEightBytes;
+    private final GPDBWritable.DBType[] colDBType;
+    private final int[] colAlignment;
+    private final byte[] header;
+    private final int nullBytesOffset;
+    private final int nullBytesLength;
+    private byte[] buf;
+    private int pos;
+
+    /**
+     * Constructs a serializer for the given schema.
+     *
+     * @param colType the type OIDs of the columns
+     * @param alignmentOfEightBytes the alignment used by the GPDB segment for
+     *            eight bytes types
+     */
+    public GPDBWritableSerializer(int[] colType, int alignmentOfEightBytes) {
+        int numCol = colType.length;
+        this.colType = colType;
+        this.alignmentOfEightBytes = alignmentOfEightBytes;
+        colDBType = new GPDBWritable.DBType[numCol];
+        colAlignment = new int[numCol];
+
+        /* Everything up to the null bit array only depends on the schema */
+        header = new byte[HEADER_LENGTH + numCol];
+        header[4] = (byte) (VERSION >>> 8);
+        header[5] = (byte) VERSION;
+        header[7] = (byte) (numCol >>> 8);
+        header[8] = (byte) numCol;
+        for (int i = 0; i < numCol; i++) {
+            GPDBWritable.DBType dbType = GPDBWritable.getDBType(colType[i]);
+            colDBType[i] = dbType;
+            colAlignment[i] = (dbType.getAlignment() == 8) ? alignmentOfEightBytes : dbType.getAlignment();
+            header[HEADER_LENGTH + i] = (byte) dbType.ordinal();
+        }
+        nullBytesOffset = header.length;
+        nullBytesLength = GPDBWritable.getNullByteArraySize(numCol);
+
+        buf = new byte[Math.max(INITIAL_BUFFER_SIZE, nullBytesOffset + nullBytesLength + 8)];
+    }
+
+    /**
+     * Returns whether this serializer was planned for the given schema.
+     *
+     * @param colType the type OIDs of the columns
+     * @param alignmentOfEightBytes the alignment of eight bytes types
+     * @return true if the serializer can be used for the schema
+     */
+    public boolean isPlanFor(int[] colType, int alignmentOfEightBytes) {
+        return this.colType == colType && this.alignmentOfEightBytes == alignmentOfEightBytes;
+    }
+
+    /**
+     * Serializes one record and writes it to <code>out</code>.
+     *
+     * @param colValue the column values, matching the schema of the serializer
+     * @param errorFlag the error flag of the record
+     * @param out the output to write the packet into
+     * @throws IOException if writing to the output failed
+     */
+    public void write(Object[] colValue, byte errorFlag, DataOutput out) throws IOException {
+        int numCol = colDBType.length;
+
+        System.arraycopy(header, 0, buf, 0, header.length);
+        buf[ERROR_FLAG_OFFSET] = errorFlag;
+        pos = nullBytesOffset;
+
+        /* Nullness */
+        for (int i = 0; i < nullBytesLength; i++) {
+            buf[pos++] = 0;
+        }
+        for (int i = 0; i < numCol; i++) {
+            if (colValue[i] == null) {
+                buf[nullBytesOffset + (i >>> 3)] |= (byte) (0x80 >>> (i & 7));
+            }
+        }
+
+        /* Column Value */
+        for (int i = 0; i < numCol; i++) {
+            Object val = colValue[i];
+            if (val == null) {
+                continue;
+            }
+            pad(colAlignment[i]);
+
+            switch (colDBType[i]) {
+                case BIGINT:
+                    ensureCapacity(8);
+                    putLong((Long) val);
+                    break;
+                case BOOLEAN:
+                    ensureCapacity(1);
+                    buf[pos++] = (byte) (((Boolean) val) ? 1 : 0);
+                    break;
+                case FLOAT8:
+                    ensureCapacity(8);
+                    putLong(Double.doubleToLongBits((Double) val));
+                    break;
+                case INTEGER:
+                    ensureCapacity(4);
+                    putInt((Integer) val);
+                    break;
+                case REAL:
+                    ensureCapacity(4);
+                    putInt(Float.floatToIntBits((Float) val));
+                    break;
+                case SMALLINT:
+                    ensureCapacity(2);
+                    short s = (Short) val;
+                    buf[pos++] = (byte) (s >>> 8);
+                    buf[pos++] = (byte) s;
+                    break;
+
+                /* For BYTEA format, add 4byte length header at the beginning */
+                case BYTEA:
+                    byte[] bytes = (byte[]) val;
+                    ensureCapacity(4 + bytes.length);
+                    putInt(bytes.length);
+                    System.arraycopy(bytes, 0, buf, pos, bytes.length);
+                    pos += bytes.length;
+                    break;
+
+                /* For text format, add 4byte length header. string is already '\0' terminated */
+                default:
+                    ensureCapacity(4);
+                    int lengthPos = pos;
+                    pos += 4;
+                    encodeUtf8((String) val);
+                    int length = pos - lengthPos - 4;
+                    buf[lengthPos] = (byte) (length >>> 24);
+                    buf[lengthPos + 1] = (byte) (length >>> 16);
+                    buf[lengthPos + 2] = (byte) (length >>> 8);
+                    buf[lengthPos + 3] = (byte) length;
+                    break;
+            }
+        }
+
+        /* Final alignment padding for the next record */
+        pad(alignmentOfEightBytes);
+
+        /* Total length */
+        buf[0] = (byte) (pos >>> 24);
+        buf[1] = (byte) (pos >>> 16);
+        buf[2] = (byte) (pos >>> 8);
+        buf[3] = (byte) pos;
+
+        out.write(buf, 0, pos);
+    }
+
+    /**
+     * Returns whether the given vector can be serialized in a column: its
+     * values must be of the kind the column type is serialized from. String
+     * columns accept any vector, serialized by its bytes or its string
+     * representation.
+     *
+     * @param colIdx the column index
+     * @param vector the vector of the column
+     * @return true if {@link #write(ColumnBatch, int, boolean[], DataOutput)}
+     *         can serialize the vector in the column
+     */
+    public boolean canWrite(int colIdx, ColumnVector vector) {
+        switch (colDBType[colIdx]) {
+            case BIGINT:
+            case BOOLEAN:
+            case INTEGER:
+            case SMALLINT:
+                return vector instanceof ColumnVector.LongVector;
+            case FLOAT8:
+            case REAL:
+                return vector instanceof ColumnVector.DoubleVector;
+            case BYTEA:
+                return vector instanceof ColumnVector.BytesVector;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Serializes one row of a column batch and writes it to <code>out</code>.
+     * The vectors must have been accepted by {@link #canWrite}. Missing
+     * vectors and columns not projected are serialized as NULL.
+     *
+     * @param batch the column batch, with the columns of the schema
+     * @param row the row index
+     * @param projected for each column whether it is projected, null if all
+     *            the columns are
+     * @param out the output to write the packet into
+     * @throws IOException if writing to the output failed
+     */
+    public void write(ColumnBatch batch, int row, boolean[] projected, DataOutput out) throws IOException {
+        int numCol = colDBType.length;
+
+        System.arraycopy(header, 0, buf, 0, header.length);
+        buf[ERROR_FLAG_OFFSET] = 0;
+        pos = nullBytesOffset;
+
+        /* Nullness */
+        for (int i = 0; i < nullBytesLength; i++) {
+            buf[pos++] = 0;
+        }
+        for (int i = 0; i < numCol; i++) {
+            ColumnVector vector = batch.getColumn(i);
+            if (vector == null || (projected != null && !projected[i]) || vector.isNull(row)) {
+                buf[nullBytesOffset + (i >>> 3)] |= (byte) (0x80 >>> (i & 7));
+            }
+        }
+
+        /* Column Value */
+        for (int i = 0; i < numCol; i++) {
+            if ((buf[nullBytesOffset + (i >>> 3)] & (0x80 >>> (i & 7))) != 0) {
+                continue;
+            }
+            ColumnVector vector = batch.getColumn(i);
+            int index = vector.index(row);
+            pad(colAlignment[i]);
+
+            switch (colDBType[i]) {
+                case BIGINT:
+                    ensureCapacity(8);
+                    putLong(((ColumnVector.LongVector) vector).vector[index]);
+                    break;
+                case BOOLEAN:
+                    ensureCapacity(1);
+                    buf[pos++] = (byte) ((((ColumnVector.LongVector) vector).vector[index] != 0) ? 1 : 0);
+                    break;
+                case FLOAT8:
+                    ensureCapacity(8);
+                    putLong(Double.doubleToLongBits(((ColumnVector.DoubleVector) vector).vector[index]));
+                    break;
+                case INTEGER:
+                    ensureCapacity(4);
+                    putInt((int) ((ColumnVector.LongVector) vector).vector[index]);
+                    break;
+                case REAL:
+                    ensureCapacity(4);
+                    putInt(Float.floatToIntBits((float) ((ColumnVector.DoubleVector) vector).vector[index]));
+                    break;
+                case SMALLINT:
+                    ensureCapacity(2);
+                    short s = (short) ((ColumnVector.LongVector) vector).vector[index];
+                    buf[pos++] = (byte) (s >>> 8);
+                    buf[pos++] = (byte) s;
+                    break;
+                case BYTEA:
+                    ColumnVector.BytesVector bytes = (ColumnVector.BytesVector) vector;
+                    ensureCapacity(4 + bytes.length[index]);
+                    putInt(bytes.length[index]);
+                    System.arraycopy(bytes.vector[index], bytes.start[index], buf, pos, bytes.length[index]);
+                    pos += bytes.length[index];
+                    break;
+
+                /* For text format, add 4byte length header and the '\0' terminator */
+                default:
+                    ensureCapacity(4);
+                    int lengthPos = pos;
+                    pos += 4;
+                    if (vector instanceof ColumnVector.BytesVector) {
+                        ColumnVector.BytesVector utf8 = (ColumnVector.BytesVector) vector;
+                        ensureCapacity(utf8.length[index] + 1);
+                        System.arraycopy(utf8.vector[index], utf8.start[index], buf, pos, utf8.length[index]);
+                        pos += utf8.length[index];
+                        buf[pos++] = 0;
+                    } else {
+                        encodeUtf8(vector.getObject(row).toString());
+                        ensureCapacity(1);
+                        buf[pos++] = 0;
+                    }
+                    int length = pos - lengthPos - 4;
+                    buf[lengthPos] = (byte) (length >>> 24);
+                    buf[lengthPos + 1] = (byte) (length >>> 16);
+                    buf[lengthPos + 2] = (byte) (length >>> 8);
+                    buf[lengthPos + 3] = (byte) length;
+                    break;
+            }
+        }
+
+        /* Final alignment padding for the next record */
+        pad(alignmentOfEightBytes);
+
+        /* Total length */
+        buf[0] = (byte) (pos >>> 24);
+        buf[1] = (byte) (pos >>> 16);
+        buf[2] = (byte) (pos >>> 8);
+        buf[3] = (byte) pos;
+
+        out.write(buf, 0, pos);
+    }
+
+    /*
+     * Adds zero bytes until the position is aligned on the given alignment
+     */
+    private void pad(int align) {
+        int aligned = (pos + (align - 1)) & ~(align - 1);
+        ensureCapacity(aligned - pos);
+        while (pos < aligned) {
+            buf[pos++] = 0;
+        }
+    }
+
+    private void putInt(int v) {
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+    }
+
+    private void putLong(long v) {
+        putInt((int) (v >>> 32));
+        putInt((int) v);
+    }
+
+    /*
+     * Encodes the string to UTF-8 at the current position. Unpaired
+     * surrogates are replaced with '?', like String.getBytes("UTF-8") does.
+     */
+    private void encodeUtf8(String str) {
+        int len = str.length();
+        ensureCapacity(len * 3);
+        int i = 0;
+
+        /* ASCII fast path */
+        for (; i < len; i++) {
+            char c = str.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            buf[pos++] = (byte) c;
+        }
+
+        for (; i < len; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < len
+                        && Character.isLowSurrogate(str.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, str.charAt(++i));
+                    buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    buf[pos++] = (byte) '?';
+                }
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /*
+     * Grows the scratch buffer so that it can hold <code>needed</code> more bytes
+     */
+    private void ensureCapacity(int needed) {
+        int required = pos + needed;
+        if (required > buf.length) {
+            byte[] newBuf = new byte[Math.max(buf.length * 2, required)];
+            System.arraycopy(buf, 0, newBuf, 0, pos);
+            buf = newBuf;
+        }
+    }
+}
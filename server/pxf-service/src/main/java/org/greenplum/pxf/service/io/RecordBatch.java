@@ -0,0 +1,158 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A reusable batch of serialized records. Records are serialized into an
+ * internal growable buffer as soon as they are added, so the bridge is free to
+ * reuse the {@link Writable} objects it produces (e.g. the single GPDBWritable
+ * kept by the output builder). The whole batch is written to the output stream
+ * in a single call.
+ * <p>
+ * A batch is considered full when it holds {@code maxRecords} records or when
+ * its serialized size reaches {@code maxBytes}, whichever comes first. Both are
+ * soft limits: a record is never split between batches.
+ */
+public class RecordBatch implements Writable {
+
+    public static final int DEFAULT_MAX_RECORDS = 1024;
+    public static final int DEFAULT_MAX_BYTES = 256 * 1024;
+
+    private final int maxRecords;
+    private final int maxBytes;
+    private final ExposedByteArrayOutputStream buffer;
+    private final DataOutputStream dataOutput;
+    private int records;
+
+    /**
+     * Constructs a RecordBatch with the default limits.
+     */
+    public RecordBatch() {
+        this(DEFAULT_MAX_RECORDS, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs a RecordBatch.
+     *
+     * @param maxRecords maximum number of records held by the batch
+     * @param maxBytes maximum size in bytes of the serialized batch
+     */
+    public RecordBatch(int maxRecords, int maxBytes) {
+        if (maxRecords <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("batch limits must be positive (records = "
+                    + maxRecords + ", bytes = " + maxBytes + ")");
+        }
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.buffer = new ExposedByteArrayOutputStream(Math.min(maxBytes, 64 * 1024));
+        this.dataOutput = new DataOutputStream(buffer);
+    }
+
+    /**
+     * Serializes the given record at the end of the batch.
+     *
+     * @param record record to add
+     * @throws IOException if the record failed to serialize
+     */
+    public void add(Writable record) throws IOException {
+        record.write(dataOutput);
+        records++;
+    }
+
+    /**
+     * Clears the batch, keeping the allocated buffer for the next fill.
+     */
+    public void clear() {
+        buffer.reset();
+        records = 0;
+    }
+
+    /**
+     * @return true if no more records should be added to the batch
+     */
+    public boolean isFull() {
+        return records >= maxRecords || buffer.size() >= maxBytes;
+    }
+
+    /**
+     * @return true if the batch holds no records
+     */
+    public boolean isEmpty() {
+        return records == 0;
+    }
+
+    /**
+     * @return number of records in the batch
+     */
+    public int size() {
+        return records;
+    }
+
+    /**
+     * @return size in bytes of the serialized batch
+     */
+    public int getLength() {
+        return buffer.size();
+    }
+
+    /**
+     * Writes all the serialized records of the batch to <code>out</code>.
+     *
+     * @param out <code>DataOutput</code> to serialize this object into.
+     * @throws IOException if I/O error occurs
+     */
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.write(buffer.getBuffer(), 0, buffer.size());
+    }
+
+    /**
+     * Deserialization of a batch is not supported.
+     *
+     * @param in <code>DataInput</code> to deserialize this object from
+     * @throws UnsupportedOperationException this function is not supported
+     */
+    @Override
+    public void readFields(DataInput in) {
+        throw new UnsupportedOperationException(
+                "RecordBatch.readFields() is not implemented");
+    }
+
+    /**
+     * ByteArrayOutputStream giving access to its internal buffer, to avoid the
+     * copy made by {@link ByteArrayOutputStream#toByteArray()}.
+     */
+    private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        ExposedByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
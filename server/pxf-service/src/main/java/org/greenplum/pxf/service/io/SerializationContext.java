@@ -0,0 +1,79 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.greenplum.pxf.api.utilities.ProtocolData;
+
+/**
+ * The serialization settings of a request, shared by the records serialized
+ * or deserialized for that request.
+ * <p>
+ * The settings are sent by the GPDB segment with each request, so different
+ * segments may use different settings concurrently.
+ */
+public class SerializationContext {
+
+    /**
+     * The alignment used when the segment does not send one.
+     */
+    public static final int DEFAULT_ALIGNMENT_OF_EIGHT_BYTES = 8;
+
+    /**
+     * The settings used when no request is involved.
+     */
+    public static final SerializationContext DEFAULT =
+            new SerializationContext(DEFAULT_ALIGNMENT_OF_EIGHT_BYTES);
+
+    private final int alignmentOfEightBytes;
+
+    /**
+     * Constructs a SerializationContext.
+     *
+     * @param alignmentOfEightBytes the alignment of eight bytes types
+     */
+    public SerializationContext(int alignmentOfEightBytes) {
+        this.alignmentOfEightBytes = alignmentOfEightBytes;
+    }
+
+    /**
+     * Returns the serialization settings of the given request.
+     * The alignment matches the one the C code of the segment uses (see
+     * gphdfs/src/protocol_formatter/common.c).
+     *
+     * @param protData the request data
+     * @return the serialization settings of the request
+     * @throws NumberFormatException if the alignment is not a number
+     */
+    public static SerializationContext forRequest(ProtocolData protData) {
+        String alignment = protData.getAlignment();
+        if (alignment == null) {
+            return DEFAULT;
+        }
+        return new SerializationContext(Integer.parseInt(alignment));
+    }
+
+    /**
+     * @return the alignment of eight bytes types
+     */
+    public int getAlignmentOfEightBytes() {
+        return alignmentOfEightBytes;
+    }
+}
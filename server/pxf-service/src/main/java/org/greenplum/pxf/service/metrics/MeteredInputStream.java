@@ -0,0 +1,76 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream from GPDB recording the bytes read, the first byte and the
+ * time spent waiting for data in the metrics of the request.
+ */
+public class MeteredInputStream extends FilterInputStream {
+
+    private final RequestMetrics metrics;
+
+    /**
+     * @param in the stream from GPDB
+     * @param metrics the metrics of the request
+     */
+    public MeteredInputStream(InputStream in, RequestMetrics metrics) {
+        super(in);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = in.read();
+        metrics.addSocketNanos(System.nanoTime() - start);
+        if (b >= 0) {
+            metrics.markFirstByte();
+            metrics.addBytes(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int count = in.read(b, off, len);
+        metrics.addSocketNanos(System.nanoTime() - start);
+        if (count > 0) {
+            metrics.markFirstByte();
+            metrics.addBytes(count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long count = in.skip(n);
+        if (count > 0) {
+            metrics.addBytes(count);
+        }
+        return count;
+    }
+}
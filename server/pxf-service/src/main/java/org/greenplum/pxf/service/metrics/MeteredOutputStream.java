@@ -0,0 +1,68 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream to GPDB recording the bytes written, the first byte and the
+ * time spent writing in the metrics of the request.
+ */
+public class MeteredOutputStream extends FilterOutputStream {
+
+    private final RequestMetrics metrics;
+
+    /**
+     * @param out the stream to GPDB
+     * @param metrics the metrics of the request
+     */
+    public MeteredOutputStream(OutputStream out, RequestMetrics metrics) {
+        super(out);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        metrics.markFirstByte();
+        long start = System.nanoTime();
+        out.write(b);
+        metrics.addSocketNanos(System.nanoTime() - start);
+        metrics.addBytes(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        metrics.markFirstByte();
+        long start = System.nanoTime();
+        out.write(b, off, len);
+        metrics.addSocketNanos(System.nanoTime() - start);
+        metrics.addBytes(len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        long start = System.nanoTime();
+        out.flush();
+        metrics.addSocketNanos(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,225 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.greenplum.pxf.service.AdmissionController;
+import org.greenplum.pxf.service.FragmentsCache;
+import org.greenplum.pxf.service.PipelineStats;
+import org.greenplum.pxf.service.PluginLockManager;
+
+/**
+ * Registry of the performance metrics of the PXF service: the metrics of each
+ * profile, and the metrics shared by all the profiles (admission control,
+ * plugin locks, fragments cache, pipelines). The metrics are exposed through JMX and by the
+ * /Metrics REST resource.
+ * <p>
+ * The number of profiles is bounded by the pxf.service.metrics.max.profiles
+ * system property (100 by default): the requests of the profiles beyond it
+ * are aggregated in the "other" profile. The MBeans are unregistered when the
+ * webapp stops, see {@link #unregisterAll()}.
+ */
+public class MetricsRegistry {
+
+    private static final Log LOG = LogFactory.getLog(MetricsRegistry.class);
+    static final String JMX_DOMAIN = "org.greenplum.pxf";
+    static final String PROPERTY_KEY_MAX_PROFILES = "pxf.service.metrics.max.profiles";
+    static final int DEFAULT_MAX_PROFILES = 100;
+    static final String OTHER_PROFILE = "other";
+    private static final String SERVICE_METRICS_NAME = "type=ServiceMetrics";
+
+    private static final ConcurrentMap<String, ProfileMetrics> PROFILES = new ConcurrentHashMap<>();
+    private static final ServiceMetricsMXBean SERVICE_METRICS = new ServiceMetricsMXBean() {
+        @Override
+        public Map<String, Long> getAdmission() {
+            return getAdmissionMetrics();
+        }
+
+        @Override
+        public Map<String, Long> getLocks() {
+            return getLockMetrics();
+        }
+
+        @Override
+        public Map<String, Long> getFragmentsCache() {
+            return getFragmentsCacheMetrics();
+        }
+    };
+
+    static {
+        register(SERVICE_METRICS_NAME, SERVICE_METRICS);
+    }
+
+    /**
+     * Returns the metrics of the given profile, creating and registering them
+     * if needed.
+     *
+     * @param profile profile name
+     * @return the metrics of the profile
+     */
+    public static ProfileMetrics getProfileMetrics(String profile) {
+        ProfileMetrics metrics = PROFILES.get(profile);
+        if (metrics == null) {
+            if (PROFILES.size() >= Integer.getInteger(PROPERTY_KEY_MAX_PROFILES, DEFAULT_MAX_PROFILES)
+                    && !OTHER_PROFILE.equals(profile)) {
+                return getProfileMetrics(OTHER_PROFILE);
+            }
+            ProfileMetrics newMetrics = new ProfileMetrics(profile);
+            metrics = PROFILES.putIfAbsent(profile, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+                register(getProfileMBeanName(profile), metrics);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Unregisters the MBeans of the metrics and forgets the metrics of the
+     * profiles. Called when the webapp stops, so that the MBeans do not keep
+     * its classes loaded.
+     */
+    public static void unregisterAll() {
+        for (String profile : PROFILES.keySet()) {
+            unregister(getProfileMBeanName(profile));
+        }
+        PROFILES.clear();
+        unregister(SERVICE_METRICS_NAME);
+    }
+
+    private static String getProfileMBeanName(String profile) {
+        return "type=ProfileMetrics,name=" + ObjectName.quote(profile);
+    }
+
+    /**
+     * Returns all the metrics as nested maps, ready to be serialized to JSON.
+     *
+     * @return the metrics of the service
+     */
+    public static Map<String, Object> getSnapshot() {
+        Map<String, PipelineStats> pipelines = PipelineStats.getAll();
+        Map<String, Object> profiles = new TreeMap<>();
+        for (ProfileMetrics metrics : PROFILES.values()) {
+            Map<String, Object> profile = new LinkedHashMap<>();
+            profile.put("read", metrics.getRead());
+            profile.put("write", metrics.getWrite());
+            profile.put("fragments", metrics.getFragments());
+            PipelineStats stats = pipelines.get(metrics.getProfile());
+            if (stats != null) {
+                profile.put("pipeline", getPipelineMetrics(stats));
+            }
+            profiles.put(metrics.getProfile(), profile);
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("profiles", profiles);
+        snapshot.put("admission", getAdmissionMetrics());
+        snapshot.put("locks", getLockMetrics());
+        snapshot.put("fragmentsCache", getFragmentsCacheMetrics());
+        return snapshot;
+    }
+
+    private static Map<String, Long> getAdmissionMetrics() {
+        AdmissionController admission = AdmissionController.getInstance();
+        Map<String, Long> map = new LinkedHashMap<>();
+        map.put("admissions", admission.getAdmissions());
+        map.put("rejections", admission.getRejections());
+        map.put("contentions", admission.getContentions());
+        map.put("totalWaitMicros", admission.getTotalWaitNanos() / 1000);
+        map.put("maxWaitMicros", admission.getMaxWaitNanos() / 1000);
+        map.put("waitingRequests", (long) admission.getWaitingRequests());
+        map.put("activeRequests", (long) admission.getActiveRequests());
+        return map;
+    }
+
+    private static Map<String, Long> getLockMetrics() {
+        PluginLockManager locks = PluginLockManager.getInstance();
+        Map<String, Long> map = new LinkedHashMap<>();
+        map.put("acquisitions", locks.getAcquisitions());
+        map.put("contentions", locks.getContentions());
+        map.put("totalWaitMicros", locks.getTotalWaitNanos() / 1000);
+        map.put("maxWaitMicros", locks.getMaxWaitNanos() / 1000);
+        map.put("activeLocks", (long) locks.getActiveLocks());
+        return map;
+    }
+
+    private static Map<String, Long> getFragmentsCacheMetrics() {
+        FragmentsCache cache = FragmentsCache.getInstance();
+        Map<String, Long> map = new LinkedHashMap<>();
+        map.put("hits", cache.getHits());
+        map.put("misses", cache.getMisses());
+        map.put("size", cache.getSize());
+        return map;
+    }
+
+    private static Map<String, Number> getPipelineMetrics(PipelineStats stats) {
+        Map<String, Number> map = new LinkedHashMap<>();
+        map.put("pipelines", stats.getPipelines());
+        map.put("batches", stats.getBatches());
+        map.put("readerBusyMicros", stats.getReaderBusyNanos() / 1000);
+        map.put("readerIdleMicros", stats.getReaderIdleNanos() / 1000);
+        map.put("writerBusyMicros", stats.getWriterBusyNanos() / 1000);
+        map.put("writerIdleMicros", stats.getWriterIdleNanos() / 1000);
+        map.put("averageQueueDepth", stats.getAverageQueueDepth());
+        map.put("maxQueueDepth", stats.getMaxQueueDepth());
+        return map;
+    }
+
+    /*
+     * Metrics are a diagnostic aid: failing to register them in JMX must not
+     * fail the requests
+     */
+    private static void register(String name, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":" + name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (JMException | RuntimeException e) {
+            LOG.warn("Failed to register " + name + " metrics in JMX: " + e.getMessage());
+        }
+    }
+
+    private static void unregister(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":" + name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException | RuntimeException e) {
+            LOG.warn("Failed to unregister " + name + " metrics from JMX: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregated metrics of the requests of one kind (read, write or fragments)
+ * of one profile.
+ */
+public class OperationMetrics {
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong accessorNanos = new AtomicLong();
+    private final AtomicLong resolverNanos = new AtomicLong();
+    private final AtomicLong builderNanos = new AtomicLong();
+    private final AtomicLong socketNanos = new AtomicLong();
+    private final Histogram duration = new Histogram();
+    private final Histogram firstByte = new Histogram();
+
+    void record(RequestMetrics request, boolean failed) {
+        requests.incrementAndGet();
+        if (failed) {
+            errors.incrementAndGet();
+        }
+        records.addAndGet(request.getRecords());
+        bytes.addAndGet(request.getBytes());
+        accessorNanos.addAndGet(request.getAccessorNanos());
+        resolverNanos.addAndGet(request.getResolverNanos());
+        builderNanos.addAndGet(request.getBuilderNanos());
+        socketNanos.addAndGet(request.getSocketNanos());
+        duration.record(request.getDurationNanos());
+        firstByte.record(request.getFirstByteNanos());
+    }
+
+    /**
+     * @return number of finished requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of failed requests
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * @return number of records read or written
+     */
+    public long getRecords() {
+        return records.get();
+    }
+
+    /**
+     * @return number of bytes sent to or received from GPDB
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * @return histogram of the request durations, in nanoseconds
+     */
+    public Histogram getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return histogram of the times to first byte, in nanoseconds
+     */
+    public Histogram getFirstByte() {
+        return firstByte;
+    }
+
+    /**
+     * Returns the metrics as a map of names to values, durations being in
+     * microseconds.
+     *
+     * @return the metrics
+     */
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        map.put("requests", requests.get());
+        map.put("errors", errors.get());
+        map.put("records", records.get());
+        map.put("bytes", bytes.get());
+        map.put("accessorMicros", accessorNanos.get() / 1000);
+        map.put("resolverMicros", resolverNanos.get() / 1000);
+        map.put("builderMicros", builderNanos.get() / 1000);
+        map.put("socketMicros", socketNanos.get() / 1000);
+        putHistogram(map, "duration", duration);
+        putHistogram(map, "timeToFirstByte", firstByte);
+        return map;
+    }
+
+    private static void putHistogram(Map<String, Long> map, String name, Histogram histogram) {
+        map.put(name + "MeanMicros", histogram.getMean() / 1000);
+        map.put(name + "P50Micros", histogram.getPercentile(50) / 1000);
+        map.put(name + "P99Micros", histogram.getPercentile(99) / 1000);
+        map.put(name + "MaxMicros", histogram.getMax() / 1000);
+    }
+}
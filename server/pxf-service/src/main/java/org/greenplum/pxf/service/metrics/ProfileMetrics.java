@@ -0,0 +1,77 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Map;
+
+/**
+ * Aggregated metrics of the requests of one profile.
+ */
+public class ProfileMetrics implements ProfileMetricsMXBean {
+
+    private final String profile;
+    private final OperationMetrics read = new OperationMetrics();
+    private final OperationMetrics write = new OperationMetrics();
+    private final OperationMetrics fragments = new OperationMetrics();
+
+    ProfileMetrics(String profile) {
+        this.profile = profile;
+    }
+
+    void record(RequestMetrics request, boolean failed) {
+        getOperationMetrics(request.getOperation()).record(request, failed);
+    }
+
+    /**
+     * @param operation the kind of requests
+     * @return the metrics of the requests of the given kind
+     */
+    public OperationMetrics getOperationMetrics(RequestMetrics.Operation operation) {
+        switch (operation) {
+            case READ:
+                return read;
+            case WRITE:
+                return write;
+            default:
+                return fragments;
+        }
+    }
+
+    @Override
+    public String getProfile() {
+        return profile;
+    }
+
+    @Override
+    public Map<String, Long> getRead() {
+        return read.toMap();
+    }
+
+    @Override
+    public Map<String, Long> getWrite() {
+        return write.toMap();
+    }
+
+    @Override
+    public Map<String, Long> getFragments() {
+        return fragments.toMap();
+    }
+}
@@ -0,0 +1,51 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of a profile, registered as
+ * {@code org.greenplum.pxf:type=ProfileMetrics,name=<profile>}. Durations are
+ * in microseconds.
+ */
+public interface ProfileMetricsMXBean {
+
+    /**
+     * @return the profile name
+     */
+    String getProfile();
+
+    /**
+     * @return metrics of the read requests
+     */
+    Map<String, Long> getRead();
+
+    /**
+     * @return metrics of the write requests
+     */
+    Map<String, Long> getWrite();
+
+    /**
+     * @return metrics of the fragments requests
+     */
+    Map<String, Long> getFragments();
+}
@@ -0,0 +1,304 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.greenplum.pxf.api.utilities.InputData;
+import org.greenplum.pxf.api.utilities.PluginRegistry;
+
+/**
+ * Performance metrics of one PXF request: number of records and bytes, time to
+ * first byte, total duration and the time spent in each stage of the request.
+ * When the request finishes, its metrics are added to the metrics of its
+ * profile (see {@link MetricsRegistry}).
+ * <p>
+ * The stages are the accessor, the resolver, the builder (the
+ * BridgeOutputBuilder of reads or the BridgeInputBuilder of writes) and the
+ * socket (writing to or reading from GPDB). Timing every record would cost as
+ * much as the work of the fast plugins, so the plugin stages are only timed
+ * for one record out of {@value #SAMPLE_INTERVAL}, and their sampled time is
+ * scaled accordingly.
+ * <p>
+ * This class is not thread safe: each counter must be updated by a single
+ * thread. The bridge stages may run in another thread than the socket stage,
+ * as in a pipelined request.
+ */
+public class RequestMetrics {
+
+    private static final Log LOG = LogFactory.getLog(RequestMetrics.class);
+
+    /**
+     * Sampling interval of the plugin stages timing.
+     */
+    public static final int SAMPLE_INTERVAL = 16;
+
+    /**
+     * The kinds of requests.
+     */
+    public enum Operation {
+        READ, WRITE, FRAGMENTS
+    }
+
+    /* Profile of the requests without profile whose plugin was not created */
+    static final String UNKNOWN_PROFILE = "unknown";
+
+    /* Metrics of the requests that are not measured, never recorded */
+    private static final RequestMetrics DISABLED = new RequestMetrics(null, null, false);
+
+    private final Operation operation;
+    private String profile;
+    private final boolean enabled;
+    private final long startNanos;
+    private long firstByteNanos = -1;
+    private long durationNanos = -1;
+    private long records;
+    private long bytes;
+    private long accessorNanos;
+    private long resolverNanos;
+    private long builderNanos;
+    private long socketNanos;
+    private int rowCounter;
+    private boolean rowSampled;
+
+    /**
+     * Starts measuring a request.
+     *
+     * @param operation the kind of request
+     * @param profile the profile the metrics are aggregated in, null if it is
+     *            set by {@link #setPlugin(String)}
+     */
+    public RequestMetrics(Operation operation, String profile) {
+        this(operation, profile, true);
+    }
+
+    private RequestMetrics(Operation operation, String profile, boolean enabled) {
+        this.operation = operation;
+        this.profile = profile;
+        this.enabled = enabled;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts measuring a request. The metrics are aggregated in the profile
+     * of the request. When it has no profile, they are aggregated in its
+     * accessor or fragmenter, once created (see {@link #setPlugin(String)}).
+     *
+     * @param operation the kind of request
+     * @param inputData the request data
+     * @return the metrics of the request
+     */
+    public static RequestMetrics start(Operation operation, InputData inputData) {
+        return new RequestMetrics(operation, inputData.getProfile());
+    }
+
+    /**
+     * Returns metrics that record nothing, for the bridges used outside of a
+     * measured request.
+     *
+     * @return disabled metrics
+     */
+    public static RequestMetrics disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Sets the accessor or fragmenter of a request without profile, after it
+     * was created, so that the metrics are aggregated in its class. The class
+     * names sent by the clients are not used before they are known to be
+     * valid, as each name adds metrics that are kept until PXF stops.
+     *
+     * @param className the class name of the plugin, resolved by the
+     *            {@link PluginRegistry}
+     */
+    public void setPlugin(String className) {
+        if (!enabled || profile != null) {
+            return;
+        }
+        try {
+            profile = PluginRegistry.getPluginClass(className).getPluginClass().getName();
+        } catch (ClassNotFoundException e) {
+            // cannot happen, the plugin was created
+        }
+    }
+
+    /**
+     * Advances to the next record read from the data source, and decides if
+     * the stages of that record are timed.
+     */
+    public void nextRow() {
+        if (enabled && ++rowCounter == SAMPLE_INTERVAL) {
+            rowCounter = 0;
+            rowSampled = true;
+        } else {
+            rowSampled = false;
+        }
+    }
+
+    /**
+     * Starts timing a stage of the current record.
+     *
+     * @return the start time of the stage, or 0 if the record is not timed
+     */
+    public long startStage() {
+        return rowSampled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Ends timing an accessor stage started by {@link #startStage()}.
+     *
+     * @param start start time of the stage
+     */
+    public void endAccessorStage(long start) {
+        if (start != 0) {
+            accessorNanos += (System.nanoTime() - start) * SAMPLE_INTERVAL;
+        }
+    }
+
+    /**
+     * Ends timing a resolver stage started by {@link #startStage()}.
+     *
+     * @param start start time of the stage
+     */
+    public void endResolverStage(long start) {
+        if (start != 0) {
+            resolverNanos += (System.nanoTime() - start) * SAMPLE_INTERVAL;
+        }
+    }
+
+    /**
+     * Ends timing a builder stage started by {@link #startStage()}.
+     *
+     * @param start start time of the stage
+     */
+    public void endBuilderStage(long start) {
+        if (start != 0) {
+            builderNanos += (System.nanoTime() - start) * SAMPLE_INTERVAL;
+        }
+    }
+
+    /**
+     * Records the time spent blocked on the socket.
+     *
+     * @param nanos time in nanoseconds
+     */
+    public void addSocketNanos(long nanos) {
+        socketNanos += nanos;
+    }
+
+    /**
+     * Records the first byte sent to or received from GPDB. Only the first
+     * call has an effect.
+     */
+    public void markFirstByte() {
+        if (firstByteNanos < 0) {
+            firstByteNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * @param count number of records processed
+     */
+    public void addRecords(long count) {
+        records += count;
+    }
+
+    /**
+     * @param count number of bytes sent to or received from GPDB
+     */
+    public void addBytes(long count) {
+        bytes += count;
+    }
+
+    /**
+     * Ends measuring the request and adds its metrics to its profile. Only
+     * the first call has an effect.
+     *
+     * @param failed whether the request failed
+     */
+    public void finish(boolean failed) {
+        if (!enabled || durationNanos >= 0) {
+            return;
+        }
+        durationNanos = System.nanoTime() - startNanos;
+        if (profile == null) {
+            profile = UNKNOWN_PROFILE;
+        }
+        MetricsRegistry.getProfileMetrics(profile).record(this, failed);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(operation + " request of profile " + profile
+                    + (failed ? " failed" : " finished") + " in "
+                    + durationNanos / 1000 + "us: " + records + " records, "
+                    + bytes + " bytes, time to first byte " + getFirstByteNanos() / 1000
+                    + "us, accessor " + accessorNanos / 1000
+                    + "us, resolver " + resolverNanos / 1000
+                    + "us, builder " + builderNanos / 1000
+                    + "us, socket " + socketNanos / 1000 + "us");
+        }
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return duration of the request, -1 if it did not finish
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return time to the first byte, the duration of the request if no byte
+     *         was transferred
+     */
+    public long getFirstByteNanos() {
+        return (firstByteNanos >= 0) ? firstByteNanos : durationNanos;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getAccessorNanos() {
+        return accessorNanos;
+    }
+
+    public long getResolverNanos() {
+        return resolverNanos;
+    }
+
+    public long getBuilderNanos() {
+        return builderNanos;
+    }
+
+    public long getSocketNanos() {
+        return socketNanos;
+    }
+}
@@ -0,0 +1,46 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics shared by all the profiles, registered as
+ * {@code org.greenplum.pxf:type=ServiceMetrics}. Durations are in
+ * microseconds.
+ */
+public interface ServiceMetricsMXBean {
+
+    /**
+     * @return metrics of the admission control of the requests
+     */
+    Map<String, Long> getAdmission();
+
+    /**
+     * @return metrics of the locks of the non thread safe plugins
+     */
+    Map<String, Long> getLocks();
+
+    /**
+     * @return metrics of the fragments cache
+     */
+    Map<String, Long> getFragmentsCache();
+}
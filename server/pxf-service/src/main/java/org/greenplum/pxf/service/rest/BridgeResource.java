@@ -23,7 +23,6 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
 
 import javax.servlet.ServletContext;
 import javax.ws.rs.GET;
@@ -39,13 +38,15 @@ import javax.ws.rs.core.StreamingOutput;
 import org.apache.catalina.connector.ClientAbortException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.greenplum.pxf.api.utilities.Utilities;
-import org.greenplum.pxf.service.AggBridge;
 import org.greenplum.pxf.service.Bridge;
-import org.greenplum.pxf.service.ReadBridge;
-import org.greenplum.pxf.service.ReadSamplingBridge;
-import org.greenplum.pxf.service.ReadVectorizedBridge;
-import org.greenplum.pxf.service.io.Writable;
+import org.greenplum.pxf.service.BridgeFactory;
+import org.greenplum.pxf.service.BridgePipeline;
+import org.greenplum.pxf.service.MultiFragmentReader;
+import org.greenplum.pxf.service.PipelineStats;
+import org.greenplum.pxf.service.PluginLockManager;
+import org.greenplum.pxf.service.io.RecordBatch;
+import org.greenplum.pxf.service.metrics.MeteredOutputStream;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 
 /*
@@ -56,16 +57,6 @@ import org.greenplum.pxf.api.utilities.ProtocolData;
 public class BridgeResource extends RestResource {
 
     private static final Log LOG = LogFactory.getLog(BridgeResource.class);
-    /**
-     * Lock is needed here in the case of a non-thread-safe plugin. Using
-     * synchronized methods is not enough because the bridge work is called by
-     * jetty ({@link StreamingOutput}), after we are getting out of this class's
-     * context.
-     * <p/>
-     * BRIDGE_LOCK is accessed through lock() and unlock() functions, based on
-     * the isThreadSafe parameter that is determined by the bridge.
-     */
-    private static final ReentrantLock BRIDGE_LOCK = new ReentrantLock();
 
     public BridgeResource() {
     }
@@ -75,6 +66,9 @@ public class BridgeResource extends RestResource {
      * records, printing it out to outgoing stream. Outputs GPDBWritable or
      * Text.
      *
+     * A request can also carry a list of fragments (X-GP-FRAGMENT-COUNT), which
+     * are then read concurrently by a {@link MultiFragmentReader}.
+     *
      * Parameters come through HTTP header.
      *
      * @param servletContext Servlet context contains attributes required by
@@ -97,15 +91,17 @@ public class BridgeResource extends RestResource {
 
         Bridge bridge;
         ProtocolData protData = new ProtocolData(params);
-        float sampleRatio = protData.getStatsSampleRatio();
-        if (sampleRatio > 0) {
-            bridge = new ReadSamplingBridge(protData);
-        } else if (Utilities.useAggBridge(protData)) {
-            bridge = new AggBridge(protData);
-        } else if (Utilities.useVectorization(protData)) {
-            bridge = new ReadVectorizedBridge(protData);
-        } else {
-            bridge = new ReadBridge(protData);
+        RequestMetrics metrics = RequestMetrics.start(RequestMetrics.Operation.READ, protData);
+        boolean multiFragment = protData.getFragmentCount() > 0;
+        try {
+            // the bridge of the first fragment of a multi-fragment request
+            // tells whether its plugins are thread safe
+            bridge = BridgeFactory.createReadBridge(
+                    multiFragment ? protData.getFragment(0) : protData);
+            metrics.setPlugin(protData.getAccessor());
+        } catch (Exception e) {
+            metrics.finish(true);
+            throw e;
         }
         String dataDir = protData.getDataSource();
         // THREAD-SAFE parameter has precedence
@@ -115,13 +111,28 @@ public class BridgeResource extends RestResource {
                     (isThreadSafe ? "without" : "with") + " synchronization");
         }
 
-        return readResponse(bridge, protData, isThreadSafe);
+        if (multiFragment) {
+            return readFragmentsResponse(bridge, protData, isThreadSafe, metrics);
+        }
+        bridge.setMetrics(metrics);
+        return readResponse(bridge, protData, isThreadSafe, metrics);
     }
 
     Response readResponse(final Bridge bridge, ProtocolData protData,
-                          final boolean threadSafe) {
+                          final boolean threadSafe, final RequestMetrics metrics) {
         final int fragment = protData.getDataFragment();
         final String dataDir = protData.getDataSource();
+        /*
+         * Lock is needed here in the case of a non-thread-safe plugin. Using
+         * synchronized methods is not enough because the bridge work is called
+         * by the container ({@link StreamingOutput}), after we are getting out
+         * of this class's context.
+         */
+        final PluginLockManager.PluginLock lock = threadSafe ? null :
+                PluginLockManager.getInstance().getLock(protData);
+        final boolean pipelined = protData.isPipelined();
+        final int pipelineDepth = protData.getPipelineDepth();
+        final String profile = metrics.getProfile();
 
         // Creating an internal streaming class which will iterate
         // the records and put them on the output stream
@@ -130,29 +141,44 @@ public class BridgeResource extends RestResource {
             public void write(final OutputStream out) throws IOException,
                     WebApplicationException {
                 long recordCount = 0;
+                boolean failed = true;
+                BridgePipeline pipeline = null;
 
-                if (!threadSafe) {
-                    lock(dataDir);
+                if (lock != null) {
+                    lock.lock();
                 }
                 try {
 
                     if (!bridge.beginIteration()) {
+                        failed = false;
                         return;
                     }
 
-                    Writable record;
-                    DataOutputStream dos = new DataOutputStream(out);
+                    DataOutputStream dos = new DataOutputStream(
+                            new MeteredOutputStream(out, metrics));
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Starting streaming fragment " + fragment + " of resource " + dataDir);
                     }
-                    while ((record = bridge.getNext()) != null) {
-                        record.write(dos);
-                        ++recordCount;
+                    if (pipelined) {
+                        pipeline = new BridgePipeline(bridge, pipelineDepth,
+                                PipelineStats.forProfile(profile));
+                        pipeline.start();
+                        int records;
+                        while ((records = pipeline.writeNextBatch(dos)) > 0) {
+                            recordCount += records;
+                        }
+                    } else {
+                        RecordBatch batch = new RecordBatch();
+                        while (bridge.getNextBatch(batch) > 0) {
+                            batch.write(dos);
+                            recordCount += batch.size();
+                        }
                     }
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Finished streaming fragment " + fragment + " of resource "
                                 + dataDir + ", " + recordCount + " records.");
                     }
+                    failed = false;
                 } catch (ClientAbortException e) {
                     // Occurs whenever client (GPDB) decides the end the connection
                     LOG.error("Remote connection closed by GPDB", e);
@@ -164,14 +190,23 @@ public class BridgeResource extends RestResource {
                         LOG.debug("Stopped streaming fragment " + fragment + " of resource "
                                 + dataDir + ", " + recordCount + " records.");
                     }
+                    if (pipeline != null) {
+                        try {
+                            pipeline.close();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
                     try {
                         bridge.endIteration();
                     } catch (Exception e) {
                         // ignore ... any significant errors should already have been handled
                     }
-                    if (!threadSafe) {
-                        unlock(dataDir);
+                    if (lock != null) {
+                        lock.unlock();
                     }
+                    metrics.addRecords(recordCount);
+                    metrics.finish(failed);
                 }
             }
         };
@@ -179,25 +214,59 @@ public class BridgeResource extends RestResource {
         return Response.ok(streaming, MediaType.APPLICATION_OCTET_STREAM).build();
     }
 
-    /**
-     * Locks BRIDGE_LOCK
-     *
-     * @param path path for the request, used for logging.
+    /*
+     * Streams the records of all the fragments of a multi-fragment request,
+     * read concurrently. The per-plugin timings are not recorded, as the
+     * bridges run in parallel.
      */
-    private void lock(String path) {
-        LOG.trace("Locking BridgeResource for " + path);
-        BRIDGE_LOCK.lock();
-        LOG.trace("Locked BridgeResource for " + path);
-    }
+    Response readFragmentsResponse(Bridge firstBridge, ProtocolData protData,
+                                   boolean threadSafe, final RequestMetrics metrics) {
+        final MultiFragmentReader reader = new MultiFragmentReader(protData, firstBridge, threadSafe);
+        final int fragments = protData.getFragmentCount();
+        final String dataDir = protData.getDataSource();
 
-    /**
-     * Unlocks BRIDGE_LOCK
-     *
-     * @param path path for the request, used for logging.
-     */
-    private void unlock(String path) {
-        LOG.trace("Unlocking BridgeResource for " + path);
-        BRIDGE_LOCK.unlock();
-        LOG.trace("Unlocked BridgeResource for " + path);
+        final StreamingOutput streaming = new StreamingOutput() {
+            @Override
+            public void write(final OutputStream out) throws IOException,
+                    WebApplicationException {
+                long recordCount = 0;
+                boolean failed = true;
+
+                try {
+                    DataOutputStream dos = new DataOutputStream(
+                            new MeteredOutputStream(out, metrics));
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Starting streaming " + fragments + " fragments of resource "
+                                + dataDir + " with " + reader.getReaders() + " readers");
+                    }
+                    reader.start();
+                    int records;
+                    while ((records = reader.writeNextBatch(dos)) > 0) {
+                        recordCount += records;
+                    }
+                    failed = false;
+                } catch (ClientAbortException e) {
+                    // Occurs whenever client (GPDB) decides the end the connection
+                    LOG.error("Remote connection closed by GPDB", e);
+                } catch (Exception e) {
+                    LOG.error("Exception thrown when streaming", e);
+                    throw new IOException(e.getMessage());
+                } finally {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Stopped streaming " + fragments + " fragments of resource "
+                                + dataDir + ", " + recordCount + " records.");
+                    }
+                    try {
+                        reader.close();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    metrics.addRecords(recordCount);
+                    metrics.finish(failed);
+                }
+            }
+        };
+
+        return Response.ok(streaming, MediaType.APPLICATION_OCTET_STREAM).build();
     }
 }
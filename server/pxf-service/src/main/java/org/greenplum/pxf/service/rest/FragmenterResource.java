@@ -25,6 +25,8 @@ import org.greenplum.pxf.api.FragmentsStats;
 import org.greenplum.pxf.api.utilities.FragmenterFactory;
 import org.greenplum.pxf.api.utilities.FragmentsResponse;
 import org.greenplum.pxf.api.utilities.FragmentsResponseFormatter;
+import org.greenplum.pxf.service.FragmentsCache;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 import org.greenplum.pxf.service.utilities.AnalyzeUtils;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 
@@ -76,18 +78,27 @@ public class FragmenterResource extends RestResource {
             throws Exception {
 
         ProtocolData protData = getProtocolData(servletContext, headers, path);
-
-        /* Create a fragmenter instance with API level parameters */
-        final Fragmenter fragmenter = FragmenterFactory.create(protData);
-
-        List<Fragment> fragments = fragmenter.getFragments();
-
-        fragments = AnalyzeUtils.getSampleFragments(fragments, protData);
-
-        FragmentsResponse fragmentsResponse = FragmentsResponseFormatter.formatResponse(
-                fragments, path);
-
-        return Response.ok(fragmentsResponse, MediaType.APPLICATION_JSON_TYPE).build();
+        RequestMetrics metrics = RequestMetrics.start(RequestMetrics.Operation.FRAGMENTS, protData);
+        boolean failed = true;
+        try {
+            /* Create a fragmenter instance with API level parameters */
+            final Fragmenter fragmenter = FragmenterFactory.create(protData);
+            metrics.setPlugin(protData.getFragmenter());
+
+            /* Reuse the fragments of a recent identical request when possible */
+            List<Fragment> fragments = FragmentsCache.getInstance().getFragments(fragmenter, protData);
+
+            fragments = AnalyzeUtils.getSampleFragments(fragments, protData);
+            metrics.addRecords(fragments.size());
+
+            FragmentsResponse fragmentsResponse = FragmentsResponseFormatter.formatResponse(
+                    fragments, path);
+
+            failed = false;
+            return Response.ok(fragmentsResponse, MediaType.APPLICATION_JSON_TYPE).build();
+        } finally {
+            metrics.finish(failed);
+        }
     }
 
     /**
@@ -111,17 +122,24 @@ public class FragmenterResource extends RestResource {
             throws Exception {
 
         ProtocolData protData = getProtocolData(servletContext, headers, path);
+        RequestMetrics metrics = RequestMetrics.start(RequestMetrics.Operation.FRAGMENTS, protData);
+        boolean failed = true;
+        try {
+            /* Create a fragmenter instance with API level parameters */
+            final Fragmenter fragmenter = FragmenterFactory.create(protData);
+            metrics.setPlugin(protData.getFragmenter());
+
+            FragmentsStats fragmentsStats = fragmenter.getFragmentsStats();
+            String response = FragmentsStats.dataToJSON(fragmentsStats);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(FragmentsStats.dataToString(fragmentsStats, path));
+            }
 
-        /* Create a fragmenter instance with API level parameters */
-        final Fragmenter fragmenter = FragmenterFactory.create(protData);
-
-        FragmentsStats fragmentsStats = fragmenter.getFragmentsStats();
-        String response = FragmentsStats.dataToJSON(fragmentsStats);
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(FragmentsStats.dataToString(fragmentsStats, path));
+            failed = false;
+            return Response.ok(response, MediaType.APPLICATION_JSON_TYPE).build();
+        } finally {
+            metrics.finish(failed);
         }
-
-        return Response.ok(response, MediaType.APPLICATION_JSON_TYPE).build();
     }
 
     private ProtocolData getProtocolData(final ServletContext servletContext,
@@ -0,0 +1,63 @@
+package org.greenplum.pxf.service.rest;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.greenplum.pxf.service.metrics.MetricsRegistry;
+
+/**
+ * Class returning the performance metrics of the PXF service: for each
+ * profile, the number of requests, errors, records and bytes, the durations
+ * and times to first byte, and the time spent in the accessor, resolver,
+ * builder and socket, for the read, write and fragments requests. The metrics
+ * of the plugin locks, fragments cache and pipelines are also returned. The
+ * same metrics are available through JMX, under the org.greenplum.pxf domain.
+ *
+ * The expected format of a path is "
+ * {@code http://<host>:<port>/pxf/Metrics}". Durations are in microseconds.
+ */
+@Path("/Metrics")
+public class MetricsResource {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public MetricsResource() {
+    }
+
+    /**
+     * Returns the current metrics of the service.
+     *
+     * @return response with the metrics in JSON format
+     * @throws Exception if the metrics could not be serialized
+     */
+    @GET
+    @Produces("application/json")
+    public Response getMetrics() throws Exception {
+        String metrics = MAPPER.writeValueAsString(MetricsRegistry.getSnapshot());
+        return Response.ok(metrics, MediaType.APPLICATION_JSON_TYPE).build();
+    }
+}
@@ -19,6 +19,7 @@ package org.greenplum.pxf.service.rest;
  * under the License.
  */
 
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.InputStream;
 import java.util.Map;
@@ -37,8 +38,11 @@ import org.apache.catalina.connector.ClientAbortException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.greenplum.pxf.api.utilities.Utilities;
-import org.greenplum.pxf.service.Bridge;
+import org.greenplum.pxf.service.PluginLockManager;
 import org.greenplum.pxf.service.WriteBridge;
+import org.greenplum.pxf.service.WritePipeline;
+import org.greenplum.pxf.service.metrics.MeteredInputStream;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 
 /*
@@ -116,7 +120,16 @@ public class WritableResource extends RestResource{
 
         ProtocolData protData = new ProtocolData(params);
         protData.setDataSource(path);
-        Bridge bridge = new WriteBridge(protData);
+        RequestMetrics metrics = RequestMetrics.start(RequestMetrics.Operation.WRITE, protData);
+        WriteBridge bridge;
+        try {
+            bridge = new WriteBridge(protData);
+            metrics.setPlugin(protData.getAccessor());
+        } catch (Exception e) {
+            metrics.finish(true);
+            throw e;
+        }
+        bridge.setMetrics(metrics);
 
         // THREAD-SAFE parameter has precedence
         boolean isThreadSafe = protData.isThreadSafe() && bridge.isThreadSafe();
@@ -125,45 +138,86 @@ public class WritableResource extends RestResource{
                     (isThreadSafe ? "without" : "with") + " synchronization");
         }
 
+        // without pipeline, the records are written one by one
+        int pipelineDepth = protData.isPipelined() ? protData.getPipelineDepth() : 0;
+
         return isThreadSafe ?
-                writeResponse(bridge, path, inputStream) :
-                synchronizedWriteResponse(bridge, path, inputStream);
+                writeResponse(bridge, path, inputStream, pipelineDepth, metrics) :
+                synchronizedWriteResponse(bridge, protData, path, inputStream, pipelineDepth, metrics);
     }
 
-    private static synchronized Response synchronizedWriteResponse(Bridge bridge,
-                                                                   String path,
-                                                                   InputStream inputStream)
+    private static Response synchronizedWriteResponse(WriteBridge bridge,
+                                                      ProtocolData protData,
+                                                      String path,
+                                                      InputStream inputStream,
+                                                      int pipelineDepth,
+                                                      RequestMetrics metrics)
             throws Exception {
-        return writeResponse(bridge, path, inputStream);
+        PluginLockManager.PluginLock lock = PluginLockManager.getInstance().getLock(protData);
+        lock.lock();
+        try {
+            return writeResponse(bridge, path, inputStream, pipelineDepth, metrics);
+        } finally {
+            lock.unlock();
+        }
     }
 
-    private static Response writeResponse(Bridge bridge,
+    /*
+     * Writes the records of the stream with the bridge. When pipelineDepth is
+     * positive, the records are decoded in batches by this thread and written
+     * by the thread of a WritePipeline.
+     */
+    private static Response writeResponse(WriteBridge bridge,
                                           String path,
-                                          InputStream inputStream)
+                                          InputStream inputStream,
+                                          int pipelineDepth,
+                                          RequestMetrics metrics)
             throws Exception {
-        // Open the output file
-        bridge.beginIteration();
         long totalWritten = 0;
+        boolean failed = true;
         Exception ex = null;
-
-        // dataStream will close automatically in the end of the try.
-        // inputStream is closed by dataStream.close().
-        try (DataInputStream dataStream = new DataInputStream(inputStream)) {
-            while (bridge.setNext(dataStream)) {
-                ++totalWritten;
-            }
-        } catch (ClientAbortException cae) {
-            LOG.error("Remote connection closed by GPDB", cae);
-        } catch (Exception e) {
-            LOG.error("Exception: totalWritten so far " + totalWritten + " to " + path, e);
-            ex = e;
-            throw ex;
-        } finally {
-            try {
-                bridge.endIteration();
+        WritePipeline pipeline = null;
+
+        try {
+            // Open the output file
+            bridge.beginIteration();
+
+            // dataStream will close automatically in the end of the try.
+            // inputStream is closed by dataStream.close().
+            // The metered stream is buffered, so that the records are not
+            // read from it byte by byte.
+            try (DataInputStream dataStream = new DataInputStream(
+                    new BufferedInputStream(new MeteredInputStream(inputStream, metrics)))) {
+                if (pipelineDepth > 0) {
+                    pipeline = new WritePipeline(bridge, pipelineDepth);
+                    pipeline.start();
+                    pipeline.readFrom(dataStream);
+                } else {
+                    while (bridge.setNext(dataStream)) {
+                        ++totalWritten;
+                    }
+                }
+            } catch (ClientAbortException cae) {
+                LOG.error("Remote connection closed by GPDB", cae);
             } catch (Exception e) {
-                throw (ex == null) ? e: ex;
+                LOG.error("Exception: totalWritten so far " + totalWritten + " to " + path, e);
+                ex = e;
+                throw ex;
+            } finally {
+                try {
+                    if (pipeline != null) {
+                        pipeline.close();
+                        totalWritten = pipeline.getRecordsWritten();
+                    }
+                    bridge.endIteration();
+                } catch (Exception e) {
+                    throw (ex == null) ? e: ex;
+                }
             }
+            failed = false;
+        } finally {
+            metrics.addRecords(totalWritten);
+            metrics.finish(failed);
         }
 
         String censuredPath = Utilities.maskNonPrintables(path);
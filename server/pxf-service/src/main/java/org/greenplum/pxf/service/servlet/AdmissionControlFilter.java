@@ -0,0 +1,98 @@
+package org.greenplum.pxf.service.servlet;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.greenplum.pxf.service.AdmissionController;
+
+/**
+ * Admits the requests according to the concurrency limits of the
+ * {@link AdmissionController}, by user, profile and data source. Requests
+ * exceeding the limits wait for their turn, and are answered with HTTP 503
+ * (Service Unavailable) if they could not be admitted in time.
+ */
+public class AdmissionControlFilter implements Filter {
+
+    private static final String USER_HEADER = "X-GP-USER";
+    private static final String PROFILE_HEADER = "X-GP-OPTIONS-PROFILE";
+    private static final String DATA_SOURCE_HEADER = "X-GP-DATA-DIR";
+    AdmissionController admissionController;
+
+    /**
+     * Initializes the filter.
+     *
+     * @param filterConfig filter configuration
+     */
+    @Override
+    public void init(FilterConfig filterConfig) {
+        admissionController = AdmissionController.getInstance();
+    }
+
+    /**
+     * Waits for the admission of the request, then executes the request chain
+     * and releases the admission.
+     *
+     * @param request  http request
+     * @param response http response
+     * @param chain    filter chain
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        AdmissionController.Ticket ticket;
+        try {
+            ticket = admissionController.admit(httpRequest.getHeader(USER_HEADER),
+                    httpRequest.getHeader(PROFILE_HEADER),
+                    httpRequest.getHeader(DATA_SOURCE_HEADER));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+        }
+        if (ticket == null) {
+            ((HttpServletResponse) response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "PXF server is overloaded, the request was not admitted in time");
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ticket.release();
+        }
+    }
+
+    /**
+     * Destroys the filter.
+     */
+    @Override
+    public void destroy() {
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.commons.logging.LogFactory;
 import javax.servlet.ServletContextListener;
 import javax.servlet.ServletContextEvent;
 
+import org.greenplum.pxf.service.metrics.MetricsRegistry;
 import org.greenplum.pxf.service.utilities.Log4jConfigure;
 import org.greenplum.pxf.service.utilities.SecureLogin;
 
@@ -55,9 +56,14 @@ public class ServletLifecycleListener implements ServletContextListener {
 
 	/**
 	 * Called before the webapp is about to go down
+	 *
+	 * 1. Unregisters the JMX MBeans of the metrics.
 	 */
 	@Override
 	public void contextDestroyed(ServletContextEvent event) {
 		LOG.info("webapp about to go down");
+
+		// 1. Unregister the metrics MBeans
+		MetricsRegistry.unregisterAll();
 	}
 }
@@ -19,6 +19,28 @@ PXF_CONF="$( cd "$( dirname "${BASH_SOURCE[0]}" )/.." && pwd )"
 # Memory
 # export PXF_JVM_OPTS="-Xmx2g -Xms1g"
 
+# Admission control of the requests, for example at most 50 concurrent requests and 10 per user.
+# See AdmissionController for the limits per profile and per data source, and the queue timeout.
+# export PXF_JVM_OPTS="-Xmx2g -Xms1g -Dpxf.service.admission.max.requests=50 -Dpxf.service.admission.max.requests.per.user=10"
+
+# Number of idle chunk buffers kept for reading text files (16 by default, one buffer of 1MB per fragment being read)
+# export PXF_JVM_OPTS="-Xmx2g -Xms1g -Dpxf.hdfs.chunk.pool.size=32"
+
+# Size of the chunks of text files, adapted to the read throughput between a minimum (64KB by default) and a
+# maximum (1MB by default), and how the chunks of uncompressed files are read: stream (default), bytebuffer or
+# enhanced (HDFS cache mapped in memory, copied once into the chunk)
+# export PXF_JVM_OPTS="-Xmx2g -Xms1g -Dpxf.hdfs.chunk.size.min=131072 -Dpxf.hdfs.chunk.size=4194304 -Dpxf.hdfs.chunk.read.mode=bytebuffer"
+
+# Serialize the requests reading or writing bzip2 files, as done before they were thread safe
+# export PXF_JVM_OPTS="-Xmx2g -Xms1g -Dpxf.hdfs.bzip2.synchronized=true"
+
+# Uncompressed size between two checkpoints of the indexes of gzip files (GZIP-INDEX=true option), 32MB by default
+# export PXF_JVM_OPTS="-Xmx2g -Xms1g -Dpxf.hdfs.gzip.index.span=67108864"
+
+# Directory storing the indexes of gzip files, on the file system of the files, instead of hidden files next to them
+# (for read-only data directories), and number of indexes kept in memory (16 by default)
+# export PXF_JVM_OPTS="-Xmx2g -Xms1g -Dpxf.hdfs.gzip.index.dir=/tmp/pxf-gzip-index -Dpxf.hdfs.gzip.index.cache.size=32"
+
 # Kerberos path to keytab file owned by pxf service with permissions 0400
 # export PXF_KEYTAB="${PXF_CONF}/keytabs/pxf.service.keytab"
 
@@ -0,0 +1,177 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdmissionControllerTest {
+
+    private Properties properties;
+
+    @Before
+    public void setUp() {
+        properties = new Properties();
+        properties.setProperty("pxf.service.admission.queue.timeout", "0");
+    }
+
+    @Test
+    public void unlimitedByDefault() throws Exception {
+        AdmissionController controller = new AdmissionController(new Properties());
+        AdmissionController.Ticket first = controller.admit("alice", "HdfsTextSimple", "/data");
+        AdmissionController.Ticket second = controller.admit("alice", "HdfsTextSimple", "/data");
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(0, controller.getActiveQueues());
+        assertEquals(2, controller.getActiveRequests());
+        first.release();
+        second.release();
+        assertEquals(0, controller.getActiveRequests());
+    }
+
+    @Test
+    public void userLimit() throws Exception {
+        properties.setProperty("pxf.service.admission.max.requests.per.user", "1");
+        AdmissionController controller = new AdmissionController(properties);
+
+        AdmissionController.Ticket ticket = controller.admit("alice", "HdfsTextSimple", "/data");
+        assertNotNull(ticket);
+        assertNull(controller.admit("alice", "Hive", "/other"));
+        assertNotNull(controller.admit("bob", "HdfsTextSimple", "/data"));
+
+        ticket.release();
+        assertNotNull(controller.admit("alice", "Hive", "/other"));
+        assertEquals(3, controller.getAdmissions());
+        assertEquals(1, controller.getRejections());
+    }
+
+    @Test
+    public void profileLimits() throws Exception {
+        properties.setProperty("pxf.service.admission.max.requests.per.profile", "2");
+        properties.setProperty("pxf.service.admission.profile.Jdbc.max.requests", "1");
+        AdmissionController controller = new AdmissionController(properties);
+
+        assertEquals(2, controller.getProfileLimit("HdfsTextSimple"));
+        assertEquals(1, controller.getProfileLimit("jdbc"));
+        assertEquals(0, controller.getProfileLimit(null));
+
+        assertNotNull(controller.admit("alice", "Jdbc", "table"));
+        assertNull(controller.admit("bob", "Jdbc", "other_table"));
+        assertNotNull(controller.admit("alice", "HdfsTextSimple", "/data"));
+        assertNotNull(controller.admit("alice", "HdfsTextSimple", "/data"));
+        assertNull(controller.admit("alice", "HdfsTextSimple", "/data"));
+    }
+
+    @Test
+    public void dataSourceAndGlobalLimits() throws Exception {
+        properties.setProperty("pxf.service.admission.max.requests.per.datasource", "1");
+        properties.setProperty("pxf.service.admission.max.requests", "2");
+        AdmissionController controller = new AdmissionController(properties);
+
+        assertNotNull(controller.admit("alice", "HdfsTextSimple", "/data"));
+        assertNull(controller.admit("bob", "HdfsTextSimple", "/data"));
+        assertNotNull(controller.admit("bob", "HdfsTextSimple", "/other"));
+        assertNull(controller.admit("carol", "HdfsTextSimple", "/third"));
+    }
+
+    @Test
+    public void rejectionReleasesAcquiredPermits() throws Exception {
+        properties.setProperty("pxf.service.admission.max.requests.per.user", "1");
+        properties.setProperty("pxf.service.admission.max.requests", "1");
+        AdmissionController controller = new AdmissionController(properties);
+
+        AdmissionController.Ticket ticket = controller.admit("alice", null, null);
+        // bob obtains his user permit, but not the global one
+        assertNull(controller.admit("bob", null, null));
+        ticket.release();
+
+        assertEquals(0, controller.getActiveQueues());
+        assertNotNull(controller.admit("bob", null, null));
+    }
+
+    @Test
+    public void releaseIsIdempotent() throws Exception {
+        properties.setProperty("pxf.service.admission.max.requests", "1");
+        AdmissionController controller = new AdmissionController(properties);
+
+        AdmissionController.Ticket ticket = controller.admit("alice", null, null);
+        ticket.release();
+        ticket.release();
+
+        assertNotNull(controller.admit("alice", null, null));
+        assertNull(controller.admit("alice", null, null));
+        assertEquals(1, controller.getActiveRequests());
+    }
+
+    @Test
+    public void queuedRequestIsAdmittedAndRecordsWait() throws Exception {
+        properties.setProperty("pxf.service.admission.max.requests", "1");
+        properties.setProperty("pxf.service.admission.queue.timeout", "10");
+        final AdmissionController controller = new AdmissionController(properties);
+        AdmissionController.Ticket first = controller.admit("alice", null, null);
+
+        final AtomicReference<AdmissionController.Ticket> second = new AtomicReference<>();
+        final CountDownLatch admitted = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    second.set(controller.admit("bob", null, null));
+                } catch (InterruptedException e) {
+                    // the ticket stays null
+                }
+                admitted.countDown();
+            }
+        });
+        thread.start();
+
+        assertFalse(admitted.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, controller.getWaitingRequests());
+        first.release();
+        assertTrue(admitted.await(10, TimeUnit.SECONDS));
+        thread.join();
+
+        assertNotNull(second.get());
+        second.get().release();
+        assertEquals(2, controller.getAdmissions());
+        assertEquals(1, controller.getContentions());
+        assertEquals(0, controller.getWaitingRequests());
+        assertTrue(controller.getMaxWaitNanos() > 0);
+        assertEquals(controller.getMaxWaitNanos(), controller.getTotalWaitNanos());
+        assertEquals(0, controller.getActiveQueues());
+    }
+
+    @Test
+    public void invalidValuesAreIgnored() throws Exception {
+        properties.setProperty("pxf.service.admission.max.requests", "many");
+        AdmissionController controller = new AdmissionController(properties);
+
+        assertNotNull(controller.admit("alice", null, null));
+        assertNotNull(controller.admit("alice", null, null));
+    }
+}
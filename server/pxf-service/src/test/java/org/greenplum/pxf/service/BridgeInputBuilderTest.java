@@ -21,6 +21,7 @@ package org.greenplum.pxf.service;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -67,6 +68,7 @@ public class BridgeInputBuilderTest {
         List<OneField> record = inputBuilder.makeInput(inputStream);
 
         verifyRecord(record, Arrays.copyOfRange(data, 0, 5));
+        assertFalse(inputBuilder.isEndOfStream());
 
         record = inputBuilder.makeInput(inputStream);
         verifyRecord(record, Arrays.copyOfRange(data, 5, 8));
@@ -122,6 +124,7 @@ public class BridgeInputBuilderTest {
         List<OneField> record = inputBuilder.makeInput(inputStream);
 
         verifyRecord(record, empty);
+        assertTrue(inputBuilder.isEndOfStream());
     }
 
     /*
@@ -27,8 +27,12 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -39,10 +43,14 @@ import java.util.List;
 import java.util.Map;
 
 import org.greenplum.pxf.api.BadRecordException;
+import org.greenplum.pxf.api.ColumnBatch;
+import org.greenplum.pxf.api.ColumnVector;
 import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.RowBuffer;
 import org.greenplum.pxf.api.io.DataType;
 import org.greenplum.pxf.service.io.BufferWritable;
 import org.greenplum.pxf.service.io.GPDBWritable;
+import org.greenplum.pxf.service.io.RecordBatch;
 import org.greenplum.pxf.service.io.Writable;
 import org.greenplum.pxf.api.utilities.ProtocolData;
 import org.junit.Test;
@@ -247,6 +255,31 @@ public class BridgeOutputBuilderTest {
         }
     }
 
+    @Test
+    public void testNonProjectedColumnsAreNull() throws Exception {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("X-GP-ATTRS", "3");
+        parameters.put("X-GP-ATTRS-PROJ", "1");
+        parameters.put("X-GP-ATTRS-PROJ-IDX", "1");
+
+        addColumn(parameters, 0, DataType.INTEGER, "col0");
+        addColumn(parameters, 1, DataType.INTEGER, "col1");
+        addColumn(parameters, 2, DataType.INTEGER, "col2");
+
+        BridgeOutputBuilder builder = makeBuilder(parameters);
+        output = builder.makeGPDBWritableOutput();
+
+        /* the fields of the non-projected columns are not checked */
+        List<OneField> record = Arrays.asList(
+                new OneField(DataType.TEXT.getOID(), "not converted"),
+                new OneField(DataType.INTEGER.getOID(), 20),
+                new OneField(DataType.INTEGER.getOID(), 30));
+        builder.fillGPDBWritable(record);
+        assertNull(output.getInt(0));
+        assertEquals(output.getInt(1), Integer.valueOf(20));
+        assertNull(output.getInt(2));
+    }
+
     @Test
     public void testRecordBiggerThanSchema() throws Exception {
         Map<String, String> parameters = new HashMap<String, String>();
@@ -304,6 +337,117 @@ public class BridgeOutputBuilderTest {
         }
     }
 
+    @Test
+    public void columnBatchIsSerializedLikeFields() throws Exception {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("X-GP-ATTRS", "6");
+        addColumn(parameters, 0, DataType.INTEGER, "col0");
+        addColumn(parameters, 1, DataType.FLOAT8, "col1");
+        addColumn(parameters, 2, DataType.BOOLEAN, "col2");
+        addColumn(parameters, 3, DataType.TEXT, "col3");
+        addColumn(parameters, 4, DataType.BYTEA, "col4");
+        addColumn(parameters, 5, DataType.NUMERIC, "col5");
+
+        ColumnBatch columns = new ColumnBatch(6);
+        ColumnVector.LongVector ints = new ColumnVector.LongVector(DataType.INTEGER.getOID());
+        ints.vector = new long[] { 1, -2, 3 };
+        ints.setNulls(new boolean[] { false, true, false }, false, false);
+        columns.setColumn(0, ints);
+        ColumnVector.DoubleVector doubles = new ColumnVector.DoubleVector(DataType.FLOAT8.getOID());
+        doubles.vector = new double[] { 1.5, 2.5, 3.5 };
+        columns.setColumn(1, doubles);
+        ColumnVector.LongVector booleans = new ColumnVector.LongVector(DataType.BOOLEAN.getOID());
+        booleans.vector = new long[] { 1 };
+        booleans.setNulls(null, true, true);
+        columns.setColumn(2, booleans);
+        byte[] bytes = "abcdéf".getBytes("UTF-8");
+        ColumnVector.BytesVector strings = new ColumnVector.BytesVector(DataType.TEXT.getOID());
+        strings.setValues(new byte[][] { bytes, bytes, bytes }, new int[] { 0, 1, 3 }, new int[] { 1, 2, 4 });
+        columns.setColumn(3, strings);
+        ColumnVector.BytesVector binaries = new ColumnVector.BytesVector(DataType.BYTEA.getOID());
+        binaries.setValues(new byte[][] { bytes, bytes, bytes }, new int[] { 0, 0, 0 }, new int[] { 0, 3, 7 });
+        columns.setColumn(4, binaries);
+        ColumnVector.ObjectVector decimals = new ColumnVector.ObjectVector(DataType.NUMERIC.getOID());
+        decimals.vector = new Object[] { new BigDecimal("1.10"), null, new BigDecimal("-3") };
+        decimals.setNulls(new boolean[] { false, true, false }, false, false);
+        columns.setColumn(5, decimals);
+        columns.setSize(3);
+
+        RecordBatch fromColumns = new RecordBatch();
+        makeBuilder(parameters).addColumnBatch(columns, fromColumns);
+        RecordBatch fromFields = new RecordBatch();
+        BridgeOutputBuilder builder = makeBuilder(parameters);
+        for (List<OneField> record : columns.toFields()) {
+            fromFields.add(builder.makeOutput(record).getFirst());
+        }
+
+        assertEquals(3, fromColumns.size());
+        assertArrayEquals(toBytes(fromFields), toBytes(fromColumns));
+    }
+
+    @Test
+    public void columnBatchTypeMismatch() throws Exception {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("X-GP-ATTRS", "1");
+        addColumn(parameters, 0, DataType.FLOAT8, "col0");
+
+        ColumnBatch columns = new ColumnBatch(1);
+        ColumnVector.LongVector ints = new ColumnVector.LongVector(DataType.INTEGER.getOID());
+        ints.vector = new long[] { 1 };
+        columns.setColumn(0, ints);
+        columns.setSize(1);
+
+        try {
+            makeBuilder(parameters).addColumnBatch(columns, new RecordBatch());
+            fail("a vector of INTEGER values cannot be serialized in a FLOAT8 column");
+        } catch (BadRecordException e) {
+            assertEquals("For field col0 schema requires type FLOAT8 but input record has type INTEGER",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void rowBufferIsSerializedLikeFields() throws Exception {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("X-GP-ATTRS", "5");
+        addColumn(parameters, 0, DataType.BIGINT, "col0");
+        addColumn(parameters, 1, DataType.REAL, "col1");
+        addColumn(parameters, 2, DataType.VARCHAR, "col2");
+        addColumn(parameters, 3, DataType.BYTEA, "col3");
+        addColumn(parameters, 4, DataType.TIMESTAMP, "col4");
+
+        BridgeOutputBuilder builder = makeBuilder(parameters);
+        RowBuffer buffer = new RowBuffer(new ProtocolData(parameters));
+        RecordBatch fromBuffer = new RecordBatch();
+        List<List<OneField>> records = new ArrayList<List<OneField>>();
+        byte[] bytes = "abcdéf".getBytes("UTF-8");
+
+        buffer.setLong(0, Long.MIN_VALUE);
+        buffer.setFloat(1, 0.25f);
+        buffer.setString(2, bytes, 1, 5);
+        buffer.setBytes(3, bytes, 0, 2);
+        buffer.setObject(4, DataType.TIMESTAMP.getOID(), Timestamp.valueOf("2018-01-02 03:04:05"));
+        builder.addColumnBatch(buffer.getColumnBatch(), fromBuffer);
+        records.add(buffer.toFields());
+
+        // the columns not set in the second row are null
+        buffer.clear();
+        buffer.setLong(0, 7);
+        buffer.setString(2, "xyz");
+        builder.addColumnBatch(buffer.getColumnBatch(), fromBuffer);
+        records.add(buffer.toFields());
+
+        RecordBatch fromFields = new RecordBatch();
+        builder = makeBuilder(parameters);
+        for (List<OneField> record : records) {
+            fromFields.add(builder.makeOutput(record).getFirst());
+        }
+
+        assertEquals(2, fromBuffer.size());
+        assertNull(records.get(1).get(1).val);
+        assertArrayEquals(toBytes(fromFields), toBytes(fromBuffer));
+    }
+
     @Test
     public void convertTextDataToLines() throws Exception {
 
@@ -439,6 +583,38 @@ public class BridgeOutputBuilderTest {
 
     }
 
+    @Test
+    public void textViewIsWrittenAsIs() throws Exception {
+        byte[] buffer = "xxfirst\nsecond\nyy".getBytes();
+        List<OneField> fields = new ArrayList<OneField>();
+        fields.add(new OneField(DataType.BYTEA.getOID(), ByteBuffer.wrap(buffer, 2, 14)));
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("X-GP-ATTRS", "1");
+        addColumn(parameters, 0, DataType.TEXT, "col0");
+        LinkedList<Writable> outputQueue = makeBuilder(parameters).makeOutput(fields);
+
+        assertEquals(1, outputQueue.size());
+        assertArrayEquals("first\nsecond\n".getBytes(), toBytes(outputQueue.get(0)));
+
+        // sampling breaks the view into lines
+        parameters.put("X-GP-OPTIONS-STATS-MAX-FRAGMENTS", "100");
+        parameters.put("X-GP-OPTIONS-STATS-SAMPLE-RATIO", "1.00");
+        BridgeOutputBuilder builder = makeBuilder(parameters);
+        outputQueue = builder.makeOutput(fields);
+
+        assertEquals(2, outputQueue.size());
+        assertArrayEquals("first\n".getBytes(), toBytes(outputQueue.get(0)));
+        assertArrayEquals("second\n".getBytes(), toBytes(outputQueue.get(1)));
+        assertNull(builder.getPartialLine());
+    }
+
+    private byte[] toBytes(Writable writable) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writable.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
     private void compareBufferWritable(Writable line, String expected)
             throws IOException {
         assertTrue(line instanceof BufferWritable);
@@ -0,0 +1,136 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.greenplum.pxf.service.io.BufferWritable;
+import org.greenplum.pxf.service.io.RecordBatch;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class BridgePipelineTest {
+
+    private Bridge bridge;
+    private PipelineStats stats;
+    private int batchesLimit;
+    private int batchesRead;
+    private Exception failure;
+
+    @Before
+    public void setUp() throws Exception {
+        bridge = mock(Bridge.class);
+        stats = new PipelineStats();
+        batchesRead = 0;
+        failure = null;
+        when(bridge.getNextBatch(any(RecordBatch.class))).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                RecordBatch batch = (RecordBatch) invocation.getArguments()[0];
+                batch.clear();
+                if (batchesRead == batchesLimit) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return 0;
+                }
+                batch.add(new BufferWritable(("batch" + batchesRead + "\n").getBytes()));
+                batchesRead++;
+                return batch.size();
+            }
+        });
+    }
+
+    @Test
+    public void writesAllBatchesInOrder() throws Exception {
+        batchesLimit = 100;
+        BridgePipeline pipeline = new BridgePipeline(bridge, 2, stats);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+
+        pipeline.start();
+        int records = 0;
+        int written;
+        while ((written = pipeline.writeNextBatch(dos)) > 0) {
+            records += written;
+        }
+        assertEquals(0, pipeline.writeNextBatch(dos));
+        pipeline.close();
+
+        assertEquals(100, records);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            expected.append("batch").append(i).append("\n");
+        }
+        assertEquals(expected.toString(), bos.toString());
+        assertEquals(1, stats.getPipelines());
+        assertEquals(100, stats.getBatches());
+        assertTrue(stats.getMaxQueueDepth() <= 3);
+    }
+
+    @Test
+    public void readerFailureIsThrown() throws Exception {
+        batchesLimit = 3;
+        failure = new IOException("read failed");
+        BridgePipeline pipeline = new BridgePipeline(bridge, 4, stats);
+        DataOutputStream dos = new DataOutputStream(new ByteArrayOutputStream());
+
+        pipeline.start();
+        try {
+            while (pipeline.writeNextBatch(dos) > 0) {
+            }
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals("read failed", e.getMessage());
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void closeStopsReader() throws Exception {
+        batchesLimit = Integer.MAX_VALUE;
+        BridgePipeline pipeline = new BridgePipeline(bridge, 2, stats);
+        DataOutputStream dos = new DataOutputStream(new ByteArrayOutputStream());
+
+        pipeline.start();
+        assertEquals(1, pipeline.writeNextBatch(dos));
+        pipeline.close();
+
+        int readAfterClose = batchesRead;
+        Thread.sleep(50);
+        assertEquals(readAfterClose, batchesRead);
+        assertTrue(batchesRead <= 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidDepth() {
+        new BridgePipeline(bridge, 0, stats);
+    }
+}
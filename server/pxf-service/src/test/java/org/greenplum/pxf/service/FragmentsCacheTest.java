@@ -0,0 +1,171 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.greenplum.pxf.api.Fragment;
+import org.greenplum.pxf.api.Fragmenter;
+import org.greenplum.pxf.api.VersionedFragmenter;
+import org.greenplum.pxf.api.utilities.InputData;
+import org.greenplum.pxf.api.utilities.ProtocolData;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FragmentsCacheTest {
+
+    private FragmentsCache cache;
+    private UGICacheTest.FakeTicker ticker;
+    private ProtocolData protData;
+    private Map<String, String> params;
+
+    static class TestFragmenter extends Fragmenter implements VersionedFragmenter {
+        String version = "1";
+        int calls;
+
+        TestFragmenter() {
+            super(mock(InputData.class));
+        }
+
+        @Override
+        public List<Fragment> getFragments() {
+            calls++;
+            fragments.add(new Fragment("/data/file", new String[]{"host1"}, new byte[0]));
+            return fragments;
+        }
+
+        @Override
+        public String getFragmentsVersion() {
+            return version;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        ticker = new UGICacheTest.FakeTicker();
+        cache = new FragmentsCache(10, 60, ticker);
+        params = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        params.put("X-GP-DATA-DIR", "/data");
+        params.put("X-GP-OPTIONS-FRAGMENTER", "TestFragmenter");
+        params.put("X-GP-USER", "alice");
+        params.put("X-GP-XID", "1");
+        protData = mock(ProtocolData.class);
+        when(protData.getParametersMap()).thenReturn(params);
+    }
+
+    @Test
+    public void fragmentsAreCached() throws Exception {
+        TestFragmenter fragmenter = new TestFragmenter();
+        cache.getFragments(fragmenter, protData);
+
+        // a new query on the same data source
+        params.put("X-GP-XID", "2");
+        List<Fragment> fragments = cache.getFragments(new TestFragmenter(), protData);
+
+        assertEquals(1, fragmenter.calls);
+        assertEquals(1, fragments.size());
+        assertEquals("/data/file", fragments.get(0).getSourceName());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void cachedFragmentsAreCopied() throws Exception {
+        List<Fragment> fragments = cache.getFragments(new TestFragmenter(), protData);
+        fragments.get(0).setReplicas(new String[]{"10.0.0.1"});
+        fragments.get(0).setIndex(5);
+
+        fragments = cache.getFragments(new TestFragmenter(), protData);
+        assertArrayEquals(new String[]{"host1"}, fragments.get(0).getReplicas());
+        assertEquals(0, fragments.get(0).getIndex());
+    }
+
+    @Test
+    public void newVersionIsNotCached() throws Exception {
+        cache.getFragments(new TestFragmenter(), protData);
+
+        TestFragmenter fragmenter = new TestFragmenter();
+        fragmenter.version = "2";
+        cache.getFragments(fragmenter, protData);
+
+        assertEquals(1, fragmenter.calls);
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void differentRequestIsNotCached() throws Exception {
+        cache.getFragments(new TestFragmenter(), protData);
+
+        params.put("X-GP-USER", "bob");
+        TestFragmenter fragmenter = new TestFragmenter();
+        cache.getFragments(fragmenter, protData);
+
+        assertEquals(1, fragmenter.calls);
+    }
+
+    @Test
+    public void entriesExpire() throws Exception {
+        cache.getFragments(new TestFragmenter(), protData);
+
+        ticker.advanceTime(61 * 1000);
+        TestFragmenter fragmenter = new TestFragmenter();
+        cache.getFragments(fragmenter, protData);
+
+        assertEquals(1, fragmenter.calls);
+    }
+
+    @Test
+    public void unversionedFragmentsAreNotCached() throws Exception {
+        TestFragmenter fragmenter = new TestFragmenter();
+        fragmenter.version = null;
+        cache.getFragments(fragmenter, protData);
+        cache.getFragments(fragmenter, protData);
+
+        assertEquals(2, fragmenter.calls);
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void disabledCache() throws Exception {
+        cache = new FragmentsCache(0, 60, ticker);
+        TestFragmenter fragmenter = new TestFragmenter();
+        cache.getFragments(fragmenter, protData);
+        cache.getFragments(fragmenter, protData);
+
+        assertEquals(2, fragmenter.calls);
+    }
+
+    @Test
+    public void cacheKeyIgnoresQuerySpecificParameters() {
+        String key = FragmentsCache.getCacheKey(protData);
+        params.put("X-GP-XID", "2");
+        params.put("X-GP-SEGMENT-ID", "3");
+        assertEquals(key, FragmentsCache.getCacheKey(protData));
+
+        params.put("X-GP-FILTER", "a1c23s1d5o5");
+        assertNotEquals(key, FragmentsCache.getCacheKey(protData));
+    }
+}
@@ -0,0 +1,231 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.greenplum.pxf.api.utilities.ProtocolData;
+import org.greenplum.pxf.service.io.BufferWritable;
+import org.greenplum.pxf.service.io.RecordBatch;
+import org.greenplum.pxf.service.io.Writable;
+import org.greenplum.pxf.service.metrics.RequestMetrics;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MultiFragmentReaderTest {
+
+    private ProtocolData protData;
+    private ConcurrentMap<Integer, TestBridge> bridges;
+    private int batchesPerFragment;
+    private int failingFragment;
+
+    class TestBridge implements Bridge {
+        final int fragment;
+        volatile int batchesRead;
+        volatile boolean begun;
+        volatile boolean ended;
+
+        TestBridge(int fragment) {
+            this.fragment = fragment;
+        }
+
+        @Override
+        public boolean beginIteration() {
+            begun = true;
+            return true;
+        }
+
+        @Override
+        public Writable getNext() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getNextBatch(RecordBatch batch) throws Exception {
+            batch.clear();
+            if (batchesRead == batchesPerFragment) {
+                if (fragment == failingFragment) {
+                    throw new IOException("fragment " + fragment + " failed");
+                }
+                return 0;
+            }
+            batch.add(new BufferWritable(("f" + fragment + "b" + batchesRead + "\n").getBytes()));
+            batchesRead++;
+            return batch.size();
+        }
+
+        @Override
+        public boolean setNext(DataInputStream inputStream) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+
+        @Override
+        public void setMetrics(RequestMetrics metrics) {
+        }
+
+        @Override
+        public void endIteration() {
+            ended = true;
+        }
+    }
+
+    class TestReader extends MultiFragmentReader {
+        TestReader(Bridge firstBridge) {
+            super(protData, firstBridge, true);
+        }
+
+        @Override
+        protected Bridge createBridge(ProtocolData fragmentData) {
+            int fragment = fragmentData.getDataFragment();
+            TestBridge bridge = new TestBridge(fragment);
+            assertNull(bridges.putIfAbsent(fragment, bridge));
+            return bridge;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        bridges = new ConcurrentHashMap<>();
+        batchesPerFragment = 5;
+        failingFragment = -1;
+    }
+
+    private void mockFragments(int fragments, int readers) {
+        protData = mock(ProtocolData.class);
+        when(protData.getFragmentCount()).thenReturn(fragments);
+        when(protData.getFragmentReaders()).thenReturn(readers);
+        for (int i = 0; i < fragments; i++) {
+            ProtocolData fragmentData = mock(ProtocolData.class);
+            when(fragmentData.getDataFragment()).thenReturn(i);
+            when(fragmentData.getDataSource()).thenReturn("/data/file" + i);
+            when(protData.getFragment(i)).thenReturn(fragmentData);
+        }
+    }
+
+    private String readAll(MultiFragmentReader reader) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        reader.start();
+        try {
+            while (reader.writeNextBatch(dos) > 0) {
+            }
+            assertEquals(0, reader.writeNextBatch(dos));
+        } finally {
+            reader.close();
+        }
+        return bos.toString();
+    }
+
+    @Test
+    public void readsAllFragments() throws Exception {
+        mockFragments(20, 4);
+        TestBridge first = new TestBridge(0);
+        bridges.put(0, first);
+        MultiFragmentReader reader = new TestReader(first);
+        assertEquals(4, reader.getReaders());
+
+        String output = readAll(reader);
+
+        // every fragment is read once, its batches in order
+        Map<Integer, Integer> nextBatch = new HashMap<>();
+        String[] lines = output.split("\n");
+        assertEquals(20 * batchesPerFragment, lines.length);
+        for (String line : lines) {
+            int fragment = Integer.parseInt(line.substring(1, line.indexOf('b')));
+            int batch = Integer.parseInt(line.substring(line.indexOf('b') + 1));
+            Integer expected = nextBatch.get(fragment);
+            assertEquals((expected == null) ? 0 : expected.intValue(), batch);
+            nextBatch.put(fragment, batch + 1);
+        }
+        assertEquals(20, bridges.size());
+        for (TestBridge bridge : bridges.values()) {
+            assertTrue(bridge.begun);
+            assertTrue(bridge.ended);
+        }
+    }
+
+    @Test
+    public void readersAreBoundedByFragments() throws Exception {
+        mockFragments(2, 8);
+        MultiFragmentReader reader = new TestReader(null);
+        assertEquals(2, reader.getReaders());
+
+        String output = readAll(reader);
+        assertEquals(2 * batchesPerFragment, output.split("\n").length);
+    }
+
+    @Test
+    public void fragmentFailureIsThrown() throws Exception {
+        mockFragments(10, 3);
+        failingFragment = 4;
+        MultiFragmentReader reader = new TestReader(null);
+
+        try {
+            readAll(reader);
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals("fragment 4 failed", e.getMessage());
+        }
+        for (TestBridge bridge : bridges.values()) {
+            assertEquals(bridge.begun, bridge.ended);
+        }
+    }
+
+    @Test
+    public void closeStopsReaders() throws Exception {
+        mockFragments(4, 2);
+        batchesPerFragment = Integer.MAX_VALUE;
+        MultiFragmentReader reader = new TestReader(null);
+        DataOutputStream dos = new DataOutputStream(new ByteArrayOutputStream());
+
+        reader.start();
+        assertEquals(1, reader.writeNextBatch(dos));
+        reader.close();
+
+        long readAfterClose = 0;
+        for (TestBridge bridge : bridges.values()) {
+            assertTrue(bridge.ended);
+            readAfterClose += bridge.batchesRead;
+        }
+        Thread.sleep(50);
+        long read = 0;
+        for (TestBridge bridge : bridges.values()) {
+            read += bridge.batchesRead;
+        }
+        assertEquals(readAfterClose, read);
+        assertTrue(bridges.size() <= 2);
+    }
+}
@@ -0,0 +1,153 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.greenplum.pxf.api.utilities.InputData;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PluginLockManagerTest {
+
+    private PluginLockManager lockManager;
+    private InputData inputData;
+
+    @Before
+    public void setUp() {
+        lockManager = new PluginLockManager();
+        inputData = mock(InputData.class);
+        when(inputData.getAccessor()).thenReturn("org.greenplum.pxf.Accessor");
+        when(inputData.getResolver()).thenReturn("org.greenplum.pxf.Resolver");
+        when(inputData.getDataSource()).thenReturn("/data/file.bz2");
+    }
+
+    @Test
+    public void globalScopeByDefault() {
+        assertEquals("global", lockManager.getLockKey(inputData));
+    }
+
+    @Test
+    public void pluginScope() {
+        when(inputData.getUserProperty("LOCK-SCOPE")).thenReturn("plugin");
+        assertEquals("plugin:org.greenplum.pxf.Accessor,org.greenplum.pxf.Resolver",
+                lockManager.getLockKey(inputData));
+    }
+
+    @Test
+    public void dataSourceScope() {
+        when(inputData.getUserProperty("LOCK-SCOPE")).thenReturn("DataSource");
+        assertEquals("datasource:/data/file.bz2", lockManager.getLockKey(inputData));
+    }
+
+    @Test
+    public void codecScope() {
+        when(inputData.getUserProperty("LOCK-SCOPE")).thenReturn("codec");
+        assertEquals("codec:org.apache.hadoop.io.compress.BZip2Codec",
+                lockManager.getLockKey(inputData));
+
+        when(inputData.getDataSource()).thenReturn("/data/file.txt");
+        assertEquals("codec:none", lockManager.getLockKey(inputData));
+
+        when(inputData.getUserProperty("COMPRESSION_CODEC")).thenReturn("org.apache.hadoop.io.compress.GzipCodec");
+        assertEquals("codec:org.apache.hadoop.io.compress.GzipCodec",
+                lockManager.getLockKey(inputData));
+    }
+
+    @Test
+    public void invalidScope() {
+        when(inputData.getUserProperty("LOCK-SCOPE")).thenReturn("table");
+        try {
+            lockManager.getLockKey(inputData);
+            fail("expected an exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Illegal LOCK-SCOPE value 'table'. Usage: [GLOBAL|PLUGIN|CODEC|DATASOURCE]",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void differentKeysDoNotBlock() throws Exception {
+        when(inputData.getUserProperty("LOCK-SCOPE")).thenReturn("datasource");
+        PluginLockManager.PluginLock first = lockManager.getLock(inputData);
+        first.lock();
+
+        InputData other = mock(InputData.class);
+        when(other.getUserProperty("LOCK-SCOPE")).thenReturn("datasource");
+        when(other.getDataSource()).thenReturn("/data/other");
+        final PluginLockManager.PluginLock second = lockManager.getLock(other);
+        final CountDownLatch locked = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                second.lock();
+                locked.countDown();
+                second.unlock();
+            }
+        });
+        thread.start();
+
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+        thread.join();
+        assertEquals(1, lockManager.getActiveLocks());
+        first.unlock();
+        assertEquals(0, lockManager.getActiveLocks());
+        assertEquals(0, lockManager.getContentions());
+    }
+
+    @Test
+    public void sameKeyBlocksAndRecordsWait() throws Exception {
+        PluginLockManager.PluginLock first = lockManager.getLock(inputData);
+        first.lock();
+
+        final PluginLockManager.PluginLock second = lockManager.getLock(inputData);
+        final CountDownLatch locked = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                second.lock();
+                locked.countDown();
+                second.unlock();
+            }
+        });
+        thread.start();
+
+        assertFalse(locked.await(200, TimeUnit.MILLISECONDS));
+        first.unlock();
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+        thread.join();
+
+        assertEquals(2, lockManager.getAcquisitions());
+        assertEquals(1, lockManager.getContentions());
+        assertTrue(lockManager.getMaxWaitNanos() > 0);
+        assertEquals(lockManager.getMaxWaitNanos(), lockManager.getTotalWaitNanos());
+        assertEquals(0, lockManager.getActiveLocks());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unlockWithoutLock() {
+        lockManager.getLock(inputData).unlock();
+    }
+}
@@ -0,0 +1,131 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.OutputFormat;
+import org.greenplum.pxf.api.ReadResolver;
+import org.greenplum.pxf.api.SamplingAccessor;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.InputData;
+import org.greenplum.pxf.api.utilities.Plugin;
+import org.greenplum.pxf.api.utilities.ProtocolData;
+import org.greenplum.pxf.service.io.Writable;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReadBridgeTest {
+
+    private static final List<String> RECORDS = Arrays.asList(
+            "1,\"ab\ncd\"\n", "2,ef\n", "3,\"g\nh\ni\"\n");
+
+    private ProtocolData protocolData;
+
+    /**
+     * Accessor reading one record per object, like the accessor of quoted
+     * text files.
+     */
+    public static class RecordAccessor extends Plugin implements SamplingAccessor {
+        private Iterator<String> records;
+
+        public RecordAccessor(InputData input) {
+            super(input);
+        }
+
+        @Override
+        public boolean openForRead() {
+            records = RECORDS.iterator();
+            return true;
+        }
+
+        @Override
+        public OneRow readNextObject() {
+            return records.hasNext() ? new OneRow(records.next().getBytes()) : null;
+        }
+
+        @Override
+        public OneRow readNextSample(long skip) {
+            for (; skip > 0 && records.hasNext(); skip--) {
+                records.next();
+            }
+            return readNextObject();
+        }
+
+        @Override
+        public void closeForRead() {
+        }
+    }
+
+    /**
+     * Resolver passing the bytes of the record, like StringPassResolver.
+     */
+    public static class BytesResolver extends Plugin implements ReadResolver {
+
+        public BytesResolver(InputData input) {
+            super(input);
+        }
+
+        @Override
+        public List<OneField> getFields(OneRow row) {
+            return Collections.singletonList(new OneField(DataType.BYTEA.getOID(),
+                    ByteBuffer.wrap((byte[]) row.getData())));
+        }
+    }
+
+    @Before
+    public void setUp() {
+        protocolData = mock(ProtocolData.class);
+        when(protocolData.outputFormat()).thenReturn(OutputFormat.TEXT);
+        when(protocolData.getStatsSampleRatio()).thenReturn(1.0f);
+        when(protocolData.getAccessor()).thenReturn(RecordAccessor.class.getName());
+        when(protocolData.getResolver()).thenReturn(BytesResolver.class.getName());
+    }
+
+    @Test
+    public void sampledRecordsWithQuotedLineFeedsAreWhole() throws Exception {
+        ReadSamplingBridge bridge = new ReadSamplingBridge(protocolData);
+        assertTrue(bridge.beginIteration());
+        for (String record : RECORDS) {
+            assertEquals(record, toString(bridge.getNext()));
+        }
+        assertNull(bridge.getNext());
+        bridge.endIteration();
+    }
+
+    private static String toString(Writable output) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        output.write(new DataOutputStream(bytes));
+        return bytes.toString();
+    }
+}
@@ -22,7 +22,10 @@ package org.greenplum.pxf.service;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.DataInput;
@@ -213,6 +216,43 @@ public class ReadSamplingBridgeTest {
         assertNull(result);
     }
 
+    @Test
+    public void getNextSampleSkipsRecords() throws Exception {
+
+        // set bits 2, 3 and 7
+        samplingBitSet.set(2, 4);
+        samplingBitSet.set(7);
+        recordsLimit = 250;
+        when(mockProtData.getStatsSampleRatio()).thenReturn((float) 0.03);
+        when(mockBridge.isSamplingAccessor()).thenReturn(true);
+        when(mockBridge.getNextSample(anyLong())).thenAnswer(new Answer<Writable>() {
+            private long count = 0;
+
+            @Override
+            public Writable answer(InvocationOnMock invocation)
+                    throws Throwable {
+                count += (Long) invocation.getArguments()[0];
+                if (count >= recordsLimit) {
+                    return null;
+                }
+                return new WritableTest("" + (count++));
+            }
+        });
+
+        readSamplingBridge = new ReadSamplingBridge(mockProtData);
+
+        int[] expected = { 2, 3, 7, 102, 103, 107, 202, 203, 207 };
+        for (int i = 0; i < expected.length; i++) {
+            result = readSamplingBridge.getNext();
+            assertEquals("" + expected[i], result.toString());
+        }
+        result = readSamplingBridge.getNext();
+        assertNull(result);
+
+        verify(mockBridge).getNextSample(2);
+        verify(mockBridge, never()).getNext();
+    }
+
     @Before
     public void setUp() throws Exception {
 
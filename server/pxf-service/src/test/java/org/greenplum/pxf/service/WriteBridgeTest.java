@@ -0,0 +1,240 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.greenplum.pxf.api.OneField;
+import org.greenplum.pxf.api.OneRow;
+import org.greenplum.pxf.api.OutputFormat;
+import org.greenplum.pxf.api.RecordView;
+import org.greenplum.pxf.api.RecordViewWriteResolver;
+import org.greenplum.pxf.api.WriteAccessor;
+import org.greenplum.pxf.api.io.DataType;
+import org.greenplum.pxf.api.utilities.InputData;
+import org.greenplum.pxf.api.utilities.Plugin;
+import org.greenplum.pxf.api.utilities.ProtocolData;
+import org.greenplum.pxf.service.io.GPDBWritable;
+import org.greenplum.pxf.service.io.SerializationContext;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WriteBridgeTest {
+
+    private static final int[] SCHEMA = {
+            DataType.BIGINT.getOID(),
+            DataType.BOOLEAN.getOID(),
+            DataType.FLOAT8.getOID(),
+            DataType.INTEGER.getOID(),
+            DataType.REAL.getOID(),
+            DataType.SMALLINT.getOID(),
+            DataType.BYTEA.getOID(),
+            DataType.TEXT.getOID(),
+            DataType.TEXT.getOID(),
+            DataType.INTEGER.getOID()
+    };
+
+    private ProtocolData protocolData;
+    private byte[] input;
+
+    /**
+     * Accessor keeping the written rows.
+     */
+    public static class ListAccessor extends Plugin implements WriteAccessor {
+        List<Object> rows = new ArrayList<>();
+
+        public ListAccessor(InputData input) {
+            super(input);
+        }
+
+        @Override
+        public boolean openForWrite() {
+            return true;
+        }
+
+        @Override
+        public boolean writeNextObject(OneRow onerow) {
+            rows.add(onerow.getData());
+            return true;
+        }
+
+        @Override
+        public void closeForWrite() {
+        }
+    }
+
+    /**
+     * Resolver returning the values of the record, read with the typed
+     * getters of the view.
+     */
+    public static class ValuesResolver extends Plugin implements RecordViewWriteResolver {
+
+        public ValuesResolver(InputData input) {
+            super(input);
+        }
+
+        @Override
+        public OneRow setFields(List<OneField> record) {
+            List<Object> values = new ArrayList<>();
+            for (OneField field : record) {
+                values.add(field.val);
+            }
+            return new OneRow(values);
+        }
+
+        @Override
+        public OneRow setFields(RecordView record) {
+            List<Object> values = new ArrayList<>();
+            for (int i = 0; i < record.getColumnCount(); i++) {
+                values.add(record.isNull(i) ? null : getValue(record, i));
+            }
+            return new OneRow(values);
+        }
+
+        private Object getValue(RecordView record, int i) {
+            switch (DataType.get(record.getColumnType(i))) {
+                case BIGINT:
+                    return record.getLong(i);
+                case BOOLEAN:
+                    return record.getBoolean(i);
+                case FLOAT8:
+                    return record.getDouble(i);
+                case INTEGER:
+                    return record.getInt(i);
+                case REAL:
+                    return record.getFloat(i);
+                case SMALLINT:
+                    return record.getShort(i);
+                case BYTEA:
+                    return record.getBytes(i);
+                default:
+                    return record.getString(i);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        protocolData = mock(ProtocolData.class);
+        when(protocolData.outputFormat()).thenReturn(OutputFormat.GPDBWritable);
+        when(protocolData.getAccessor()).thenReturn(ListAccessor.class.getName());
+        when(protocolData.getResolver()).thenReturn(ValuesResolver.class.getName());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        record("first", 1).write(dos);
+        record("second, with a longer value", 2).write(dos);
+        input = bos.toByteArray();
+    }
+
+    @Test
+    public void viewAndListPathsResolveTheSameValues() throws Exception {
+        WriteBridge viewBridge = new WriteBridge(protocolData);
+        assertNotNull(viewBridge.viewResolver);
+        List<Object> viewRows = writeRecords(viewBridge);
+
+        WriteBridge listBridge = new WriteBridge(protocolData);
+        listBridge.viewResolver = null;
+        List<Object> listRows = writeRecords(listBridge);
+
+        assertEquals(2, viewRows.size());
+        assertRowsEqual(listRows, viewRows);
+    }
+
+    @Test
+    public void viewAndListPathsResolveTheSameBatches() throws Exception {
+        WriteBridge viewBridge = new WriteBridge(protocolData);
+        List<Object> viewRows = writeBatch(viewBridge);
+
+        WriteBridge listBridge = new WriteBridge(protocolData);
+        listBridge.viewResolver = null;
+        List<Object> listRows = writeBatch(listBridge);
+
+        assertEquals(2, viewRows.size());
+        assertRowsEqual(listRows, viewRows);
+    }
+
+    @Test
+    public void listPathForTextFormat() throws Exception {
+        when(protocolData.outputFormat()).thenReturn(OutputFormat.TEXT);
+        assertNull(new WriteBridge(protocolData).viewResolver);
+    }
+
+    private List<Object> writeRecords(WriteBridge bridge) throws Exception {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(input));
+        bridge.beginIteration();
+        while (bridge.setNext(in)) {
+        }
+        bridge.endIteration();
+        return ((ListAccessor) bridge.fileAccessor).rows;
+    }
+
+    private List<Object> writeBatch(WriteBridge bridge) throws Exception {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(input));
+        InputBatch batch = new InputBatch();
+        bridge.beginIteration();
+        assertFalse(bridge.readNextBatch(in, batch));
+        assertEquals(2, bridge.writeBatch(batch));
+        bridge.endIteration();
+        return ((ListAccessor) bridge.fileAccessor).rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertRowsEqual(List<Object> expected, List<Object> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            List<Object> expectedValues = (List<Object>) expected.get(i);
+            List<Object> actualValues = (List<Object>) actual.get(i);
+            assertEquals(SCHEMA.length, actualValues.size());
+            for (int col = 0; col < SCHEMA.length; col++) {
+                if (expectedValues.get(col) instanceof byte[]) {
+                    assertArrayEquals((byte[]) expectedValues.get(col), (byte[]) actualValues.get(col));
+                } else {
+                    assertEquals(expectedValues.get(col), actualValues.get(col));
+                }
+            }
+        }
+    }
+
+    private GPDBWritable record(String text, int id) throws Exception {
+        GPDBWritable record = new GPDBWritable(SCHEMA, SerializationContext.DEFAULT);
+        record.setLong(0, Long.MIN_VALUE + id);
+        record.setBoolean(1, id % 2 == 0);
+        record.setDouble(2, 3.25 * id);
+        record.setInt(3, -7 * id);
+        record.setFloat(4, 1.5f * id);
+        record.setShort(5, (short) (300 + id));
+        record.setBytes(6, new byte[]{1, 2, (byte) id});
+        record.setString(7, text);
+        record.setString(8, null);
+        record.setInt(9, null);
+        return record;
+    }
+}
@@ -0,0 +1,149 @@
+package org.greenplum.pxf.service;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.greenplum.pxf.api.OneField;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class WritePipelineTest {
+
+    private WriteBridge bridge;
+    private DataInputStream inputStream;
+    private int recordsLimit;
+    private int recordsRead;
+    private Exception readFailure;
+    private Exception writeFailure;
+    private List<Object> written;
+
+    @Before
+    public void setUp() throws Exception {
+        bridge = mock(WriteBridge.class);
+        inputStream = new DataInputStream(new ByteArrayInputStream(new byte[0]));
+        recordsRead = 0;
+        readFailure = null;
+        writeFailure = null;
+        written = new CopyOnWriteArrayList<>();
+        when(bridge.readNextBatch(any(DataInputStream.class), any(InputBatch.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                InputBatch batch = (InputBatch) invocation.getArguments()[1];
+                batch.clear();
+                for (int i = 0; i < 10; i++) {
+                    if (recordsRead == recordsLimit) {
+                        if (readFailure != null) {
+                            throw readFailure;
+                        }
+                        return false;
+                    }
+                    batch.add(Collections.singletonList(new OneField(25, "row" + recordsRead)));
+                    recordsRead++;
+                }
+                return true;
+            }
+        });
+        when(bridge.writeBatch(any(InputBatch.class))).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                if (writeFailure != null) {
+                    throw writeFailure;
+                }
+                InputBatch batch = (InputBatch) invocation.getArguments()[0];
+                for (List<OneField> record : batch.getRecords()) {
+                    written.add(record.get(0).val);
+                }
+                return batch.size();
+            }
+        });
+    }
+
+    @Test
+    public void writesAllRecordsInOrder() throws Exception {
+        recordsLimit = 1005;
+        WritePipeline pipeline = new WritePipeline(bridge, 2);
+
+        pipeline.start();
+        pipeline.readFrom(inputStream);
+        pipeline.close();
+
+        assertEquals(1005, pipeline.getRecordsWritten());
+        assertEquals(1005, written.size());
+        for (int i = 0; i < 1005; i++) {
+            assertEquals("row" + i, written.get(i));
+        }
+    }
+
+    @Test
+    public void writerFailureIsThrown() throws Exception {
+        recordsLimit = Integer.MAX_VALUE;
+        writeFailure = new IOException("write failed");
+        WritePipeline pipeline = new WritePipeline(bridge, 4);
+
+        pipeline.start();
+        try {
+            pipeline.readFrom(inputStream);
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals("write failed", e.getMessage());
+        } finally {
+            pipeline.close();
+        }
+        // the decoding stage stopped
+        assertTrue(recordsRead <= 60);
+    }
+
+    @Test
+    public void decodedRecordsAreWrittenBeforeReadFailure() throws Exception {
+        recordsLimit = 35;
+        readFailure = new IOException("bad record");
+        WritePipeline pipeline = new WritePipeline(bridge, 4);
+
+        pipeline.start();
+        try {
+            pipeline.readFrom(inputStream);
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals("bad record", e.getMessage());
+        } finally {
+            pipeline.close();
+        }
+        assertEquals(30, pipeline.getRecordsWritten());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidDepth() {
+        new WritePipeline(bridge, 0);
+    }
+}
@@ -22,6 +22,9 @@ package org.greenplum.pxf.service.io;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+
 import org.junit.Test;
 
 public class BufferWritableTest {
@@ -39,4 +42,15 @@ public class BufferWritableTest {
 
         assertArrayEquals((data1+data2).getBytes(), bw1.buf);
     }
+
+    @Test
+    public void view() throws Exception {
+        BufferWritable bw = new BufferWritable("xxabcyy".getBytes(), 2, 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bw.write(new DataOutputStream(out));
+        assertArrayEquals("abc".getBytes(), out.toByteArray());
+
+        bw.append("def".getBytes());
+        assertArrayEquals("abcdef".getBytes(), bw.buf);
+    }
 }
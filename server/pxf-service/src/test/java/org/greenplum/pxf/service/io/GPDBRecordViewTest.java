@@ -0,0 +1,195 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.greenplum.pxf.api.io.DataType;
+import org.junit.Test;
+
+public class GPDBRecordViewTest {
+
+    private static final int[] SCHEMA = {
+            DataType.BIGINT.getOID(),
+            DataType.BOOLEAN.getOID(),
+            DataType.FLOAT8.getOID(),
+            DataType.INTEGER.getOID(),
+            DataType.REAL.getOID(),
+            DataType.SMALLINT.getOID(),
+            DataType.BYTEA.getOID(),
+            DataType.TEXT.getOID(),
+            DataType.VARCHAR.getOID(),
+            DataType.INTEGER.getOID()
+    };
+
+    @Test
+    public void readAllTypes() throws Exception {
+        GPDBRecordView view = new GPDBRecordView(SerializationContext.DEFAULT);
+        view.readFields(stream(serialize(record("פרק ראשון 😀", SerializationContext.DEFAULT))));
+
+        assertFalse(view.isEmpty());
+        assertEquals(10, view.getColumnCount());
+        assertEquals(DataType.TEXT.getOID(), view.getColumnType(8));
+        assertEquals(Long.MIN_VALUE, view.getLong(0));
+        assertTrue(view.getBoolean(1));
+        assertEquals(3.25, view.getDouble(2), 0);
+        assertEquals(-7, view.getInt(3));
+        assertEquals(1.5f, view.getFloat(4), 0);
+        assertEquals(300, view.getShort(5));
+        assertArrayEquals(new byte[]{1, 2, 3}, view.getBytes(6));
+        assertEquals("פרק ראשון 😀", view.getString(7));
+        assertTrue(view.isNull(8));
+        assertNull(view.getValue(9));
+
+        byte[] utf8 = "פרק ראשון 😀".getBytes("UTF-8");
+        assertEquals(utf8.length, view.getValueLength(7));
+        byte[] slice = new byte[utf8.length];
+        System.arraycopy(view.getBuffer(), view.getValueOffset(7), slice, 0, utf8.length);
+        assertArrayEquals(utf8, slice);
+    }
+
+    @Test
+    public void alignmentOfRequest() throws Exception {
+        SerializationContext context = new SerializationContext(4);
+        GPDBRecordView view = new GPDBRecordView(context);
+        view.readFields(stream(serialize(record("a", context))));
+
+        assertEquals(Long.MIN_VALUE, view.getLong(0));
+        assertEquals(3.25, view.getDouble(2), 0);
+        assertEquals("a", view.getString(7));
+    }
+
+    @Test
+    public void viewIsReusable() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longValue.append("long value ");
+        }
+        record(longValue.toString(), SerializationContext.DEFAULT).write(dos);
+        record("short", SerializationContext.DEFAULT).write(dos);
+        DataInputStream in = stream(bos.toByteArray());
+
+        GPDBRecordView view = new GPDBRecordView(SerializationContext.DEFAULT);
+        view.readFields(in);
+        assertEquals(longValue.toString(), view.getString(7));
+        view.readFields(in);
+        assertEquals("short", view.getString(7));
+        view.readFields(in);
+        assertTrue(view.isEmpty());
+    }
+
+    @Test
+    public void writeCopiesThePacket() throws Exception {
+        byte[] packet = serialize(record("text", SerializationContext.DEFAULT));
+        GPDBRecordView view = new GPDBRecordView(SerializationContext.DEFAULT);
+        view.readFields(stream(packet));
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        view.write(new DataOutputStream(bos));
+        assertArrayEquals(packet, bos.toByteArray());
+        assertEquals(packet.length, view.getPacketLength());
+    }
+
+    @Test
+    public void typeMismatch() throws Exception {
+        GPDBRecordView view = new GPDBRecordView(SerializationContext.DEFAULT);
+        view.readFields(stream(serialize(record("text", SerializationContext.DEFAULT))));
+        try {
+            view.getInt(0);
+            fail("expected an exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Cannot get INTEGER from a BIGINT column", e.getMessage());
+        }
+        try {
+            view.getString(8);
+            fail("expected an exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Column 8 is null", e.getMessage());
+        }
+    }
+
+    @Test
+    public void errorFlag() throws Exception {
+        byte[] packet = serialize(record("text", SerializationContext.DEFAULT));
+        packet[6] = 1;
+        try {
+            new GPDBRecordView(SerializationContext.DEFAULT).readFields(stream(packet));
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertEquals("Received error value 1 from format", e.getMessage());
+        }
+    }
+
+    @Test
+    public void truncatedPacket() throws Exception {
+        byte[] packet = serialize(record("text", SerializationContext.DEFAULT));
+        GPDBRecordView view = new GPDBRecordView(SerializationContext.DEFAULT);
+        view.readFields(stream(packet));
+        /* the text length exceeds the packet */
+        packet[view.getValueOffset(7) - 2] = 1;
+        try {
+            new GPDBRecordView(SerializationContext.DEFAULT).readFields(stream(packet));
+            fail("expected an exception");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Malformed GPDBWritable packet"));
+        }
+    }
+
+    @Test
+    public void emptyStream() throws Exception {
+        GPDBRecordView view = new GPDBRecordView(SerializationContext.DEFAULT);
+        view.readFields(stream(new byte[0]));
+        assertTrue(view.isEmpty());
+        assertEquals(0, view.getColumnCount());
+    }
+
+    private GPDBWritable record(String text, SerializationContext context) throws Exception {
+        GPDBWritable record = new GPDBWritable(SCHEMA, context);
+        record.setLong(0, Long.MIN_VALUE);
+        record.setBoolean(1, true);
+        record.setDouble(2, 3.25);
+        record.setInt(3, -7);
+        record.setFloat(4, 1.5f);
+        record.setShort(5, (short) 300);
+        record.setBytes(6, new byte[]{1, 2, 3});
+        record.setString(7, text);
+        record.setString(8, null);
+        record.setInt(9, null);
+        return record;
+    }
+
+    private byte[] serialize(GPDBWritable record) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        record.write(new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    private DataInputStream stream(byte[] data) {
+        return new DataInputStream(new ByteArrayInputStream(data));
+    }
+}
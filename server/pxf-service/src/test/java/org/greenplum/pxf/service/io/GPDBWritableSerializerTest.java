@@ -0,0 +1,188 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+
+import org.greenplum.pxf.api.io.DataType;
+import org.junit.Test;
+
+public class GPDBWritableSerializerTest {
+
+    @Test
+    public void layout() throws Exception {
+        int[] schema = {DataType.INTEGER.getOID(), DataType.TEXT.getOID()};
+        GPDBWritable record = new GPDBWritable(schema);
+        record.setInt(0, 1);
+        record.setString(1, "a");
+
+        byte[] expected = {
+                0, 0, 0, 24,    // total length
+                0, 2,           // version
+                0,              // error flag
+                0, 2,           // number of columns
+                3, 7,           // INTEGER, TEXT
+                0,              // null bits
+                0, 0, 0, 1,     // int value
+                0, 0, 0, 2,     // text length
+                'a', 0,         // text value
+                0, 0            // end padding
+        };
+        assertArrayEquals(expected, serialize(record));
+    }
+
+    @Test
+    public void alignmentOfRequest() throws Exception {
+        int[] schema = {
+                DataType.INTEGER.getOID(),
+                DataType.INTEGER.getOID(),
+                DataType.INTEGER.getOID(),
+                DataType.BIGINT.getOID()
+        };
+        GPDBWritable record = new GPDBWritable(schema, new SerializationContext(4));
+        record.setInt(0, 1);
+        record.setInt(1, 2);
+        record.setInt(2, 3);
+        record.setLong(3, 4L);
+
+        byte[] expected = {
+                0, 0, 0, 36,    // total length
+                0, 2,           // version
+                0,              // error flag
+                0, 4,           // number of columns
+                3, 3, 3, 0,     // INTEGER, INTEGER, INTEGER, BIGINT
+                0,              // null bits
+                0, 0,           // padding
+                0, 0, 0, 1,     // int values
+                0, 0, 0, 2,
+                0, 0, 0, 3,
+                0, 0, 0, 0,     // bigint value, aligned on 4 bytes
+                0, 0, 0, 4
+        };
+        assertArrayEquals(expected, serialize(record));
+
+        /* The default alignment of eight bytes types is 8 */
+        record = new GPDBWritable(schema);
+        record.setInt(0, 1);
+        record.setInt(1, 2);
+        record.setInt(2, 3);
+        record.setLong(3, 4L);
+        assertEquals(40, serialize(record).length);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        int[] schema = {
+                DataType.BIGINT.getOID(),
+                DataType.BOOLEAN.getOID(),
+                DataType.FLOAT8.getOID(),
+                DataType.INTEGER.getOID(),
+                DataType.REAL.getOID(),
+                DataType.SMALLINT.getOID(),
+                DataType.BYTEA.getOID(),
+                DataType.TEXT.getOID(),
+                DataType.VARCHAR.getOID(),
+                DataType.INTEGER.getOID()
+        };
+        GPDBWritable record = new GPDBWritable(schema);
+        record.setLong(0, Long.MIN_VALUE);
+        record.setBoolean(1, true);
+        record.setDouble(2, 3.25);
+        record.setInt(3, -7);
+        record.setFloat(4, 1.5f);
+        record.setShort(5, (short) 300);
+        record.setBytes(6, new byte[]{1, 2, 3});
+        record.setString(7, "פרק ראשון 😀");
+        record.setString(8, null);
+        record.setInt(9, null);
+
+        GPDBWritable result = new GPDBWritable(serialize(record));
+
+        assertEquals(Long.valueOf(Long.MIN_VALUE), result.getLong(0));
+        assertEquals(Boolean.TRUE, result.getBoolean(1));
+        assertEquals(Double.valueOf(3.25), result.getDouble(2));
+        assertEquals(Integer.valueOf(-7), result.getInt(3));
+        assertEquals(Float.valueOf(1.5f), result.getFloat(4));
+        assertEquals(Short.valueOf((short) 300), result.getShort(5));
+        assertArrayEquals(new byte[]{1, 2, 3}, result.getBytes(6));
+        assertEquals("פרק ראשון 😀", result.getString(7));
+        assertNull(result.getString(8));
+        assertNull(result.getInt(9));
+    }
+
+    @Test
+    public void recordIsReusable() throws Exception {
+        int[] schema = {DataType.TEXT.getOID(), DataType.BIGINT.getOID()};
+        GPDBWritable record = new GPDBWritable(schema);
+
+        record.setString(0, "a much longer first value");
+        record.setLong(1, 1L);
+        serialize(record);
+
+        record.setString(0, null);
+        record.setLong(1, 2L);
+        GPDBWritable result = new GPDBWritable(serialize(record));
+
+        assertNull(result.getString(0));
+        assertEquals(Long.valueOf(2L), result.getLong(1));
+    }
+
+    @Test
+    public void unpairedSurrogateMatchesStringEncoding() throws Exception {
+        String value = "x\uD800y\uDC00z\0";
+        GPDBWritableSerializer serializer = new GPDBWritableSerializer(
+                new int[]{DataType.TEXT.getOID()}, 8);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        serializer.write(new Object[]{value}, (byte) 0, new DataOutputStream(bos));
+        byte[] packet = bos.toByteArray();
+
+        byte[] expected = value.getBytes("UTF-8");
+        int length = ((packet[12] & 0xFF) << 24) | ((packet[13] & 0xFF) << 16)
+                | ((packet[14] & 0xFF) << 8) | (packet[15] & 0xFF);
+        assertEquals(expected.length, length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], packet[16 + i]);
+        }
+    }
+
+    @Test
+    public void largeValueGrowsBuffer() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("א");
+        }
+        GPDBWritable record = new GPDBWritable(new int[]{DataType.TEXT.getOID()});
+        record.setString(0, sb.toString());
+
+        GPDBWritable result = new GPDBWritable(serialize(record));
+        assertEquals(sb.toString(), result.getString(0));
+    }
+
+    private byte[] serialize(GPDBWritable record) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        record.write(new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,110 @@
+package org.greenplum.pxf.service.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+
+import org.junit.Test;
+
+public class RecordBatchTest {
+
+    @Test
+    public void addAndWrite() throws Exception {
+        RecordBatch batch = new RecordBatch(10, 1024);
+        assertTrue(batch.isEmpty());
+
+        batch.add(new BufferWritable("first\n".getBytes()));
+        batch.add(new BufferWritable("second\n".getBytes()));
+
+        assertEquals(2, batch.size());
+        assertEquals(13, batch.getLength());
+        assertFalse(batch.isFull());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        batch.write(new DataOutputStream(bos));
+        assertEquals("first\nsecond\n", bos.toString());
+    }
+
+    @Test
+    public void fullByRecords() throws Exception {
+        RecordBatch batch = new RecordBatch(2, 1024);
+        batch.add(new BufferWritable("a".getBytes()));
+        assertFalse(batch.isFull());
+        batch.add(new BufferWritable("b".getBytes()));
+        assertTrue(batch.isFull());
+    }
+
+    @Test
+    public void fullByBytes() throws Exception {
+        RecordBatch batch = new RecordBatch(100, 4);
+        batch.add(new BufferWritable("abc".getBytes()));
+        assertFalse(batch.isFull());
+        batch.add(new BufferWritable("def".getBytes()));
+        assertTrue(batch.isFull());
+        assertEquals(6, batch.getLength());
+    }
+
+    @Test
+    public void clearReusesBatch() throws Exception {
+        RecordBatch batch = new RecordBatch(2, 1024);
+        batch.add(new BufferWritable("old".getBytes()));
+        batch.add(new BufferWritable("old".getBytes()));
+        batch.clear();
+
+        assertTrue(batch.isEmpty());
+        assertEquals(0, batch.getLength());
+
+        batch.add(new BufferWritable("new".getBytes()));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        batch.write(new DataOutputStream(bos));
+        assertEquals("new", bos.toString());
+    }
+
+    @Test
+    public void recordIsSerializedWhenAdded() throws Exception {
+        RecordBatch batch = new RecordBatch();
+        GPDBWritable record = new GPDBWritable(new int[]{23});
+        record.setInt(0, 1);
+        batch.add(record);
+        // the output builder reuses the same record for the next row
+        record.setInt(0, 2);
+        batch.add(record);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(expected);
+        record.setInt(0, 1);
+        record.write(dos);
+        record.setInt(0, 2);
+        record.write(dos);
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        batch.write(new DataOutputStream(actual));
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidLimits() {
+        new RecordBatch(0, 1024);
+    }
+}
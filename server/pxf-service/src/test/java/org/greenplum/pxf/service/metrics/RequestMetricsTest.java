@@ -0,0 +1,165 @@
+package org.greenplum.pxf.service.metrics;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.greenplum.pxf.service.PipelineStats;
+import org.junit.Test;
+
+public class RequestMetricsTest {
+
+    @Test
+    public void requestIsAggregatedInItsProfile() {
+        OperationMetrics read = MetricsRegistry.getProfileMetrics("TestAggregation")
+                .getOperationMetrics(RequestMetrics.Operation.READ);
+
+        RequestMetrics metrics = new RequestMetrics(RequestMetrics.Operation.READ, "TestAggregation");
+        metrics.addRecords(10);
+        metrics.addBytes(100);
+        metrics.finish(false);
+        // a second call has no effect
+        metrics.finish(true);
+
+        metrics = new RequestMetrics(RequestMetrics.Operation.READ, "TestAggregation");
+        metrics.addRecords(5);
+        metrics.finish(true);
+
+        assertEquals(2, read.getRequests());
+        assertEquals(1, read.getErrors());
+        assertEquals(15, read.getRecords());
+        assertEquals(100, read.getBytes());
+        assertEquals(2, read.getDuration().getCount());
+        assertEquals(0, MetricsRegistry.getProfileMetrics("TestAggregation")
+                .getOperationMetrics(RequestMetrics.Operation.WRITE).getRequests());
+    }
+
+    @Test
+    public void stagesAreSampled() throws Exception {
+        RequestMetrics metrics = new RequestMetrics(RequestMetrics.Operation.READ, "TestSampling");
+        int timed = 0;
+        for (int i = 0; i < 2 * RequestMetrics.SAMPLE_INTERVAL; i++) {
+            metrics.nextRow();
+            long start = metrics.startStage();
+            if (start != 0) {
+                timed++;
+                Thread.sleep(1);
+            }
+            metrics.endAccessorStage(start);
+        }
+
+        assertEquals(2, timed);
+        // each timed stage accounts for SAMPLE_INTERVAL records
+        assertTrue(metrics.getAccessorNanos() >= 2 * RequestMetrics.SAMPLE_INTERVAL * 1000000L);
+        assertEquals(0, metrics.getResolverNanos());
+    }
+
+    @Test
+    public void disabledMetricsAreNotRecorded() {
+        RequestMetrics metrics = RequestMetrics.disabled();
+        for (int i = 0; i < 2 * RequestMetrics.SAMPLE_INTERVAL; i++) {
+            metrics.nextRow();
+            assertEquals(0, metrics.startStage());
+        }
+        metrics.finish(false);
+        assertEquals(-1, metrics.getDurationNanos());
+    }
+
+    @Test
+    public void meteredStreams() throws Exception {
+        RequestMetrics metrics = new RequestMetrics(RequestMetrics.Operation.READ, "TestStreams");
+        DataOutputStream out = new DataOutputStream(
+                new MeteredOutputStream(new ByteArrayOutputStream(), metrics));
+        out.writeInt(1);
+        out.write(new byte[10]);
+        assertEquals(14, metrics.getBytes());
+
+        metrics = new RequestMetrics(RequestMetrics.Operation.WRITE, "TestStreams");
+        MeteredInputStream in = new MeteredInputStream(new ByteArrayInputStream(new byte[10]), metrics);
+        assertEquals(0, in.read());
+        assertEquals(9, in.read(new byte[20], 0, 20));
+        assertEquals(-1, in.read());
+        assertEquals(10, metrics.getBytes());
+
+        metrics.finish(false);
+        assertTrue(metrics.getFirstByteNanos() <= metrics.getDurationNanos());
+    }
+
+    @Test
+    public void snapshot() {
+        new RequestMetrics(RequestMetrics.Operation.FRAGMENTS, "TestSnapshot").finish(false);
+        PipelineStats.forProfile("TestSnapshot");
+
+        Map<String, Object> snapshot = MetricsRegistry.getSnapshot();
+        assertTrue(snapshot.containsKey("admission"));
+        assertTrue(snapshot.containsKey("locks"));
+        assertTrue(snapshot.containsKey("fragmentsCache"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Map<String, Number>>> profiles =
+                (Map<String, Map<String, Map<String, Number>>>) snapshot.get("profiles");
+        assertEquals(Long.valueOf(1), profiles.get("TestSnapshot").get("fragments").get("requests"));
+        assertEquals(Double.valueOf(0), profiles.get("TestSnapshot").get("pipeline").get("averageQueueDepth"));
+    }
+
+    @Test
+    public void requestWithoutProfileIsAggregatedInItsPlugin() {
+        RequestMetrics metrics = new RequestMetrics(RequestMetrics.Operation.READ, null);
+        metrics.setPlugin("java.lang.StringBuilder");
+        metrics.finish(false);
+        assertEquals("java.lang.StringBuilder", metrics.getProfile());
+
+        // the plugin class sent by the client could not be created
+        metrics = new RequestMetrics(RequestMetrics.Operation.READ, null);
+        metrics.finish(true);
+        assertEquals(RequestMetrics.UNKNOWN_PROFILE, metrics.getProfile());
+    }
+
+    @Test
+    public void numberOfProfilesIsBounded() {
+        System.setProperty(MetricsRegistry.PROPERTY_KEY_MAX_PROFILES, "0");
+        try {
+            ProfileMetrics metrics = MetricsRegistry.getProfileMetrics("TestBound");
+            assertEquals(MetricsRegistry.OTHER_PROFILE, metrics.getProfile());
+        } finally {
+            System.clearProperty(MetricsRegistry.PROPERTY_KEY_MAX_PROFILES);
+        }
+    }
+
+    @Test
+    public void mbeansAreUnregistered() throws Exception {
+        MetricsRegistry.getProfileMetrics("TestUnregister");
+        ObjectName name = new ObjectName(MetricsRegistry.JMX_DOMAIN
+                + ":type=ProfileMetrics,name=" + ObjectName.quote("TestUnregister"));
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+
+        MetricsRegistry.unregisterAll();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,90 @@
+package org.greenplum.pxf.service.servlet;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.greenplum.pxf.service.AdmissionController;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class AdmissionControlFilterTest {
+
+    private AdmissionControlFilter filter;
+    private HttpServletRequest servletRequest;
+    private HttpServletResponse servletResponse;
+    private FilterChain chain;
+
+    @Before
+    public void setup() {
+        filter = new AdmissionControlFilter();
+        filter.admissionController = mock(AdmissionController.class);
+        servletRequest = mock(HttpServletRequest.class);
+        servletResponse = mock(HttpServletResponse.class);
+        chain = mock(FilterChain.class);
+        when(servletRequest.getHeader("X-GP-USER")).thenReturn("alice");
+        when(servletRequest.getHeader("X-GP-OPTIONS-PROFILE")).thenReturn("HdfsTextSimple");
+        when(servletRequest.getHeader("X-GP-DATA-DIR")).thenReturn("/data");
+    }
+
+    @Test
+    public void admittedRequestIsReleased() throws Exception {
+        AdmissionController.Ticket ticket = mock(AdmissionController.Ticket.class);
+        when(filter.admissionController.admit("alice", "HdfsTextSimple", "/data")).thenReturn(ticket);
+
+        filter.doFilter(servletRequest, servletResponse, chain);
+
+        verify(chain).doFilter(servletRequest, servletResponse);
+        verify(ticket).release();
+    }
+
+    @Test
+    public void ticketIsReleasedWhenChainFails() throws Exception {
+        AdmissionController.Ticket ticket = mock(AdmissionController.Ticket.class);
+        when(filter.admissionController.admit(anyString(), anyString(), anyString())).thenReturn(ticket);
+        doThrow(new ServletException("failed")).when(chain).doFilter(servletRequest, servletResponse);
+
+        try {
+            filter.doFilter(servletRequest, servletResponse, chain);
+        } catch (ServletException e) {
+            // expected
+        }
+        verify(ticket).release();
+    }
+
+    @Test
+    public void rejectedRequestIsUnavailable() throws Exception {
+        filter.doFilter(servletRequest, servletResponse, chain);
+
+        verify(servletResponse).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                "PXF server is overloaded, the request was not admitted in time");
+        verifyZeroInteractions(chain);
+    }
+}